@@ -144,6 +144,7 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.POST,  ApiPaths.TASKS).hasRole("USER")
                                 .requestMatchers(HttpMethod.GET,   ApiPaths.TASKS_ALL).permitAll()
                 .requestMatchers(HttpMethod.PATCH, ApiPaths.TASKS_STATUS).hasRole("WORKER")
+                .requestMatchers(HttpMethod.PATCH, ApiPaths.TASKS_STATUS_BATCH).hasRole("WORKER")
                 .anyRequest().authenticated()
             )
             .exceptionHandling(ex -> ex
@@ -47,6 +47,7 @@ public final class ApiPaths {
     public static final String TASKS            = "/api/v1/tasks";
     public static final String TASKS_ALL        = "/api/v1/tasks/**";
     public static final String TASKS_STATUS     = "/api/v1/tasks/status";
+    public static final String TASKS_STATUS_BATCH = "/api/v1/tasks/status:batch";
 
     // ── Internal ───────────────────────────────────────────────────────
     public static final String INTERNAL_WORKER_HEARTBEAT = "/api/v1/internal/worker/heartbeat";
@@ -3,10 +3,12 @@ package com.fleebug.corerouter.controller.billing;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
 import com.fleebug.corerouter.dto.billing.request.CreateBillingConfigRequest;
+import com.fleebug.corerouter.dto.billing.request.RecordUsageBatchRequest;
 import com.fleebug.corerouter.dto.billing.request.RecordUsageRequest;
 import com.fleebug.corerouter.dto.billing.request.UpdateBillingConfigRequest;
 import com.fleebug.corerouter.dto.billing.response.BillingConfigResponse;
 import com.fleebug.corerouter.dto.billing.response.BillingInsightsResponse;
+import com.fleebug.corerouter.dto.billing.response.UsageBatchItemResponse;
 import com.fleebug.corerouter.dto.billing.response.UsageRecordResponse;
 import com.fleebug.corerouter.dto.billing.response.UsageSummaryResponse;
 import com.fleebug.corerouter.dto.billing.response.EarningsDataResponse;
@@ -426,6 +428,31 @@ public ResponseEntity<ApiResponse<List<TransactionResponse>>> getTransactionHist
                 .body(ApiResponse.success(HttpStatus.CREATED, "Usage recorded successfully", response, request));
     }
 
+    /**
+     * Record usage for one or many tasks in one call.
+     *
+     * @param batchRequest usage records to record
+     * @param request      HTTP servlet request
+     * @return one result per record, in request order
+     */
+    @Operation(summary = "Record usage batch", description = "Record every unit of one or many tasks in one call. Returns one result per record, in request order; a rejected record does not affect the others.")
+    @ApiResponses({
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Usage batch processed"),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid request")
+    })
+    @PostMapping("/usage:batch")
+    @PreAuthorize("hasAnyRole('ADMIN','WORKER')")
+    public ResponseEntity<ApiResponse<List<UsageBatchItemResponse>>> recordUsageBatch(
+            @Valid @RequestBody RecordUsageBatchRequest batchRequest,
+            HttpServletRequest request) {
+
+        telemetryClient.trackEvent("UsageBatchRecord", Map.of("size", String.valueOf(batchRequest.getRecords().size())), null);
+
+        List<UsageBatchItemResponse> results = usageService.recordUsageBatch(batchRequest.getRecords());
+
+        return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Usage batch processed", results, request));
+    }
+
     // ---- Usage Queries (admin) ----
 
     /**
@@ -15,6 +15,7 @@ import com.fleebug.corerouter.entity.user.User;
 import com.fleebug.corerouter.enums.payment.TransactionStatus;
 import com.fleebug.corerouter.enums.payment.TransactionType;
 import com.fleebug.corerouter.security.details.CustomUserDetails;
+import com.fleebug.corerouter.service.billing.BillingLedgerService;
 import com.fleebug.corerouter.service.billing.UsageService;
 import com.fleebug.corerouter.service.payment.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -45,6 +46,7 @@ public class UserBillingController {
 
     private final UsageService usageService;
     private final TransactionService transactionService;
+    private final BillingLedgerService billingLedgerService;
     private final TelemetryClient telemetryClient;
 
     /**
@@ -208,7 +210,7 @@ public class UserBillingController {
 
         UserBillingInsightsResponse insights = usageService.getUserBillingInsights(
             user.getUserId(),
-            user.getBalance()
+            billingLedgerService.currentBalance(user.getUserId())
         );
 
         return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Billing insights retrieved successfully", insights, request));
@@ -285,7 +287,6 @@ public class UserBillingController {
 
         UserBalanceHistoryResponse response = transactionService.getUserBalanceHistory(
             user.getUserId(),
-            user.getBalance(),
             dateRange.from(),
             dateRange.to(),
             dateRange.period()
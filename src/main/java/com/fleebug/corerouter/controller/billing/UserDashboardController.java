@@ -6,6 +6,7 @@ import com.fleebug.corerouter.dto.billing.response.UserUsageByModelTypeResponse;
 import com.fleebug.corerouter.dto.common.ApiResponse;
 import com.fleebug.corerouter.entity.user.User;
 import com.fleebug.corerouter.security.details.CustomUserDetails;
+import com.fleebug.corerouter.service.billing.BillingLedgerService;
 import com.fleebug.corerouter.service.billing.UsageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -30,6 +31,7 @@ import java.time.LocalDateTime;
 public class UserDashboardController {
 
     private final UsageService usageService;
+    private final BillingLedgerService billingLedgerService;
 
     @Operation(summary = "Get dashboard insights", description = "Returns top card insights: balance, active API keys, tasks this month, and today's consumption")
     @ApiResponses({
@@ -43,7 +45,7 @@ public class UserDashboardController {
 
         UserDashboardInsightsResponse response = usageService.getUserDashboardInsights(
                 user.getUserId(),
-                user.getBalance()
+                billingLedgerService.currentBalance(user.getUserId())
         );
 
         return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "User dashboard insights retrieved successfully", response, request));
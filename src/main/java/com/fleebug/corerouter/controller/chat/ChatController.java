@@ -13,10 +13,8 @@ import com.fleebug.corerouter.entity.model.Model;
 import com.fleebug.corerouter.entity.task.Task;
 import com.fleebug.corerouter.exception.model.ModelNotFoundException;
 import com.fleebug.corerouter.entity.apikey.ApiKey;
-import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
-import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
 import com.fleebug.corerouter.repository.model.ModelRepository;
-import com.fleebug.corerouter.service.apikey.ApiKeyService;
+import com.fleebug.corerouter.service.apikey.ApiKeyResolver;
 import com.fleebug.corerouter.service.task.TaskService;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -43,14 +41,10 @@ public class ChatController {
 
     private final TaskService taskService;
     private final ModelRepository modelRepository;
-    private final ApiKeyRepository apiKeyRepository;
-    private final ApiKeyService apiKeyService;
+    private final ApiKeyResolver apiKeyResolver;
     private final ObjectMapper objectMapper;
     private final TelemetryClient telemetryClient;
 
-    private static final String AUTHORIZATION_HEADER = "Authorization";
-    private static final String BEARER_PREFIX = "Bearer ";
-
     @Operation(summary = "Chat completions", description = "Submit a chat completion request to the specified LLM model. Requires 'Authorization: Bearer <API_KEY>' header.")
     @PostMapping("/completions")
     public ResponseEntity<ApiResponse<TaskAsyncResponse>> chatCompletions(
@@ -61,7 +55,7 @@ public class ChatController {
         properties.put("model", chatRequest.getModel());
         telemetryClient.trackTrace("Chat completion request", SeverityLevel.Information, properties);
 
-        ApiKey apiKey = requireApiKey(request);
+        ApiKey apiKey = apiKeyResolver.requireActiveApiKey(request);
         Model model = modelRepository.findByFullname(chatRequest.getModel())
                 .orElseThrow(() -> new ModelNotFoundException("fullname", chatRequest.getModel()));
 
@@ -83,24 +77,4 @@ public class ChatController {
         return ResponseEntity.status(HttpStatus.ACCEPTED)
                 .body(ApiResponse.success(HttpStatus.ACCEPTED, "Task enqueued successfully", data, request));
     }
-
-    private ApiKey requireApiKey(HttpServletRequest request) {
-        String authHeader = request.getHeader(AUTHORIZATION_HEADER);
-        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
-            throw new IllegalArgumentException("Missing or invalid Authorization header. Expected 'Bearer <API_KEY>'");
-        }
-
-        String token = authHeader.substring(BEARER_PREFIX.length()).trim();
-        // Hash the token before looking it up, as we only store the hash
-        String hashedToken = apiKeyService.hashKey(token);
-
-        ApiKey apiKey = apiKeyRepository.findByKey(hashedToken)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid API Key"));
-
-        if (apiKey.getStatus() != ApiKeyStatus.ACTIVE) {
-            throw new IllegalArgumentException("API Key is not active");
-        }
-       
-        return apiKey;
-    }
 }
@@ -3,6 +3,8 @@ package com.fleebug.corerouter.controller.health;
 import com.fleebug.corerouter.dto.common.ApiResponse;
 import com.fleebug.corerouter.service.health.AzureInsightsService;
 import com.fleebug.corerouter.service.health.HealthCheckService;
+import com.fleebug.corerouter.service.redis.LocalRateLimitTier;
+import com.fleebug.corerouter.util.HttpClientUtil;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -32,6 +34,8 @@ public class AdminTechnicalController {
 
     private final HealthCheckService healthCheckService;
     private final AzureInsightsService azureInsightsService;
+    private final HttpClientUtil httpClientUtil;
+    private final LocalRateLimitTier localRateLimitTier;
 
     @GetMapping("/health")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getHealth(HttpServletRequest request) {
@@ -96,6 +100,16 @@ public class AdminTechnicalController {
                 ));
     }
 
+    @GetMapping("/http-pools")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getHttpPools(HttpServletRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "HTTP connection pool stats fetched successfully", httpClientUtil.poolStats(), request));
+    }
+
+    @GetMapping("/rate-limit-tier")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getRateLimitTier(HttpServletRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Rate limit tier stats fetched successfully", localRateLimitTier.stats(), request));
+    }
+
     @GetMapping("/overview")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getOverview(
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
@@ -3,10 +3,7 @@ package com.fleebug.corerouter.controller.ocr;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
 import com.fleebug.corerouter.dto.common.ApiResponse;
-import com.fleebug.corerouter.entity.apikey.ApiKey;
-import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
-import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
-import com.fleebug.corerouter.service.apikey.ApiKeyService;
+import com.fleebug.corerouter.service.apikey.ApiKeyResolver;
 import com.fleebug.corerouter.service.ocr.OcrService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -28,12 +25,8 @@ import java.util.Map;
 @Tag(name = "OCR", description = "OCR endpoints")
 public class OcrController {
 
-    private static final String AUTHORIZATION_HEADER = "Authorization";
-    private static final String BEARER_PREFIX = "Bearer ";
-
     private final OcrService ocrService;
-    private final ApiKeyRepository apiKeyRepository;
-    private final ApiKeyService apiKeyService;
+    private final ApiKeyResolver apiKeyResolver;
     private final TelemetryClient telemetryClient;
 
     @Operation(
@@ -49,28 +42,9 @@ public class OcrController {
         properties.put("provider", "ocr.space");
         telemetryClient.trackTrace("OCR parse image URL request", SeverityLevel.Information, properties);
 
-        requireApiKey(request);
+        apiKeyResolver.requireActiveApiKey(request);
 
         Map<String, Object> ocrResponse = ocrService.parseImageUrl(imageUrl);
         return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "OCR parsed successfully", ocrResponse, request));
     }
-
-    private ApiKey requireApiKey(HttpServletRequest request) {
-        String authHeader = request.getHeader(AUTHORIZATION_HEADER);
-        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
-            throw new IllegalArgumentException("Missing or invalid Authorization header. Expected 'Bearer <API_KEY>'");
-        }
-
-        String token = authHeader.substring(BEARER_PREFIX.length()).trim();
-        String hashedToken = apiKeyService.hashKey(token);
-
-        ApiKey apiKey = apiKeyRepository.findByKey(hashedToken)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid API Key"));
-
-        if (apiKey.getStatus() != ApiKeyStatus.ACTIVE) {
-            throw new IllegalArgumentException("API Key is not active");
-        }
-
-        return apiKey;
-    }
-}
\ No newline at end of file
+}
@@ -1,10 +1,7 @@
 package com.fleebug.corerouter.controller.speech;
 
 import com.fleebug.corerouter.dto.common.ApiResponse;
-import com.fleebug.corerouter.entity.apikey.ApiKey;
-import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
-import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
-import com.fleebug.corerouter.service.apikey.ApiKeyService;
+import com.fleebug.corerouter.service.apikey.ApiKeyResolver;
 import com.fleebug.corerouter.service.speech.SpeechToTextService;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
@@ -30,12 +27,8 @@ import java.util.Map;
 @Tag(name = "Speech To Text", description = "Speech-to-text endpoints")
 public class SpeechToTextController {
 
-    private static final String AUTHORIZATION_HEADER = "Authorization";
-    private static final String BEARER_PREFIX = "Bearer ";
-
     private final SpeechToTextService speechToTextService;
-    private final ApiKeyRepository apiKeyRepository;
-    private final ApiKeyService apiKeyService;
+    private final ApiKeyResolver apiKeyResolver;
     private final TelemetryClient telemetryClient;
 
     @Operation(
@@ -51,7 +44,7 @@ public class SpeechToTextController {
         properties.put("provider", "rev.ai");
         telemetryClient.trackTrace("Speech-to-text create job request", SeverityLevel.Information, properties);
 
-        requireApiKey(request);
+        apiKeyResolver.requireActiveApiKey(request);
         validatePayload(requestPayload);
 
         Map<String, Object> providerResponse = speechToTextService.createJob(requestPayload);
@@ -67,7 +60,7 @@ public class SpeechToTextController {
             @PathVariable String jobId,
             HttpServletRequest request) {
 
-        requireApiKey(request);
+        apiKeyResolver.requireActiveApiKey(request);
         Map<String, Object> providerResponse = speechToTextService.getJob(jobId);
         return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Speech-to-text job fetched", providerResponse, request));
     }
@@ -81,7 +74,7 @@ public class SpeechToTextController {
             @PathVariable String jobId,
             HttpServletRequest request) {
 
-        requireApiKey(request);
+        apiKeyResolver.requireActiveApiKey(request);
         Map<String, Object> providerResponse = speechToTextService.getTranscript(jobId);
         return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Speech-to-text transcript fetched", providerResponse, request));
     }
@@ -95,7 +88,7 @@ public class SpeechToTextController {
             @PathVariable String jobId,
             HttpServletRequest request) {
 
-        requireApiKey(request);
+        apiKeyResolver.requireActiveApiKey(request);
         Map<String, Object> providerResponse = speechToTextService.getTranscriptText(jobId);
         return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Speech-to-text text fetched", providerResponse, request));
     }
@@ -115,23 +108,4 @@ public class SpeechToTextController {
             throw new IllegalArgumentException("source_config.url is required");
         }
     }
-
-    private ApiKey requireApiKey(HttpServletRequest request) {
-        String authHeader = request.getHeader(AUTHORIZATION_HEADER);
-        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
-            throw new IllegalArgumentException("Missing or invalid Authorization header. Expected 'Bearer <API_KEY>'");
-        }
-
-        String token = authHeader.substring(BEARER_PREFIX.length()).trim();
-        String hashedToken = apiKeyService.hashKey(token);
-
-        ApiKey apiKey = apiKeyRepository.findByKey(hashedToken)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid API Key"));
-
-        if (apiKey.getStatus() != ApiKeyStatus.ACTIVE) {
-            throw new IllegalArgumentException("API Key is not active");
-        }
-
-        return apiKey;
-    }
-}
\ No newline at end of file
+}
@@ -5,15 +5,18 @@ package com.fleebug.corerouter.controller.task;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.fleebug.corerouter.dto.common.ApiResponse;
 import com.fleebug.corerouter.dto.task.request.TaskCreateRequest;
+import com.fleebug.corerouter.dto.task.request.TaskStatusBatchUpdateRequest;
 import com.fleebug.corerouter.dto.task.request.TaskStatusUpdateRequest;
 import com.fleebug.corerouter.dto.task.response.TaskAsyncResponse;
+import com.fleebug.corerouter.dto.task.response.TaskEventResponse;
+import com.fleebug.corerouter.dto.task.response.TaskStatusBatchItemResponse;
 import com.fleebug.corerouter.dto.task.response.TaskStatusResponse;
 import com.fleebug.corerouter.entity.apikey.ApiKey;
 import com.fleebug.corerouter.entity.task.Task;
-import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
-import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
-import com.fleebug.corerouter.service.apikey.ApiKeyService;
+import com.fleebug.corerouter.service.apikey.ApiKeyResolver;
+import com.fleebug.corerouter.service.task.TaskEventBroker;
 import com.fleebug.corerouter.service.task.TaskService;
+import com.fleebug.corerouter.service.task.TaskState;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -21,7 +24,9 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -30,10 +35,17 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RestController
 @RequestMapping("/api/v1/tasks")
@@ -41,16 +53,19 @@ import java.util.Map;
 @Tag(name = "Tasks", description = "Async task management — create, poll status, and update results")
 public class TaskController {
 
-    private static final String AUTHORIZATION_HEADER = "Authorization";
-    private static final String BEARER_PREFIX = "Bearer ";
-
     private final TaskService taskService;
-    private final ApiKeyRepository apiKeyRepository;
-    private final ApiKeyService apiKeyService;
+    private final ApiKeyResolver apiKeyResolver;
+    private final TaskEventBroker taskEventBroker;
     
     private final ObjectMapper objectMapper;
     private final TelemetryClient telemetryClient;
 
+    @Value("${task.events.sse-timeout-ms:300000}")
+    private long sseTimeoutMs;
+
+    @Value("${task.long-poll.max-wait-seconds:30}")
+    private int maxWaitSeconds;
+
     /**
      * @deprecated This method is generic and works, but it is **encouraged** 
      * to use the respective chat or OCR endpoint to complete the task properly.
@@ -89,9 +104,9 @@ public class TaskController {
         properties.put("taskId", taskId);
         // telemetryClient.trackTrace("Task status request", SeverityLevel.Verbose, properties);
 
-        ApiKey apiKey = requireApiKey(httpRequest);
+        ApiKey apiKey = apiKeyResolver.requireActiveApiKey(httpRequest);
 
-        Task task = taskService.getTaskById(taskId);
+        Task task = taskService.getTaskWithResult(taskId);
 
         if (!task.getApiKey().getApiKeyId().equals(apiKey.getApiKeyId())) {
             throw new IllegalArgumentException("This API key does not have permission to access this task");
@@ -115,6 +130,77 @@ public class TaskController {
         return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Task status retrieved successfully", taskStatusResponse, httpRequest));
     }
 
+    @Operation(summary = "Stream task events", description = "Server-sent events with the task's status transitions and partial results. The first event is the current state; the stream closes once the task is COMPLETED or FAILED.")
+    @GetMapping(value = "/{taskId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTaskEvents(
+            @Parameter(description = "Task ID", example = "abc-123") @PathVariable String taskId,
+            HttpServletRequest httpRequest) {
+
+        ApiKey apiKey = apiKeyResolver.requireActiveApiKey(httpRequest);
+
+        // Async response: no servlet thread is held while the stream is open
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+
+        // Subscribe before the initial read so a transition in between is not missed
+        Runnable unsubscribe = taskEventBroker.subscribe(taskId, event -> sendTaskEvent(emitter, event));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe.run());
+
+        TaskState state = readOwnedTaskState(taskId, apiKey, unsubscribe);
+
+        sendTaskEvent(emitter, TaskEventResponse.builder()
+                .taskId(state.taskId())
+                .status(state.status())
+                .result(parseResult(state.resultPayload(), Map.of("taskId", taskId)))
+                .build());
+
+        return emitter;
+    }
+
+    @Operation(summary = "Wait for task completion", description = "Long-poll variant of Get task status. Returns as soon as the task is COMPLETED or FAILED, or with the latest known status once 'wait' seconds have passed.")
+    @GetMapping(value = "/{taskId}", params = "wait")
+    public DeferredResult<ResponseEntity<ApiResponse<TaskStatusResponse>>> waitForTask(
+            @Parameter(description = "Task ID", example = "abc-123") @PathVariable String taskId,
+            @Parameter(description = "Maximum seconds to wait for a terminal status", example = "20") @RequestParam("wait") int waitSeconds,
+            HttpServletRequest httpRequest) {
+
+        ApiKey apiKey = apiKeyResolver.requireActiveApiKey(httpRequest);
+
+        long waitMs = TimeUnit.SECONDS.toMillis(Math.clamp(waitSeconds, 0, maxWaitSeconds));
+        DeferredResult<ResponseEntity<ApiResponse<TaskStatusResponse>>> deferred = new DeferredResult<>(waitMs);
+        AtomicReference<TaskStatusResponse> latest = new AtomicReference<>();
+
+        // Parked requests hold neither a servlet thread nor a DB connection; the completion event wakes them
+        Runnable unsubscribe = taskEventBroker.subscribe(taskId, event -> {
+            TaskStatusResponse status = TaskStatusResponse.builder()
+                    .status(event.getStatus())
+                    .result(event.getResult())
+                    .build();
+            latest.set(status);
+            if (event.isTerminal()) {
+                deferred.setResult(taskStatusOk(status, httpRequest));
+            }
+        });
+        deferred.onCompletion(unsubscribe);
+        deferred.onTimeout(() -> deferred.setResult(taskStatusOk(latest.get(), httpRequest)));
+
+        TaskState state = readOwnedTaskState(taskId, apiKey, unsubscribe);
+
+        TaskStatusResponse current = TaskStatusResponse.builder()
+                .status(state.status())
+                .result(parseResult(state.resultPayload(), Map.of("taskId", taskId)))
+                .build();
+
+        // Keep an event that arrived during the read; it is newer than the row
+        latest.compareAndSet(null, current);
+        if (state.isTerminal() || waitMs == 0) {
+            deferred.setResult(taskStatusOk(latest.get(), httpRequest));
+        }
+
+        return deferred;
+    }
+
     @Operation(summary = "Update task status", description = "Update the status and optionally the result of a task")
     @PatchMapping("/status")
     @PreAuthorize("hasRole('WORKER')")
@@ -147,23 +233,63 @@ public class TaskController {
         return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Task status updated successfully", taskStatusResponse, httpRequest));
     }
 
-    private ApiKey requireApiKey(HttpServletRequest request) {
-        String authHeader = request.getHeader(AUTHORIZATION_HEADER);
-        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
-            throw new IllegalArgumentException("Missing or invalid Authorization header. Expected 'Bearer <API_KEY>'");
-        }
+    @Operation(summary = "Batch update task status", description = "Apply several status updates in one call. Returns one result per update, in request order; a rejected update does not affect the others.")
+    @PatchMapping("/status:batch")
+    @PreAuthorize("hasRole('WORKER')")
+    public ResponseEntity<ApiResponse<List<TaskStatusBatchItemResponse>>> updateTaskStatusBatch(
+            @Valid @RequestBody TaskStatusBatchUpdateRequest request,
+            HttpServletRequest httpRequest) {
 
-        String token = authHeader.substring(BEARER_PREFIX.length()).trim();
-        String hashedToken = apiKeyService.hashKey(token);
+        telemetryClient.trackEvent("TaskStatusBatchUpdate", Map.of("size", String.valueOf(request.getUpdates().size())), null);
 
-        ApiKey apiKey = apiKeyRepository.findByKey(hashedToken)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid API Key"));
+        List<TaskStatusBatchItemResponse> results = taskService.updateTaskStatusBatch(request.getUpdates());
 
-        if (apiKey.getStatus() != ApiKeyStatus.ACTIVE) {
-            throw new IllegalArgumentException("API Key is not active");
+        return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Task status batch processed", results, httpRequest));
+    }
+
+    private void sendTaskEvent(SseEmitter emitter, TaskEventResponse event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(event.getStatus().name().toLowerCase())
+                    .data(event, MediaType.APPLICATION_JSON));
+            if (event.isTerminal()) {
+                emitter.complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away or the stream already completed
+            emitter.completeWithError(e);
         }
+    }
 
-        return apiKey;
+    private TaskState readOwnedTaskState(String taskId, ApiKey apiKey, Runnable unsubscribe) {
+        TaskState state;
+        try {
+            state = taskService.getTaskState(taskId);
+        } catch (RuntimeException e) {
+            unsubscribe.run();
+            throw e;
+        }
+
+        if (!state.apiKeyId().equals(apiKey.getApiKeyId())) {
+            unsubscribe.run();
+            throw new IllegalArgumentException("This API key does not have permission to access this task");
+        }
+        return state;
+    }
+
+    private ResponseEntity<ApiResponse<TaskStatusResponse>> taskStatusOk(TaskStatusResponse status, HttpServletRequest httpRequest) {
+        return ResponseEntity.ok(ApiResponse.success(HttpStatus.OK, "Task status retrieved successfully", status, httpRequest));
     }
-}
 
+    private Object parseResult(String resultPayload, Map<String, String> properties) {
+        if (resultPayload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(resultPayload, Object.class);
+        } catch (Exception e) {
+            telemetryClient.trackException(e, properties, null);
+            return resultPayload;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.fleebug.corerouter.dto.billing.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(
+    title = "Record Usage Batch Request",
+    description = "Usage records for one or many tasks recorded in one call. Each record is validated and reported individually.",
+    example = "{\"records\": [{\"taskId\": \"abc-123\", \"usageUnitType\": \"INPUT_TOKENS\", \"quantity\": 1200}, {\"taskId\": \"abc-123\", \"usageUnitType\": \"OUTPUT_TOKENS\", \"quantity\": 300}]}"
+)
+public class RecordUsageBatchRequest {
+
+    @Schema(description = "Usage records to record", requiredMode = RequiredMode.REQUIRED)
+    @NotEmpty(message = "records must not be empty")
+    @Size(max = 500, message = "At most 500 records are accepted per batch")
+    private List<@Valid RecordUsageRequest> records;
+}
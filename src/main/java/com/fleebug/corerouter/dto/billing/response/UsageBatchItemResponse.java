@@ -0,0 +1,51 @@
+package com.fleebug.corerouter.dto.billing.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fleebug.corerouter.enums.billing.UsageUnitType;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+    title = "Usage Batch Item Response",
+    description = "Outcome of one record in a batch usage recording",
+    example = "{\"taskId\": \"abc-123\", \"usageUnitType\": \"INPUT_TOKENS\", \"success\": true, \"cost\": 0.036}"
+)
+public class UsageBatchItemResponse {
+
+    @Schema(description = "Task ID from the record", requiredMode = RequiredMode.REQUIRED, example = "abc-123")
+    private String taskId;
+
+    @Schema(description = "Unit type from the record", requiredMode = RequiredMode.REQUIRED, example = "INPUT_TOKENS")
+    private UsageUnitType usageUnitType;
+
+    @Schema(description = "Whether the record was stored", requiredMode = RequiredMode.REQUIRED, example = "true")
+    private boolean success;
+
+    @Schema(description = "Computed cost; omitted when the record was rejected", example = "0.036")
+    private BigDecimal cost;
+
+    @Schema(description = "Reason the record was rejected; omitted on success", example = "Task with ID 'abc-123' not found")
+    private String error;
+
+    public static UsageBatchItemResponse recorded(String taskId, UsageUnitType usageUnitType, BigDecimal cost) {
+        return UsageBatchItemResponse.builder().taskId(taskId).usageUnitType(usageUnitType).success(true).cost(cost).build();
+    }
+
+    public static UsageBatchItemResponse failed(String taskId, UsageUnitType usageUnitType, String error) {
+        return UsageBatchItemResponse.builder().taskId(taskId).usageUnitType(usageUnitType).success(false).error(error).build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.fleebug.corerouter.dto.task.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(
+    title = "Task Status Batch Update Request",
+    description = "Several task status updates applied in one call. Each update is validated and reported individually.",
+    example = "{\"updates\": [{\"taskId\": \"uuid-1234\", \"status\": \"COMPLETED\", \"result\": {\"output\": \"Generated text\"}}, {\"taskId\": \"uuid-5678\", \"status\": \"PROCESSING\"}]}"
+)
+public class TaskStatusBatchUpdateRequest {
+
+    @Schema(description = "Status updates to apply", requiredMode = RequiredMode.REQUIRED)
+    @NotEmpty(message = "updates must not be empty")
+    @Size(max = 500, message = "At most 500 updates are accepted per batch")
+    private List<@Valid TaskStatusUpdateRequest> updates;
+}
@@ -0,0 +1,47 @@
+package com.fleebug.corerouter.dto.task.response;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fleebug.corerouter.enums.task.TaskStatus;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(
+    title = "Task Event",
+    description = "A status transition or partial result pushed to task event subscribers",
+    example = "{\"taskId\": \"abc-123\", \"status\": \"PROCESSING\", \"result\": {\"delta\": \"Hel\"}}"
+)
+public class TaskEventResponse {
+
+    @Schema(description = "Task ID", requiredMode = RequiredMode.REQUIRED, example = "abc-123")
+    private String taskId;
+
+    @Schema(
+        description = "Status of the task when the event was published",
+        requiredMode = RequiredMode.REQUIRED,
+        example = "PROCESSING",
+        allowableValues = {"QUEUED", "PROCESSING", "COMPLETED", "FAILED"}
+    )
+    private TaskStatus status;
+
+    @Schema(
+        description = "Result reported with this update. Partial output while PROCESSING, the final output when COMPLETED, error details when FAILED.",
+        example = "{\"delta\": \"Hel\"}"
+    )
+    private Object result;
+
+    @JsonIgnore
+    public boolean isTerminal() {
+        return status == TaskStatus.COMPLETED || status == TaskStatus.FAILED;
+    }
+}
@@ -0,0 +1,46 @@
+package com.fleebug.corerouter.dto.task.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fleebug.corerouter.enums.task.TaskStatus;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(
+    title = "Task Status Batch Item Response",
+    description = "Outcome of one update in a batch status update",
+    example = "{\"taskId\": \"uuid-1234\", \"success\": true, \"status\": \"COMPLETED\"}"
+)
+public class TaskStatusBatchItemResponse {
+
+    @Schema(description = "Task ID from the update", requiredMode = RequiredMode.REQUIRED, example = "uuid-1234")
+    private String taskId;
+
+    @Schema(description = "Whether the update was applied", requiredMode = RequiredMode.REQUIRED, example = "true")
+    private boolean success;
+
+    @Schema(description = "Status after the update; omitted when the update failed", example = "COMPLETED")
+    private TaskStatus status;
+
+    @Schema(description = "Reason the update was rejected; omitted on success", example = "Task with ID 'uuid-1234' not found")
+    private String error;
+
+    public static TaskStatusBatchItemResponse applied(String taskId, TaskStatus status) {
+        return TaskStatusBatchItemResponse.builder().taskId(taskId).success(true).status(status).build();
+    }
+
+    public static TaskStatusBatchItemResponse failed(String taskId, String error) {
+        return TaskStatusBatchItemResponse.builder().taskId(taskId).success(false).error(error).build();
+    }
+}
@@ -0,0 +1,68 @@
+package com.fleebug.corerouter.entity.billing;
+
+import com.fleebug.corerouter.enums.billing.LedgerEntryType;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Append-only wallet movements (task debits, top-up credits), written by BillingLedgerService
+// and rolled into users.balance by BillingLedgerSettlement, which stamps settledAt.
+// One row per (task, charged total) and per payment so nothing is applied twice.
+@Entity
+@Table(
+    name = "billing_ledger",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ledger_task_charged_total", columnNames = {"task_id", "task_charged_total"}),
+        @UniqueConstraint(name = "uk_ledger_transaction_ref", columnNames = {"transaction_ref"})
+    },
+    indexes = {
+        @Index(name = "idx_ledger_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_ledger_unsettled", columnList = "settled_at, ledger_id")
+    }
+)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillingLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long ledgerId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "task_id", length = 64)
+    private String taskId;
+
+    // eSewa transaction uuid of a top-up
+    @Column(name = "transaction_ref", length = 100)
+    private String transactionRef;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private LedgerEntryType entryType;
+
+    // Signed: negative for debits
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    // Task.chargedCost after this entry; part of the idempotency key
+    @Column(name = "task_charged_total", precision = 12, scale = 2)
+    private BigDecimal taskChargedTotal;
+
+    // Wallet balance right after a task debit, as shown to the user
+    @Column(name = "balance_after", precision = 12, scale = 2)
+    private BigDecimal balanceAfter;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "settled_at")
+    private LocalDateTime settledAt;
+}
@@ -0,0 +1,64 @@
+package com.fleebug.corerouter.entity.billing;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Per-day totals behind the user dashboards, one row per (user, API key, model, unit type, day).
+// Usage rows carry quantity and cost of one UsageUnitType; the row with unit type TASK carries
+// completed task counts and wallet charges. Incremented by UsageRollupService, rebuilt by UsageRollupBackfill.
+@Entity
+@Table(
+    name = "usage_daily_rollup",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_usage_rollup_key",
+        columnNames = {"user_id", "api_key_id", "model_id", "usage_unit_type", "usage_date"}
+    ),
+    indexes = @Index(name = "idx_usage_rollup_user_date", columnList = "user_id, usage_date")
+)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UsageDailyRollup {
+
+    public static final String TASK_ROW = "TASK";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long rollupId;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    @Column(name = "api_key_id", nullable = false)
+    private Integer apiKeyId;
+
+    @Column(name = "model_id", nullable = false)
+    private Integer modelId;
+
+    // UsageUnitType name, or TASK_ROW
+    @Column(name = "usage_unit_type", nullable = false, length = 30)
+    private String usageUnitType;
+
+    // recordedAt date for usage rows, completedAt date for the TASK row
+    @Column(name = "usage_date", nullable = false)
+    private LocalDate usageDate;
+
+    @Column(nullable = false, precision = 24, scale = 4)
+    private BigDecimal quantity;
+
+    // SUM(UsageRecord.cost * charge multiplier)
+    @Column(nullable = false, precision = 24, scale = 10)
+    private BigDecimal cost;
+
+    // SUM of wallet debits for tasks completed that day
+    @Column(name = "charged_cost", nullable = false, precision = 18, scale = 2)
+    private BigDecimal chargedCost;
+
+    @Column(name = "completed_tasks", nullable = false)
+    private Long completedTasks;
+}
@@ -12,21 +12,18 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 // One Task → multiple UsageRecords (e.g. LLM: INPUT_TOKENS + OUTPUT_TOKENS).
-// apiKey & model are denormalized from Task for billing aggregation perf.
+// apiKey, model & userId are denormalized from Task for billing aggregation perf.
+// Partitioned by month of recordedAt (V4 migration); (task_id, usage_unit_type) is unique per partition.
 @Entity
 @Table(
     name = "usage_records",
-    uniqueConstraints = @UniqueConstraint(
-        name = "uk_usage_task_unit",
-        columnNames = {"task_id", "usage_unit_type"}
-    ),
     indexes = {
         @Index(name = "idx_usage_task_id", columnList = "task_id"),
-        @Index(name = "idx_usage_api_key_id", columnList = "api_key_id"),
         @Index(name = "idx_usage_model_id", columnList = "model_id"),
-        @Index(name = "idx_usage_recorded_at", columnList = "recorded_at"),
         @Index(name = "idx_usage_unit_type", columnList = "usage_unit_type"),
-        @Index(name = "idx_usage_billing_lookup", columnList = "api_key_id, recorded_at, usage_unit_type")
+        @Index(name = "idx_usage_billing_lookup", columnList = "api_key_id, recorded_at, usage_unit_type"),
+        @Index(name = "idx_usage_user_recorded", columnList = "user_id, recorded_at"),
+        @Index(name = "idx_usage_recorded_task", columnList = "recorded_at")
     }
 )
 @Getter
@@ -48,6 +45,9 @@ public class UsageRecord {
     @JoinColumn(name = "api_key_id", nullable = false)
     private ApiKey apiKey;
 
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "model_id", nullable = false)
     private Model model;
@@ -0,0 +1,39 @@
+package com.fleebug.corerouter.entity.metrics;
+
+import com.fleebug.corerouter.enums.metrics.HourlyMetricType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Per-hour platform totals behind the admin charts, one row per (hour, metric).
+// Incremented by HourlyMetricsService, rebuilt by HourlyMetricsBackfill.
+@Entity
+@Table(
+    name = "hourly_metrics",
+    uniqueConstraints = @UniqueConstraint(name = "uk_hourly_metrics_key", columnNames = {"bucket_start", "metric"})
+)
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HourlyMetric {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long metricId;
+
+    // Start of the hour, UTC
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private HourlyMetricType metric;
+
+    // Task count or amount, depending on the metric
+    @Column(name = "metric_value", nullable = false, precision = 24, scale = 10)
+    private BigDecimal value;
+}
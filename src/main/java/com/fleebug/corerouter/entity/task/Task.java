@@ -10,9 +10,11 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -24,8 +26,20 @@ import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+
+// Partitioned by month of createdAt (V4 migration); the primary key is (task_id, created_at)
 @Entity
-@Table(name = "tasks")
+@Table(
+    name = "tasks",
+    indexes = {
+        @Index(name = "idx_tasks_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_tasks_user_status_completed", columnList = "user_id, status, completed_at"),
+        @Index(name = "idx_tasks_status_completed", columnList = "status, completed_at"),
+        @Index(name = "idx_tasks_created_at", columnList = "created_at"),
+        @Index(name = "idx_tasks_api_key", columnList = "api_key_id"),
+        @Index(name = "idx_tasks_model", columnList = "model_id")
+    }
+)
 @Getter
 @Setter
 @Builder
@@ -40,23 +54,32 @@ public class Task {
     @JoinColumn(name = "api_key_id", nullable = false)
     private ApiKey apiKey;
 
+    // Owner of apiKey, copied so per-user queries filter tasks without joining api_keys
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "model_id", nullable = false)
     private Model model;
 
-    @Column(columnDefinition = "TEXT", nullable = false)
+    // Stored in task_payloads; set only when written or fetched through TaskPayloadStore
+    @Transient
     private String requestPayload;
 
-    @Column(columnDefinition = "TEXT")
+    @Transient
     private String resultPayload;
 
     @Enumerated(EnumType.STRING)
     private TaskStatus status;
 
-    // Denormalized SUM of UsageRecord.cost — updated by UsageService
+    // Denormalized SUM of UsageRecord.cost — incremented atomically as usage is recorded
     @Column(precision = 12, scale = 6)
     private BigDecimal totalCost;
 
+    // Running SUM of UsageRecord.cost * charge multiplier, unrounded; null for tasks that predate it
+    @Column(precision = 18, scale = 10)
+    private BigDecimal chargeableCost;
+
     // Amount deducted from user wallet for this task (rounded to wallet precision)
     @Column(precision = 12, scale = 2)
     private BigDecimal chargedCost;
@@ -0,0 +1,6 @@
+package com.fleebug.corerouter.enums.billing;
+
+public enum LedgerEntryType {
+    TASK_DEBIT,
+    TOPUP_CREDIT
+}
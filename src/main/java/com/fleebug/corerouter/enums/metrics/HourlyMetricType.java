@@ -0,0 +1,19 @@
+package com.fleebug.corerouter.enums.metrics;
+
+import com.fleebug.corerouter.enums.task.TaskStatus;
+
+public enum HourlyMetricType {
+    // Tasks created in the hour, by their current status
+    TASKS_QUEUED,
+    TASKS_PROCESSING,
+    TASKS_COMPLETED,
+    TASKS_FAILED,
+    // Wallet debits for tasks, by completion hour
+    TASK_REVENUE,
+    // Completed wallet top-ups, by completion hour
+    TOPUP_AMOUNT;
+
+    public static HourlyMetricType tasksIn(TaskStatus status) {
+        return valueOf("TASKS_" + status.name());
+    }
+}
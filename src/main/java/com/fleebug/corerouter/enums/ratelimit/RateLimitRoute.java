@@ -0,0 +1,11 @@
+package com.fleebug.corerouter.enums.ratelimit;
+
+/**
+ * Route families whose Redis buckets can be fronted by a node-local token lease
+ */
+public enum RateLimitRoute {
+    CHAT,
+    OCR,
+    SPEECH,
+    TASK_CREATION
+}
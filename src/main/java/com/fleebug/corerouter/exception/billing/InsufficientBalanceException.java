@@ -0,0 +1,11 @@
+package com.fleebug.corerouter.exception.billing;
+
+/**
+ * Exception thrown when a wallet cannot cover new work
+ */
+public class InsufficientBalanceException extends RuntimeException {
+
+    public InsufficientBalanceException(String message) {
+        super(message);
+    }
+}
@@ -8,7 +8,9 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import com.fleebug.corerouter.exception.apikey.ApiKeyLimitExceededException;
 import com.fleebug.corerouter.exception.apikey.RateLimitExceededException;
+import com.fleebug.corerouter.exception.billing.InsufficientBalanceException;
 import com.fleebug.corerouter.exception.health.AzureInsightsAccessException;
 
 import org.springframework.data.redis.RedisConnectionFailureException;
@@ -119,6 +121,40 @@ public class MainGlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(errorResponse);
     }
 
+    @ExceptionHandler(ApiKeyLimitExceededException.class)
+    public ResponseEntity<ApiResponse<Void>> handleApiKeyLimitExceededException(
+            ApiKeyLimitExceededException ex,
+            HttpServletRequest request) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("path", request.getRequestURI());
+        properties.put("message", ex.getMessage());
+        telemetryClient.trackTrace("API key usage limit exceeded", SeverityLevel.Information, properties);
+
+        ApiResponse<Void> errorResponse = ApiResponse.error(
+                HttpStatus.TOO_MANY_REQUESTS,
+                ex.getMessage(),
+                request);
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(errorResponse);
+    }
+
+    @ExceptionHandler(InsufficientBalanceException.class)
+    public ResponseEntity<ApiResponse<Void>> handleInsufficientBalanceException(
+            InsufficientBalanceException ex,
+            HttpServletRequest request) {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("path", request.getRequestURI());
+        properties.put("message", ex.getMessage());
+        telemetryClient.trackTrace("Insufficient wallet balance", SeverityLevel.Information, properties);
+
+        ApiResponse<Void> errorResponse = ApiResponse.error(
+                HttpStatus.PAYMENT_REQUIRED,
+                ex.getMessage(),
+                request);
+
+        return ResponseEntity.status(HttpStatus.PAYMENT_REQUIRED).body(errorResponse);
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<ApiResponse<Void>> handleMissingBody(HttpMessageNotReadableException ex,
                                                             HttpServletRequest request) {
@@ -0,0 +1,87 @@
+package com.fleebug.corerouter.repository.billing;
+
+import com.fleebug.corerouter.entity.billing.UsageDailyRollup;
+import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UsageDailyRollupRepository extends JpaRepository<UsageDailyRollup, Long> {
+
+    // Charges and completed tasks per day [usageDate, chargedCost, completedTasks]
+    @Query("SELECT r.usageDate, COALESCE(SUM(r.chargedCost), 0), COALESCE(SUM(r.completedTasks), 0) " +
+           "FROM UsageDailyRollup r " +
+           "WHERE r.userId = :userId " +
+           "AND r.usageUnitType = '" + UsageDailyRollup.TASK_ROW + "' " +
+           "AND r.usageDate BETWEEN :from AND :to " +
+           "GROUP BY r.usageDate " +
+           "ORDER BY r.usageDate")
+    List<Object[]> sumTaskTotalsByUserGroupedByDate(
+        @Param("userId") Integer userId,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to
+    );
+
+    // Usage per day and unit type [usageDate, usageUnitType, quantity, cost]
+    @Query("SELECT r.usageDate, r.usageUnitType, COALESCE(SUM(r.quantity), 0), COALESCE(SUM(r.cost), 0) " +
+           "FROM UsageDailyRollup r " +
+           "WHERE r.userId = :userId " +
+           "AND r.usageUnitType <> '" + UsageDailyRollup.TASK_ROW + "' " +
+           "AND r.usageDate BETWEEN :from AND :to " +
+           "GROUP BY r.usageDate, r.usageUnitType " +
+           "ORDER BY r.usageDate")
+    List<Object[]> sumUsageByUserGroupedByDateAndUnitType(
+        @Param("userId") Integer userId,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to
+    );
+
+    // Completed tasks per model type [ModelType, completedTasks]
+    @Query("SELECT m.type, COALESCE(SUM(r.completedTasks), 0) " +
+           "FROM UsageDailyRollup r JOIN Model m ON m.modelId = r.modelId " +
+           "WHERE r.userId = :userId " +
+           "AND r.usageUnitType = '" + UsageDailyRollup.TASK_ROW + "' " +
+           "AND r.usageDate BETWEEN :from AND :to " +
+           "GROUP BY m.type")
+    List<Object[]> sumCompletedTasksByUserGroupedByModelType(
+        @Param("userId") Integer userId,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to
+    );
+
+    // Lifetime completed tasks per model type for API keys in a status [ModelType, completedTasks]
+    @Query("SELECT m.type, COALESCE(SUM(r.completedTasks), 0) " +
+           "FROM UsageDailyRollup r " +
+           "JOIN Model m ON m.modelId = r.modelId " +
+           "JOIN ApiKey k ON k.apiKeyId = r.apiKeyId " +
+           "WHERE r.userId = :userId " +
+           "AND r.usageUnitType = '" + UsageDailyRollup.TASK_ROW + "' " +
+           "AND k.status = :apiKeyStatus " +
+           "GROUP BY m.type")
+    List<Object[]> sumCompletedTasksByUserAndApiKeyStatusGroupedByModelType(
+        @Param("userId") Integer userId,
+        @Param("apiKeyStatus") ApiKeyStatus apiKeyStatus
+    );
+
+    // Models ranked by completed tasks [fullname, completedTasks]
+    @Query("SELECT m.fullname, SUM(r.completedTasks) " +
+           "FROM UsageDailyRollup r JOIN Model m ON m.modelId = r.modelId " +
+           "WHERE r.userId = :userId " +
+           "AND r.usageUnitType = '" + UsageDailyRollup.TASK_ROW + "' " +
+           "AND r.usageDate BETWEEN :from AND :to " +
+           "GROUP BY m.fullname " +
+           "ORDER BY SUM(r.completedTasks) DESC")
+    List<Object[]> findTopModelsByUser(
+        @Param("userId") Integer userId,
+        @Param("from") LocalDate from,
+        @Param("to") LocalDate to,
+        Pageable pageable
+    );
+}
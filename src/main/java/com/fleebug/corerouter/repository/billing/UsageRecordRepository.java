@@ -4,6 +4,7 @@ import com.fleebug.corerouter.entity.billing.UsageRecord;
 import com.fleebug.corerouter.entity.task.Task;
 import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
 import com.fleebug.corerouter.enums.billing.UsageUnitType;
+import com.fleebug.corerouter.util.TaskIds;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,14 +15,32 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface UsageRecordRepository extends JpaRepository<UsageRecord, Long> {
 
-    List<UsageRecord> findByTask(Task task);
+    // Usage is recorded after its task is created, so a lower recordedAt bound from the task id prunes older partitions
+    default List<UsageRecord> findByTask(Task task) {
+        return findByTaskAndRecordedAtGreaterThanEqual(task, TaskIds.createdAtRange(task.getTaskId()).from());
+    }
 
-    List<UsageRecord> findByTaskTaskId(String taskId);
+    List<UsageRecord> findByTaskAndRecordedAtGreaterThanEqual(Task task, LocalDateTime since);
+
+    default List<UsageRecord> findByTaskTaskId(String taskId) {
+        return findByTaskTaskIdAndRecordedAtGreaterThanEqual(taskId, TaskIds.createdAtRange(taskId).from());
+    }
+
+    List<UsageRecord> findByTaskTaskIdAndRecordedAtGreaterThanEqual(String taskId, LocalDateTime since);
+
+    // Unit types already recorded per task [taskId, usageUnitType]; the recordedAt bound prunes old partitions
+    @Query("SELECT u.task.taskId, u.usageUnitType FROM UsageRecord u " +
+           "WHERE u.task.taskId IN :taskIds AND u.recordedAt >= :since")
+    List<Object[]> findUnitTypesByTaskIdInRecordedSince(
+        @Param("taskIds") Collection<String> taskIds,
+        @Param("since") LocalDateTime since
+    );
 
     // Total cost for an API key in a date range
     @Query("SELECT COALESCE(SUM(u.cost * COALESCE(bc.chargeMultiplier, 1)), 0) FROM UsageRecord u " +
@@ -91,7 +110,7 @@ public interface UsageRecordRepository extends JpaRepository<UsageRecord, Long>
     // Total cost for a user across all their API keys
     @Query("SELECT COALESCE(SUM(u.cost * COALESCE(bc.chargeMultiplier, 1)), 0) FROM UsageRecord u " +
            "LEFT JOIN u.billingConfig bc " +
-           "WHERE u.apiKey.user.userId = :userId " +
+           "WHERE u.userId = :userId " +
            "AND u.recordedAt BETWEEN :from AND :to")
     BigDecimal sumCostByUserAndPeriod(
         @Param("userId") Integer userId,
@@ -108,7 +127,7 @@ public interface UsageRecordRepository extends JpaRepository<UsageRecord, Long>
     );
 
     @Query("SELECT COUNT(DISTINCT u.task.taskId) FROM UsageRecord u " +
-           "WHERE u.apiKey.user.userId = :userId " +
+           "WHERE u.userId = :userId " +
            "AND u.recordedAt BETWEEN :from AND :to")
     long countDistinctRequestsByUserAndPeriod(
         @Param("userId") Integer userId,
@@ -118,7 +137,7 @@ public interface UsageRecordRepository extends JpaRepository<UsageRecord, Long>
 
     @Query("SELECT u.model.fullname, COUNT(DISTINCT u.task.taskId) " +
            "FROM UsageRecord u " +
-           "WHERE u.apiKey.user.userId = :userId " +
+           "WHERE u.userId = :userId " +
            "AND u.recordedAt BETWEEN :from AND :to " +
            "GROUP BY u.model.fullname " +
            "ORDER BY COUNT(DISTINCT u.task.taskId) DESC")
@@ -131,7 +150,7 @@ public interface UsageRecordRepository extends JpaRepository<UsageRecord, Long>
 
     @Query("SELECT u.model.type, COUNT(DISTINCT u.task.taskId) " +
            "FROM UsageRecord u " +
-           "WHERE u.apiKey.user.userId = :userId " +
+           "WHERE u.userId = :userId " +
            "AND u.recordedAt BETWEEN :from AND :to " +
            "GROUP BY u.model.type")
     List<Object[]> countDistinctRequestsByUserGroupedByModelTypeAndPeriod(
@@ -142,7 +161,7 @@ public interface UsageRecordRepository extends JpaRepository<UsageRecord, Long>
 
     @Query("SELECT u.model.type, COUNT(DISTINCT u.task.taskId) " +
            "FROM UsageRecord u " +
-           "WHERE u.apiKey.user.userId = :userId " +
+           "WHERE u.userId = :userId " +
            "AND u.apiKey.status = :status " +
            "GROUP BY u.model.type")
     List<Object[]> countDistinctRequestsByUserGroupedByModelTypeAndActiveApiKeyStatus(
@@ -153,7 +172,7 @@ public interface UsageRecordRepository extends JpaRepository<UsageRecord, Long>
     @Query("SELECT FUNCTION('DATE', u.recordedAt), COALESCE(SUM(u.cost * COALESCE(bc.chargeMultiplier, 1)), 0) " +
            "FROM UsageRecord u " +
            "LEFT JOIN u.billingConfig bc " +
-           "WHERE u.apiKey.user.userId = :userId " +
+           "WHERE u.userId = :userId " +
            "AND u.recordedAt BETWEEN :from AND :to " +
            "GROUP BY FUNCTION('DATE', u.recordedAt) " +
            "ORDER BY FUNCTION('DATE', u.recordedAt)")
@@ -163,22 +182,9 @@ public interface UsageRecordRepository extends JpaRepository<UsageRecord, Long>
         @Param("to") LocalDateTime to
     );
 
-    @Query("SELECT FUNCTION('DATE', u.recordedAt), u.usageUnitType, COALESCE(SUM(u.quantity), 0), COALESCE(SUM(u.cost * COALESCE(bc.chargeMultiplier, 1)), 0) " +
-           "FROM UsageRecord u " +
-           "LEFT JOIN u.billingConfig bc " +
-           "WHERE u.apiKey.user.userId = :userId " +
-           "AND u.recordedAt BETWEEN :from AND :to " +
-           "GROUP BY FUNCTION('DATE', u.recordedAt), u.usageUnitType " +
-           "ORDER BY FUNCTION('DATE', u.recordedAt)")
-    List<Object[]> sumUsageByUserGroupedByDateAndUnitTypeAndPeriod(
-        @Param("userId") Integer userId,
-        @Param("from") LocalDateTime from,
-        @Param("to") LocalDateTime to
-    );
-
     @Query("SELECT FUNCTION('DATE', u.recordedAt), COUNT(DISTINCT u.task.taskId) " +
            "FROM UsageRecord u " +
-           "WHERE u.apiKey.user.userId = :userId " +
+           "WHERE u.userId = :userId " +
            "AND u.recordedAt BETWEEN :from AND :to " +
            "GROUP BY FUNCTION('DATE', u.recordedAt) " +
            "ORDER BY FUNCTION('DATE', u.recordedAt)")
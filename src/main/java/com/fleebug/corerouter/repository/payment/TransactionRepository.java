@@ -36,19 +36,6 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
             @Param("to") LocalDateTime to
     );
 
-    @Query("SELECT FUNCTION('DATE', t.completedAt), COALESCE(SUM(t.amount), 0) FROM Transaction t " +
-            "WHERE t.user.userId = :userId AND t.type = :type AND t.status = :status " +
-            "AND t.completedAt BETWEEN :from AND :to " +
-            "GROUP BY FUNCTION('DATE', t.completedAt) " +
-            "ORDER BY FUNCTION('DATE', t.completedAt)")
-    List<Object[]> sumAmountByUserAndTypeAndStatusGroupedByDateBetween(
-            @Param("userId") Integer userId,
-            @Param("type") TransactionType type,
-            @Param("status") TransactionStatus status,
-            @Param("from") LocalDateTime from,
-            @Param("to") LocalDateTime to
-    );
-
     @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.type = :type AND t.status = :status AND t.completedAt BETWEEN :from AND :to")
     BigDecimal sumAmountByTypeAndStatusAndCompletedAtBetween(
             @Param("type") TransactionType type,
@@ -63,13 +50,5 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
             @Param("status") TransactionStatus status
     );
 
-    @Query("SELECT HOUR(t.completedAt) as hour, COALESCE(SUM(t.amount), 0) as total FROM Transaction t WHERE t.type = :type AND t.status = :status AND t.completedAt BETWEEN :from AND :to GROUP BY HOUR(t.completedAt) ORDER BY HOUR(t.completedAt)")
-    List<Object[]> sumAmountByTypeAndStatusAndCompletedAtBetweenGroupedByHour(
-            @Param("type") TransactionType type,
-            @Param("status") TransactionStatus status,
-            @Param("from") LocalDateTime from,
-            @Param("to") LocalDateTime to
-    );
-
     Page<Transaction> findAll(org.springframework.data.jpa.domain.Specification<Transaction> spec, Pageable pageable);
 }
@@ -0,0 +1,18 @@
+package com.fleebug.corerouter.repository.task;
+
+import com.fleebug.corerouter.entity.task.TaskOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskOutboxRepository extends JpaRepository<TaskOutbox, Long> {
+
+    // Oldest-first claim; rows locked by another relay node are skipped, not waited on
+    @Query(value = "SELECT * FROM task_outbox ORDER BY outbox_id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<TaskOutbox> claimBatch(@Param("limit") int limit);
+}
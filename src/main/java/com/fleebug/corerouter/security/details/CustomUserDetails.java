@@ -1,38 +1,68 @@
 package com.fleebug.corerouter.security.details;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fleebug.corerouter.entity.user.User;
+import com.fleebug.corerouter.enums.user.UserRole;
+import com.fleebug.corerouter.enums.user.UserStatus;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.function.Supplier;
 
 /**
  * Custom UserDetails implementation for Spring Security
+ *
+ * Either wraps a loaded User, or is built from verified JWT claims
+ * (userId, email, role) and loads the User entity only when getUser() is called.
  */
-@RequiredArgsConstructor
 public class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private final Integer userId;
+    private final String email;
+    private final UserRole role;
+    private final Supplier<User> userLoader;
+    private volatile User user;
+
+    public CustomUserDetails(User user) {
+        this.userId = user.getUserId();
+        this.email = user.getEmail();
+        this.role = user.getRole();
+        this.userLoader = null;
+        this.user = user;
+    }
+
+    private CustomUserDetails(Integer userId, String email, UserRole role, Supplier<User> userLoader) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.userLoader = userLoader;
+    }
+
+    /**
+     * Principal built from verified token claims; the User entity is loaded on first use
+     */
+    public static CustomUserDetails fromClaims(Integer userId, String email, UserRole role, Supplier<User> userLoader) {
+        return new CustomUserDetails(userId, email, role, userLoader);
+    }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         // Map user role to GrantedAuthority
-        String role = "ROLE_" + user.getRole().name();
+        String role = "ROLE_" + this.role.name();
         return Collections.singleton(new SimpleGrantedAuthority(role));
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return getUser().getPassword();
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -52,20 +82,31 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return user.getStatus().toString().equals("ACTIVE");
+        // Claims-based principals are only issued to users not on the denylist
+        return user == null || user.getStatus() == UserStatus.ACTIVE;
     }
 
     /**
-     * Get the underlying User entity
+     * Get the underlying User entity, loading it on first access
      */
     public User getUser() {
-        return user;
+        User loaded = user;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = user;
+                if (loaded == null) {
+                    loaded = userLoader.get();
+                    user = loaded;
+                }
+            }
+        }
+        return loaded;
     }
 
     /**
      * Get user ID
      */
     public Integer getUserId() {
-        return user.getUserId();
+        return userId;
     }
 }
@@ -16,10 +16,10 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fleebug.corerouter.constants.ApiPaths;
 import com.fleebug.corerouter.dto.common.ApiResponse;
-import com.fleebug.corerouter.service.apikey.ApiKeyService;
-import com.fleebug.corerouter.service.redis.RedisBucketService;
+import com.fleebug.corerouter.enums.ratelimit.RateLimitRoute;
+import com.fleebug.corerouter.service.apikey.ApiKeyResolver;
+import com.fleebug.corerouter.service.redis.LocalRateLimitTier;
 
-import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -31,8 +31,8 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class ChatRateLimitFilter extends OncePerRequestFilter {
 
-    private final RedisBucketService redisBucketService;
-    private final ApiKeyService apiKeyService;
+    private final LocalRateLimitTier localRateLimitTier;
+    private final ApiKeyResolver apiKeyResolver;
     private final ObjectMapper objectMapper;
     private final TelemetryClient telemetryClient;
 
@@ -57,10 +57,9 @@ public class ChatRateLimitFilter extends OncePerRequestFilter {
 
                 // We use the HASH of the API key as the bucket identifier
                 // This ensures we limit based on the actual key, even if rotated or different raw values map to same (unlikely)
-                String apiKeyHash = apiKeyService.hashKey(token);
+                String apiKeyHash = apiKeyResolver.resolveKeyHash(request);
                 
-                Bucket bucket = redisBucketService.resolveChatApiKeyBucket(apiKeyHash);
-                ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+                ConsumptionProbe probe = localRateLimitTier.check(RateLimitRoute.CHAT, apiKeyHash);
 
                 if (!probe.isConsumed()) {
                     long retryAfter = TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()) + 1;
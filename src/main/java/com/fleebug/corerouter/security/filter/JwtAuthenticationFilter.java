@@ -3,9 +3,12 @@ package com.fleebug.corerouter.security.filter;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
 import com.fleebug.corerouter.enums.token.TokenValidationStatus;
+import com.fleebug.corerouter.enums.user.UserRole;
 import com.fleebug.corerouter.security.details.CustomUserDetails;
 import com.fleebug.corerouter.security.jwt.JwtUtil;
 import com.fleebug.corerouter.security.service.CustomUserDetailsService;
+import com.fleebug.corerouter.security.service.UserDenylistService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,6 +31,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final UserDenylistService userDenylistService;
     private final TelemetryClient telemetryClient;
 
     @Override
@@ -43,34 +47,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
 
             if (token != null) {
-                validationStatus = jwtUtil.getTokenValidationStatus(token);
+                // Verify once; the claims come back with the status
+                JwtUtil.ParsedToken parsed = jwtUtil.parse(token);
+                validationStatus = parsed.status();
 
                 if (validationStatus == TokenValidationStatus.EXPIRED) {
                     request.setAttribute(AUTH_ERROR_REASON_ATTR, "expired");
                 } else if (validationStatus == TokenValidationStatus.INVALID) {
                     request.setAttribute(AUTH_ERROR_REASON_ATTR, "invalid");
+                } else {
+                    CustomUserDetails userDetails = resolvePrincipal(parsed.claims());
+
+                    if (userDetails == null) {
+                        request.setAttribute(AUTH_ERROR_REASON_ATTR, "invalid");
+                    } else {
+                        // Create authentication token with proper authorities
+                        UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        authentication.setDetails(userDetails);
+
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                    }
                 }
             }
-
-            if (token != null && validationStatus == TokenValidationStatus.VALID) {
-                String email = jwtUtil.extractEmailFromClaims(token);
-
-                Map<String, String> properties = new HashMap<>();
-                properties.put("email", email);
-                // telemetryClient.trackTrace("JWT validated", SeverityLevel.Verbose, properties);
-
-                // Load user details from database using UserDetailsService
-                CustomUserDetails userDetails = userDetailsService.loadUserByUsername(email);
-
-                // Create authentication token with proper authorities
-                UsernamePasswordAuthenticationToken authentication = 
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(userDetails);
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-                
-                // telemetryClient.trackTrace("Authentication set for user", SeverityLevel.Verbose, properties);
-            }
         } catch (Exception e) {
             Map<String, String> properties = new HashMap<>();
             properties.put("error", e.getMessage());
@@ -80,6 +79,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Build the principal from the token's sub/email/role claims without a
+     * database read, unless the user is on the denylist. Users flagged for
+     * reload (or tokens missing claims) take the original database path.
+     *
+     * @param claims verified token claims
+     * @return principal, or null when the user's tokens are denied
+     */
+    private CustomUserDetails resolvePrincipal(Claims claims) {
+        String email = claims.get("email", String.class);
+        String role = claims.get("role", String.class);
+        Integer userId = Integer.valueOf(claims.getSubject());
+
+        UserDenylistService.Decision decision = userDenylistService.check(userId);
+        if (decision == UserDenylistService.Decision.DENY) {
+            return null;
+        }
+
+        if (decision == UserDenylistService.Decision.RELOAD || email == null || role == null) {
+            return userDetailsService.loadUserByUsername(email);
+        }
+
+        return CustomUserDetails.fromClaims(userId, email, UserRole.valueOf(role),
+                () -> userDetailsService.loadUserById(userId));
+    }
+
     /**
      * Extract JWT token from Authorization header
      * 
@@ -5,9 +5,9 @@ import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
 import com.fleebug.corerouter.constants.ApiPaths;
 import com.fleebug.corerouter.dto.common.ApiResponse;
-import com.fleebug.corerouter.service.apikey.ApiKeyService;
-import com.fleebug.corerouter.service.redis.RedisBucketService;
-import io.github.bucket4j.Bucket;
+import com.fleebug.corerouter.enums.ratelimit.RateLimitRoute;
+import com.fleebug.corerouter.service.apikey.ApiKeyResolver;
+import com.fleebug.corerouter.service.redis.LocalRateLimitTier;
 import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -29,8 +29,8 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class OcrRateLimitFilter extends OncePerRequestFilter {
 
-    private final RedisBucketService redisBucketService;
-    private final ApiKeyService apiKeyService;
+    private final LocalRateLimitTier localRateLimitTier;
+    private final ApiKeyResolver apiKeyResolver;
     private final ObjectMapper objectMapper;
     private final TelemetryClient telemetryClient;
 
@@ -42,11 +42,9 @@ public class OcrRateLimitFilter extends OncePerRequestFilter {
         String method = request.getMethod();
 
         if (HttpMethod.POST.matches(method) && path.equals(ApiPaths.OCR_PARSE_IMAGE_URL)) {
-            String token = extractToken(request);
-            if (token != null) {
-                String apiKeyHash = apiKeyService.hashKey(token);
-                Bucket bucket = redisBucketService.resolveOcrApiKeyBucket(apiKeyHash);
-                ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+            String apiKeyHash = apiKeyResolver.resolveKeyHash(request);
+            if (apiKeyHash != null) {
+                ConsumptionProbe probe = localRateLimitTier.check(RateLimitRoute.OCR, apiKeyHash);
 
                 if (!probe.isConsumed()) {
                     long retryAfter = TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()) + 1;
@@ -67,14 +65,6 @@ public class OcrRateLimitFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private String extractToken(HttpServletRequest request) {
-        String header = request.getHeader("Authorization");
-        if (header != null && header.startsWith("Bearer ")) {
-            return header.substring(7).trim();
-        }
-        return null;
-    }
-
     private void writeTooManyRequests(HttpServletResponse response, HttpServletRequest request, String message)
             throws IOException {
         ApiResponse<Void> body = ApiResponse.error(HttpStatus.TOO_MANY_REQUESTS, message, request);
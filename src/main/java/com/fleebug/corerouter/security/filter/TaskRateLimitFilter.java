@@ -5,9 +5,9 @@ import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
 import com.fleebug.corerouter.constants.ApiPaths;
 import com.fleebug.corerouter.dto.common.ApiResponse;
+import com.fleebug.corerouter.enums.ratelimit.RateLimitRoute;
 import com.fleebug.corerouter.security.details.CustomUserDetails;
-import com.fleebug.corerouter.service.redis.RedisBucketService;
-import io.github.bucket4j.Bucket;
+import com.fleebug.corerouter.service.redis.LocalRateLimitTier;
 import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -38,7 +38,7 @@ import java.util.concurrent.TimeUnit;
 public class TaskRateLimitFilter extends OncePerRequestFilter {
 
     @Autowired
-    private RedisBucketService redisBucketService;
+    private LocalRateLimitTier localRateLimitTier;
     
     @Autowired
     private ObjectMapper objectMapper;
@@ -71,8 +71,7 @@ public class TaskRateLimitFilter extends OncePerRequestFilter {
             return;
         }
 
-        Bucket bucket = redisBucketService.resolveTaskCreationUserBucket(userKey);
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        ConsumptionProbe probe = localRateLimitTier.check(RateLimitRoute.TASK_CREATION, userKey);
 
         if (!probe.isConsumed()) {
             long retryAfter = TimeUnit.NANOSECONDS.toSeconds(probe.getNanosToWaitForRefill()) + 1;
@@ -7,7 +7,9 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -34,6 +36,22 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration:604800000}")
     private long refreshTokenExpirationMs;
 
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    /**
+     * Result of verifying a token once: its status and, when VALID, its claims
+     */
+    public record ParsedToken(TokenValidationStatus status, Claims claims) {
+    }
+
+    @PostConstruct
+    public void init() {
+        // Decoding the secret and building the parser are pure; do it once, both are thread-safe
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.jwtParser = Jwts.parser().verifyWith(signingKey).build();
+    }
+
     /**
      * Generate lean JWT token (sub=userId, email + role claims).
      *
@@ -86,11 +104,7 @@ public class JwtUtil {
      * @return claims from token
      */
     private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 
     /**
@@ -104,27 +118,33 @@ public class JwtUtil {
     }
 
     public TokenValidationStatus getTokenValidationStatus(String token) {
+        return parse(token).status();
+    }
+
+    /**
+     * Verify a token and return its claims in one pass
+     *
+     * @param token JWT token, with or without the "Bearer " prefix
+     * @return validation status, with claims when the token is VALID
+     */
+    public ParsedToken parse(String token) {
         try {
             if (token != null && token.startsWith("Bearer ")) {
                 token = token.substring(7).trim();
             }
 
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-
-            return TokenValidationStatus.VALID;
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            return new ParsedToken(TokenValidationStatus.VALID, claims);
         } catch (ExpiredJwtException e) {
             Map<String, String> properties = new HashMap<>();
             properties.put("error", e.getMessage());
             telemetryClient.trackTrace("JWT token expired", SeverityLevel.Information, properties);
-            return TokenValidationStatus.EXPIRED;
+            return new ParsedToken(TokenValidationStatus.EXPIRED, null);
         } catch (JwtException | IllegalArgumentException e) {
             Map<String, String> properties = new HashMap<>();
             properties.put("error", e.getMessage());
             telemetryClient.trackTrace("JWT token validation failed", SeverityLevel.Warning, properties);
-            return TokenValidationStatus.INVALID;
+            return new ParsedToken(TokenValidationStatus.INVALID, null);
         }
     }
 
@@ -134,8 +154,7 @@ public class JwtUtil {
      * @return signing key
      */
     private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     /**
@@ -40,4 +40,12 @@ public class CustomUserDetailsService implements UserDetailsService {
         // telemetryClient.trackTrace("User details loaded successfully", SeverityLevel.Verbose, properties);
         return new CustomUserDetails(user);
     }
+
+    /**
+     * Load the User entity behind a claims-based principal
+     */
+    public User loadUserById(Integer userId) {
+        return userRepository.findById(userId)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + userId));
+    }
 }
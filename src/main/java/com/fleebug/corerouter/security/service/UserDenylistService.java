@@ -0,0 +1,74 @@
+package com.fleebug.corerouter.security.service;
+
+import com.fleebug.corerouter.service.redis.RedisService;
+import com.microsoft.applicationinsights.TelemetryClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis-backed record of users whose access-token claims can no longer be
+ * trusted on their own.
+ *
+ * JwtAuthenticationFilter builds the principal from token claims without a
+ * database read; this denylist is what keeps that safe. Entries live as long
+ * as an access token can, so every token issued before the change has expired
+ * by the time the entry does.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserDenylistService {
+
+    private static final String DENYLIST_KEY_PREFIX = "auth:user-denylist:";
+    private static final String DENIED = "DENIED";
+    private static final String RELOAD = "RELOAD";
+
+    private final RedisService redisService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final TelemetryClient telemetryClient;
+
+    @Value("${jwt.expiration}")
+    private long jwtExpirationMs;
+
+    public enum Decision {
+        TRUST_CLAIMS,
+        RELOAD,
+        DENY
+    }
+
+    /**
+     * Reject every outstanding access token of a disabled or deleted user
+     */
+    public void deny(Integer userId) {
+        redisService.saveToCache(DENYLIST_KEY_PREFIX + userId, DENIED, jwtExpirationMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Force a database load for the user's outstanding tokens (e.g. after a role change)
+     */
+    public void requireReload(Integer userId) {
+        redisService.saveToCache(DENYLIST_KEY_PREFIX + userId, RELOAD, jwtExpirationMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * How far the claims of this user's access token can be trusted. Falls back
+     * to RELOAD (the database path) when Redis cannot be reached.
+     */
+    public Decision check(Integer userId) {
+        try {
+            // Read directly: RedisService.getFromCache maps errors to null, which would read as "trusted"
+            String entry = stringRedisTemplate.opsForValue().get(DENYLIST_KEY_PREFIX + userId);
+            if (entry == null) {
+                return Decision.TRUST_CLAIMS;
+            }
+            return DENIED.equals(entry) ? Decision.DENY : Decision.RELOAD;
+        } catch (RuntimeException e) {
+            telemetryClient.trackException(e, Map.of("userId", String.valueOf(userId)), null);
+            return Decision.RELOAD;
+        }
+    }
+}
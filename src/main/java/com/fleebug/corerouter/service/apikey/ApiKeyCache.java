@@ -0,0 +1,103 @@
+package com.fleebug.corerouter.service.apikey;
+
+import com.fleebug.corerouter.entity.apikey.ApiKey;
+import com.fleebug.corerouter.service.redis.RedisService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microsoft.applicationinsights.TelemetryClient;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Node-local cache of API keys keyed by their stored hash.
+ *
+ * Entries are bounded in size and expire after a fixed TTL. Status changes are
+ * broadcast on a Redis channel so every router node evicts the same entry.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApiKeyCache implements MessageListener {
+
+    static final String INVALIDATION_CHANNEL = "apikey:invalidate";
+
+    private final TelemetryClient telemetryClient;
+    private final RedisService redisService;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${apikey.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${apikey.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private Cache<String, ApiKey> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    public Optional<ApiKey> get(String keyHash) {
+        return Optional.ofNullable(cache.getIfPresent(keyHash));
+    }
+
+    public void put(String keyHash, ApiKey apiKey) {
+        cache.put(keyHash, apiKey);
+    }
+
+    /**
+     * Evict a key on this node and on every other node. When called inside a
+     * transaction the eviction is deferred until after commit, so no node can
+     * re-cache the pre-change row in between.
+     *
+     * @param keyHash Stored (hashed) API key
+     */
+    public void invalidate(String keyHash) {
+        if (keyHash == null) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictEverywhere(keyHash);
+                }
+            });
+        } else {
+            evictEverywhere(keyHash);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        cache.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void evictEverywhere(String keyHash) {
+        cache.invalidate(keyHash);
+        try {
+            redisService.publishToChannel(INVALIDATION_CHANNEL, keyHash);
+        } catch (RuntimeException e) {
+            // Other nodes fall back to TTL expiry
+            telemetryClient.trackException(e, Map.of("channel", INVALIDATION_CHANNEL), null);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.fleebug.corerouter.service.apikey;
+
+import com.fleebug.corerouter.entity.apikey.ApiKey;
+import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
+import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resolves the API key presented as a bearer token on inference requests.
+ *
+ * The raw token is hashed at most once per request (the hash is kept as a
+ * request attribute so rate-limit filters and controllers share it), and the
+ * matching {@link ApiKey} is served from {@link ApiKeyCache} before falling
+ * back to the database.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApiKeyResolver {
+
+    public static final String API_KEY_HASH_ATTR = "apiKeyHash";
+
+    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ApiKeyService apiKeyService;
+    private final ApiKeyRepository apiKeyRepository;
+    private final ApiKeyCache apiKeyCache;
+
+    /**
+     * Hash of the bearer token on this request, or null when no bearer token is present
+     */
+    public String resolveKeyHash(HttpServletRequest request) {
+        Object cached = request.getAttribute(API_KEY_HASH_ATTR);
+        if (cached instanceof String keyHash) {
+            return keyHash;
+        }
+
+        String authHeader = request.getHeader(AUTHORIZATION_HEADER);
+        if (authHeader == null || !authHeader.startsWith(BEARER_PREFIX)) {
+            return null;
+        }
+
+        String keyHash = apiKeyService.hashKey(authHeader.substring(BEARER_PREFIX.length()).trim());
+        request.setAttribute(API_KEY_HASH_ATTR, keyHash);
+        return keyHash;
+    }
+
+    /**
+     * Resolve the request's API key and require it to be ACTIVE
+     *
+     * @param request Incoming request carrying 'Authorization: Bearer <API_KEY>'
+     * @return The active API key
+     */
+    public ApiKey requireActiveApiKey(HttpServletRequest request) {
+        String keyHash = resolveKeyHash(request);
+        if (keyHash == null) {
+            throw new IllegalArgumentException("Missing or invalid Authorization header. Expected 'Bearer <API_KEY>'");
+        }
+
+        ApiKey apiKey = apiKeyCache.get(keyHash).orElseGet(() -> {
+            ApiKey loaded = apiKeyRepository.findByKey(keyHash)
+                    .orElseThrow(() -> new IllegalArgumentException("Invalid API Key"));
+            apiKeyCache.put(keyHash, loaded);
+            return loaded;
+        });
+
+        if (apiKey.getStatus() != ApiKeyStatus.ACTIVE) {
+            throw new IllegalArgumentException("API Key is not active");
+        }
+
+        return apiKey;
+    }
+}
@@ -27,6 +27,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.List;
@@ -45,6 +46,16 @@ public class ApiKeyService {
     private final TelemetryClient telemetryClient;
     private final ApiKeyRepository apiKeyRepository;
     private final ApiKeyStatusAuditRepository apiKeyStatusAuditRepository;
+    private final ApiKeyCache apiKeyCache;
+
+    // MessageDigest is not thread-safe; keep one per thread instead of a lookup per hash
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
 
     @Value("${security.apikey.pepper}")
     private String pepper;
@@ -143,6 +154,7 @@ public class ApiKeyService {
         }
 
         ApiKey updatedApiKey = apiKeyRepository.save(apiKey);
+        apiKeyCache.invalidate(updatedApiKey.getKey());
         telemetryClient.trackTrace("API key updated successfully - ID: " + apiKeyId, SeverityLevel.Information, Map.of("apiKeyId", String.valueOf(apiKeyId)));
 
         return mapToResponse(updatedApiKey);
@@ -168,6 +180,7 @@ public class ApiKeyService {
         ApiKey updatedApiKey = apiKeyRepository.save(apiKey);
         if (oldStatus != newStatus) {
             createStatusAudit(updatedApiKey, oldStatus, newStatus, "User toggled API key status", "user:" + userId);
+            apiKeyCache.invalidate(updatedApiKey.getKey());
         }
         telemetryClient.trackTrace("API key status updated successfully - ID: " + apiKeyId + ", New Status: " + newStatus, SeverityLevel.Information, Map.of("apiKeyId", String.valueOf(apiKeyId)));
 
@@ -188,6 +201,7 @@ public class ApiKeyService {
         apiKey.setStatus(ApiKeyStatus.REVOKED);
         ApiKey savedApiKey = apiKeyRepository.save(apiKey);
         createStatusAudit(savedApiKey, oldStatus, ApiKeyStatus.REVOKED, "User revoked API key", "user:" + userId);
+        apiKeyCache.invalidate(savedApiKey.getKey());
 
         telemetryClient.trackTrace("API key soft deleted successfully - ID: " + apiKeyId, SeverityLevel.Information, Map.of("apiKeyId", String.valueOf(apiKeyId)));
     }
@@ -220,6 +234,7 @@ public class ApiKeyService {
         ApiKey saved = apiKeyRepository.save(apiKey);
 
         createStatusAudit(saved, oldStatus, newStatus, "Admin updated API key status", "admin");
+        apiKeyCache.invalidate(saved.getKey());
 
         return mapToResponse(saved);
     }
@@ -332,9 +347,8 @@ public class ApiKeyService {
     
     public String hashKey(String rawKey) {
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
             // Combine raw key with server-side pepper for additional security
-            byte[] hash = digest.digest((rawKey + pepper).getBytes(StandardCharsets.UTF_8));
+            byte[] hash = SHA_256.get().digest((rawKey + pepper).getBytes(StandardCharsets.UTF_8));
             return Base64.getEncoder().encodeToString(hash);
         } catch (Exception e) {
             throw new RuntimeException("Error hashing API key", e);
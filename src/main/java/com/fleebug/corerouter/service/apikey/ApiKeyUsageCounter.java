@@ -0,0 +1,332 @@
+package com.fleebug.corerouter.service.apikey;
+
+import com.fleebug.corerouter.entity.apikey.ApiKey;
+import com.fleebug.corerouter.repository.billing.UsageRecordRepository;
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-API-key daily and monthly usage counters kept in Redis.
+ *
+ * Counter keys are stamped with their calendar period (day / month in UTC,
+ * the clock usage_records.recorded_at is written with) and expire shortly
+ * after the period ends. The limit check and the increment run together in one
+ * Lua script, so concurrent recordUsage calls can't both slip under a limit.
+ *
+ * A missing counter (new period, eviction, first deploy) is seeded once from
+ * usage_records. The reconciler periodically raises the counters of recently
+ * active keys to the Postgres counts, which catches usage counted while Redis
+ * was unreachable. It never lowers a counter: increments for usage rows that
+ * have not committed yet are not in the counts.
+ */
+@Component
+@RequiredArgsConstructor
+public class ApiKeyUsageCounter {
+
+    static final String DAY_KEY_PREFIX = "apikey:usage:day:";
+    static final String MONTH_KEY_PREFIX = "apikey:usage:month:";
+
+    // Keep counters a little past their period so late writers still see them
+    private static final Duration EXPIRY_GRACE = Duration.ofHours(1);
+
+    /**
+     * KEYS: day counter, month counter. ARGV: daily limit, monthly limit (0 = none).
+     * Returns {status, daily, monthly}: 1 acquired, 0 a counter is missing,
+     * -1 daily limit reached, -2 monthly limit reached.
+     */
+    private static final RedisScript<List> ACQUIRE_SCRIPT = new DefaultRedisScript<>("""
+            local day = redis.call('GET', KEYS[1])
+            local month = redis.call('GET', KEYS[2])
+            if not day or not month then
+              return {0, 0, 0}
+            end
+            day = tonumber(day)
+            month = tonumber(month)
+            local dailyLimit = tonumber(ARGV[1])
+            local monthlyLimit = tonumber(ARGV[2])
+            if dailyLimit > 0 and day >= dailyLimit then
+              return {-1, day, month}
+            end
+            if monthlyLimit > 0 and month >= monthlyLimit then
+              return {-2, day, month}
+            end
+            return {1, redis.call('INCR', KEYS[1]), redis.call('INCR', KEYS[2])}
+            """, List.class);
+
+    /**
+     * KEYS: day counter, month counter. ARGV: daily count, monthly count, day TTL ms, month TTL ms.
+     * Raises each counter to at least its count and returns how many were changed.
+     */
+    private static final RedisScript<Long> RAISE_SCRIPT = new DefaultRedisScript<>("""
+            local raised = 0
+            for i = 1, 2 do
+              local target = tonumber(ARGV[i])
+              local current = tonumber(redis.call('GET', KEYS[i]))
+              if not current then
+                redis.call('SET', KEYS[i], target, 'PX', ARGV[i + 2])
+                raised = raised + 1
+              elseif current < target then
+                redis.call('INCRBY', KEYS[i], target - current)
+                raised = raised + 1
+              end
+            end
+            return raised
+            """, Long.class);
+
+    static final String RECONCILE_LOCK_KEY = "apikey:usage:reconcile:lock";
+
+    // Keys with usage in this many intervals are reconciled; the rest keep their counters until expiry
+    private static final int ACTIVE_INTERVALS = 2;
+
+    private static final String COUNTS_SQL = """
+            SELECT u.api_key_id,
+                   COUNT(*) FILTER (WHERE u.recorded_at >= ?) AS daily,
+                   COUNT(*) AS monthly
+            FROM usage_records u
+            WHERE u.recorded_at >= ?
+              AND u.api_key_id IN (SELECT DISTINCT api_key_id FROM usage_records WHERE recorded_at >= ?)
+            GROUP BY u.api_key_id
+            """;
+
+    private final TelemetryClient telemetryClient;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UsageRecordRepository usageRecordRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${apikey.usage.reconcile-interval-ms:300000}")
+    private long reconcileIntervalMs;
+
+    public enum Status {
+        ACQUIRED,
+        DAILY_LIMIT_REACHED,
+        MONTHLY_LIMIT_REACHED
+    }
+
+    /**
+     * @param status  Outcome of the check
+     * @param daily   Usage counted today (including this call when acquired)
+     * @param monthly Usage counted this month (including this call when acquired)
+     */
+    public record Result(Status status, long daily, long monthly) {
+    }
+
+    /**
+     * Check the key's daily and monthly limits and, if both have room, count one
+     * usage against them. Inside a transaction the increment is undone if the
+     * transaction rolls back. If Redis is unavailable the check falls back to
+     * range counts over usage_records.
+     *
+     * @param apiKey API key being charged
+     * @return Outcome with the counters after the call
+     */
+    public Result tryAcquire(ApiKey apiKey) {
+        LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+        try {
+            return acquireFromRedis(apiKey, now);
+        } catch (DataAccessException e) {
+            telemetryClient.trackException(e, Map.of("event", "APIKEY_USAGE_COUNTER_UNAVAILABLE", "apiKeyId", String.valueOf(apiKey.getApiKeyId())), null);
+            return acquireFromDatabase(apiKey, now);
+        }
+    }
+
+    private Result acquireFromRedis(ApiKey apiKey, LocalDateTime now) {
+        String dayKey = dayKey(apiKey.getApiKeyId(), now.toLocalDate());
+        String monthKey = monthKey(apiKey.getApiKeyId(), YearMonth.from(now));
+        List<String> keys = List.of(dayKey, monthKey);
+        String dailyLimit = String.valueOf(limitOf(apiKey.getDailyLimit()));
+        String monthlyLimit = String.valueOf(limitOf(apiKey.getMonthlyLimit()));
+
+        List<?> reply = stringRedisTemplate.execute(ACQUIRE_SCRIPT, keys, dailyLimit, monthlyLimit);
+        if (statusOf(reply) == 0) {
+            seed(apiKey.getApiKeyId(), now);
+            reply = stringRedisTemplate.execute(ACQUIRE_SCRIPT, keys, dailyLimit, monthlyLimit);
+        }
+
+        long status = statusOf(reply);
+        long daily = ((Number) reply.get(1)).longValue();
+        long monthly = ((Number) reply.get(2)).longValue();
+        if (status == -1) {
+            return new Result(Status.DAILY_LIMIT_REACHED, daily, monthly);
+        }
+        if (status == -2) {
+            return new Result(Status.MONTHLY_LIMIT_REACHED, daily, monthly);
+        }
+        if (status != 1) {
+            throw new IllegalStateException("API key usage counters unavailable for key " + apiKey.getApiKeyId());
+        }
+
+        releaseOnRollback(dayKey, monthKey);
+        return new Result(Status.ACQUIRED, daily, monthly);
+    }
+
+    /**
+     * Check the key's daily and monthly limits without counting anything, using
+     * the same counters and the same comparison as {@link #tryAcquire}. Used for
+     * admission control before a task is queued.
+     *
+     * @param apiKey API key about to submit work
+     * @return Outcome with the current counters
+     */
+    public Result peek(ApiKey apiKey) {
+        LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+        try {
+            String dayKey = dayKey(apiKey.getApiKeyId(), now.toLocalDate());
+            String monthKey = monthKey(apiKey.getApiKeyId(), YearMonth.from(now));
+            List<String> values = stringRedisTemplate.opsForValue().multiGet(List.of(dayKey, monthKey));
+            if (values == null || values.get(0) == null || values.get(1) == null) {
+                seed(apiKey.getApiKeyId(), now);
+                values = stringRedisTemplate.opsForValue().multiGet(List.of(dayKey, monthKey));
+            }
+            long daily = Long.parseLong(values.get(0));
+            long monthly = Long.parseLong(values.get(1));
+            return new Result(evaluate(apiKey, daily, monthly), daily, monthly);
+        } catch (DataAccessException e) {
+            telemetryClient.trackException(e, Map.of("event", "APIKEY_USAGE_COUNTER_UNAVAILABLE", "apiKeyId", String.valueOf(apiKey.getApiKeyId())), null);
+            Integer apiKeyId = apiKey.getApiKeyId();
+            long daily = usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(apiKeyId, now.toLocalDate().atStartOfDay(), now);
+            long monthly = usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(apiKeyId, YearMonth.from(now).atDay(1).atStartOfDay(), now);
+            return new Result(evaluate(apiKey, daily, monthly), daily, monthly);
+        }
+    }
+
+    /**
+     * Raise the current day and month counters of keys with recent usage to
+     * their usage_records counts. One node runs it per interval; counters of
+     * idle keys are left to expire.
+     */
+    @Scheduled(fixedDelayString = "${apikey.usage.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+        LocalDate today = now.toLocalDate();
+        YearMonth month = YearMonth.from(now);
+
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(RECONCILE_LOCK_KEY, "1", Duration.ofMillis(reconcileIntervalMs)))) {
+                return;
+            }
+
+            String dayTtl = String.valueOf(ttlUntil(dayEnd(today)).toMillis());
+            String monthTtl = String.valueOf(ttlUntil(monthEnd(month)).toMillis());
+            LocalDateTime activeSince = now.minus(Duration.ofMillis(reconcileIntervalMs * ACTIVE_INTERVALS));
+            long[] reconciled = new long[2];
+            jdbcTemplate.query(COUNTS_SQL,
+                    rs -> {
+                        int apiKeyId = rs.getInt("api_key_id");
+                        Long raised = stringRedisTemplate.execute(RAISE_SCRIPT,
+                                List.of(dayKey(apiKeyId, today), monthKey(apiKeyId, month)),
+                                String.valueOf(rs.getLong("daily")), String.valueOf(rs.getLong("monthly")), dayTtl, monthTtl);
+                        reconciled[0]++;
+                        reconciled[1] += raised == null ? 0 : raised;
+                    },
+                    today.atStartOfDay(), month.atDay(1).atStartOfDay(), activeSince);
+
+            telemetryClient.trackTrace("API key usage counters reconciled", SeverityLevel.Verbose, Map.of(
+                    "apiKeys", String.valueOf(reconciled[0]),
+                    "raised", String.valueOf(reconciled[1])));
+        } catch (RuntimeException e) {
+            telemetryClient.trackException(e, Map.of("event", "APIKEY_USAGE_RECONCILE_FAILED"), null);
+        }
+    }
+
+    private Result acquireFromDatabase(ApiKey apiKey, LocalDateTime now) {
+        Integer apiKeyId = apiKey.getApiKeyId();
+        long daily = usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(apiKeyId, now.toLocalDate().atStartOfDay(), now);
+        long monthly = usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(apiKeyId, YearMonth.from(now).atDay(1).atStartOfDay(), now);
+        Status status = evaluate(apiKey, daily, monthly);
+        return status == Status.ACQUIRED
+                ? new Result(Status.ACQUIRED, daily + 1, monthly + 1)
+                : new Result(status, daily, monthly);
+    }
+
+    // Mirrors the comparison in ACQUIRE_SCRIPT
+    private static Status evaluate(ApiKey apiKey, long daily, long monthly) {
+        int dailyLimit = limitOf(apiKey.getDailyLimit());
+        int monthlyLimit = limitOf(apiKey.getMonthlyLimit());
+        if (dailyLimit > 0 && daily >= dailyLimit) {
+            return Status.DAILY_LIMIT_REACHED;
+        }
+        if (monthlyLimit > 0 && monthly >= monthlyLimit) {
+            return Status.MONTHLY_LIMIT_REACHED;
+        }
+        return Status.ACQUIRED;
+    }
+
+    private void seed(Integer apiKeyId, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        YearMonth month = YearMonth.from(now);
+
+        long daily = usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(apiKeyId, today.atStartOfDay(), now);
+        long monthly = usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(apiKeyId, month.atDay(1).atStartOfDay(), now);
+
+        // NX: another node may have seeded (and started counting) in the meantime
+        stringRedisTemplate.opsForValue().setIfAbsent(dayKey(apiKeyId, today), String.valueOf(daily), ttlUntil(dayEnd(today)));
+        stringRedisTemplate.opsForValue().setIfAbsent(monthKey(apiKeyId, month), String.valueOf(monthly), ttlUntil(monthEnd(month)));
+    }
+
+    private void releaseOnRollback(String dayKey, String monthKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    stringRedisTemplate.opsForValue().decrement(dayKey);
+                    stringRedisTemplate.opsForValue().decrement(monthKey);
+                }
+            }
+        });
+    }
+
+    private static long statusOf(List<?> reply) {
+        if (reply == null || reply.size() < 3) {
+            return 0;
+        }
+        return ((Number) reply.get(0)).longValue();
+    }
+
+    private static int limitOf(Integer limit) {
+        return limit == null || limit < 0 ? 0 : limit;
+    }
+
+    static String dayKey(Integer apiKeyId, LocalDate day) {
+        return DAY_KEY_PREFIX + apiKeyId + ":" + day;
+    }
+
+    static String monthKey(Integer apiKeyId, YearMonth month) {
+        return MONTH_KEY_PREFIX + apiKeyId + ":" + month;
+    }
+
+    private static LocalDateTime dayEnd(LocalDate day) {
+        return day.plusDays(1).atStartOfDay();
+    }
+
+    private static LocalDateTime monthEnd(YearMonth month) {
+        return month.plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    private static Duration ttlUntil(LocalDateTime periodEnd) {
+        Duration untilEnd = Duration.between(LocalDateTime.now(Clock.systemUTC()), periodEnd);
+        return untilEnd.isNegative() ? EXPIRY_GRACE : untilEnd.plus(EXPIRY_GRACE);
+    }
+}
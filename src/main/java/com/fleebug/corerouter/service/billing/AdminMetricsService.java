@@ -0,0 +1,172 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.fleebug.corerouter.dto.billing.response.AdminDashboardOverviewResponse;
+import com.fleebug.corerouter.entity.billing.UsageDailyRollup;
+import com.fleebug.corerouter.enums.metrics.HourlyMetricType;
+import com.fleebug.corerouter.enums.task.TaskStatus;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
+import com.microsoft.applicationinsights.TelemetryClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates for the admin dashboard overview.
+ *
+ * Earnings and completed-task counts come from the TASK rows of
+ * usage_daily_rollup in one FILTER query; calendar days and months line up with
+ * its day buckets, so the sums are exact. The same query counts today's active
+ * users. The hourly series are read from hourly_metrics. No Task entities are
+ * loaded.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdminMetricsService {
+
+    private static final DateTimeFormatter HOUR_LABEL = DateTimeFormatter.ofPattern("HH:00");
+
+    private static final String TOTALS_SQL = """
+            SELECT COALESCE(SUM(charged_cost), 0) AS total_earnings,
+                   COALESCE(SUM(charged_cost) FILTER (WHERE usage_date = ?), 0) AS today_earning,
+                   COALESCE(SUM(charged_cost) FILTER (WHERE usage_date >= ?), 0) AS this_month,
+                   COALESCE(SUM(charged_cost) FILTER (WHERE usage_date >= ? AND usage_date < ?), 0) AS last_month,
+                   COALESCE(SUM(completed_tasks) FILTER (WHERE usage_date = ?), 0) AS completed_today,
+                   (SELECT COUNT(DISTINCT t.user_id) FROM tasks t
+                    WHERE t.created_at >= ?) AS active_users
+            FROM usage_daily_rollup
+            WHERE usage_unit_type = ?
+            """;
+
+    private static final List<HourlyMetricType> TASK_COUNTS = Arrays.stream(TaskStatus.values())
+            .map(HourlyMetricType::tasksIn)
+            .toList();
+
+    private final TelemetryClient telemetryClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final HourlyMetricsService hourlyMetricsService;
+
+    /**
+     * Overview for the given UTC instant. A failing query leaves its fields at
+     * zero so the dashboard still loads; recent activity is left to the caller.
+     */
+    public AdminDashboardOverviewResponse getOverview(LocalDateTime nowUtc) {
+        LocalDate today = nowUtc.toLocalDate();
+        LocalDateTime todayStart = today.atStartOfDay();
+        LocalDate monthStart = today.withDayOfMonth(1);
+
+        AdminDashboardOverviewResponse response = AdminDashboardOverviewResponse.builder()
+                .totalEarnings(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP))
+                .todayEarning(BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP))
+                .totalEarningsChangeFromPastMonthPercent(BigDecimal.ZERO.setScale(1, RoundingMode.HALF_UP))
+                .tasksProcessedToday(0L)
+                .activeUsersToday(0L)
+                .taskVolume24h(Collections.emptyList())
+                .revenueTrend(AdminDashboardOverviewResponse.RevenueTrendResponse.builder()
+                        .today(buildEmptyRevenuePoints())
+                        .yesterday(buildEmptyRevenuePoints())
+                        .sevenDaysAgo(buildEmptyRevenuePoints())
+                        .build())
+                .recentActivity(Collections.emptyList())
+                .build();
+
+        try {
+            jdbcTemplate.query(TOTALS_SQL, rs -> {
+                response.setTotalEarnings(rs.getBigDecimal("total_earnings").setScale(2, RoundingMode.HALF_UP));
+                response.setTodayEarning(rs.getBigDecimal("today_earning").setScale(2, RoundingMode.HALF_UP));
+                response.setTotalEarningsChangeFromPastMonthPercent(
+                        calculatePercentChange(rs.getBigDecimal("this_month"), rs.getBigDecimal("last_month")));
+                response.setTasksProcessedToday(rs.getLong("completed_today"));
+                response.setActiveUsersToday(rs.getLong("active_users"));
+            },
+                    Date.valueOf(today), Date.valueOf(monthStart),
+                    Date.valueOf(monthStart.minusMonths(1)), Date.valueOf(monthStart),
+                    Date.valueOf(today), Timestamp.valueOf(todayStart), UsageDailyRollup.TASK_ROW);
+        } catch (DataAccessException e) {
+            telemetryClient.trackException(e, Map.of("event", "ADMIN_METRICS_TOTALS_FAILED"), null);
+        }
+
+        LocalDateTime hourStart = nowUtc.withMinute(0).withSecond(0).withNano(0).minusHours(23);
+        LocalDateTime weekAgoStart = todayStart.minusDays(7);
+        Map<LocalDateTime, Long> created = new HashMap<>();
+        Map<LocalDateTime, BigDecimal> revenue = new HashMap<>();
+        try {
+            List<HourlyMetricType> metrics = new ArrayList<>(TASK_COUNTS);
+            metrics.add(HourlyMetricType.TASK_REVENUE);
+            for (HourlyMetricsService.Bucket bucket : hourlyMetricsService.read(metrics, weekAgoStart, nowUtc)) {
+                if (bucket.metric() == HourlyMetricType.TASK_REVENUE) {
+                    revenue.put(bucket.hour(), bucket.value());
+                } else {
+                    created.merge(bucket.hour(), bucket.value().longValue(), Long::sum);
+                }
+            }
+
+            response.setTaskVolume24h(buildTaskVolume24h(hourStart, created));
+            response.setRevenueTrend(AdminDashboardOverviewResponse.RevenueTrendResponse.builder()
+                    .today(buildRevenueTrendForDay(todayStart, revenue))
+                    .yesterday(buildRevenueTrendForDay(todayStart.minusDays(1), revenue))
+                    .sevenDaysAgo(buildRevenueTrendForDay(weekAgoStart, revenue))
+                    .build());
+        } catch (DataAccessException e) {
+            telemetryClient.trackException(e, Map.of("event", "ADMIN_METRICS_HOURLY_FAILED"), null);
+        }
+
+        return response;
+    }
+
+    private List<AdminDashboardOverviewResponse.HourlyCountPoint> buildTaskVolume24h(LocalDateTime hourStart,
+                                                                                      Map<LocalDateTime, Long> created) {
+        List<AdminDashboardOverviewResponse.HourlyCountPoint> points = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            LocalDateTime bucket = hourStart.plusHours(i);
+            points.add(AdminDashboardOverviewResponse.HourlyCountPoint.builder()
+                    .hour(bucket.getHour())
+                    .labelUtc(bucket.format(HOUR_LABEL))
+                    .value(created.getOrDefault(bucket, 0L))
+                    .build());
+        }
+        return points;
+    }
+
+    private List<AdminDashboardOverviewResponse.HourlyAmountPoint> buildRevenueTrendForDay(LocalDateTime dayStart,
+                                                                                           Map<LocalDateTime, BigDecimal> revenue) {
+        List<AdminDashboardOverviewResponse.HourlyAmountPoint> points = new ArrayList<>();
+        for (int hour = 0; hour < 24; hour++) {
+            BigDecimal value = revenue.getOrDefault(dayStart.plusHours(hour), BigDecimal.ZERO);
+            points.add(AdminDashboardOverviewResponse.HourlyAmountPoint.builder()
+                    .hour(hour)
+                    .labelUtc(String.format("%02d:00", hour))
+                    .value(value.setScale(2, RoundingMode.HALF_UP))
+                    .build());
+        }
+        return points;
+    }
+
+    private List<AdminDashboardOverviewResponse.HourlyAmountPoint> buildEmptyRevenuePoints() {
+        return buildRevenueTrendForDay(LocalDate.EPOCH.atStartOfDay(), Map.of());
+    }
+
+    private BigDecimal calculatePercentChange(BigDecimal current, BigDecimal previous) {
+        if (previous == null || previous.compareTo(BigDecimal.ZERO) == 0) {
+            return BigDecimal.ZERO.setScale(1, RoundingMode.HALF_UP);
+        }
+
+        return current.subtract(previous)
+                .multiply(BigDecimal.valueOf(100))
+                .divide(previous, 1, RoundingMode.HALF_UP);
+    }
+}
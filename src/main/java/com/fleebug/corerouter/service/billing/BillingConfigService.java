@@ -2,6 +2,7 @@ package com.fleebug.corerouter.service.billing;
 
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fleebug.corerouter.dto.billing.request.CreateBillingConfigRequest;
 import com.fleebug.corerouter.dto.billing.request.UpdateBillingConfigRequest;
 import com.fleebug.corerouter.dto.billing.response.BillingConfigResponse;
@@ -11,7 +12,6 @@ import com.fleebug.corerouter.exception.billing.BillingConfigNotFoundException;
 import com.fleebug.corerouter.exception.model.ModelNotFoundException;
 import com.fleebug.corerouter.repository.billing.BillingConfigRepository;
 import com.fleebug.corerouter.repository.model.ModelRepository;
-import com.fleebug.corerouter.service.redis.RedisService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +21,7 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,9 +33,8 @@ public class BillingConfigService {
 
     private final BillingConfigRepository billingConfigRepository;
     private final ModelRepository modelRepository;
-    private final RedisService redisService;
-
-    private static final String BILLING_CACHE_PREFIX = "billing:config:";
+    private final PricingTableCache pricingTableCache;
+    private final ObjectMapper objectMapper;
 
     /**
      * Create a new billing configuration for a model.
@@ -63,7 +63,7 @@ public class BillingConfigService {
             config.setUpdatedAt(LocalDateTime.now());
 
             BillingConfig reactivated = billingConfigRepository.save(config);
-            redisService.deleteFromCache(BILLING_CACHE_PREFIX + request.getModelId());
+            pricingTableCache.invalidate(request.getModelId());
             telemetryClient.trackTrace("Reactivated soft-deleted billing config ID=" + reactivated.getBillingId() + " for modelId=" + request.getModelId(), SeverityLevel.Information, Map.of("billingId", String.valueOf(reactivated.getBillingId()), "modelId", String.valueOf(request.getModelId())));
             return mapToResponse(reactivated);
         }
@@ -80,8 +80,8 @@ public class BillingConfigService {
         BillingConfig saved = billingConfigRepository.save(config);
         telemetryClient.trackTrace("Billing config created with ID=" + saved.getBillingId() + " for modelId=" + request.getModelId(), SeverityLevel.Information, Map.of("billingId", String.valueOf(saved.getBillingId()), "modelId", String.valueOf(request.getModelId())));
 
-        // Invalidate billing config cache
-        redisService.deleteFromCache(BILLING_CACHE_PREFIX + request.getModelId());
+        // Drop compiled pricing on every node once committed
+        pricingTableCache.invalidate(request.getModelId());
 
         return mapToResponse(saved);
     }
@@ -114,8 +114,8 @@ public class BillingConfigService {
         BillingConfig saved = billingConfigRepository.save(config);
         telemetryClient.trackTrace("Billing config ID=" + saved.getBillingId() + " updated", SeverityLevel.Information, Map.of("billingId", String.valueOf(saved.getBillingId())));
 
-        // Invalidate billing config cache
-        redisService.deleteFromCache(BILLING_CACHE_PREFIX + saved.getModel().getModelId());
+        // Drop compiled pricing on every node once committed
+        pricingTableCache.invalidate(saved.getModel().getModelId());
 
         return mapToResponse(saved);
     }
@@ -176,20 +176,48 @@ public class BillingConfigService {
         billingConfigRepository.save(config);
         telemetryClient.trackTrace("Billing config ID=" + billingId + " soft deleted", SeverityLevel.Information, Map.of("billingId", String.valueOf(billingId)));
 
-        // Invalidate billing config cache
-        redisService.deleteFromCache(BILLING_CACHE_PREFIX + config.getModel().getModelId());
+        // Drop compiled pricing on every node once committed
+        pricingTableCache.invalidate(config.getModel().getModelId());
     }
 
     /**
-     * Get billing config entity by model ID (internal use).
+     * Compiled pricing for a model, served from the node-local cache (internal use).
      *
      * @param modelId model ID
-     * @return BillingConfig entity
+     * @return pricing table of the model's active billing config
      */
     @Transactional(readOnly = true)
-    public BillingConfig getBillingConfigEntityByModelId(Integer modelId) {
-        return billingConfigRepository.findByModelModelIdAndActiveTrue(modelId)
-                .orElseThrow(() -> new BillingConfigNotFoundException(modelId));
+    public PricingTable getPricingTable(Integer modelId) {
+        PricingTable table = findPricingTable(modelId);
+        if (table == null) {
+            throw new BillingConfigNotFoundException(modelId);
+        }
+        return table;
+    }
+
+    /**
+     * Compiled pricing for a model, or null when it has no active billing config.
+     */
+    @Transactional(readOnly = true)
+    public PricingTable findPricingTable(Integer modelId) {
+        return pricingTableCache.get(modelId, () -> billingConfigRepository.findByModelModelIdAndActiveTrue(modelId)
+                .map(config -> PricingTable.compile(config, modelId, objectMapper))
+                .orElse(null));
+    }
+
+    /**
+     * Active billing config of a model, read without compiling its pricing.
+     */
+    @Transactional(readOnly = true)
+    public Optional<BillingConfig> findActiveBillingConfig(Integer modelId) {
+        return billingConfigRepository.findByModelModelIdAndActiveTrue(modelId);
+    }
+
+    /**
+     * Reference to a billing config for use as a foreign key, without loading it.
+     */
+    public BillingConfig getBillingConfigReference(Integer billingId) {
+        return billingConfigRepository.getReferenceById(billingId);
     }
 
     private BillingConfigResponse mapToResponse(BillingConfig config) {
@@ -0,0 +1,77 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Copies wallet movements that predate billing_ledger into it, so balance
+ * history covers them. Backfilled rows are inserted as already settled because
+ * users.balance includes them. A task charged partly before the ledger existed
+ * gets one row for that earlier portion next to its ledger debits. Conflicting
+ * rows are skipped, which makes the backfill safe to repeat and safe to run on
+ * several nodes at once.
+ *
+ * Off by default: it scans every completed task and top-up, so enable it for
+ * one deploy after the ledger is introduced.
+ */
+@Component
+@RequiredArgsConstructor
+public class BillingLedgerBackfill {
+
+    private static final String TOPUPS_SQL = """
+            INSERT INTO billing_ledger (user_id, transaction_ref, entry_type, amount, created_at, settled_at)
+            SELECT t.user_id, t.esewa_transaction_id, 'TOPUP_CREDIT', t.amount, t.completed_at, t.completed_at
+            FROM transactions t
+            WHERE t.type = 'WALLET_TOPUP' AND t.status = 'COMPLETED' AND t.completed_at IS NOT NULL
+            ON CONFLICT DO NOTHING
+            """;
+
+    // Only the part of charged_cost the ledger doesn't already hold. Ledger debits of a task
+    // carry strictly increasing running totals above its pre-ledger charge, so keying that
+    // charge by its own total can't collide with them.
+    private static final String DEBITS_SQL = """
+            INSERT INTO billing_ledger (user_id, task_id, entry_type, amount, task_charged_total, balance_after,
+                                        created_at, settled_at)
+            SELECT t.user_id, t.task_id, 'TASK_DEBIT',
+                   -(t.charged_cost - COALESCE(l.charged, 0)), t.charged_cost - COALESCE(l.charged, 0),
+                   CASE WHEN l.task_id IS NULL THEN t.remaining_balance END,
+                   LEAST(t.completed_at, COALESCE(l.first_at, t.completed_at)),
+                   LEAST(t.completed_at, COALESCE(l.first_at, t.completed_at))
+            FROM tasks t
+            LEFT JOIN (SELECT task_id, -SUM(amount) AS charged, MIN(created_at) AS first_at
+                       FROM billing_ledger
+                       WHERE entry_type = 'TASK_DEBIT' AND task_id IS NOT NULL
+                       GROUP BY task_id) l ON l.task_id = t.task_id
+            WHERE t.status = 'COMPLETED' AND t.completed_at IS NOT NULL
+              AND t.charged_cost > COALESCE(l.charged, 0)
+            ON CONFLICT DO NOTHING
+            """;
+
+    private final TelemetryClient telemetryClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${billing.ledger.backfill-on-startup:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        int topups = jdbcTemplate.update(TOPUPS_SQL);
+        int debits = jdbcTemplate.update(DEBITS_SQL);
+        telemetryClient.trackTrace("Billing ledger backfilled", SeverityLevel.Information, Map.of(
+                "topups", String.valueOf(topups),
+                "debits", String.valueOf(debits)));
+    }
+}
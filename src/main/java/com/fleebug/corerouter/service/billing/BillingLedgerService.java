@@ -0,0 +1,142 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.fleebug.corerouter.entity.billing.BillingLedgerEntry;
+import com.fleebug.corerouter.enums.billing.LedgerEntryType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the append-only billing_ledger.
+ *
+ * Every wallet movement (task debit, top-up credit) is one inserted row;
+ * nothing here updates users.balance. BillingLedgerSettlement folds unsettled
+ * rows into users.balance in bulk, so the current balance is that snapshot
+ * plus the unsettled tail.
+ */
+@Service
+@RequiredArgsConstructor
+public class BillingLedgerService {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO billing_ledger (user_id, task_id, transaction_ref, entry_type, amount,
+                                        task_charged_total, balance_after, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String BALANCE_SQL = """
+            SELECT u.balance + COALESCE((SELECT SUM(l.amount) FROM billing_ledger l
+                                         WHERE l.user_id = u.user_id AND l.settled_at IS NULL), 0)
+            FROM users u WHERE u.user_id = ?
+            """;
+
+    private static final String LOCK_USER_SQL = "SELECT user_id FROM users WHERE user_id = ? FOR UPDATE";
+
+    private static final String MOVEMENT_SINCE_SQL =
+            "SELECT COALESCE(SUM(amount), 0) FROM billing_ledger WHERE user_id = ? AND created_at > ?";
+
+    // Credits, debits and the balance after the day's last task debit, per calendar day
+    private static final String DAILY_MOVEMENTS_SQL = """
+            SELECT CAST(created_at AS DATE) AS day,
+                   COALESCE(SUM(amount) FILTER (WHERE amount > 0), 0) AS credit,
+                   COALESCE(-SUM(amount) FILTER (WHERE amount < 0), 0) AS debit,
+                   (ARRAY_AGG(balance_after ORDER BY ledger_id DESC)
+                        FILTER (WHERE entry_type = 'TASK_DEBIT' AND balance_after IS NOT NULL))[1] AS last_balance
+            FROM billing_ledger
+            WHERE user_id = ? AND created_at BETWEEN ? AND ?
+            GROUP BY CAST(created_at AS DATE)
+            ORDER BY day
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Movements of one user for one calendar day. {@code lastTaskBalance} is the
+     * wallet balance after the day's last task debit, or null when there was none.
+     */
+    public record DailyMovement(LocalDate date, BigDecimal credit, BigDecimal debit, BigDecimal lastTaskBalance) {
+    }
+
+    /**
+     * Insert entries as one JDBC batch. Runs in the caller's transaction, so the
+     * rows commit (or roll back) together with the change that produced them.
+     */
+    public void append(List<BillingLedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(entries.size());
+        for (BillingLedgerEntry entry : entries) {
+            rows.add(new Object[]{
+                    entry.getUserId(),
+                    entry.getTaskId(),
+                    entry.getTransactionRef(),
+                    entry.getEntryType().name(),
+                    entry.getAmount(),
+                    entry.getTaskChargedTotal(),
+                    entry.getBalanceAfter(),
+                    Timestamp.valueOf(entry.getCreatedAt())
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Record a completed wallet top-up. The unique transaction reference makes
+     * a second credit for the same payment fail instead of doubling it.
+     */
+    public void credit(Integer userId, String transactionRef, BigDecimal amount) {
+        append(List.of(BillingLedgerEntry.builder()
+                .userId(userId)
+                .transactionRef(transactionRef)
+                .entryType(LedgerEntryType.TOPUP_CREDIT)
+                .amount(amount)
+                .createdAt(LocalDateTime.now())
+                .build()));
+    }
+
+    /**
+     * Current balance: the users.balance snapshot plus unsettled ledger rows.
+     */
+    public BigDecimal currentBalance(Integer userId) {
+        BigDecimal balance = jdbcTemplate.query(BALANCE_SQL, rs -> rs.next() ? rs.getBigDecimal(1) : null, userId);
+        return balance == null ? BigDecimal.ZERO : balance.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Current balance, read after locking the user's row for the rest of the
+     * caller's transaction. Used when the Redis wallet view is unavailable, so
+     * concurrent checks against Postgres can't both spend the same balance.
+     */
+    public BigDecimal lockedBalance(Integer userId) {
+        jdbcTemplate.queryForList(LOCK_USER_SQL, Integer.class, userId);
+        return currentBalance(userId);
+    }
+
+    /**
+     * Balance as of a point in time: the current balance minus everything recorded since.
+     */
+    public BigDecimal balanceAt(Integer userId, LocalDateTime at) {
+        BigDecimal since = jdbcTemplate.queryForObject(MOVEMENT_SINCE_SQL, BigDecimal.class, userId, Timestamp.valueOf(at));
+        BigDecimal current = currentBalance(userId);
+        return since == null ? current : current.subtract(since);
+    }
+
+    public List<DailyMovement> dailyMovements(Integer userId, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(DAILY_MOVEMENTS_SQL,
+                (rs, rowNum) -> new DailyMovement(
+                        rs.getDate("day").toLocalDate(),
+                        rs.getBigDecimal("credit"),
+                        rs.getBigDecimal("debit"),
+                        rs.getBigDecimal("last_balance")),
+                userId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+}
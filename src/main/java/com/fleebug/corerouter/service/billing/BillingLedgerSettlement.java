@@ -0,0 +1,69 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Rolls unsettled billing_ledger rows into users.balance.
+ *
+ * Each run claims the oldest unsettled rows with FOR UPDATE SKIP LOCKED, sums
+ * them per user and applies one UPDATE per user, in ascending user id order,
+ * then stamps the rows as settled in the same transaction. The users row is
+ * locked once per user per run instead of once per completed task. The Redis
+ * wallet view counts unsettled rows already, so settling doesn't change it.
+ */
+@Component
+@RequiredArgsConstructor
+public class BillingLedgerSettlement {
+
+    private final TelemetryClient telemetryClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${billing.ledger.settle.batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${billing.ledger.settle.interval-ms:5000}")
+    @Transactional
+    public void settle() {
+        List<Long> ledgerIds = new ArrayList<>();
+        Map<Integer, BigDecimal> totals = new TreeMap<>();
+        jdbcTemplate.query(
+                "SELECT ledger_id, user_id, amount FROM billing_ledger WHERE settled_at IS NULL " +
+                        "ORDER BY ledger_id LIMIT ? FOR UPDATE SKIP LOCKED",
+                rs -> {
+                    ledgerIds.add(rs.getLong(1));
+                    totals.merge(rs.getInt(2), rs.getBigDecimal(3), BigDecimal::add);
+                },
+                batchSize);
+        if (ledgerIds.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> balanceUpdates = new ArrayList<>(totals.size());
+        totals.forEach((userId, amount) -> balanceUpdates.add(new Object[]{amount, userId}));
+        jdbcTemplate.batchUpdate("UPDATE users SET balance = balance + ? WHERE user_id = ?", balanceUpdates);
+
+        Timestamp settledAt = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> settled = new ArrayList<>(ledgerIds.size());
+        ledgerIds.forEach(ledgerId -> settled.add(new Object[]{settledAt, ledgerId}));
+        jdbcTemplate.batchUpdate("UPDATE billing_ledger SET settled_at = ? WHERE ledger_id = ?", settled);
+
+        telemetryClient.trackTrace("Billing ledger settled", SeverityLevel.Verbose, Map.of(
+                "entries", String.valueOf(ledgerIds.size()),
+                "users", String.valueOf(totals.size())));
+    }
+}
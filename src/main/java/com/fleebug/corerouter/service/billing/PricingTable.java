@@ -0,0 +1,113 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleebug.corerouter.entity.billing.BillingConfig;
+import com.fleebug.corerouter.enums.billing.UsageUnitType;
+import com.fleebug.corerouter.exception.billing.BillingCalculationException;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A model's billing config compiled for lookups: per-unit rates parsed once
+ * from pricingMetadata, plus the resolved charge multiplier. Immutable, so a
+ * table can be shared between threads and replaced wholesale on config changes.
+ */
+public final class PricingTable {
+
+    private final Integer billingId;
+    private final Integer modelId;
+    private final Map<UsageUnitType, BigDecimal> rates;
+    private final BigDecimal chargeMultiplier;
+
+    private PricingTable(Integer billingId, Integer modelId, Map<UsageUnitType, BigDecimal> rates, BigDecimal chargeMultiplier) {
+        this.billingId = billingId;
+        this.modelId = modelId;
+        this.rates = rates;
+        this.chargeMultiplier = chargeMultiplier;
+    }
+
+    /**
+     * @throws BillingCalculationException when pricingMetadata is missing or not valid JSON
+     */
+    public static PricingTable compile(BillingConfig config, Integer modelId, ObjectMapper objectMapper) {
+        String metadata = config.getPricingMetadata();
+        if (metadata == null || metadata.isBlank()) {
+            throw new BillingCalculationException(
+                "No pricing metadata found for billing config ID " + config.getBillingId());
+        }
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(metadata);
+        } catch (JsonProcessingException e) {
+            throw new BillingCalculationException(
+                "Failed to parse pricing metadata for billing config ID " + config.getBillingId(), e);
+        }
+
+        // Unit-type-specific keys win; every other unit falls back to the generic "rate"
+        BigDecimal genericRate = node.has("rate") ? new BigDecimal(node.get("rate").asText()) : null;
+        Map<UsageUnitType, BigDecimal> rates = new EnumMap<>(UsageUnitType.class);
+        for (UsageUnitType unitType : UsageUnitType.values()) {
+            String specificKey = rateKey(unitType);
+            if (specificKey != null && node.has(specificKey)) {
+                rates.put(unitType, new BigDecimal(node.get(specificKey).asText()));
+            } else if (genericRate != null) {
+                rates.put(unitType, genericRate);
+            }
+        }
+
+        return new PricingTable(config.getBillingId(), modelId, Collections.unmodifiableMap(rates), resolveMultiplier(config.getChargeMultiplier()));
+    }
+
+    /**
+     * @throws BillingCalculationException when the config has no rate for the unit type
+     */
+    public BigDecimal rateFor(UsageUnitType unitType) {
+        BigDecimal rate = rates.get(unitType);
+        if (rate == null) {
+            throw new BillingCalculationException(
+                "No rate found in pricing metadata for unit type " + unitType
+                + " in billing config ID " + billingId);
+        }
+        return rate;
+    }
+
+    public Integer getBillingId() {
+        return billingId;
+    }
+
+    public Integer getModelId() {
+        return modelId;
+    }
+
+    public BigDecimal getChargeMultiplier() {
+        return chargeMultiplier;
+    }
+
+    // Maps UsageUnitType → JSON key in pricingMetadata. Null = fallback to "rate".
+    private static String rateKey(UsageUnitType unitType) {
+        return switch (unitType) {
+            case INPUT_TOKENS -> "inputRate";
+            case OUTPUT_TOKENS -> "outputRate";
+            case PAGES -> "pageRate";
+            case IMAGES -> "imageRate";
+            case AUDIO_SECONDS -> "secondRate";
+            case REQUESTS -> "requestRate";
+            case CHARACTERS -> "charRate";
+            case EMBEDDING_TOKENS -> "embeddingRate";
+            case CUSTOM_UNITS -> null;  // always falls back to generic "rate"
+        };
+    }
+
+    private static BigDecimal resolveMultiplier(BigDecimal multiplier) {
+        if (multiplier == null || multiplier.compareTo(BigDecimal.ZERO) <= 0) {
+            return BigDecimal.ONE;
+        }
+        return multiplier;
+    }
+}
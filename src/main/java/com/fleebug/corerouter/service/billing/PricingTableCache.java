@@ -0,0 +1,124 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.fleebug.corerouter.service.redis.RedisService;
+import com.microsoft.applicationinsights.TelemetryClient;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Node-local pricing tables keyed by model id.
+ *
+ * Readers get the current immutable map with a single volatile read; a load or
+ * eviction copies the map and swaps it in. Billing config changes are broadcast
+ * on a Redis channel so every router node drops the same table; the whole map
+ * is also dropped periodically in case a node missed a message.
+ */
+@Component
+@RequiredArgsConstructor
+public class PricingTableCache implements MessageListener {
+
+    static final String INVALIDATION_CHANNEL = "billing:config:invalidate";
+
+    private final TelemetryClient telemetryClient;
+    private final RedisService redisService;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final AtomicReference<Map<Integer, PricingTable>> tables = new AtomicReference<>(Map.of());
+
+    // Bumped on every eviction so a load that raced with one doesn't re-cache the old config
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    /**
+     * Cached table for the model, or the loader's result. A null from the loader
+     * (no active config) is not cached.
+     */
+    public PricingTable get(Integer modelId, Supplier<PricingTable> loader) {
+        PricingTable table = tables.get().get(modelId);
+        if (table != null) {
+            return table;
+        }
+
+        long loadedAt = generation.get();
+        table = loader.get();
+        if (table != null && generation.get() == loadedAt) {
+            PricingTable loaded = table;
+            tables.updateAndGet(current -> {
+                Map<Integer, PricingTable> next = new HashMap<>(current);
+                next.put(modelId, loaded);
+                return Map.copyOf(next);
+            });
+        }
+        return table;
+    }
+
+    /**
+     * Drop a model's table on this node and every other node. Inside a
+     * transaction the eviction is deferred until after commit, so no node can
+     * reload the pre-change config in between.
+     */
+    public void invalidate(Integer modelId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictEverywhere(modelId);
+                }
+            });
+        } else {
+            evictEverywhere(modelId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        evict(Integer.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+    }
+
+    private void evictEverywhere(Integer modelId) {
+        evict(modelId);
+        try {
+            redisService.publishToChannel(INVALIDATION_CHANNEL, String.valueOf(modelId));
+        } catch (RuntimeException e) {
+            // Other nodes pick up the change at the next periodic clear
+            telemetryClient.trackException(e, Map.of("channel", INVALIDATION_CHANNEL, "modelId", String.valueOf(modelId)), null);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${billing.pricing-cache.clear-interval-ms:300000}")
+    public void clear() {
+        generation.incrementAndGet();
+        tables.set(Map.of());
+    }
+
+    private void evict(Integer modelId) {
+        generation.incrementAndGet();
+        tables.updateAndGet(current -> {
+            if (!current.containsKey(modelId)) {
+                return current;
+            }
+            Map<Integer, PricingTable> next = new HashMap<>(current);
+            next.remove(modelId);
+            return Map.copyOf(next);
+        });
+    }
+}
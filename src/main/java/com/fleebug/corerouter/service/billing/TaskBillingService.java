@@ -1,37 +1,124 @@
 package com.fleebug.corerouter.service.billing;
 
 import com.fleebug.corerouter.entity.billing.BillingConfig;
+import com.fleebug.corerouter.entity.billing.BillingLedgerEntry;
 import com.fleebug.corerouter.entity.billing.UsageRecord;
 import com.fleebug.corerouter.entity.task.Task;
-import com.fleebug.corerouter.entity.user.User;
+import com.fleebug.corerouter.enums.billing.LedgerEntryType;
 import com.fleebug.corerouter.enums.task.TaskStatus;
 import com.fleebug.corerouter.exception.billing.BillingCalculationException;
-import com.fleebug.corerouter.repository.billing.BillingConfigRepository;
 import com.fleebug.corerouter.repository.billing.UsageRecordRepository;
 import com.fleebug.corerouter.repository.task.TaskRepository;
-import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
+import com.fleebug.corerouter.util.TaskIds;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class TaskBillingService {
 
-    private final UserRepository userRepository;
+    /**
+     * Adds usage to several tasks' running totals in one statement. A task whose
+     * total predates chargeable_cost keeps it null, so its charge is still
+     * computed from its records.
+     */
+    private static final String ADD_USAGE_COSTS_SQL = """
+            UPDATE tasks t
+            SET total_cost = COALESCE(t.total_cost, 0) + v.cost,
+                chargeable_cost = CASE WHEN t.total_cost IS NULL OR t.chargeable_cost IS NOT NULL
+                                       THEN COALESCE(t.chargeable_cost, 0) + v.chargeable END,
+                updated_at = ?
+            FROM UNNEST(?::varchar[], ?::numeric[], ?::numeric[]) AS v(task_id, cost, chargeable)
+            WHERE t.task_id = v.task_id AND t.created_at BETWEEN ? AND ?
+            RETURNING t.task_id, t.total_cost, t.chargeable_cost, t.updated_at
+            """;
+
     private final TaskRepository taskRepository;
     private final UsageRecordRepository usageRecordRepository;
-    private final BillingConfigRepository billingConfigRepository;
+    private final BillingConfigService billingConfigService;
     private final TelemetryClient telemetryClient;
+    private final WalletBalanceService walletBalanceService;
+    private final BillingLedgerService billingLedgerService;
+    private final JdbcTemplate jdbcTemplate;
+    private final UsageRollupService usageRollupService;
+    private final HourlyMetricsService hourlyMetricsService;
+
+    /**
+     * Cost added to a task by newly recorded usage. {@code chargeableCost} is the
+     * cost times the charge multiplier it was priced under.
+     */
+    public record CostIncrement(BigDecimal cost, BigDecimal chargeableCost) {
+
+        public CostIncrement plus(CostIncrement other) {
+            return new CostIncrement(cost.add(other.cost), chargeableCost.add(other.chargeableCost));
+        }
+
+        public CostIncrement negate() {
+            return new CostIncrement(cost.negate(), chargeableCost.negate());
+        }
+    }
+
+    /**
+     * Add recorded usage to each task's totalCost and chargeableCost with one
+     * atomic UPDATE, then copy the resulting totals onto the given entities so
+     * a later flush writes back the values already in the row.
+     *
+     * @param tasks      Tasks to update, typically loaded in this transaction
+     * @param increments Cost to add per taskId; negative to take usage back out
+     */
+    public void addUsageCosts(List<Task> tasks, Map<String, CostIncrement> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        String[] taskIds = new String[increments.size()];
+        BigDecimal[] costs = new BigDecimal[increments.size()];
+        BigDecimal[] chargeable = new BigDecimal[increments.size()];
+        int i = 0;
+        for (Map.Entry<String, CostIncrement> entry : increments.entrySet()) {
+            taskIds[i] = entry.getKey();
+            costs[i] = entry.getValue().cost();
+            chargeable[i] = entry.getValue().chargeableCost();
+            i++;
+        }
+
+        Map<String, Task> tasksById = new HashMap<>();
+        tasks.forEach(task -> tasksById.put(task.getTaskId(), task));
+        TaskIds.CreatedAtRange range = TaskIds.createdAtRange(increments.keySet());
+        jdbcTemplate.query(ADD_USAGE_COSTS_SQL,
+                ps -> {
+                    ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now(Clock.systemUTC())));
+                    ps.setArray(2, ps.getConnection().createArrayOf("varchar", taskIds));
+                    ps.setArray(3, ps.getConnection().createArrayOf("numeric", costs));
+                    ps.setArray(4, ps.getConnection().createArrayOf("numeric", chargeable));
+                    ps.setObject(5, range.from());
+                    ps.setObject(6, range.to());
+                },
+                rs -> {
+                    Task task = tasksById.get(rs.getString(1));
+                    if (task != null) {
+                        task.setTotalCost(rs.getBigDecimal(2));
+                        task.setChargeableCost(rs.getBigDecimal(3));
+                        task.setUpdatedAt(rs.getTimestamp(4).toLocalDateTime());
+                    }
+                });
+    }
 
     public void applyDebitIfEligible(Task task) {
         if (task == null || task.getStatus() != TaskStatus.COMPLETED) {
@@ -39,37 +126,124 @@ public class TaskBillingService {
         }
 
         BigDecimal targetChargedCost = calculateTargetChargedCost(task);
-        BigDecimal chargedCost = task.getChargedCost() == null ? BigDecimal.ZERO : task.getChargedCost();
-
-        BigDecimal delta = targetChargedCost.subtract(chargedCost).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal delta = debitDelta(task, targetChargedCost);
+        Integer userId = resolveUserId(task);
         if (delta.compareTo(BigDecimal.ZERO) <= 0) {
+            if (userId != null) {
+                walletBalanceService.release(userId, task.getTaskId());
+            }
             return;
         }
 
-        Integer userId = task.getApiKey() != null && task.getApiKey().getUser() != null
-                ? task.getApiKey().getUser().getUserId()
-                : null;
         if (userId == null) {
             throw new BillingCalculationException("Cannot apply task debit because task user is missing: " + task.getTaskId());
         }
 
-        User user = userRepository.findByIdForUpdate(userId)
-                .orElseThrow(() -> new BillingCalculationException("User not found for task billing: userId=" + userId));
+        WalletBalanceService.Settlement settlement = walletBalanceService.settle(userId, task.getTaskId(), delta);
+        if (!settlement.settled()) {
+            throw new BillingCalculationException("Insufficient balance for task completion. Required=" + delta + ", available=" + settlement.balance());
+        }
+
+        billingLedgerService.append(List.of(debitEntry(task, userId, delta, targetChargedCost, settlement.balance())));
+        usageRollupService.recordCharges(List.of(new UsageRollupService.Charge(task, delta)));
+        hourlyMetricsService.taskCharged(task.getCompletedAt(), delta);
+        markCharged(task, targetChargedCost, settlement.balance());
+        taskRepository.save(task);
+
+        trackDebit(task, userId, delta, settlement.balance());
+    }
+
+    /**
+     * Apply debits for several tasks just moved to a terminal status. Each charge
+     * is settled against the wallet view and written to the ledger; holds of
+     * failed tasks are released. Tasks are updated in memory; the caller persists them.
+     *
+     * @param tasks Tasks just moved to a terminal status
+     * @return Failure reason per taskId for tasks that could not be debited
+     */
+    public Map<String, String> applyDebitsIfEligible(List<Task> tasks) {
+        Map<String, String> failures = new HashMap<>();
+        List<BillingLedgerEntry> entries = new ArrayList<>();
+        List<UsageRollupService.Charge> charges = new ArrayList<>();
+
+        for (Task task : tasks) {
+            Integer userId = resolveUserId(task);
+            if (task.getStatus() != TaskStatus.COMPLETED) {
+                if (userId != null) {
+                    walletBalanceService.release(userId, task.getTaskId());
+                }
+                continue;
+            }
+            if (userId == null) {
+                failures.put(task.getTaskId(), "Cannot apply task debit because task user is missing: " + task.getTaskId());
+                continue;
+            }
+
+            BigDecimal targetChargedCost = calculateTargetChargedCost(task);
+            BigDecimal delta = debitDelta(task, targetChargedCost);
+            if (delta.compareTo(BigDecimal.ZERO) <= 0) {
+                walletBalanceService.release(userId, task.getTaskId());
+                continue;
+            }
 
-        BigDecimal currentBalance = user.getBalance() == null ? BigDecimal.ZERO : user.getBalance();
-        if (currentBalance.compareTo(delta) < 0) {
-            throw new BillingCalculationException("Insufficient balance for task completion. Required=" + delta + ", available=" + currentBalance);
+            WalletBalanceService.Settlement settlement = walletBalanceService.settle(userId, task.getTaskId(), delta);
+            if (!settlement.settled()) {
+                failures.put(task.getTaskId(), "Insufficient balance for task completion. Required=" + delta + ", available=" + settlement.balance());
+                continue;
+            }
+
+            entries.add(debitEntry(task, userId, delta, targetChargedCost, settlement.balance()));
+            charges.add(new UsageRollupService.Charge(task, delta));
+            hourlyMetricsService.taskCharged(task.getCompletedAt(), delta);
+            markCharged(task, targetChargedCost, settlement.balance());
+            trackDebit(task, userId, delta, settlement.balance());
+        }
+
+        billingLedgerService.append(entries);
+        usageRollupService.recordCharges(charges);
+        return failures;
+    }
+
+    /**
+     * Release the wallet hold of a task that ended without a charge.
+     */
+    public void releaseHold(Task task) {
+        Integer userId = task == null ? null : resolveUserId(task);
+        if (userId != null) {
+            walletBalanceService.release(userId, task.getTaskId());
         }
+    }
 
-        BigDecimal newBalance = currentBalance.subtract(delta).setScale(2, RoundingMode.HALF_UP);
-        user.setBalance(newBalance);
-        userRepository.save(user);
+    private BillingLedgerEntry debitEntry(Task task, Integer userId, BigDecimal delta, BigDecimal targetChargedCost, BigDecimal balanceAfter) {
+        return BillingLedgerEntry.builder()
+                .userId(userId)
+                .taskId(task.getTaskId())
+                .entryType(LedgerEntryType.TASK_DEBIT)
+                .amount(delta.negate())
+                .taskChargedTotal(targetChargedCost)
+                .balanceAfter(balanceAfter)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private BigDecimal debitDelta(Task task, BigDecimal targetChargedCost) {
+        BigDecimal chargedCost = task.getChargedCost() == null ? BigDecimal.ZERO : task.getChargedCost();
+        return targetChargedCost.subtract(chargedCost).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private Integer resolveUserId(Task task) {
+        return task.getApiKey() != null && task.getApiKey().getUser() != null
+                ? task.getApiKey().getUser().getUserId()
+                : null;
+    }
 
+    private void markCharged(Task task, BigDecimal targetChargedCost, BigDecimal newBalance) {
         task.setChargedCost(targetChargedCost);
         task.setRemainingBalance(newBalance);
-        task.setUpdatedAt(LocalDateTime.now());
-        taskRepository.save(task);
+        task.setUpdatedAt(LocalDateTime.now(Clock.systemUTC()));
+    }
 
+    private void trackDebit(Task task, Integer userId, BigDecimal delta, BigDecimal newBalance) {
         telemetryClient.trackTrace(
                 "Applied task debit",
                 SeverityLevel.Information,
@@ -83,40 +257,70 @@ public class TaskBillingService {
     }
 
     private BigDecimal calculateTargetChargedCost(Task task) {
+        if (task.getChargeableCost() != null) {
+            return task.getChargeableCost().setScale(2, RoundingMode.HALF_UP);
+        }
+        // No usage recorded yet; every recording sets totalCost
+        if (task.getTotalCost() == null) {
+            return BigDecimal.ZERO.setScale(2);
+        }
+        return recomputeChargedCost(task);
+    }
+
+    /**
+     * Charge recomputed from the task's usage records. Only used for tasks whose
+     * running total predates chargeableCost; TaskCostReconciler verifies the
+     * running totals of everything else.
+     */
+    private BigDecimal recomputeChargedCost(Task task) {
+        ChargePricing pricing = findPricing(task);
         List<UsageRecord> usageRecords = usageRecordRepository.findByTask(task);
         if (!usageRecords.isEmpty()) {
             BigDecimal rawCharged = usageRecords.stream()
-                    .map(this::calculateChargedAmountForRecord)
+                    .map(record -> calculateChargedAmountForRecord(record, pricing))
                     .reduce(BigDecimal.ZERO, BigDecimal::add);
             return rawCharged.setScale(2, RoundingMode.HALF_UP);
         }
 
-        BigDecimal totalCost = task.getTotalCost() == null ? BigDecimal.ZERO : task.getTotalCost();
-        BigDecimal multiplier = resolveTaskMultiplier(task);
-        return totalCost.multiply(multiplier).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal multiplier = pricing == null ? BigDecimal.ONE : pricing.chargeMultiplier();
+        return task.getTotalCost().multiply(multiplier).setScale(2, RoundingMode.HALF_UP);
     }
 
-    private BigDecimal calculateChargedAmountForRecord(UsageRecord record) {
+    private BigDecimal calculateChargedAmountForRecord(UsageRecord record, ChargePricing pricing) {
         BigDecimal cost = record.getCost() == null ? BigDecimal.ZERO : record.getCost();
-        BigDecimal multiplier = resolveMultiplier(record.getBillingConfig());
-        if (record.getBillingConfig() == null && record.getTask() != null) {
-            multiplier = resolveTaskMultiplier(record.getTask());
+        BillingConfig config = record.getBillingConfig();
+        if (config == null) {
+            return cost.multiply(pricing == null ? BigDecimal.ONE : pricing.chargeMultiplier());
+        }
+        // Records priced under the model's current config use the cached multiplier; reading the id doesn't load the config
+        if (pricing != null && Objects.equals(pricing.billingId(), config.getBillingId())) {
+            return cost.multiply(pricing.chargeMultiplier());
         }
-        return cost.multiply(multiplier);
+        return cost.multiply(resolveMultiplier(config));
     }
 
-    private BigDecimal resolveTaskMultiplier(Task task) {
+    private ChargePricing findPricing(Task task) {
         Integer modelId = task.getModel() == null ? null : task.getModel().getModelId();
         if (modelId == null) {
-            return BigDecimal.ONE;
+            return null;
+        }
+        try {
+            PricingTable table = billingConfigService.findPricingTable(modelId);
+            return table == null ? null : new ChargePricing(table.getBillingId(), table.getChargeMultiplier());
+        } catch (BillingCalculationException e) {
+            // Debits only need the multiplier; unusable rates must not block charging usage already recorded
+            telemetryClient.trackException(e, Map.of("event", "PRICING_COMPILE_FAILED", "modelId", String.valueOf(modelId)), null);
+            return billingConfigService.findActiveBillingConfig(modelId)
+                    .map(config -> new ChargePricing(config.getBillingId(), resolveMultiplier(config)))
+                    .orElse(null);
         }
+    }
 
-        BillingConfig config = billingConfigRepository.findByModelModelIdAndActiveTrue(modelId).orElse(null);
-        return resolveMultiplier(config);
+    private record ChargePricing(Integer billingId, BigDecimal chargeMultiplier) {
     }
 
     private BigDecimal resolveMultiplier(BillingConfig config) {
-        if (config == null || config.getChargeMultiplier() == null || config.getChargeMultiplier().compareTo(BigDecimal.ZERO) <= 0) {
+        if (config.getChargeMultiplier() == null || config.getChargeMultiplier().compareTo(BigDecimal.ZERO) <= 0) {
             return BigDecimal.ONE;
         }
         return config.getChargeMultiplier();
@@ -0,0 +1,84 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies the running cost totals kept on tasks against their usage records.
+ *
+ * Recording usage only ever adds to tasks.total_cost and chargeable_cost, so
+ * nothing on the request path re-reads a task's records. This job recomputes
+ * both totals for tasks that had usage recorded recently and overwrites any
+ * that drifted. The task rows are locked before their records are summed, so
+ * a recording that commits meanwhile is either included in the sum or adds
+ * its increment on top of the corrected total once the lock is released.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskCostReconciler {
+
+    private static final String LOCK_SQL = """
+            SELECT t.task_id FROM tasks t
+            WHERE t.task_id IN (SELECT task_id FROM usage_records WHERE recorded_at > ?)
+            ORDER BY t.task_id
+            FOR UPDATE
+            """;
+
+    // Runs after LOCK_SQL in the same transaction, so it sums on a snapshot taken once the rows are held
+    private static final String RECONCILE_SQL = """
+            WITH recent AS (
+                SELECT UNNEST(?::varchar[]) AS task_id
+            ), sums AS (
+                SELECT u.task_id,
+                       ROUND(SUM(u.cost), 6) AS total_cost,
+                       SUM(u.cost * CASE WHEN bc.charge_multiplier > 0 THEN bc.charge_multiplier ELSE 1 END) AS chargeable_cost
+                FROM usage_records u
+                JOIN recent r ON r.task_id = u.task_id
+                LEFT JOIN billing_configs bc ON bc.billing_id = u.billing_config_id
+                GROUP BY u.task_id
+            )
+            UPDATE tasks t
+            SET total_cost = s.total_cost, chargeable_cost = s.chargeable_cost
+            FROM sums s
+            WHERE t.task_id = s.task_id
+              AND (t.total_cost IS DISTINCT FROM s.total_cost OR t.chargeable_cost IS DISTINCT FROM s.chargeable_cost)
+            RETURNING t.task_id
+            """;
+
+    private final TelemetryClient telemetryClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${billing.task-cost.reconcile-lookback-minutes:60}")
+    private long lookbackMinutes;
+
+    @Scheduled(fixedDelayString = "${billing.task-cost.reconcile-interval-ms:600000}")
+    @Transactional
+    public void reconcile() {
+        Timestamp since = Timestamp.valueOf(LocalDateTime.now(Clock.systemUTC()).minusMinutes(lookbackMinutes));
+        String[] locked = jdbcTemplate.queryForList(LOCK_SQL, String.class, since).toArray(String[]::new);
+        if (locked.length == 0) {
+            return;
+        }
+        List<String> corrected = jdbcTemplate.query(RECONCILE_SQL,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("varchar", locked)),
+                (rs, rowNum) -> rs.getString(1));
+        if (corrected.isEmpty()) {
+            return;
+        }
+        telemetryClient.trackTrace("Task cost totals corrected from usage records", SeverityLevel.Warning, Map.of(
+                "tasks", String.valueOf(corrected.size()),
+                "sample", String.join(",", corrected.subList(0, Math.min(10, corrected.size())))));
+    }
+}
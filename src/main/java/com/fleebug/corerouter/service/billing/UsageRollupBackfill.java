@@ -0,0 +1,70 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.fleebug.corerouter.entity.billing.UsageDailyRollup;
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Rebuilds usage_daily_rollup from usage_records and completed tasks.
+ *
+ * The table is locked against writers for the rebuild, so increments from
+ * transactions still in flight wait and land on top of the rebuilt rows
+ * instead of being counted twice or lost. Safe to repeat.
+ *
+ * Off by default: it scans every usage record and completed task, so enable
+ * it for one deploy after the rollup is introduced or to repair it.
+ */
+@Component
+@RequiredArgsConstructor
+public class UsageRollupBackfill {
+
+    private static final String USAGE_SQL = """
+            INSERT INTO usage_daily_rollup (user_id, api_key_id, model_id, usage_unit_type, usage_date,
+                                            quantity, cost, charged_cost, completed_tasks)
+            SELECT u.user_id, u.api_key_id, u.model_id, u.usage_unit_type, CAST(u.recorded_at AS DATE),
+                   SUM(u.quantity), SUM(u.cost * CASE WHEN bc.charge_multiplier > 0 THEN bc.charge_multiplier ELSE 1 END), 0, 0
+            FROM usage_records u
+            LEFT JOIN billing_configs bc ON bc.billing_id = u.billing_config_id
+            GROUP BY u.user_id, u.api_key_id, u.model_id, u.usage_unit_type, CAST(u.recorded_at AS DATE)
+            """;
+
+    private static final String TASKS_SQL = """
+            INSERT INTO usage_daily_rollup (user_id, api_key_id, model_id, usage_unit_type, usage_date,
+                                            quantity, cost, charged_cost, completed_tasks)
+            SELECT t.user_id, t.api_key_id, t.model_id, '%s', CAST(t.completed_at AS DATE),
+                   0, 0, SUM(COALESCE(t.charged_cost, t.total_cost, 0)), COUNT(*)
+            FROM tasks t
+            WHERE t.status = 'COMPLETED' AND t.completed_at IS NOT NULL
+            GROUP BY t.user_id, t.api_key_id, t.model_id, CAST(t.completed_at AS DATE)
+            """.formatted(UsageDailyRollup.TASK_ROW);
+
+    private final TelemetryClient telemetryClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${billing.usage-rollup.backfill-on-startup:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.execute("LOCK TABLE usage_daily_rollup IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM usage_daily_rollup");
+        int usageRows = jdbcTemplate.update(USAGE_SQL);
+        int taskRows = jdbcTemplate.update(TASKS_SQL);
+        telemetryClient.trackTrace("Usage daily rollup rebuilt", SeverityLevel.Information, Map.of(
+                "usageRows", String.valueOf(usageRows),
+                "taskRows", String.valueOf(taskRows)));
+    }
+}
@@ -0,0 +1,132 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.fleebug.corerouter.entity.billing.UsageDailyRollup;
+import com.fleebug.corerouter.entity.task.Task;
+import com.fleebug.corerouter.enums.billing.UsageUnitType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps usage_daily_rollup current as usage is recorded, tasks complete and
+ * wallets are charged.
+ *
+ * Increments are upserted in the caller's transaction, so they commit or roll
+ * back with the change they describe. Increments for the same row are merged
+ * first and rows are written in key order, which keeps concurrent writers from
+ * deadlocking on each other's rows.
+ */
+@Service
+@RequiredArgsConstructor
+public class UsageRollupService {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO usage_daily_rollup (user_id, api_key_id, model_id, usage_unit_type, usage_date,
+                                            quantity, cost, charged_cost, completed_tasks)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, api_key_id, model_id, usage_unit_type, usage_date) DO UPDATE
+            SET quantity = usage_daily_rollup.quantity + EXCLUDED.quantity,
+                cost = usage_daily_rollup.cost + EXCLUDED.cost,
+                charged_cost = usage_daily_rollup.charged_cost + EXCLUDED.charged_cost,
+                completed_tasks = usage_daily_rollup.completed_tasks + EXCLUDED.completed_tasks
+            """;
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::userId)
+            .thenComparing(Key::apiKeyId)
+            .thenComparing(Key::modelId)
+            .thenComparing(Key::unitType)
+            .thenComparing(Key::day);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Usage recorded for a task. {@code chargeableCost} is the cost times the
+     * charge multiplier it was priced under.
+     */
+    public record Usage(Task task, UsageUnitType unitType, BigDecimal quantity, BigDecimal chargeableCost, LocalDateTime recordedAt) {
+    }
+
+    /**
+     * A wallet debit for a completed task, counted on the day it completed.
+     */
+    public record Charge(Task task, BigDecimal amount) {
+    }
+
+    private record Key(Integer userId, Integer apiKeyId, Integer modelId, String unitType, LocalDate day) {
+    }
+
+    // One change to a rollup row; measures not affected are zero
+    private record Increment(Key key, BigDecimal quantity, BigDecimal cost, BigDecimal chargedCost, long completedTasks) {
+
+        private Increment plus(Increment other) {
+            return new Increment(key, quantity.add(other.quantity), cost.add(other.cost),
+                    chargedCost.add(other.chargedCost), completedTasks + other.completedTasks);
+        }
+    }
+
+    public void recordUsage(List<Usage> usages) {
+        add(usages.stream()
+                .map(usage -> new Increment(key(usage.task(), usage.unitType().name(), usage.recordedAt()),
+                        usage.quantity(), usage.chargeableCost(), BigDecimal.ZERO, 0))
+                .toList());
+    }
+
+    /**
+     * Count tasks that just reached COMPLETED for the first time.
+     */
+    public void recordCompletions(List<Task> tasks) {
+        add(tasks.stream()
+                .map(task -> new Increment(key(task, UsageDailyRollup.TASK_ROW, task.getCompletedAt()),
+                        BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, 1))
+                .toList());
+    }
+
+    public void recordCharges(List<Charge> charges) {
+        add(charges.stream()
+                .map(charge -> new Increment(key(charge.task(), UsageDailyRollup.TASK_ROW, charge.task().getCompletedAt()),
+                        BigDecimal.ZERO, BigDecimal.ZERO, charge.amount(), 0))
+                .toList());
+    }
+
+    private void add(List<Increment> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        Map<Key, Increment> merged = new TreeMap<>(KEY_ORDER);
+        increments.forEach(increment -> merged.merge(increment.key(), increment, Increment::plus));
+
+        List<Object[]> rows = new ArrayList<>(merged.size());
+        for (Increment increment : merged.values()) {
+            Key key = increment.key();
+            rows.add(new Object[]{
+                    key.userId(),
+                    key.apiKeyId(),
+                    key.modelId(),
+                    key.unitType(),
+                    Date.valueOf(key.day()),
+                    increment.quantity(),
+                    increment.cost(),
+                    increment.chargedCost(),
+                    increment.completedTasks()
+            });
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    private static Key key(Task task, String unitType, LocalDateTime at) {
+        LocalDate day = (at == null ? LocalDateTime.now(Clock.systemUTC()) : at).toLocalDate();
+        return new Key(task.getApiKey().getUser().getUserId(), task.getApiKey().getApiKeyId(),
+                task.getModel().getModelId(), unitType, day);
+    }
+}
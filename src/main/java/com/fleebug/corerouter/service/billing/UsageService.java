@@ -2,11 +2,9 @@ package com.fleebug.corerouter.service.billing;
 
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fleebug.corerouter.dto.billing.request.RecordUsageRequest;
 import com.fleebug.corerouter.dto.billing.response.DailySpendingPoint;
+import com.fleebug.corerouter.dto.billing.response.UsageBatchItemResponse;
 import com.fleebug.corerouter.dto.billing.response.MonthlySpendingPoint;
 import com.fleebug.corerouter.dto.billing.response.UsageRecordResponse;
 import com.fleebug.corerouter.dto.billing.response.UsageSummaryItem;
@@ -18,7 +16,7 @@ import com.fleebug.corerouter.dto.billing.response.UserSpendingResponse;
 import com.fleebug.corerouter.dto.billing.response.UserUsageHistoryResponse;
 import com.fleebug.corerouter.dto.billing.response.UserUsageByModelTypeResponse;
 import com.fleebug.corerouter.dto.billing.response.UserUsageInsightsResponse;
-import com.fleebug.corerouter.entity.billing.BillingConfig;
+import com.fleebug.corerouter.entity.apikey.ApiKey;
 import com.fleebug.corerouter.entity.billing.UsageRecord;
 import com.fleebug.corerouter.entity.model.Model;
 import com.fleebug.corerouter.entity.task.Task;
@@ -26,23 +24,27 @@ import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
 import com.fleebug.corerouter.enums.billing.UsageUnitType;
 import com.fleebug.corerouter.enums.model.ModelType;
 import com.fleebug.corerouter.enums.task.TaskStatus;
-import com.fleebug.corerouter.exception.billing.BillingCalculationException;
 import com.fleebug.corerouter.exception.task.TaskNotFoundException;
 import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
+import com.fleebug.corerouter.repository.billing.UsageDailyRollupRepository;
 import com.fleebug.corerouter.repository.billing.UsageRecordRepository;
 import com.fleebug.corerouter.repository.model.ModelRepository;
 import com.fleebug.corerouter.repository.task.TaskRepository;
+import com.fleebug.corerouter.service.apikey.ApiKeyUsageCounter;
 import com.fleebug.corerouter.service.otp.OtpService;
 import com.fleebug.corerouter.service.redis.RedisService;
+import com.fleebug.corerouter.util.TaskIds;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Timestamp;
 import java.time.Clock;
 import java.time.ZoneOffset;
 import java.time.LocalDateTime;
@@ -50,11 +52,17 @@ import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.TextStyle;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.LinkedHashMap;
 import java.util.stream.Collectors;
 import java.util.concurrent.TimeUnit;
@@ -67,17 +75,32 @@ public class UsageService {
     private final TelemetryClient telemetryClient;
 
     private final UsageRecordRepository usageRecordRepository;
+    private final UsageDailyRollupRepository usageDailyRollupRepository;
     private final ApiKeyRepository apiKeyRepository;
     private final TaskRepository taskRepository;
     private final ModelRepository modelRepository;
     private final BillingConfigService billingConfigService;
     private final TaskBillingService taskBillingService;
-    private final ObjectMapper objectMapper;
     private final OtpService otpService;
     private final RedisService redisService;
+    private final ApiKeyUsageCounter apiKeyUsageCounter;
+    private final JdbcTemplate jdbcTemplate;
+    private final UsageRollupService usageRollupService;
 
     private static final String API_KEY_MONTHLY_ALERT_PREFIX = "billing:apikey:monthly-alert:";
 
+    // A unit recorded concurrently by another call is skipped rather than failing the whole batch
+    private static final String INSERT_USAGE_SQL = """
+            INSERT INTO usage_records (task_id, api_key_id, user_id, model_id, usage_unit_type, quantity,
+                                       rate_per_unit, cost, billing_config_id, recorded_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING
+            """;
+
+    // The recorded_at bound (see UsageRecordRepository#findByTaskTaskId) keeps the delete to recent partitions
+    private static final String DELETE_USAGE_SQL =
+            "DELETE FROM usage_records WHERE task_id = ? AND usage_unit_type = ? AND recorded_at >= ?";
+
     /**
      * Record usage for a task, compute cost from billing config, and update task total cost.
      *
@@ -91,40 +114,191 @@ public class UsageService {
                 .orElseThrow(() -> new TaskNotFoundException(request.getTaskId()));
 
         // Validate daily and monthly usage limits for API key before processing
-        validateApiKeyLimits(task.getApiKey(), request.getQuantity());
+        long consumedMonthly = validateApiKeyLimits(task.getApiKey());
 
         Model model = task.getModel();
-        BillingConfig billingConfig = billingConfigService.getBillingConfigEntityByModelId(model.getModelId());
+        PricingTable pricing = billingConfigService.getPricingTable(model.getModelId());
 
-        BigDecimal ratePerUnit = extractRate(billingConfig, request.getUsageUnitType());
+        BigDecimal ratePerUnit = pricing.rateFor(request.getUsageUnitType());
         BigDecimal cost = request.getQuantity().multiply(ratePerUnit).setScale(10, RoundingMode.HALF_UP);
 
         UsageRecord record = UsageRecord.builder()
                 .task(task)
                 .apiKey(task.getApiKey())
+                .userId(task.getUserId())
                 .model(model)
                 .usageUnitType(request.getUsageUnitType())
                 .quantity(request.getQuantity())
                 .ratePerUnit(ratePerUnit)
                 .cost(cost)
-                .billingConfig(billingConfig)
-                .recordedAt(LocalDateTime.now())
+                .billingConfig(billingConfigService.getBillingConfigReference(pricing.getBillingId()))
+                .recordedAt(LocalDateTime.now(Clock.systemUTC()))
                 .build();
 
         UsageRecord saved = usageRecordRepository.save(record);
         telemetryClient.trackTrace("Usage recorded: usageId=" + saved.getUsageId() + ", taskId=" + request.getTaskId() + ", cost=" + cost, SeverityLevel.Information, Map.of("usageId", String.valueOf(saved.getUsageId()), "taskId", request.getTaskId(), "cost", cost.toPlainString()));
 
-        // Update task totalCost
-        updateTaskCost(task);
+        // Add the cost to the task's running totals and the user's daily rollup
+        BigDecimal chargeableCost = cost.multiply(pricing.getChargeMultiplier());
+        taskBillingService.addUsageCosts(List.of(task), Map.of(task.getTaskId(), new TaskBillingService.CostIncrement(cost, chargeableCost)));
+        usageRollupService.recordUsage(List.of(new UsageRollupService.Usage(task, request.getUsageUnitType(), request.getQuantity(), chargeableCost, saved.getRecordedAt())));
 
         // Charge wallet only after task is completed; repeated calls are idempotent.
         taskBillingService.applyDebitIfEligible(task);
 
-        checkAndNotifyMonthlyApiKeyUsage(saved.getApiKey());
+        checkAndNotifyMonthlyApiKeyUsage(saved.getApiKey(), consumedMonthly);
 
         return mapToResponse(saved);
     }
 
+    /**
+     * Record usage for one or many tasks in one call. Records are priced and
+     * checked against API key limits individually, inserted as one JDBC batch,
+     * and added to each task's totalCost without re-reading its records. Each
+     * completed task is debited once for all of its new records; when that
+     * debit fails, the task's records from this batch are removed again.
+     *
+     * @param requests usage records, typically every unit of a finished task
+     * @return one result per record, in request order
+     */
+    public List<UsageBatchItemResponse> recordUsageBatch(List<RecordUsageRequest> requests) {
+        UsageBatchItemResponse[] results = new UsageBatchItemResponse[requests.size()];
+
+        Set<String> taskIds = new HashSet<>();
+        requests.forEach(request -> taskIds.add(request.getTaskId()));
+        Map<String, Task> tasksById = new HashMap<>();
+        for (Task task : taskRepository.findAllWithUserByTaskIdIn(taskIds)) {
+            tasksById.put(task.getTaskId(), task);
+        }
+
+        // Usage is recorded after its task is created; the lower bound keeps the lookup to recent partitions
+        LocalDateTime recordedSince = tasksById.values().stream()
+                .map(Task::getCreatedAt)
+                .filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElse(LocalDateTime.now(Clock.systemUTC()));
+        Set<String> recordedUnits = new HashSet<>();
+        for (Object[] row : usageRecordRepository.findUnitTypesByTaskIdInRecordedSince(taskIds, recordedSince)) {
+            recordedUnits.add(unitKey((String) row[0], (UsageUnitType) row[1]));
+        }
+
+        LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+        List<Object[]> rows = new ArrayList<>();
+        List<Integer> rowIndexes = new ArrayList<>();
+        List<TaskBillingService.CostIncrement> rowIncrements = new ArrayList<>();
+        List<BigDecimal> rowQuantities = new ArrayList<>();
+        Map<Integer, Long> consumedByApiKey = new HashMap<>();
+        Map<Integer, ApiKey> apiKeys = new HashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            RecordUsageRequest request = requests.get(i);
+            Task task = tasksById.get(request.getTaskId());
+            if (task == null) {
+                results[i] = UsageBatchItemResponse.failed(request.getTaskId(), request.getUsageUnitType(), new TaskNotFoundException(request.getTaskId()).getMessage());
+                continue;
+            }
+            if (!recordedUnits.add(unitKey(task.getTaskId(), request.getUsageUnitType()))) {
+                results[i] = UsageBatchItemResponse.failed(request.getTaskId(), request.getUsageUnitType(), "Usage for unit type " + request.getUsageUnitType() + " is already recorded for task");
+                continue;
+            }
+
+            PricingTable pricing;
+            BigDecimal ratePerUnit;
+            long consumedMonthly;
+            try {
+                pricing = billingConfigService.getPricingTable(task.getModel().getModelId());
+                ratePerUnit = pricing.rateFor(request.getUsageUnitType());
+                consumedMonthly = validateApiKeyLimits(task.getApiKey());
+            } catch (RuntimeException e) {
+                results[i] = UsageBatchItemResponse.failed(request.getTaskId(), request.getUsageUnitType(), e.getMessage());
+                continue;
+            }
+
+            BigDecimal cost = request.getQuantity().multiply(ratePerUnit).setScale(10, RoundingMode.HALF_UP);
+            rows.add(new Object[]{
+                    task.getTaskId(),
+                    task.getApiKey().getApiKeyId(),
+                    task.getUserId(),
+                    task.getModel().getModelId(),
+                    request.getUsageUnitType().name(),
+                    request.getQuantity(),
+                    ratePerUnit,
+                    cost,
+                    pricing.getBillingId(),
+                    Timestamp.valueOf(now)
+            });
+            rowIndexes.add(i);
+            rowIncrements.add(new TaskBillingService.CostIncrement(cost, cost.multiply(pricing.getChargeMultiplier())));
+            rowQuantities.add(request.getQuantity());
+            results[i] = UsageBatchItemResponse.recorded(task.getTaskId(), request.getUsageUnitType(), cost);
+
+            Integer apiKeyId = task.getApiKey().getApiKeyId();
+            apiKeys.put(apiKeyId, task.getApiKey());
+            consumedByApiKey.merge(apiKeyId, consumedMonthly, Math::max);
+        }
+
+        if (rows.isEmpty()) {
+            return List.of(results);
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_USAGE_SQL, rows);
+
+        Map<String, TaskBillingService.CostIncrement> increments = new HashMap<>();
+        for (int r = 0; r < rows.size(); r++) {
+            int i = rowIndexes.get(r);
+            if (counts[r] == 0) {
+                results[i] = UsageBatchItemResponse.failed(results[i].getTaskId(), results[i].getUsageUnitType(), "Usage for unit type " + results[i].getUsageUnitType() + " is already recorded for task");
+                continue;
+            }
+            increments.merge(results[i].getTaskId(), rowIncrements.get(r), TaskBillingService.CostIncrement::plus);
+        }
+
+        List<Task> updated = increments.keySet().stream().map(tasksById::get).toList();
+        taskBillingService.addUsageCosts(updated, increments);
+
+        // Only completed tasks are debited; the billing service would release the hold of anything else
+        Map<String, String> billingFailures = taskBillingService.applyDebitsIfEligible(
+                updated.stream().filter(task -> task.getStatus() == TaskStatus.COMPLETED).toList());
+
+        if (!billingFailures.isEmpty()) {
+            List<Object[]> removed = new ArrayList<>();
+            for (int r = 0; r < rows.size(); r++) {
+                int i = rowIndexes.get(r);
+                String failure = billingFailures.get(results[i].getTaskId());
+                if (failure != null && results[i].isSuccess()) {
+                    removed.add(new Object[]{results[i].getTaskId(), results[i].getUsageUnitType().name(),
+                            TaskIds.createdAtRange(results[i].getTaskId()).from()});
+                    results[i] = UsageBatchItemResponse.failed(results[i].getTaskId(), results[i].getUsageUnitType(), failure);
+                }
+            }
+            jdbcTemplate.batchUpdate(DELETE_USAGE_SQL, removed);
+            Map<String, TaskBillingService.CostIncrement> reversals = new HashMap<>();
+            billingFailures.keySet().forEach(taskId -> reversals.put(taskId, increments.get(taskId).negate()));
+            taskBillingService.addUsageCosts(updated, reversals);
+        }
+
+        taskRepository.saveAll(updated.stream().filter(task -> !billingFailures.containsKey(task.getTaskId())).toList());
+
+        List<UsageRollupService.Usage> rollup = new ArrayList<>();
+        for (int r = 0; r < rows.size(); r++) {
+            UsageBatchItemResponse result = results[rowIndexes.get(r)];
+            if (result.isSuccess()) {
+                rollup.add(new UsageRollupService.Usage(tasksById.get(result.getTaskId()), result.getUsageUnitType(),
+                        rowQuantities.get(r), rowIncrements.get(r).chargeableCost(), now));
+            }
+        }
+        usageRollupService.recordUsage(rollup);
+
+        consumedByApiKey.forEach((apiKeyId, consumed) -> checkAndNotifyMonthlyApiKeyUsage(apiKeys.get(apiKeyId), consumed));
+
+        telemetryClient.trackTrace("Usage batch recorded", SeverityLevel.Information, Map.of(
+                "records", String.valueOf(requests.size()),
+                "tasks", String.valueOf(updated.size()),
+                "billingFailures", String.valueOf(billingFailures.size())));
+
+        return List.of(results);
+    }
+
     /**
      * Get all usage records for a specific task.
      *
@@ -249,7 +423,9 @@ public class UsageService {
      */
     @Transactional(readOnly = true)
     public BigDecimal getTotalCostByUser(Integer userId, LocalDateTime from, LocalDateTime to) {
-        return taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(userId, TaskStatus.COMPLETED, from, to);
+        LocalDate fromDate = from.toLocalDate();
+        LocalDate toDate = to.toLocalDate();
+        return sumTaskDays(loadTaskDays(userId, fromDate, toDate), fromDate, toDate).chargedCost();
     }
 
     @Transactional(readOnly = true)
@@ -261,11 +437,11 @@ public class UsageService {
     public UserDashboardInsightsResponse getUserDashboardInsights(Integer userId, BigDecimal currentBalance) {
         LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
         LocalDateTime thisMonthStart = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-        LocalDateTime todayStart = LocalDate.now(ZoneOffset.UTC).atStartOfDay();
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
 
         long activeApiKeys = apiKeyRepository.countByUserUserIdAndStatus(userId, ApiKeyStatus.ACTIVE);
-        long tasksThisMonth = taskRepository.countByApiKey_User_UserIdAndCreatedAtBetween(userId, thisMonthStart, now);
-        BigDecimal todaysConsumption = taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(userId, TaskStatus.COMPLETED, todayStart, now);
+        long tasksThisMonth = taskRepository.countByUserIdAndCreatedAtBetween(userId, thisMonthStart, now);
+        BigDecimal todaysConsumption = sumTaskDays(loadTaskDays(userId, today, today), today, today).chargedCost();
 
         return UserDashboardInsightsResponse.builder()
             .currentBalance(currentBalance.setScale(2, RoundingMode.HALF_UP))
@@ -277,20 +453,15 @@ public class UsageService {
 
     @Transactional(readOnly = true)
     public UserSpendingResponse getUserSpending(Integer userId, LocalDateTime from, LocalDateTime to, String filterPeriod) {
-        BigDecimal totalSpending = taskRepository
-            .sumChargedCostByUserAndStatusAndCompletedAtBetween(userId, TaskStatus.COMPLETED, from, to)
-            .setScale(3, RoundingMode.HALF_UP);
+        NavigableMap<LocalDate, TaskDay> days = loadTaskDays(userId, from.toLocalDate(), to.toLocalDate());
 
         List<DailySpendingPoint> dailyTrend = new ArrayList<>();
-        for (Object[] row : taskRepository.sumChargedCostByUserAndStatusGroupedByDateBetween(userId, TaskStatus.COMPLETED, from, to)) {
-            if (row == null || row.length < 2 || row[0] == null) {
-                continue;
-            }
-            LocalDate date = toLocalDate(row[0]);
-            BigDecimal amount = toBigDecimal(row[1]).setScale(3, RoundingMode.HALF_UP);
+        BigDecimal totalSpending = BigDecimal.ZERO;
+        for (Map.Entry<LocalDate, TaskDay> day : days.entrySet()) {
+            totalSpending = totalSpending.add(day.getValue().chargedCost());
             dailyTrend.add(DailySpendingPoint.builder()
-                .date(date.toString())
-                .value(amount)
+                .date(day.getKey().toString())
+                .value(day.getValue().chargedCost().setScale(3, RoundingMode.HALF_UP))
                 .build());
         }
 
@@ -298,7 +469,7 @@ public class UsageService {
             .filterPeriod(filterPeriod)
             .fromDate(from)
             .toDate(to)
-            .totalSpending(totalSpending)
+            .totalSpending(totalSpending.setScale(3, RoundingMode.HALF_UP))
             .dailyTrend(dailyTrend)
             .build();
     }
@@ -306,14 +477,16 @@ public class UsageService {
     @Transactional(readOnly = true)
     public UserUsageByModelTypeResponse getUserUsageByModelType(Integer userId, LocalDateTime from, LocalDateTime to, String filterPeriod) {
         return UserUsageByModelTypeResponse.builder()
-            .usageByModelTypeCounts(getUsageByModelTypeCounts(userId, from, to))
+            .usageByModelTypeCounts(toModelTypeCounts(
+                usageDailyRollupRepository.sumCompletedTasksByUserGroupedByModelType(userId, from.toLocalDate(), to.toLocalDate())))
             .build();
     }
 
     @Transactional(readOnly = true)
     public UserUsageByModelTypeResponse getUserUsageByModelTypeLifetime(Integer userId) {
         return UserUsageByModelTypeResponse.builder()
-            .usageByModelTypeCounts(getUsageByModelTypeCountsLifetimeActive(userId))
+            .usageByModelTypeCounts(toModelTypeCounts(
+                usageDailyRollupRepository.sumCompletedTasksByUserAndApiKeyStatusGroupedByModelType(userId, ApiKeyStatus.ACTIVE)))
             .build();
     }
 
@@ -323,24 +496,20 @@ public class UsageService {
 
         LocalDateTime thisMonthStart = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
         long activeApiKeys = apiKeyRepository.countByUserUserIdAndStatus(userId, ApiKeyStatus.ACTIVE);
-        long tasksThisMonth = taskRepository.countByApiKey_User_UserIdAndCreatedAtBetween(userId, thisMonthStart, now);
-
-        LocalDateTime todayStart = LocalDate.now(ZoneOffset.UTC).atStartOfDay();
-        BigDecimal todaysConsumption = taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(userId, TaskStatus.COMPLETED, todayStart, now);
+        long tasksThisMonth = taskRepository.countByUserIdAndCreatedAtBetween(userId, thisMonthStart, now);
 
+        // One read covers the trend and today's consumption
         YearMonth currentMonth = YearMonth.from(now);
+        LocalDate today = now.toLocalDate();
+        NavigableMap<LocalDate, TaskDay> days = loadTaskDays(userId, currentMonth.minusMonths(11).atDay(1), today);
+        BigDecimal todaysConsumption = sumTaskDays(days, today, today).chargedCost();
+
         List<MonthlySpendingPoint> trend = new ArrayList<>();
         BigDecimal spendingLast12Months = BigDecimal.ZERO;
 
         for (int i = 11; i >= 0; i--) {
             YearMonth month = currentMonth.minusMonths(i);
-            LocalDateTime monthStart = month.atDay(1).atStartOfDay();
-            LocalDateTime monthEnd = month.equals(currentMonth)
-                ? now
-                : month.plusMonths(1).atDay(1).atStartOfDay().minusNanos(1);
-
-            BigDecimal value = taskRepository
-                .sumChargedCostByUserAndStatusAndCompletedAtBetween(userId, TaskStatus.COMPLETED, monthStart, monthEnd)
+            BigDecimal value = sumTaskDays(days, month.atDay(1), month.atEndOfMonth()).chargedCost()
                 .setScale(2, RoundingMode.HALF_UP);
             spendingLast12Months = spendingLast12Months.add(value);
 
@@ -366,27 +535,24 @@ public class UsageService {
     public UserBillingInsightsResponse getUserBillingInsights(Integer userId, BigDecimal currentBalance) {
         LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
 
-        LocalDateTime thisMonthStart = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-        LocalDateTime lastMonthStart = thisMonthStart.minusMonths(1);
-        LocalDateTime comparableLastMonthEnd = lastMonthStart.plusSeconds(java.time.Duration.between(thisMonthStart, now).getSeconds());
-
-        BigDecimal creditsUsedThisMonth = taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(userId, TaskStatus.COMPLETED, thisMonthStart, now);
-        BigDecimal creditsUsedComparableLastMonth = taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(userId, TaskStatus.COMPLETED, lastMonthStart, comparableLastMonthEnd);
+        LocalDate today = now.toLocalDate();
+        LocalDate thisMonthStart = today.withDayOfMonth(1);
+        LocalDate lastMonthStart = thisMonthStart.minusMonths(1);
+        // Same day of last month; minusMonths clamps to its last day
+        LocalDate comparableLastMonthEnd = today.minusMonths(1);
 
         PeriodRange selectedRange = resolvePeriodRange("30days", now);
-        BigDecimal totalSpend = taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(
-                userId,
-            TaskStatus.COMPLETED,
-            selectedRange.from(),
-            selectedRange.to()
-        );
-        long totalRequestsCurrentPeriod = taskRepository.countByApiKey_User_UserIdAndStatusAndCompletedAtBetween(
-            userId,
-            TaskStatus.COMPLETED,
-            selectedRange.from(),
-            selectedRange.to()
-        );
-        BigDecimal avgCostPerRequest = calculateAverage(totalSpend, totalRequestsCurrentPeriod);
+        LocalDate selectedFrom = selectedRange.from().toLocalDate();
+
+        NavigableMap<LocalDate, TaskDay> days = loadTaskDays(userId,
+            selectedFrom.isBefore(lastMonthStart) ? selectedFrom : lastMonthStart, today);
+
+        BigDecimal creditsUsedThisMonth = sumTaskDays(days, thisMonthStart, today).chargedCost();
+        BigDecimal creditsUsedComparableLastMonth = sumTaskDays(days, lastMonthStart, comparableLastMonthEnd).chargedCost();
+
+        TaskDay selected = sumTaskDays(days, selectedFrom, today);
+        BigDecimal totalSpend = selected.chargedCost();
+        BigDecimal avgCostPerRequest = calculateAverage(totalSpend, selected.completedTasks());
 
         return UserBillingInsightsResponse.builder()
                 .currentBalance(currentBalance.setScale(2, RoundingMode.HALF_UP))
@@ -413,31 +579,21 @@ public class UsageService {
             throw new IllegalArgumentException("from must be before to");
         }
 
-        long seconds = Math.max(1L, java.time.Duration.between(from, to).getSeconds());
-        LocalDateTime previousEnd = from.minusSeconds(1);
-        LocalDateTime previousStart = previousEnd.minusSeconds(seconds);
+        // The prior period is the same number of days immediately before this one
+        LocalDate fromDate = from.toLocalDate();
+        LocalDate toDate = to.toLocalDate();
+        long days = java.time.temporal.ChronoUnit.DAYS.between(fromDate, toDate) + 1;
+        LocalDate previousEnd = fromDate.minusDays(1);
+        LocalDate previousStart = fromDate.minusDays(days);
 
-        BigDecimal totalSpend = taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(
-            userId,
-            TaskStatus.COMPLETED,
-            from,
-            to);
-        BigDecimal priorSpend = taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(
-            userId,
-            TaskStatus.COMPLETED,
-            previousStart,
-            previousEnd);
+        NavigableMap<LocalDate, TaskDay> taskDays = loadTaskDays(userId, previousStart, toDate);
+        TaskDay current = sumTaskDays(taskDays, fromDate, toDate);
+        TaskDay prior = sumTaskDays(taskDays, previousStart, previousEnd);
 
-        long totalRequests = taskRepository.countByApiKey_User_UserIdAndStatusAndCompletedAtBetween(
-            userId,
-            TaskStatus.COMPLETED,
-            from,
-            to);
-        long priorRequests = taskRepository.countByApiKey_User_UserIdAndStatusAndCompletedAtBetween(
-            userId,
-            TaskStatus.COMPLETED,
-            previousStart,
-            previousEnd);
+        BigDecimal totalSpend = current.chargedCost();
+        BigDecimal priorSpend = prior.chargedCost();
+        long totalRequests = current.completedTasks();
+        long priorRequests = prior.completedTasks();
 
         BigDecimal avgCostPerRequest = calculateAverage(totalSpend, totalRequests);
         BigDecimal priorAvgCostPerRequest = calculateAverage(priorSpend, priorRequests);
@@ -446,11 +602,10 @@ public class UsageService {
         BigDecimal totalRequestsChangePercent = calculatePercentChange(BigDecimal.valueOf(totalRequests), BigDecimal.valueOf(priorRequests));
         BigDecimal avgCostPerRequestChangePercent = calculatePercentChange(avgCostPerRequest, priorAvgCostPerRequest);
 
-        List<Object[]> topModels = taskRepository.findTopModelsByUserAndStatusAndCompletedAtBetween(
+        List<Object[]> topModels = usageDailyRollupRepository.findTopModelsByUser(
             userId,
-            TaskStatus.COMPLETED,
-            from,
-            to,
+            fromDate,
+            toDate,
             PageRequest.of(0, 1)
         );
 
@@ -472,35 +627,25 @@ public class UsageService {
                                                         String period,
                                                         LocalDateTime from,
                                                         LocalDateTime to) {
-        List<Object[]> unitRows = usageRecordRepository.sumUsageByUserGroupedByDateAndUnitTypeAndPeriod(userId, from, to);
-        List<Object[]> requestRows = taskRepository.countByUserAndStatusGroupedByCompletedDateBetween(
-            userId,
-            TaskStatus.COMPLETED,
-            from,
-            to);
-
-        Map<LocalDate, Long> requestCountByDate = new HashMap<>();
-        for (Object[] row : requestRows) {
-            LocalDate date = toLocalDate(row[0]);
-            long count = row[1] == null ? 0L : ((Number) row[1]).longValue();
-            requestCountByDate.put(date, count);
-        }
-
-        Map<LocalDate, UserUsageHistoryResponse.DailyUsageHistoryDay> dayMap = new LinkedHashMap<>();
         LocalDate startDate = from.toLocalDate();
         LocalDate endDate = to.toLocalDate();
+        List<Object[]> unitRows = usageDailyRollupRepository.sumUsageByUserGroupedByDateAndUnitType(userId, startDate, endDate);
+        NavigableMap<LocalDate, TaskDay> taskDays = loadTaskDays(userId, startDate, endDate);
+
+        Map<LocalDate, UserUsageHistoryResponse.DailyUsageHistoryDay> dayMap = new LinkedHashMap<>();
         for (LocalDate date = startDate; !date.isAfter(endDate); date = date.plusDays(1)) {
+            TaskDay taskDay = taskDays.get(date);
             dayMap.put(date, UserUsageHistoryResponse.DailyUsageHistoryDay.builder()
                     .date(date.toString())
                     .totalCost(BigDecimal.ZERO.setScale(3, RoundingMode.HALF_UP))
-                    .totalRequests(requestCountByDate.getOrDefault(date, 0L))
+                    .totalRequests(taskDay == null ? 0L : taskDay.completedTasks())
                     .usageByUnit(new LinkedHashMap<>())
                     .build());
         }
 
         for (Object[] row : unitRows) {
             LocalDate date = toLocalDate(row[0]);
-            UsageUnitType unitType = (UsageUnitType) row[1];
+            String unitType = (String) row[1];
             BigDecimal quantity = toBigDecimal(row[2]);
             BigDecimal cost = toBigDecimal(row[3]);
 
@@ -515,7 +660,7 @@ public class UsageService {
                 ? BigDecimal.ZERO
                 : cost.divide(quantity, 6, RoundingMode.HALF_UP);
 
-            usageByUnit.put(unitType.name(), UserUsageHistoryResponse.UnitUsageSummary.builder()
+            usageByUnit.put(unitType, UserUsageHistoryResponse.UnitUsageSummary.builder()
                 .quantity(quantity.setScale(4, RoundingMode.HALF_UP))
                 .totalCost(cost.setScale(6, RoundingMode.HALF_UP))
                 .avgRatePerUnit(avgRate)
@@ -615,9 +760,9 @@ public class UsageService {
         };
     }
 
-    private Map<String, Long> getUsageByModelTypeCounts(Integer userId, LocalDateTime from, LocalDateTime to) {
+    private Map<String, Long> toModelTypeCounts(List<Object[]> rows) {
         Map<ModelType, Long> rawCounts = new EnumMap<>(ModelType.class);
-        for (Object[] row : taskRepository.countByUserGroupedByModelTypeAndCreatedAtBetween(userId, TaskStatus.COMPLETED, from, to)) {
+        for (Object[] row : rows) {
             ModelType type = (ModelType) row[0];
             Number countNumber = (Number) row[1];
             rawCounts.put(type, countNumber.longValue());
@@ -630,75 +775,31 @@ public class UsageService {
         return counts;
     }
 
-    private Map<String, Long> getUsageByModelTypeCountsLifetimeActive(Integer userId) {
-        Map<ModelType, Long> rawCounts = new EnumMap<>(ModelType.class);
-        for (Object[] row : taskRepository.countByUserGroupedByModelTypeAndActiveApiKeyStatus(userId, ApiKeyStatus.ACTIVE, TaskStatus.COMPLETED)) {
-            ModelType type = (ModelType) row[0];
-            Number countNumber = (Number) row[1];
-            rawCounts.put(type, countNumber.longValue());
+    /**
+     * Charges and completed tasks per day from usage_daily_rollup, for days
+     * that had any.
+     */
+    private NavigableMap<LocalDate, TaskDay> loadTaskDays(Integer userId, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, TaskDay> days = new TreeMap<>();
+        for (Object[] row : usageDailyRollupRepository.sumTaskTotalsByUserGroupedByDate(userId, from, to)) {
+            days.put(toLocalDate(row[0]), new TaskDay(toBigDecimal(row[1]), ((Number) row[2]).longValue()));
         }
-
-        Map<String, Long> counts = new HashMap<>();
-        counts.put(ModelType.LLM.name(), rawCounts.getOrDefault(ModelType.LLM, 0L));
-        counts.put(ModelType.OCR.name(), rawCounts.getOrDefault(ModelType.OCR, 0L));
-        counts.put(ModelType.OTHER.name(), rawCounts.getOrDefault(ModelType.OTHER, 0L));
-        return counts;
+        return days;
     }
 
-    private BigDecimal extractRate(BillingConfig billingConfig, UsageUnitType unitType) {
-        String metadata = billingConfig.getPricingMetadata();
-        if (metadata == null || metadata.isBlank()) {
-            throw new BillingCalculationException(
-                "No pricing metadata found for billing config ID " + billingConfig.getBillingId());
+    private TaskDay sumTaskDays(NavigableMap<LocalDate, TaskDay> days, LocalDate from, LocalDate to) {
+        TaskDay total = new TaskDay(BigDecimal.ZERO, 0);
+        if (from.isAfter(to)) {
+            return total;
         }
-
-        try {
-            JsonNode node = objectMapper.readTree(metadata);
-
-            // Try unit-type-specific keys first
-            String specificKey = getSpecificRateKey(unitType);
-            if (specificKey != null && node.has(specificKey)) {
-                return new BigDecimal(node.get(specificKey).asText());
-            }
-
-            // Fallback to generic "rate"
-            if (node.has("rate")) {
-                return new BigDecimal(node.get("rate").asText());
-            }
-
-            throw new BillingCalculationException(
-                "No rate found in pricing metadata for unit type " + unitType
-                + " in billing config ID " + billingConfig.getBillingId());
-
-        } catch (JsonProcessingException e) {
-            throw new BillingCalculationException(
-                "Failed to parse pricing metadata for billing config ID " + billingConfig.getBillingId(), e);
+        for (TaskDay day : days.subMap(from, true, to, true).values()) {
+            total = total.plus(day);
         }
+        return total;
     }
 
-    // Maps UsageUnitType → JSON key in pricingMetadata. Null = fallback to "rate".
-    private String getSpecificRateKey(UsageUnitType unitType) {
-        return switch (unitType) {
-            case INPUT_TOKENS -> "inputRate";
-            case OUTPUT_TOKENS -> "outputRate";
-            case PAGES -> "pageRate";
-            case IMAGES -> "imageRate";
-            case AUDIO_SECONDS -> "secondRate";
-            case REQUESTS -> "requestRate";
-            case CHARACTERS -> "charRate";
-            case EMBEDDING_TOKENS -> "embeddingRate";
-            case CUSTOM_UNITS -> null;  // always falls back to generic "rate"
-        };
-    }
-
-    private void updateTaskCost(Task task) {
-        List<UsageRecord> records = usageRecordRepository.findByTask(task);
-        BigDecimal total = records.stream()
-                .map(UsageRecord::getCost)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        task.setTotalCost(total);
-        task.setUpdatedAt(LocalDateTime.now());
-        taskRepository.save(task);
+    private static String unitKey(String taskId, UsageUnitType usageUnitType) {
+        return taskId + ":" + usageUnitType;
     }
 
     private UsageRecordResponse mapToResponse(UsageRecord record) {
@@ -716,18 +817,15 @@ public class UsageService {
                 .build();
     }
 
-    private void checkAndNotifyMonthlyApiKeyUsage(com.fleebug.corerouter.entity.apikey.ApiKey apiKey) {
+    private void checkAndNotifyMonthlyApiKeyUsage(ApiKey apiKey, long consumed) {
         if (apiKey == null || apiKey.getApiKeyId() == null || apiKey.getMonthlyLimit() == null || apiKey.getMonthlyLimit() <= 0) {
             return;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime monthStart = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-        long consumed = usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(apiKey.getApiKeyId(), monthStart, now);
         int monthlyLimit = apiKey.getMonthlyLimit();
         int percentConsumed = (int) Math.floor((consumed * 100.0) / monthlyLimit);
 
-        String monthKey = YearMonth.now().toString();
+        String monthKey = YearMonth.now(Clock.systemUTC()).toString();
         if (consumed >= monthlyLimit) {
             maybeQueueMonthlyUsageAlert(apiKey, consumed, monthlyLimit, percentConsumed, monthKey, 100);
         }
@@ -741,7 +839,7 @@ public class UsageService {
         
     }
 
-    private void maybeQueueMonthlyUsageAlert(com.fleebug.corerouter.entity.apikey.ApiKey apiKey,
+    private void maybeQueueMonthlyUsageAlert(ApiKey apiKey,
                                              long consumed,
                                              int monthlyLimit,
                                              int percentConsumed,
@@ -765,29 +863,36 @@ public class UsageService {
         );
     }
 
-    private void validateApiKeyLimits(com.fleebug.corerouter.entity.apikey.ApiKey apiKey, BigDecimal quantity) {
+    /**
+     * Count this usage against the API key's daily and monthly limits.
+     *
+     * @return Usage counted for the key this month, including this call
+     */
+    private long validateApiKeyLimits(ApiKey apiKey) {
         if (apiKey == null || apiKey.getApiKeyId() == null) {
-            return;
+            return 0;
+        }
+        boolean hasDailyLimit = apiKey.getDailyLimit() != null && apiKey.getDailyLimit() > 0;
+        boolean hasMonthlyLimit = apiKey.getMonthlyLimit() != null && apiKey.getMonthlyLimit() > 0;
+        if (!hasDailyLimit && !hasMonthlyLimit) {
+            return 0;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-
-        if (apiKey.getDailyLimit() != null && apiKey.getDailyLimit() > 0) {
-            LocalDateTime dayStart = now.withHour(0).withMinute(0).withSecond(0).withNano(0);
-            long consumedDaily = usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(apiKey.getApiKeyId(), dayStart, now);
-            if (consumedDaily >= apiKey.getDailyLimit()) {
-                telemetryClient.trackTrace("Daily limit exceeded for API key ID: " + apiKey.getApiKeyId(), SeverityLevel.Warning);
-                throw new com.fleebug.corerouter.exception.apikey.ApiKeyLimitExceededException("Daily usage limit of " + apiKey.getDailyLimit() + " exceeded for API key.");
-            }
+        ApiKeyUsageCounter.Result result = apiKeyUsageCounter.tryAcquire(apiKey);
+        if (result.status() == ApiKeyUsageCounter.Status.DAILY_LIMIT_REACHED) {
+            telemetryClient.trackTrace("Daily limit exceeded for API key ID: " + apiKey.getApiKeyId(), SeverityLevel.Warning);
+            throw new com.fleebug.corerouter.exception.apikey.ApiKeyLimitExceededException("Daily usage limit of " + apiKey.getDailyLimit() + " exceeded for API key.");
         }
+        if (result.status() == ApiKeyUsageCounter.Status.MONTHLY_LIMIT_REACHED) {
+            telemetryClient.trackTrace("Monthly limit exceeded for API key ID: " + apiKey.getApiKeyId(), SeverityLevel.Warning);
+            throw new com.fleebug.corerouter.exception.apikey.ApiKeyLimitExceededException("Monthly usage limit of " + apiKey.getMonthlyLimit() + " exceeded for API key.");
+        }
+        return result.monthly();
+    }
 
-        if (apiKey.getMonthlyLimit() != null && apiKey.getMonthlyLimit() > 0) {
-            LocalDateTime monthStart = now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-            long consumedMonthly = usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(apiKey.getApiKeyId(), monthStart, now);
-            if (consumedMonthly >= apiKey.getMonthlyLimit()) {
-                telemetryClient.trackTrace("Monthly limit exceeded for API key ID: " + apiKey.getApiKeyId(), SeverityLevel.Warning);
-                throw new com.fleebug.corerouter.exception.apikey.ApiKeyLimitExceededException("Monthly usage limit of " + apiKey.getMonthlyLimit() + " exceeded for API key.");
-            }
+    private record TaskDay(BigDecimal chargedCost, long completedTasks) {
+        private TaskDay plus(TaskDay other) {
+            return new TaskDay(chargedCost.add(other.chargedCost), completedTasks + other.completedTasks);
         }
     }
 
@@ -0,0 +1,270 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Redis view of each wallet, used to reserve and settle task charges without
+ * locking the users row.
+ *
+ * wallet:balance:{userId} holds the spendable balance in cents: users.balance
+ * plus every billing_ledger row not yet rolled into it. wallet:holds:{userId}
+ * maps taskId to "cents:expiresAtMillis" for tasks admitted but not finished.
+ * Every check-and-update runs in one Lua script, so concurrent completions for
+ * the same user can't both spend the last of a balance.
+ *
+ * A missing balance key is seeded from Postgres (SET NX) and the script is
+ * retried. The key expires after a while so the view is periodically rebuilt
+ * from the tables it mirrors. When Redis is unreachable the checks fall back
+ * to Postgres under a lock on the users row, as before the view existed.
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletBalanceService {
+
+    static final String BALANCE_KEY_PREFIX = "wallet:balance:";
+    static final String HOLDS_KEY_PREFIX = "wallet:holds:";
+
+    private static final long MISSING = -2;
+
+    /**
+     * KEYS: balance, holds. ARGV: taskId, cents, now millis, hold expiry millis.
+     * Expired holds are pruned while summing. Returns {status, available}:
+     * 1 placed, -1 available balance can't cover the hold, -2 balance missing.
+     */
+    private static final RedisScript<List> HOLD_SCRIPT = new DefaultRedisScript<>("""
+            local balance = redis.call('GET', KEYS[1])
+            if not balance then
+              return {-2, 0}
+            end
+            local now = tonumber(ARGV[3])
+            local held = 0
+            local holds = redis.call('HGETALL', KEYS[2])
+            for i = 1, #holds, 2 do
+              local sep = string.find(holds[i + 1], ':')
+              if tonumber(string.sub(holds[i + 1], sep + 1)) <= now then
+                redis.call('HDEL', KEYS[2], holds[i])
+              elseif holds[i] ~= ARGV[1] then
+                held = held + tonumber(string.sub(holds[i + 1], 1, sep - 1))
+              end
+            end
+            local available = tonumber(balance) - held
+            local amount = tonumber(ARGV[2])
+            if available <= 0 or available < amount then
+              return {-1, available}
+            end
+            local expiresAt = now + tonumber(ARGV[4])
+            redis.call('HSET', KEYS[2], ARGV[1], ARGV[2] .. ':' .. expiresAt)
+            redis.call('PEXPIRE', KEYS[2], ARGV[4])
+            return {1, available - amount}
+            """, List.class);
+
+    /**
+     * KEYS: balance, holds. ARGV: taskId, cents. The task's own hold is dropped
+     * and the full cost is taken from the balance; holds of other in-flight tasks
+     * don't block a settlement. Returns {status, balance}: 1 settled, -1
+     * insufficient, -2 balance missing.
+     */
+    private static final RedisScript<List> SETTLE_SCRIPT = new DefaultRedisScript<>("""
+            local balance = redis.call('GET', KEYS[1])
+            if not balance then
+              return {-2, 0}
+            end
+            balance = tonumber(balance)
+            local amount = tonumber(ARGV[2])
+            if balance < amount then
+              return {-1, balance}
+            end
+            redis.call('HDEL', KEYS[2], ARGV[1])
+            return {1, redis.call('DECRBY', KEYS[1], amount)}
+            """, List.class);
+
+    // INCRBY only when the view exists; a missing key is seeded with the credit already included
+    private static final RedisScript<Long> CREDIT_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then
+              return redis.call('INCRBY', KEYS[1], ARGV[1])
+            end
+            return -2
+            """, Long.class);
+
+    private final TelemetryClient telemetryClient;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final BillingLedgerService billingLedgerService;
+
+    @Value("${wallet.balance-view-ttl-seconds:3600}")
+    private long balanceViewTtlSeconds;
+
+    @Value("${wallet.hold-ttl-seconds:86400}")
+    private long holdTtlSeconds;
+
+    /**
+     * Outcome of a settlement. {@code balance} is the remaining balance when
+     * settled, or the available balance when it was insufficient.
+     */
+    public record Settlement(boolean settled, BigDecimal balance) {
+    }
+
+    /**
+     * Reserve an amount for a task about to be queued. If the surrounding
+     * transaction rolls back the hold is released again.
+     *
+     * @return false when the wallet's balance minus other holds can't cover it
+     */
+    public boolean hold(Integer userId, String taskId, BigDecimal amount) {
+        long cents = toCents(amount);
+        List<?> result;
+        try {
+            result = runSeeded(userId, () -> stringRedisTemplate.execute(HOLD_SCRIPT,
+                    List.of(balanceKey(userId), holdsKey(userId)),
+                    taskId, String.valueOf(cents), String.valueOf(System.currentTimeMillis()),
+                    String.valueOf(Duration.ofSeconds(holdTtlSeconds).toMillis())));
+        } catch (DataAccessException e) {
+            // Without the view, admit on the committed balance alone; settlement still enforces the charge
+            telemetryClient.trackException(e, Map.of("event", "WALLET_HOLD_FAILED", "userId", String.valueOf(userId)), null);
+            BigDecimal available = billingLedgerService.lockedBalance(userId);
+            return available.signum() > 0 && available.compareTo(amount) >= 0;
+        }
+
+        boolean placed = ((Number) result.get(0)).longValue() == 1;
+        if (placed) {
+            afterRollback(() -> release(userId, taskId));
+        }
+        return placed;
+    }
+
+    /**
+     * Take a task's cost from the wallet view and drop its hold. If the
+     * surrounding transaction rolls back the amount is put back.
+     */
+    public Settlement settle(Integer userId, String taskId, BigDecimal amount) {
+        long cents = toCents(amount);
+        List<?> result;
+        try {
+            result = runSeeded(userId, () -> stringRedisTemplate.execute(SETTLE_SCRIPT,
+                    List.of(balanceKey(userId), holdsKey(userId)),
+                    taskId, String.valueOf(cents)));
+        } catch (DataAccessException e) {
+            // Check against Postgres instead, holding the users row until the debit commits;
+            // the view is rebuilt from there once Redis is back
+            telemetryClient.trackException(e, Map.of("event", "WALLET_SETTLE_FAILED", "userId", String.valueOf(userId), "taskId", taskId), null);
+            BigDecimal available = billingLedgerService.lockedBalance(userId);
+            if (available.compareTo(amount) < 0) {
+                return new Settlement(false, available);
+            }
+            evict(userId);
+            return new Settlement(true, available.subtract(amount));
+        }
+
+        long status = ((Number) result.get(0)).longValue();
+        BigDecimal balance = fromCents(((Number) result.get(1)).longValue());
+        if (status != 1) {
+            return new Settlement(false, balance);
+        }
+
+        afterRollback(() -> stringRedisTemplate.opsForValue().increment(balanceKey(userId), cents));
+        return new Settlement(true, balance);
+    }
+
+    /**
+     * Drop a task's hold without charging, e.g. when it failed.
+     */
+    public void release(Integer userId, String taskId) {
+        try {
+            stringRedisTemplate.opsForHash().delete(holdsKey(userId), taskId);
+        } catch (DataAccessException e) {
+            // The hold expires on its own; it only narrows what the user can submit meanwhile
+            telemetryClient.trackException(e, Map.of("event", "WALLET_HOLD_RELEASE_FAILED", "userId", String.valueOf(userId), "taskId", taskId), null);
+        }
+    }
+
+    /**
+     * Add funds to the wallet view once the surrounding transaction commits. A
+     * missing view is left alone: it is seeded from Postgres, which already
+     * includes the credit.
+     */
+    public void credit(Integer userId, BigDecimal amount) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyCredit(userId, amount);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                applyCredit(userId, amount);
+            }
+        });
+    }
+
+    private void applyCredit(Integer userId, BigDecimal amount) {
+        try {
+            stringRedisTemplate.execute(CREDIT_SCRIPT, List.of(balanceKey(userId)), String.valueOf(toCents(amount)));
+        } catch (DataAccessException e) {
+            // Drop the view so the next read reseeds it instead of under-reporting the balance
+            telemetryClient.trackException(e, Map.of("event", "WALLET_CREDIT_FAILED", "userId", String.valueOf(userId)), null);
+            evict(userId);
+        }
+    }
+
+    private void evict(Integer userId) {
+        try {
+            stringRedisTemplate.delete(balanceKey(userId));
+        } catch (DataAccessException ignored) {
+            // Expires with its TTL
+        }
+    }
+
+    private List<?> runSeeded(Integer userId, Supplier<List> script) {
+        List<?> result = script.get();
+        if (((Number) result.get(0)).longValue() == MISSING) {
+            stringRedisTemplate.opsForValue().setIfAbsent(balanceKey(userId),
+                    String.valueOf(toCents(billingLedgerService.currentBalance(userId))), Duration.ofSeconds(balanceViewTtlSeconds));
+            result = script.get();
+        }
+        return result;
+    }
+
+    private static void afterRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    static String balanceKey(Integer userId) {
+        return BALANCE_KEY_PREFIX + userId;
+    }
+
+    static String holdsKey(Integer userId) {
+        return HOLDS_KEY_PREFIX + userId;
+    }
+}
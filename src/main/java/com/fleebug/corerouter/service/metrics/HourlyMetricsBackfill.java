@@ -0,0 +1,75 @@
+package com.fleebug.corerouter.service.metrics;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Rebuilds hourly_metrics from tasks and transactions.
+ *
+ * The table is locked against flushes for the rebuild. Increments still
+ * buffered on other nodes when it runs were committed before the rebuild read
+ * the source tables, so they are counted twice; run it while traffic is quiet.
+ *
+ * Off by default: it scans every task and top-up, so enable it for one deploy
+ * after the table is introduced or to repair it.
+ */
+@Component
+@RequiredArgsConstructor
+public class HourlyMetricsBackfill {
+
+    private static final String TASK_COUNTS_SQL = """
+            INSERT INTO hourly_metrics (bucket_start, metric, metric_value)
+            SELECT date_trunc('hour', t.created_at), 'TASKS_' || t.status, COUNT(*)
+            FROM tasks t
+            WHERE t.created_at IS NOT NULL
+            GROUP BY date_trunc('hour', t.created_at), t.status
+            """;
+
+    private static final String TASK_REVENUE_SQL = """
+            INSERT INTO hourly_metrics (bucket_start, metric, metric_value)
+            SELECT date_trunc('hour', t.completed_at), 'TASK_REVENUE', SUM(COALESCE(t.charged_cost, t.total_cost, 0))
+            FROM tasks t
+            WHERE t.status = 'COMPLETED' AND t.completed_at IS NOT NULL
+            GROUP BY date_trunc('hour', t.completed_at)
+            """;
+
+    private static final String TOPUPS_SQL = """
+            INSERT INTO hourly_metrics (bucket_start, metric, metric_value)
+            SELECT date_trunc('hour', t.completed_at), 'TOPUP_AMOUNT', SUM(t.amount)
+            FROM transactions t
+            WHERE t.type = 'WALLET_TOPUP' AND t.status = 'COMPLETED' AND t.completed_at IS NOT NULL
+            GROUP BY date_trunc('hour', t.completed_at)
+            """;
+
+    private final TelemetryClient telemetryClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${metrics.hourly.backfill-on-startup:false}")
+    private boolean enabled;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.execute("LOCK TABLE hourly_metrics IN EXCLUSIVE MODE");
+        jdbcTemplate.update("DELETE FROM hourly_metrics");
+        int taskRows = jdbcTemplate.update(TASK_COUNTS_SQL);
+        int revenueRows = jdbcTemplate.update(TASK_REVENUE_SQL);
+        int topupRows = jdbcTemplate.update(TOPUPS_SQL);
+        telemetryClient.trackTrace("Hourly metrics rebuilt", SeverityLevel.Information, Map.of(
+                "taskRows", String.valueOf(taskRows),
+                "revenueRows", String.valueOf(revenueRows),
+                "topupRows", String.valueOf(topupRows)));
+    }
+}
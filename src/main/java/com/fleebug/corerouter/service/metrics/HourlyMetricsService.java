@@ -0,0 +1,177 @@
+package com.fleebug.corerouter.service.metrics;
+
+import com.fleebug.corerouter.enums.metrics.HourlyMetricType;
+import com.fleebug.corerouter.enums.task.TaskStatus;
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps hourly_metrics current as tasks change status, tasks are charged and
+ * top-ups complete, and serves the admin charts from it.
+ *
+ * Increments are held per (hour, metric) in memory once the transaction that
+ * produced them commits, and flushed as one upsert batch every few seconds, so
+ * a busy hour's row is written once per flush instead of once per task. Rows
+ * are written in key order, which keeps nodes flushing at the same time from
+ * deadlocking on each other. Increments buffered when a node dies are lost;
+ * HourlyMetricsBackfill rebuilds the table from tasks and transactions.
+ */
+@Service
+@RequiredArgsConstructor
+public class HourlyMetricsService {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO hourly_metrics (bucket_start, metric, metric_value)
+            VALUES (?, ?, ?)
+            ON CONFLICT (bucket_start, metric) DO UPDATE
+            SET metric_value = hourly_metrics.metric_value + EXCLUDED.metric_value
+            """;
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::hour).thenComparing(Key::metric);
+
+    private final TelemetryClient telemetryClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Key, BigDecimal> pending = new ConcurrentHashMap<>();
+
+    /**
+     * One hour of one metric.
+     */
+    public record Bucket(LocalDateTime hour, HourlyMetricType metric, BigDecimal value) {
+    }
+
+    private record Key(LocalDateTime hour, HourlyMetricType metric) {
+    }
+
+    private record Increment(Key key, BigDecimal delta) {
+    }
+
+    public void taskCreated(LocalDateTime createdAt) {
+        add(List.of(increment(createdAt, HourlyMetricType.tasksIn(TaskStatus.QUEUED), BigDecimal.ONE)));
+    }
+
+    /**
+     * Move a task between the status counts of the hour it was created in.
+     */
+    public void taskStatusChanged(LocalDateTime createdAt, TaskStatus from, TaskStatus to) {
+        if (createdAt == null || from == to) {
+            return;
+        }
+        add(List.of(
+                increment(createdAt, HourlyMetricType.tasksIn(from), BigDecimal.ONE.negate()),
+                increment(createdAt, HourlyMetricType.tasksIn(to), BigDecimal.ONE)));
+    }
+
+    public void taskCharged(LocalDateTime completedAt, BigDecimal amount) {
+        add(List.of(increment(completedAt, HourlyMetricType.TASK_REVENUE, amount)));
+    }
+
+    public void topUpCompleted(LocalDateTime completedAt, BigDecimal amount) {
+        add(List.of(increment(completedAt, HourlyMetricType.TOPUP_AMOUNT, amount)));
+    }
+
+    /**
+     * Buckets of the given metrics whose hour starts within [from, to]; the hour
+     * containing {@code from} is included. Hours without activity have no row.
+     */
+    public List<Bucket> read(Collection<HourlyMetricType> metrics, LocalDateTime from, LocalDateTime to) {
+        if (metrics.isEmpty()) {
+            return List.of();
+        }
+        String sql = "SELECT bucket_start, metric, metric_value FROM hourly_metrics "
+                + "WHERE bucket_start >= ? AND bucket_start <= ? AND metric IN ("
+                + String.join(", ", Collections.nCopies(metrics.size(), "?")) + ") ORDER BY bucket_start";
+
+        List<Object> args = new ArrayList<>(metrics.size() + 2);
+        args.add(Timestamp.valueOf(from.truncatedTo(ChronoUnit.HOURS)));
+        args.add(Timestamp.valueOf(to));
+        metrics.forEach(metric -> args.add(metric.name()));
+
+        return jdbcTemplate.query(sql,
+                (rs, rowNum) -> new Bucket(
+                        rs.getTimestamp("bucket_start").toLocalDateTime(),
+                        HourlyMetricType.valueOf(rs.getString("metric")),
+                        rs.getBigDecimal("metric_value")),
+                args.toArray());
+    }
+
+    @Scheduled(fixedDelayString = "${metrics.hourly.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Increment> drained = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        TreeSet<Key> keys = new TreeSet<>(KEY_ORDER);
+        keys.addAll(pending.keySet());
+        for (Key key : keys) {
+            // remove() takes the value atomically; increments merged afterwards wait for the next flush
+            BigDecimal delta = pending.remove(key);
+            if (delta == null || delta.signum() == 0) {
+                continue;
+            }
+            drained.add(new Increment(key, delta));
+            rows.add(new Object[]{Timestamp.valueOf(key.hour()), key.metric().name(), delta});
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            telemetryClient.trackTrace("Flushed hourly metrics", SeverityLevel.Verbose, Map.of("rows", String.valueOf(rows.size())));
+        } catch (RuntimeException e) {
+            telemetryClient.trackException(e, Map.of("event", "HOURLY_METRICS_FLUSH_FAILED", "rows", String.valueOf(rows.size())), null);
+            merge(drained);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    // Buffered only once the surrounding transaction commits, so rolled-back changes are never counted
+    private void add(List<Increment> increments) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            merge(increments);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                merge(increments);
+            }
+        });
+    }
+
+    private void merge(List<Increment> increments) {
+        increments.forEach(increment -> pending.merge(increment.key(), increment.delta(), BigDecimal::add));
+    }
+
+    private static Increment increment(LocalDateTime at, HourlyMetricType metric, BigDecimal delta) {
+        LocalDateTime hour = (at == null ? LocalDateTime.now(Clock.systemUTC()) : at).truncatedTo(ChronoUnit.HOURS);
+        return new Increment(new Key(hour, metric), delta);
+    }
+}
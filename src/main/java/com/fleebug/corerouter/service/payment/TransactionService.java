@@ -8,16 +8,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fleebug.corerouter.dto.billing.response.DailySpendingPoint;
 import com.fleebug.corerouter.dto.billing.response.UserBalanceHistoryResponse;
 import com.fleebug.corerouter.entity.payment.Transaction;
-import com.fleebug.corerouter.entity.task.Task;
 import com.fleebug.corerouter.entity.user.User;
+import com.fleebug.corerouter.enums.metrics.HourlyMetricType;
 import com.fleebug.corerouter.enums.payment.TransactionStatus;
 import com.fleebug.corerouter.enums.payment.TransactionType;
-import com.fleebug.corerouter.enums.task.TaskStatus;
 import com.fleebug.corerouter.exception.payment.TransactionNotFoundException;
 import com.fleebug.corerouter.exception.payment.TransactionVerificationException;
 import com.fleebug.corerouter.repository.payment.TransactionRepository;
-import com.fleebug.corerouter.repository.task.TaskRepository;
 import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.service.billing.BillingLedgerService;
+import com.fleebug.corerouter.service.billing.WalletBalanceService;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
 import com.fleebug.corerouter.service.redis.RedisService;
 import com.fleebug.corerouter.util.HttpClientUtil;
 import lombok.RequiredArgsConstructor;
@@ -54,11 +55,13 @@ public class TransactionService {
 
     private final TelemetryClient telemetryClient;
     private final TransactionRepository transactionRepository;
-    private final TaskRepository taskRepository;
     private final UserRepository userRepository;
     private final RedisService redisService;
     private final HttpClientUtil httpClientUtil;
     private final ObjectMapper objectMapper;
+    private final WalletBalanceService walletBalanceService;
+    private final BillingLedgerService billingLedgerService;
+    private final HourlyMetricsService hourlyMetricsService;
 
     @Value("${esewa.merchant.id}")
     private String merchantId;
@@ -200,13 +203,11 @@ public class TransactionService {
                     redisService.saveToCache(TOPUP_INVOICE_EMAIL_SKIP_PREFIX + normalizedTransactionUuid, "true", 1, TimeUnit.DAYS);
                     redisService.deleteFromCache(sessionKey);
 
-                    // Credit wallet with a locked row to avoid balance races.
-                    User lockedUser = userRepository.findByIdForUpdate(user.getUserId())
-                            .orElseThrow(() -> new TransactionNotFoundException("User not found for wallet credit: " + user.getUserId()));
-                    BigDecimal currentBalance = lockedUser.getBalance() == null ? BigDecimal.ZERO : lockedUser.getBalance();
-                    lockedUser.setBalance(currentBalance.add(transaction.getAmount()));
-                    userRepository.save(lockedUser);
-                    
+                    // Credit wallet through the ledger; BillingLedgerSettlement folds it into users.balance
+                    billingLedgerService.credit(user.getUserId(), normalizedTransactionUuid, transaction.getAmount());
+                    walletBalanceService.credit(user.getUserId(), transaction.getAmount());
+                    hourlyMetricsService.topUpCompleted(transaction.getCompletedAt(), transaction.getAmount());
+
                     telemetryClient.trackTrace("Wallet credited for user: " + user.getUserId(), SeverityLevel.Information, Map.of("userId", String.valueOf(user.getUserId()), "transactionUuid", normalizedTransactionUuid));
                     return transaction;
                 } else {
@@ -340,20 +341,14 @@ public class TransactionService {
         );
     }
 
+    /**
+     * Completed top-up amounts per hour of day, read from hourly_metrics.
+     */
     @Transactional(readOnly = true)
     public Map<Integer, BigDecimal> getTopUpAmountByHour(LocalDateTime from, LocalDateTime to) {
-        List<Object[]> rows = transactionRepository.sumAmountByTypeAndStatusAndCompletedAtBetweenGroupedByHour(
-                TransactionType.WALLET_TOPUP,
-                TransactionStatus.COMPLETED,
-                from,
-                to
-        );
-
         Map<Integer, BigDecimal> result = new HashMap<>();
-        for (Object[] row : rows) {
-            Integer hour = ((Number) row[0]).intValue();
-            BigDecimal amount = (BigDecimal) row[1];
-            result.put(hour, amount);
+        for (HourlyMetricsService.Bucket bucket : hourlyMetricsService.read(List.of(HourlyMetricType.TOPUP_AMOUNT), from, to)) {
+            result.merge(bucket.hour().getHour(), bucket.value(), BigDecimal::add);
         }
         return result;
     }
@@ -446,32 +441,10 @@ public class TransactionService {
 
     @Transactional(readOnly = true)
     public UserBalanceHistoryResponse getUserBalanceHistory(Integer userId,
-                                                            BigDecimal currentBalance,
                                                             LocalDateTime from,
                                                             LocalDateTime to,
                                                             String period) {
-        List<Object[]> creditRows = transactionRepository.sumAmountByUserAndTypeAndStatusGroupedByDateBetween(
-                userId,
-                TransactionType.WALLET_TOPUP,
-                TransactionStatus.COMPLETED,
-                from,
-                to
-        );
-
-        List<Object[]> debitRows = taskRepository.sumChargedCostByUserAndStatusGroupedByDateBetween(
-                userId,
-                TaskStatus.COMPLETED,
-                from,
-                to
-        );
-
-        List<Task> snapshotTasks = taskRepository
-            .findByApiKey_User_UserIdAndStatusAndCompletedAtBetweenAndRemainingBalanceIsNotNullOrderByCompletedAtDesc(
-                userId,
-                TaskStatus.COMPLETED,
-                from,
-                to
-            );
+        List<BillingLedgerService.DailyMovement> movements = billingLedgerService.dailyMovements(userId, from, to);
 
         Map<LocalDate, BigDecimal> creditByDate = new TreeMap<>();
         Map<LocalDate, BigDecimal> debitByDate = new TreeMap<>();
@@ -480,33 +453,18 @@ public class TransactionService {
         BigDecimal totalCredit = BigDecimal.ZERO;
         BigDecimal totalDebit = BigDecimal.ZERO;
 
-        for (Object[] row : creditRows) {
-            LocalDate date = toLocalDate(row[0]);
-            BigDecimal amount = row[1] == null ? BigDecimal.ZERO : (BigDecimal) row[1];
-            creditByDate.put(date, amount);
-            totalCredit = totalCredit.add(amount);
-        }
-
-        for (Object[] row : debitRows) {
-            LocalDate date = toLocalDate(row[0]);
-            BigDecimal amount = row[1] == null ? BigDecimal.ZERO : (BigDecimal) row[1];
-            debitByDate.put(date, amount);
-            totalDebit = totalDebit.add(amount);
-        }
-
-        for (Task task : snapshotTasks) {
-            if (task.getCompletedAt() == null || task.getRemainingBalance() == null) {
-                continue;
-            }
-
-            LocalDate date = task.getCompletedAt().toLocalDate();
-            if (!taskSnapshotBalanceByDate.containsKey(date)) {
-                taskSnapshotBalanceByDate.put(date, task.getRemainingBalance());
+        for (BillingLedgerService.DailyMovement movement : movements) {
+            creditByDate.put(movement.date(), movement.credit());
+            debitByDate.put(movement.date(), movement.debit());
+            if (movement.lastTaskBalance() != null) {
+                taskSnapshotBalanceByDate.put(movement.date(), movement.lastTaskBalance());
             }
+            totalCredit = totalCredit.add(movement.credit());
+            totalDebit = totalDebit.add(movement.debit());
         }
 
         BigDecimal netChange = totalCredit.subtract(totalDebit);
-        BigDecimal closingBalance = currentBalance == null ? BigDecimal.ZERO : currentBalance;
+        BigDecimal closingBalance = billingLedgerService.balanceAt(userId, to);
         BigDecimal openingBalance = closingBalance.subtract(netChange);
 
         List<UserBalanceHistoryResponse.BalanceHistoryDay> dailyBreakdown = new ArrayList<>();
@@ -559,19 +517,6 @@ public class TransactionService {
                 .build();
     }
 
-    private LocalDate toLocalDate(Object value) {
-        if (value instanceof LocalDate localDate) {
-            return localDate;
-        }
-        if (value instanceof java.sql.Date sqlDate) {
-            return sqlDate.toLocalDate();
-        }
-        if (value instanceof LocalDateTime localDateTime) {
-            return localDateTime.toLocalDate();
-        }
-        return LocalDate.parse(String.valueOf(value));
-    }
-
     /**
      * Get daily earnings (sum of completed WALLET_TOPUP transactions grouped by date)
      */
@@ -0,0 +1,334 @@
+package com.fleebug.corerouter.service.redis;
+
+import com.fleebug.corerouter.enums.ratelimit.RateLimitRoute;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.microsoft.applicationinsights.TelemetryClient;
+import io.github.bucket4j.ConsumptionProbe;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Node-local tier in front of the Redis-backed Bucket4j buckets.
+ *
+ * Instead of one Redis round trip per request, a node borrows a chunk of tokens
+ * from the shared bucket and serves requests from that lease until it runs dry.
+ * Leases expire after a short window and any unused tokens are handed back to
+ * the shared bucket, so the global limit stays approximately correct: at most
+ * (chunk size - 1) tokens per node can be held back from other nodes.
+ *
+ * A chunk size of 1 disables the local tier for that route family and every
+ * request goes straight to Redis, exactly as before.
+ *
+ * Redis calls go through Bucket4j's async proxies, so no lock is held across
+ * I/O and the calling thread only waits (up to a deadline) in {@link #check}.
+ */
+@Service
+@RequiredArgsConstructor
+public class LocalRateLimitTier {
+
+    private final RedisBucketService redisBucketService;
+    private final TelemetryClient telemetryClient;
+
+    @Value("${ratelimit.local.chat.chunk-size:2}")
+    private long chatChunkSize;
+
+    @Value("${ratelimit.local.ocr.chunk-size:1}")
+    private long ocrChunkSize;
+
+    @Value("${ratelimit.local.speech.chunk-size:1}")
+    private long speechChunkSize;
+
+    @Value("${ratelimit.local.task-creation.chunk-size:1}")
+    private long taskCreationChunkSize;
+
+    @Value("${ratelimit.check.deadline-ms:50}")
+    private long deadlineMs;
+
+    // Fail-closed route: a deadline above Redis p99 keeps latency spikes from turning into 429s
+    @Value("${ratelimit.check.task-creation.deadline-ms:500}")
+    private long taskCreationDeadlineMs;
+
+    @Value("${ratelimit.check.fail-open.chat:true}")
+    private boolean chatFailOpen;
+
+    @Value("${ratelimit.check.fail-open.ocr:true}")
+    private boolean ocrFailOpen;
+
+    @Value("${ratelimit.check.fail-open.speech:true}")
+    private boolean speechFailOpen;
+
+    @Value("${ratelimit.check.fail-open.task-creation:false}")
+    private boolean taskCreationFailOpen;
+
+    @Value("${ratelimit.local.lease-ms:2000}")
+    private long leaseMs;
+
+    @Value("${ratelimit.local.max-leases:100000}")
+    private long maxLeases;
+
+    private final Map<RateLimitRoute, Long> chunkSizes = new EnumMap<>(RateLimitRoute.class);
+    private final Map<RateLimitRoute, Boolean> failOpen = new EnumMap<>(RateLimitRoute.class);
+    private final Map<RateLimitRoute, Long> deadlines = new EnumMap<>(RateLimitRoute.class);
+    private final Map<RateLimitRoute, RouteMetrics> metrics = new EnumMap<>(RateLimitRoute.class);
+
+    private Cache<LeaseKey, Lease> leases;
+
+    @PostConstruct
+    public void init() {
+        chunkSizes.put(RateLimitRoute.CHAT, chatChunkSize);
+        chunkSizes.put(RateLimitRoute.OCR, ocrChunkSize);
+        chunkSizes.put(RateLimitRoute.SPEECH, speechChunkSize);
+        chunkSizes.put(RateLimitRoute.TASK_CREATION, taskCreationChunkSize);
+        failOpen.put(RateLimitRoute.CHAT, chatFailOpen);
+        failOpen.put(RateLimitRoute.OCR, ocrFailOpen);
+        failOpen.put(RateLimitRoute.SPEECH, speechFailOpen);
+        failOpen.put(RateLimitRoute.TASK_CREATION, taskCreationFailOpen);
+        deadlines.put(RateLimitRoute.CHAT, deadlineMs);
+        deadlines.put(RateLimitRoute.OCR, deadlineMs);
+        deadlines.put(RateLimitRoute.SPEECH, deadlineMs);
+        deadlines.put(RateLimitRoute.TASK_CREATION, taskCreationDeadlineMs);
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            metrics.put(route, new RouteMetrics());
+        }
+
+        // The system scheduler expires idle leases promptly so their tokens go back to Redis
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxLeases)
+                .expireAfterWrite(Duration.ofMillis(leaseMs))
+                .scheduler(Scheduler.systemScheduler())
+                .removalListener((LeaseKey key, Lease lease, RemovalCause cause) -> returnUnused(key, lease))
+                .build();
+    }
+
+    /**
+     * Consume one token for the given route family and key, waiting at most the
+     * route family's deadline for Redis. When Redis fails or is too slow the route
+     * family's failure policy decides: fail-open admits the request, fail-closed
+     * rejects it with a short Retry-After.
+     *
+     * @param route Route family, which selects the shared bucket, chunk size and failure policy
+     * @param key   Bucket identifier (API key hash or user key)
+     * @return Probe describing whether the token was granted and, if not, how long to wait
+     */
+    public ConsumptionProbe check(RateLimitRoute route, String key) {
+        try {
+            return tryConsume(route, key).get(deadlines.get(route), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return onFailure(route, e);
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            return onFailure(route, e);
+        }
+    }
+
+    /**
+     * Consume one token without blocking. Local hits complete immediately; a
+     * borrow completes on the Redis client's event loop.
+     */
+    public CompletableFuture<ConsumptionProbe> tryConsume(RateLimitRoute route, String key) {
+        RouteMetrics routeMetrics = metrics.get(route);
+        long chunkSize = chunkSizes.get(route);
+        if (chunkSize <= 1) {
+            routeMetrics.remote.increment();
+            return redisBucketService.resolveRouteBucketAsync(route, key).tryConsumeAndReturnRemaining(1);
+        }
+
+        LeaseKey leaseKey = new LeaseKey(route, key);
+        Lease current = leases.get(leaseKey, k -> new Lease(0));
+        long remaining = current.tryTake();
+        if (remaining >= 0) {
+            routeMetrics.local.increment();
+            return CompletableFuture.completedFuture(ConsumptionProbe.consumed(remaining, 0));
+        }
+
+        // One borrow per key at a time; concurrent callers wait on the same borrow and then take from its lease
+        return current.refill(() -> borrow(leaseKey, chunkSize, routeMetrics)).thenCompose(borrowed -> {
+            Lease latest = leases.getIfPresent(leaseKey);
+            long left = latest == null ? -1 : latest.tryTake();
+            if (left >= 0) {
+                routeMetrics.local.increment();
+                return CompletableFuture.completedFuture(ConsumptionProbe.consumed(left, 0));
+            }
+
+            // Shared bucket is empty: a single-token probe reports the refill wait for Retry-After
+            routeMetrics.remote.increment();
+            return redisBucketService.resolveRouteBucketAsync(route, key).tryConsumeAndReturnRemaining(1);
+        });
+    }
+
+    private CompletableFuture<Long> borrow(LeaseKey leaseKey, long chunkSize, RouteMetrics routeMetrics) {
+        routeMetrics.remote.increment();
+        return redisBucketService.resolveRouteBucketAsync(leaseKey.route(), leaseKey.key())
+                .tryConsumeAsMuchAsPossible(chunkSize)
+                .thenApply(borrowed -> {
+                    if (borrowed > 0) {
+                        leases.put(leaseKey, new Lease(borrowed));
+                    }
+                    return borrowed;
+                });
+    }
+
+    private ConsumptionProbe onFailure(RateLimitRoute route, Exception e) {
+        boolean admit = failOpen.get(route);
+        telemetryClient.trackException(e, Map.of(
+                "event", "RATE_LIMIT_CHECK_FAILED",
+                "route", route.name(),
+                "policy", admit ? "FAIL_OPEN" : "FAIL_CLOSED"), null);
+        if (admit) {
+            return ConsumptionProbe.consumed(0, 0);
+        }
+        long retryNanos = TimeUnit.SECONDS.toNanos(1);
+        return ConsumptionProbe.rejected(0, retryNanos, retryNanos);
+    }
+
+    /**
+     * Local hit ratio per route family since startup
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        metrics.forEach((route, routeMetrics) -> {
+            long local = routeMetrics.local.sum();
+            long remote = routeMetrics.remote.sum();
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("chunkSize", chunkSizes.get(route));
+            entry.put("localHits", local);
+            entry.put("redisCalls", remote);
+            entry.put("localHitRatio", ratio(local, remote));
+            stats.put(route.name(), entry);
+        });
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${ratelimit.local.metrics-interval-ms:60000}")
+    public void reportMetrics() {
+        metrics.forEach((route, routeMetrics) -> {
+            long local = routeMetrics.local.sum();
+            long remote = routeMetrics.remote.sum();
+            long localDelta = local - routeMetrics.reportedLocal;
+            long remoteDelta = remote - routeMetrics.reportedRemote;
+            routeMetrics.reportedLocal = local;
+            routeMetrics.reportedRemote = remote;
+
+            if (localDelta + remoteDelta > 0) {
+                telemetryClient.trackMetric("RateLimitLocalHitRatio." + route.name(), ratio(localDelta, remoteDelta));
+            }
+        });
+    }
+
+    private void returnUnused(LeaseKey key, Lease lease) {
+        if (key == null || lease == null) {
+            return;
+        }
+        long unused = lease.close();
+        if (unused <= 0) {
+            return;
+        }
+        redisBucketService.resolveRouteBucketAsync(key.route(), key.key()).addTokens(unused)
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        // Tokens are simply lost until the bucket refills; the limit errs on the strict side
+                        telemetryClient.trackException(asException(e), Map.of("event", "RATE_LIMIT_LEASE_RETURN_FAILED", "route", key.route().name()), null);
+                    }
+                });
+    }
+
+    private static Exception asException(Throwable e) {
+        return e instanceof Exception exception ? exception : new IllegalStateException(e);
+    }
+
+    private static double ratio(long local, long remote) {
+        long total = local + remote;
+        return total == 0 ? 0.0 : (double) local / total;
+    }
+
+    private record LeaseKey(RateLimitRoute route, String key) {
+    }
+
+    /**
+     * Tokens borrowed from the shared bucket. A closed lease (-1) never hands out
+     * tokens again, so a lease being returned can't also be spent.
+     */
+    static final class Lease {
+
+        private final AtomicLong tokens;
+        private final AtomicReference<CompletableFuture<Long>> refill = new AtomicReference<>();
+
+        Lease(long tokens) {
+            this.tokens = new AtomicLong(tokens);
+        }
+
+        /**
+         * Start a borrow for this (empty) lease, or join the one already in flight
+         */
+        CompletableFuture<Long> refill(Supplier<CompletableFuture<Long>> borrow) {
+            CompletableFuture<Long> pending = new CompletableFuture<>();
+            while (!refill.compareAndSet(null, pending)) {
+                CompletableFuture<Long> inFlight = refill.get();
+                if (inFlight != null) {
+                    return inFlight;
+                }
+            }
+            try {
+                borrow.get().whenComplete((borrowed, e) -> {
+                    // Allow the next borrow once this one settles (e.g. the shared bucket was empty)
+                    refill.set(null);
+                    if (e != null) {
+                        pending.completeExceptionally(e);
+                    } else {
+                        pending.complete(borrowed);
+                    }
+                });
+            } catch (RuntimeException e) {
+                refill.set(null);
+                pending.completeExceptionally(e);
+            }
+            return pending;
+        }
+
+        /**
+         * @return Tokens left after taking one, or -1 when the lease is empty or closed
+         */
+        long tryTake() {
+            while (true) {
+                long available = tokens.get();
+                if (available <= 0) {
+                    return -1;
+                }
+                if (tokens.compareAndSet(available, available - 1)) {
+                    return available - 1;
+                }
+            }
+        }
+
+        long close() {
+            return tokens.getAndSet(-1);
+        }
+    }
+
+    private static final class RouteMetrics {
+        private final LongAdder local = new LongAdder();
+        private final LongAdder remote = new LongAdder();
+        private long reportedLocal;
+        private long reportedRemote;
+    }
+}
@@ -1,7 +1,10 @@
 package com.fleebug.corerouter.service.redis;
 
+import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import io.github.bucket4j.distributed.proxy.AsyncProxyManager;
 import io.github.bucket4j.distributed.proxy.ProxyManager;
 import io.github.bucket4j.redis.lettuce.cas.LettuceBasedProxyManager;
 import io.lettuce.core.RedisClient;
@@ -10,11 +13,17 @@ import io.lettuce.core.codec.ByteArrayCodec;
 import io.lettuce.core.codec.RedisCodec;
 import io.lettuce.core.codec.StringCodec;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.stereotype.Service;
 
 import com.fleebug.corerouter.config.RateLimitConfig;
+import com.fleebug.corerouter.enums.ratelimit.RateLimitRoute;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 /**
@@ -27,7 +36,24 @@ public class RedisBucketService {
 
     private final RateLimitConfig rateLimitConfig;
     private final LettuceConnectionFactory lettuceConnectionFactory;
+    private final List<StatefulRedisConnection<String, byte[]>> connections = new ArrayList<>();
     private ProxyManager<String> proxyManager;
+    private List<AsyncProxyManager<String>> asyncProxyManagers;
+
+    // Multiplexed connections shared by the non-blocking route-family checks
+    @Value("${ratelimit.redis.async-connections:2}")
+    private int asyncConnections;
+
+    // Configurations are immutable; build each once instead of per resolve call
+    private Supplier<BucketConfiguration> otpIpConfig;
+    private Supplier<BucketConfiguration> otpEmailConfig;
+    private Supplier<BucketConfiguration> loginIpConfig;
+    private Supplier<BucketConfiguration> verifyIpConfig;
+    private Supplier<BucketConfiguration> refreshIpConfig;
+    private Supplier<BucketConfiguration> taskCreationUserConfig;
+    private Supplier<BucketConfiguration> chatApiKeyConfig;
+    private Supplier<BucketConfiguration> ocrApiKeyConfig;
+    private Supplier<BucketConfiguration> speechApiKeyConfig;
 
     public RedisBucketService(RateLimitConfig rateLimitConfig,
                               LettuceConnectionFactory lettuceConnectionFactory) {
@@ -38,72 +64,87 @@ public class RedisBucketService {
     @PostConstruct
     public void init() {
         RedisClient redisClient = (RedisClient) lettuceConnectionFactory.getNativeClient();
-        StatefulRedisConnection<String, byte[]> connection =
-                redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+        StatefulRedisConnection<String, byte[]> connection = connect(redisClient);
         this.proxyManager = LettuceBasedProxyManager.builderFor(connection).build();
+
+        List<AsyncProxyManager<String>> managers = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, asyncConnections); i++) {
+            managers.add(LettuceBasedProxyManager.builderFor(connect(redisClient)).build().asAsync());
+        }
+        this.asyncProxyManagers = List.copyOf(managers);
+
+        this.otpIpConfig = configOf(rateLimitConfig.otpIpBandwidth());
+        this.otpEmailConfig = configOf(rateLimitConfig.otpEmailBandwidth());
+        this.loginIpConfig = configOf(rateLimitConfig.loginIpBandwidth());
+        this.verifyIpConfig = configOf(rateLimitConfig.verifyIpBandwidth());
+        this.refreshIpConfig = configOf(rateLimitConfig.refreshIpBandwidth());
+        this.taskCreationUserConfig = configOf(rateLimitConfig.taskCreationUserBandwidth());
+        this.chatApiKeyConfig = configOf(rateLimitConfig.chatApiKeyBandwidth());
+        this.ocrApiKeyConfig = configOf(rateLimitConfig.ocrApiKeyBandwidth());
+        this.speechApiKeyConfig = configOf(rateLimitConfig.speechApiKeyBandwidth());
     }
 
-    public Bucket resolveOtpIpBucket(String clientIp) {
-        Supplier<BucketConfiguration> config = () -> BucketConfiguration.builder()
-                .addLimit(rateLimitConfig.otpIpBandwidth())
-                .build();
-        return proxyManager.builder().build("rl:otp:ip:" + clientIp, config);
+    @PreDestroy
+    public void close() {
+        connections.forEach(StatefulRedisConnection::close);
     }
 
-    public Bucket resolveOtpEmailBucket(String email) {
-        Supplier<BucketConfiguration> config = () -> BucketConfiguration.builder()
-                .addLimit(rateLimitConfig.otpEmailBandwidth())
-                .build();
-        return proxyManager.builder().build("rl:otp:email:" + email, config);
+    private StatefulRedisConnection<String, byte[]> connect(RedisClient redisClient) {
+        StatefulRedisConnection<String, byte[]> connection =
+                redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+        connections.add(connection);
+        return connection;
     }
 
-    public Bucket resolveLoginIpBucket(String clientIp) {
-        Supplier<BucketConfiguration> config = () -> BucketConfiguration.builder()
-                .addLimit(rateLimitConfig.loginIpBandwidth())
+    private static Supplier<BucketConfiguration> configOf(Bandwidth bandwidth) {
+        BucketConfiguration configuration = BucketConfiguration.builder()
+                .addLimit(bandwidth)
                 .build();
-        // Uses simple-bucket keys
-        return proxyManager.builder().build("rl:login:ip:" + clientIp, config);
+        return () -> configuration;
     }
 
-    public Bucket resolveVerifyIpBucket(String clientIp) {
-        Supplier<BucketConfiguration> config = () -> BucketConfiguration.builder()
-                .addLimit(rateLimitConfig.verifyIpBandwidth())
-                .build();
-        return proxyManager.builder().build("rl:auth:verify:ip:" + clientIp, config);
+    /**
+     * Resolve the shared bucket for a route family that is fronted by {@link LocalRateLimitTier}.
+     * Operations on the returned proxy complete on Lettuce's event loop and never block the caller.
+     */
+    public AsyncBucketProxy resolveRouteBucketAsync(RateLimitRoute route, String key) {
+        String bucketKey = switch (route) {
+            case CHAT -> "rl:chat:apikey:" + key;
+            case OCR -> "rl:ocr:apikey:" + key;
+            case SPEECH -> "rl:speech:apikey:" + key;
+            case TASK_CREATION -> "rl:task:create:user:" + key;
+        };
+        Supplier<BucketConfiguration> config = switch (route) {
+            case CHAT -> chatApiKeyConfig;
+            case OCR -> ocrApiKeyConfig;
+            case SPEECH -> speechApiKeyConfig;
+            case TASK_CREATION -> taskCreationUserConfig;
+        };
+
+        // Spread keys over the pool; a given key always uses the same connection
+        AsyncProxyManager<String> manager =
+                asyncProxyManagers.get(Math.floorMod(bucketKey.hashCode(), asyncProxyManagers.size()));
+        return manager.builder().build(bucketKey, () -> CompletableFuture.completedFuture(config.get()));
     }
 
-    public Bucket resolveRefreshIpBucket(String clientIp) {
-        Supplier<BucketConfiguration> config = () -> BucketConfiguration.builder()
-                .addLimit(rateLimitConfig.refreshIpBandwidth())
-                .build();
-        return proxyManager.builder().build("rl:auth:refresh:ip:" + clientIp, config);
+    public Bucket resolveOtpIpBucket(String clientIp) {
+        return proxyManager.builder().build("rl:otp:ip:" + clientIp, otpIpConfig);
     }
 
-    public Bucket resolveTaskCreationUserBucket(String userKey) {
-        Supplier<BucketConfiguration> config = () -> BucketConfiguration.builder()
-                .addLimit(rateLimitConfig.taskCreationUserBandwidth())
-                .build();
-        return proxyManager.builder().build("rl:task:create:user:" + userKey, config);
+    public Bucket resolveOtpEmailBucket(String email) {
+        return proxyManager.builder().build("rl:otp:email:" + email, otpEmailConfig);
     }
-    
-    public Bucket resolveChatApiKeyBucket(String apiKeyHash) {
-        Supplier<BucketConfiguration> config = () -> BucketConfiguration.builder()
-                .addLimit(rateLimitConfig.chatApiKeyBandwidth())
-                .build();
-        return proxyManager.builder().build("rl:chat:apikey:" + apiKeyHash, config);
+
+    public Bucket resolveLoginIpBucket(String clientIp) {
+        // Uses simple-bucket keys
+        return proxyManager.builder().build("rl:login:ip:" + clientIp, loginIpConfig);
     }
 
-    public Bucket resolveOcrApiKeyBucket(String apiKeyHash) {
-        Supplier<BucketConfiguration> config = () -> BucketConfiguration.builder()
-                .addLimit(rateLimitConfig.ocrApiKeyBandwidth())
-                .build();
-        return proxyManager.builder().build("rl:ocr:apikey:" + apiKeyHash, config);
+    public Bucket resolveVerifyIpBucket(String clientIp) {
+        return proxyManager.builder().build("rl:auth:verify:ip:" + clientIp, verifyIpConfig);
     }
 
-    public Bucket resolveSpeechApiKeyBucket(String apiKeyHash) {
-        Supplier<BucketConfiguration> config = () -> BucketConfiguration.builder()
-                .addLimit(rateLimitConfig.speechApiKeyBandwidth())
-                .build();
-        return proxyManager.builder().build("rl:speech:apikey:" + apiKeyHash, config);
+    public Bucket resolveRefreshIpBucket(String clientIp) {
+        return proxyManager.builder().build("rl:auth:refresh:ip:" + clientIp, refreshIpConfig);
     }
-}
\ No newline at end of file
+}
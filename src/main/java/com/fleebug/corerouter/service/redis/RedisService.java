@@ -50,6 +50,23 @@ public class RedisService {
     }
 
 
+    /**
+     * Broadcast a message on a Redis pub/sub channel
+     *
+     * @param channel The channel name
+     * @param message The message to broadcast
+     */
+    public void publishToChannel(String channel, String message) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            Map<String, String> properties = new HashMap<>();
+            properties.put("channel", channel);
+            telemetryClient.trackException(e, properties, null);
+            throw new RuntimeException("Channel publish failed", e);
+        }
+    }
+
     /**
      * Save data to Redis cache with TTL
      * 
@@ -0,0 +1,196 @@
+package com.fleebug.corerouter.service.redis;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.XAddArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Batching producer for Redis Streams.
+ *
+ * Records from concurrent callers are collected into micro-batches (bounded by
+ * size and a short linger) and written with pipelined XADDs on one dedicated
+ * Lettuce connection. Every XADD trims the stream by MAXLEN, or by MINID when
+ * a retention window is configured.
+ */
+@Service
+@RequiredArgsConstructor
+public class RedisStreamProducer {
+
+    private final TelemetryClient telemetryClient;
+    private final LettuceConnectionFactory lettuceConnectionFactory;
+
+    @Value("${redis.stream.producer.batch-size:100}")
+    private int batchSize;
+
+    @Value("${redis.stream.producer.linger-ms:5}")
+    private long lingerMs;
+
+    @Value("${redis.stream.producer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${redis.stream.producer.flush-timeout-ms:5000}")
+    private long flushTimeoutMs;
+
+    @Value("${redis.stream.producer.max-length:100000}")
+    private long maxLength;
+
+    // When > 0, trim by MINID (entries older than this window) instead of MAXLEN
+    @Value("${redis.stream.producer.min-id-retention-ms:0}")
+    private long minIdRetentionMs;
+
+    private BlockingQueue<PendingRecord> queue;
+    private StatefulRedisConnection<String, String> connection;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        RedisClient redisClient = (RedisClient) lettuceConnectionFactory.getNativeClient();
+        this.connection = redisClient.connect();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.running = true;
+        this.flusher = new Thread(this::runFlushLoop, "redis-stream-producer");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        flusher.join(flushTimeoutMs);
+        connection.close();
+    }
+
+    /**
+     * Queue a record for the next batch.
+     *
+     * @param streamKey The stream key (e.g. "stream:tasks")
+     * @param fields    The entry fields
+     * @return Future completed with the stream record id once the batch is written
+     */
+    public CompletableFuture<String> enqueue(String streamKey, Map<String, String> fields) {
+        PendingRecord record = new PendingRecord(streamKey, fields, new CompletableFuture<>());
+        if (!running || !queue.offer(record)) {
+            record.result().completeExceptionally(
+                    new RejectedExecutionException("Stream producer queue is full or stopped: " + streamKey));
+        }
+        return record.result();
+    }
+
+    private void runFlushLoop() {
+        List<PendingRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                queue.drainTo(batch);
+                flush(batch);
+                return;
+            } catch (RuntimeException e) {
+                telemetryClient.trackException(e, Map.of("component", "RedisStreamProducer"), null);
+                batch.forEach(record -> record.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void collectBatch(List<PendingRecord> batch) throws InterruptedException {
+        PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                queue.drainTo(batch, batchSize - batch.size());
+                return;
+            }
+            PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        RedisAsyncCommands<String, String> async = connection.async();
+        XAddArgs trimArgs = trimArgs();
+        List<RedisFuture<String>> pending = new ArrayList<>(batch.size());
+
+        // Single-writer connection: buffer every XADD and send them in one write
+        connection.setAutoFlushCommands(false);
+        try {
+            for (PendingRecord record : batch) {
+                pending.add(async.xadd(record.streamKey(), trimArgs, record.fields()));
+            }
+            connection.flushCommands();
+        } finally {
+            connection.setAutoFlushCommands(true);
+        }
+
+        CompletableFuture<?>[] completions = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<String> result = batch.get(i).result();
+            completions[i] = pending.get(i).toCompletableFuture().whenComplete((id, ex) -> {
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(id);
+                }
+            });
+        }
+
+        try {
+            CompletableFuture.allOf(completions).get(flushTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Individual failures are already propagated to their callers
+            telemetryClient.trackException(e, Map.of("component", "RedisStreamProducer", "batchSize", String.valueOf(batch.size())), null);
+        } catch (TimeoutException e) {
+            telemetryClient.trackException(e, Map.of("component", "RedisStreamProducer", "batchSize", String.valueOf(batch.size())), null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private XAddArgs trimArgs() {
+        XAddArgs args = new XAddArgs().approximateTrimming();
+        if (minIdRetentionMs > 0) {
+            return args.minId((System.currentTimeMillis() - minIdRetentionMs) + "-0");
+        }
+        return args.maxlen(maxLength);
+    }
+
+    private record PendingRecord(String streamKey, Map<String, String> fields, CompletableFuture<String> result) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fleebug.corerouter.entity.apikey.ApiKey;
+import com.fleebug.corerouter.exception.apikey.ApiKeyLimitExceededException;
+import com.fleebug.corerouter.exception.billing.InsufficientBalanceException;
+import com.fleebug.corerouter.service.apikey.ApiKeyUsageCounter;
+import com.fleebug.corerouter.service.billing.WalletBalanceService;
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Admission control for new tasks, run before anything is queued.
+ *
+ * Quota uses the same Redis day/month counters and the same comparison that
+ * UsageService applies when usage is recorded, so a key refused here would also
+ * be refused there; counters are only incremented at recording time. The wallet
+ * check places a hold for the task on the Redis wallet view, so parallel
+ * submissions can't all be admitted against the same last few cents. The final
+ * charge is still enforced by TaskBillingService once the cost is known, and it
+ * settles (or releases) the hold.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskAdmissionService {
+
+    private final TelemetryClient telemetryClient;
+    private final ApiKeyUsageCounter apiKeyUsageCounter;
+    private final WalletBalanceService walletBalanceService;
+
+    // Reserved per task until it completes; roughly the cost of a typical request
+    @Value("${task.admission.hold-amount:0.10}")
+    private BigDecimal holdAmount;
+
+    /**
+     * Reject the submission if the key is out of quota (429) or the owner's
+     * wallet can't pay for more work (402).
+     *
+     * @param apiKey Active API key submitting the task
+     * @param taskId Id of the task being created, which owns the wallet hold
+     */
+    public void admit(ApiKey apiKey, String taskId) {
+        if (hasLimits(apiKey)) {
+            ApiKeyUsageCounter.Result usage = apiKeyUsageCounter.peek(apiKey);
+            if (usage.status() == ApiKeyUsageCounter.Status.DAILY_LIMIT_REACHED) {
+                reject(apiKey, "DAILY_LIMIT");
+                throw new ApiKeyLimitExceededException("Daily usage limit of " + apiKey.getDailyLimit() + " exceeded for API key.");
+            }
+            if (usage.status() == ApiKeyUsageCounter.Status.MONTHLY_LIMIT_REACHED) {
+                reject(apiKey, "MONTHLY_LIMIT");
+                throw new ApiKeyLimitExceededException("Monthly usage limit of " + apiKey.getMonthlyLimit() + " exceeded for API key.");
+            }
+        }
+
+        Integer userId = apiKey.getUser().getUserId();
+        if (!walletBalanceService.hold(userId, taskId, holdAmount)) {
+            reject(apiKey, "INSUFFICIENT_BALANCE");
+            throw new InsufficientBalanceException("Insufficient wallet balance. Top up your wallet to submit new requests.");
+        }
+    }
+
+    private static boolean hasLimits(ApiKey apiKey) {
+        return (apiKey.getDailyLimit() != null && apiKey.getDailyLimit() > 0)
+                || (apiKey.getMonthlyLimit() != null && apiKey.getMonthlyLimit() > 0);
+    }
+
+    private void reject(ApiKey apiKey, String reason) {
+        telemetryClient.trackTrace("Task submission rejected by admission control", SeverityLevel.Information,
+                Map.of("apiKeyId", String.valueOf(apiKey.getApiKeyId()), "reason", reason));
+    }
+}
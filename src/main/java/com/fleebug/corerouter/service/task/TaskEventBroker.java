@@ -0,0 +1,153 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleebug.corerouter.dto.task.response.TaskEventResponse;
+import com.fleebug.corerouter.entity.task.Task;
+import com.fleebug.corerouter.enums.task.TaskStatus;
+import com.fleebug.corerouter.service.redis.RedisService;
+import com.microsoft.applicationinsights.TelemetryClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * Per-task event fan-out over Redis pub/sub.
+ *
+ * Status updates are published on "task:events:{taskId}" once the update is
+ * committed. A node subscribes to a task's channel only while it has local
+ * listeners for it (SSE streams, long-polls), so idle tasks cost nothing.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskEventBroker {
+
+    static final String CHANNEL_PREFIX = "task:events:";
+
+    private final TelemetryClient telemetryClient;
+    private final RedisService redisService;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, TaskChannel> channels = new ConcurrentHashMap<>();
+
+    /**
+     * Publish the task's current status and result to subscribers on every node.
+     * Inside a transaction the publish is deferred until after commit so
+     * subscribers never observe a state that is rolled back.
+     */
+    public void publish(Task task) {
+        Map<String, String> event = new HashMap<>();
+        event.put("taskId", task.getTaskId());
+        event.put("status", task.getStatus().name());
+        if (task.getResultPayload() != null) {
+            event.put("result", task.getResultPayload());
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(task.getTaskId(), event);
+                }
+            });
+        } else {
+            send(task.getTaskId(), event);
+        }
+    }
+
+    /**
+     * Register a listener for a task's events on this node.
+     *
+     * @return Handle that removes the listener; safe to call more than once
+     */
+    public Runnable subscribe(String taskId, Consumer<TaskEventResponse> listener) {
+        channels.compute(taskId, (id, existing) -> {
+            TaskChannel target = existing != null ? existing : new TaskChannel(id);
+            target.listeners.add(listener);
+            if (existing == null) {
+                redisMessageListenerContainer.addMessageListener(target, target.topic);
+            }
+            return target;
+        });
+
+        return () -> channels.computeIfPresent(taskId, (id, existing) -> {
+            existing.listeners.remove(listener);
+            if (existing.listeners.isEmpty()) {
+                redisMessageListenerContainer.removeMessageListener(existing, existing.topic);
+                return null;
+            }
+            return existing;
+        });
+    }
+
+    private void send(String taskId, Map<String, String> event) {
+        try {
+            redisService.publishToChannel(CHANNEL_PREFIX + taskId, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // Subscribers still see the final state through their initial read or poll fallback
+            telemetryClient.trackException(e, Map.of("taskId", taskId, "event", "TASK_EVENT_PUBLISH_FAILED"), null);
+        }
+    }
+
+    private TaskEventResponse parse(byte[] body) throws java.io.IOException {
+        JsonNode node = objectMapper.readTree(body);
+        Object result = null;
+        JsonNode rawResult = node.get("result");
+        if (rawResult != null && !rawResult.isNull()) {
+            try {
+                result = objectMapper.readValue(rawResult.asText(), Object.class);
+            } catch (Exception e) {
+                result = rawResult.asText();
+            }
+        }
+
+        return TaskEventResponse.builder()
+                .taskId(node.path("taskId").asText())
+                .status(TaskStatus.valueOf(node.path("status").asText()))
+                .result(result)
+                .build();
+    }
+
+    private final class TaskChannel implements MessageListener {
+
+        private final ChannelTopic topic;
+        private final Set<Consumer<TaskEventResponse>> listeners = new CopyOnWriteArraySet<>();
+
+        private TaskChannel(String taskId) {
+            this.topic = new ChannelTopic(CHANNEL_PREFIX + taskId);
+        }
+
+        @Override
+        public void onMessage(Message message, byte[] pattern) {
+            TaskEventResponse event;
+            try {
+                event = parse(message.getBody());
+            } catch (Exception e) {
+                telemetryClient.trackException(e, Map.of("channel", topic.getTopic()), null);
+                return;
+            }
+
+            // Parsed once per node, shared by every local listener
+            for (Consumer<TaskEventResponse> listener : listeners) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    telemetryClient.trackException(e, Map.of("channel", topic.getTopic()), null);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleebug.corerouter.entity.task.TaskOutbox;
+import com.fleebug.corerouter.repository.task.TaskOutboxRepository;
+import com.fleebug.corerouter.service.redis.RedisStreamProducer;
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Moves committed task_outbox rows to their Redis stream.
+ *
+ * Each run claims the oldest rows with FOR UPDATE SKIP LOCKED, so any number of
+ * router nodes can relay concurrently without double-claiming. Rows are deleted
+ * in the same transaction only after every XADD in the batch is acknowledged;
+ * a failed batch rolls back and is retried on the next run. Each stream entry
+ * carries its outboxId so consumers can drop the rare redelivery.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskOutboxRelay {
+
+    private final TelemetryClient telemetryClient;
+    private final TaskOutboxRepository taskOutboxRepository;
+    private final RedisStreamProducer redisStreamProducer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${task.outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${task.outbox.relay.publish-timeout-ms:5000}")
+    private long publishTimeoutMs;
+
+    @Scheduled(fixedDelayString = "${task.outbox.relay.interval-ms:100}")
+    @Transactional
+    public void relay() {
+        List<TaskOutbox> batch = taskOutboxRepository.claimBatch(batchSize);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<String>> published = new ArrayList<>(batch.size());
+        for (TaskOutbox entry : batch) {
+            Map<String, String> fields = readFields(entry);
+            if (fields != null) {
+                fields.put("outboxId", String.valueOf(entry.getOutboxId()));
+                published.add(redisStreamProducer.enqueue(entry.getStreamKey(), fields));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(published.toArray(new CompletableFuture<?>[0]))
+                    .get(publishTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            telemetryClient.trackException(e, Map.of("event", "TASK_OUTBOX_RELAY_FAILED", "batchSize", String.valueOf(batch.size())), null);
+            throw new IllegalStateException("Task outbox relay failed; batch will be retried", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Task outbox relay interrupted", e);
+        }
+
+        taskOutboxRepository.deleteAllInBatch(batch);
+        telemetryClient.trackTrace("Task outbox batch relayed", SeverityLevel.Verbose, Map.of("batchSize", String.valueOf(batch.size())));
+    }
+
+    private Map<String, String> readFields(TaskOutbox entry) {
+        try {
+            return objectMapper.readValue(entry.getPayload(), new TypeReference<Map<String, String>>() {});
+        } catch (JsonProcessingException e) {
+            // Unparseable rows can never succeed; drop them with the batch rather than block the outbox
+            telemetryClient.trackException(e, Map.of("event", "TASK_OUTBOX_INVALID_PAYLOAD", "taskId", entry.getTaskId()), null);
+            return null;
+        }
+    }
+}
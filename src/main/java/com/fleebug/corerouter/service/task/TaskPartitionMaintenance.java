@@ -0,0 +1,202 @@
+package com.fleebug.corerouter.service.task;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of tasks, usage_records and task_payloads in shape.
+ *
+ * Partitions are created a few months ahead by the create_month_partition
+ * function from the V4 migration, so inserts never hit a missing range. With a
+ * retention configured, partitions whose whole month is older than it are
+ * detached; all tables use the same cutoff so a task, its payloads and its
+ * usage leave together. Detached partitions stay as plain tables for archiving
+ * (pg_dump) unless drop-detached is set. Only one node detaches at a time, and
+ * it first finishes any detach a previous run left pending. Rollups, the ledger
+ * and hourly metrics are separate tables and keep their history.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskPartitionMaintenance {
+
+    private static final List<String> PARTITIONED_TABLES = List.of("tasks", "usage_records", "task_payloads");
+
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PARTITIONS_SQL = """
+            SELECT c.relname, i.inhdetachpending FROM pg_inherits i
+            JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = CAST(? AS regclass)
+            """;
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_lock(hashtext('task_partition_maintenance'))";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(hashtext('task_partition_maintenance'))";
+
+    private final TelemetryClient telemetryClient;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${task.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${task.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${task.partitions.drop-detached:false}")
+    private boolean dropDetached;
+
+    record Partition(String name, boolean detachPending) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${task.partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        maintain(YearMonth.now(Clock.systemUTC()));
+    }
+
+    /**
+     * Create partitions from the current month through monthsAhead and detach
+     * the expired ones. Runs without a surrounding transaction: DETACH
+     * CONCURRENTLY refuses to run inside one.
+     */
+    public void maintain(YearMonth currentMonth) {
+        Map<String, Integer> created = new LinkedHashMap<>();
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                created.put(table, createAhead(table, currentMonth));
+            } catch (DataAccessException e) {
+                telemetryClient.trackException(e, Map.of("event", "PARTITION_MAINTENANCE_FAILED", "table", table), null);
+            }
+        }
+        Map<String, List<String>> detached = retentionMonths > 0
+                ? detachExpired(currentMonth.minusMonths(retentionMonths))
+                : Map.of();
+
+        for (String table : PARTITIONED_TABLES) {
+            int tableCreated = created.getOrDefault(table, 0);
+            List<String> tableDetached = detached.getOrDefault(table, List.of());
+            if (tableCreated > 0 || !tableDetached.isEmpty()) {
+                telemetryClient.trackTrace("Partitions maintained", SeverityLevel.Information, Map.of(
+                        "table", table,
+                        "created", String.valueOf(tableCreated),
+                        "detached", String.join(",", tableDetached),
+                        "dropped", String.valueOf(dropDetached && !tableDetached.isEmpty())));
+            }
+        }
+    }
+
+    private int createAhead(String table, YearMonth currentMonth) {
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            Date monthStart = Date.valueOf(currentMonth.plusMonths(i).atDay(1));
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT create_month_partition(?, ?)", Boolean.class, table, monthStart))) {
+                created++;
+            }
+        }
+        return created;
+    }
+
+    /**
+     * Detach expired partitions of every table while holding a session-level
+     * advisory lock, so only one node detaches at a time. The lock is held on
+     * its own connection; the DDL runs on other pool connections, which is
+     * fine because the lock only has to outlive the loop.
+     */
+    private Map<String, List<String>> detachExpired(YearMonth cutoff) {
+        Map<String, List<String>> detached = new LinkedHashMap<>();
+        boolean locked = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!advisoryLock(connection, TRY_LOCK_SQL)) {
+                return false;
+            }
+            try {
+                for (String table : PARTITIONED_TABLES) {
+                    detached.put(table, detachBefore(table, cutoff));
+                }
+            } finally {
+                advisoryLock(connection, UNLOCK_SQL);
+            }
+            return true;
+        }));
+        if (!locked) {
+            telemetryClient.trackTrace("Partition detach skipped, another node holds the lock", SeverityLevel.Verbose, Map.of());
+        }
+        return detached;
+    }
+
+    private List<String> detachBefore(String table, YearMonth cutoff) {
+        // Only names create_month_partition produced, so they are safe to splice into DDL
+        Pattern name = Pattern.compile(Pattern.quote(table) + "_p(\\d{6})");
+        List<String> detached = new ArrayList<>();
+        List<Partition> partitions;
+        try {
+            partitions = jdbcTemplate.query(PARTITIONS_SQL,
+                    (rs, rowNum) -> new Partition(rs.getString("relname"), rs.getBoolean("inhdetachpending")),
+                    table);
+        } catch (DataAccessException e) {
+            telemetryClient.trackException(e, Map.of("event", "PARTITION_MAINTENANCE_FAILED", "table", table), null);
+            return detached;
+        }
+        for (Partition partition : partitions) {
+            Matcher matcher = name.matcher(partition.name());
+            if (!matcher.matches()) {
+                continue;
+            }
+            // A detach interrupted on an earlier run blocks every further detach of the table until finalized
+            String mode;
+            if (partition.detachPending()) {
+                mode = "FINALIZE";
+            } else if (YearMonth.parse(matcher.group(1), PARTITION_MONTH).isBefore(cutoff)) {
+                mode = "CONCURRENTLY";
+            } else {
+                continue;
+            }
+            try {
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition.name() + " " + mode);
+                if (dropDetached) {
+                    jdbcTemplate.execute("DROP TABLE " + partition.name());
+                }
+                detached.add(partition.name());
+            } catch (DataAccessException e) {
+                // Left for the next run; the remaining partitions still get detached
+                telemetryClient.trackException(e, Map.of(
+                        "event", "PARTITION_DETACH_FAILED",
+                        "table", table,
+                        "partition", partition.name()), null);
+            }
+        }
+        return detached;
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fleebug.corerouter.entity.task.Task;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Request and result payloads of tasks, kept in task_payloads instead of the
+ * tasks row.
+ *
+ * Task entities never load payloads; Task.requestPayload and resultPayload are
+ * transient and only set when a caller wrote them or fetched them explicitly
+ * here. Payloads of at least compress-threshold-bytes UTF-8 bytes are stored
+ * gzip-compressed. Rows are keyed by (task_id, created_at), the partition key,
+ * so every lookup touches a single month.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskPayloadStore {
+
+    private static final String SAVE_REQUEST_SQL = """
+            INSERT INTO task_payloads (task_id, created_at, request_payload, request_compressed)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String SAVE_RESULT_SQL = """
+            INSERT INTO task_payloads (task_id, created_at, result_payload, result_compressed)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (task_id, created_at) DO UPDATE
+            SET result_payload = EXCLUDED.result_payload, result_compressed = EXCLUDED.result_compressed
+            """;
+
+    private static final String RESULT_SQL =
+            "SELECT result_payload, result_compressed FROM task_payloads WHERE task_id = ? AND created_at = ?";
+
+    private static final String RESULTS_SQL = """
+            SELECT p.task_id, p.result_payload, p.result_compressed
+            FROM task_payloads p
+            JOIN UNNEST(?::varchar[], ?::timestamp[]) AS k(task_id, created_at)
+                ON p.task_id = k.task_id AND p.created_at = k.created_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${task.payloads.compress-threshold-bytes:1024}")
+    private int compressThresholdBytes;
+
+    /**
+     * A result to store for a task.
+     */
+    public record Result(String taskId, LocalDateTime createdAt, String payload) {
+    }
+
+    /**
+     * A payload as stored, for callers writing task_payloads in their own statement.
+     */
+    public record Encoded(byte[] bytes, boolean compressed) {
+    }
+
+    public void saveRequest(String taskId, LocalDateTime createdAt, String payload) {
+        Encoded encoded = encode(payload);
+        jdbcTemplate.update(SAVE_REQUEST_SQL, taskId, Timestamp.valueOf(createdAt), encoded.bytes(), encoded.compressed());
+    }
+
+    /**
+     * Store the results set on the given tasks in one batch. Tasks without a
+     * result keep the one already stored.
+     */
+    public void saveResults(Collection<Task> tasks) {
+        List<Result> results = new ArrayList<>();
+        for (Task task : tasks) {
+            if (task.getResultPayload() != null) {
+                results.add(new Result(task.getTaskId(), task.getCreatedAt(), task.getResultPayload()));
+            }
+        }
+        save(results);
+    }
+
+    public void save(List<Result> results) {
+        if (results.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(results.size());
+        for (Result result : results) {
+            Encoded encoded = encode(result.payload());
+            rows.add(new Object[]{result.taskId(), Timestamp.valueOf(result.createdAt()), encoded.bytes(), encoded.compressed()});
+        }
+        jdbcTemplate.batchUpdate(SAVE_RESULT_SQL, rows);
+    }
+
+    /**
+     * Load the stored result onto the task, leaving it null if there is none.
+     */
+    public Task loadResult(Task task) {
+        List<String> rows = jdbcTemplate.query(RESULT_SQL,
+                (rs, rowNum) -> decode(rs.getBytes("result_payload"), rs.getBoolean("result_compressed")),
+                task.getTaskId(), Timestamp.valueOf(task.getCreatedAt()));
+        task.setResultPayload(rows.isEmpty() ? null : rows.get(0));
+        return task;
+    }
+
+    /**
+     * Load the stored results onto several tasks with one query, leaving
+     * tasks without one untouched.
+     */
+    public void loadResults(Collection<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        Map<String, Task> tasksById = new HashMap<>();
+        tasks.forEach(task -> tasksById.put(task.getTaskId(), task));
+        String[] taskIds = tasksById.keySet().toArray(String[]::new);
+        Timestamp[] createdAts = new Timestamp[taskIds.length];
+        for (int i = 0; i < taskIds.length; i++) {
+            createdAts[i] = Timestamp.valueOf(tasksById.get(taskIds[i]).getCreatedAt());
+        }
+        jdbcTemplate.query(RESULTS_SQL,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("varchar", taskIds));
+                    ps.setArray(2, ps.getConnection().createArrayOf("timestamp", createdAts));
+                },
+                rs -> {
+                    tasksById.get(rs.getString("task_id")).setResultPayload(
+                            decode(rs.getBytes("result_payload"), rs.getBoolean("result_compressed")));
+                });
+    }
+
+    /**
+     * Encode a payload the way it is stored: UTF-8, gzipped from the threshold up.
+     */
+    public Encoded encode(String payload) {
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        boolean compressed = bytes.length >= compressThresholdBytes;
+        return new Encoded(compressed ? gzip(bytes) : bytes, compressed);
+    }
+
+    /**
+     * Decode a payload column read directly with JDBC.
+     */
+    public static String decode(byte[] bytes, boolean compressed) {
+        if (bytes == null) {
+            return null;
+        }
+        if (!compressed) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to decompress task payload", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (OutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to compress task payload", e);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -10,10 +10,13 @@ import com.fleebug.corerouter.dto.task.response.DailyTaskAnalyticsResponse;
 import com.fleebug.corerouter.dto.task.response.PaginatedTaskListResponse;
 import com.fleebug.corerouter.dto.task.response.TaskInsightsResponse;
 import com.fleebug.corerouter.dto.task.response.TaskListItemResponse;
+import com.fleebug.corerouter.dto.task.response.TaskStatusBatchItemResponse;
 import com.fleebug.corerouter.entity.apikey.ApiKey;
 import com.fleebug.corerouter.entity.model.Model;
 import com.fleebug.corerouter.entity.task.Task;
+import com.fleebug.corerouter.entity.task.TaskOutbox;
 import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
+import com.fleebug.corerouter.enums.metrics.HourlyMetricType;
 import com.fleebug.corerouter.enums.task.TaskStatus;
 import com.fleebug.corerouter.exception.apikey.ApiKeyNotFoundException;
 import com.fleebug.corerouter.exception.apikey.ApiKeyRevokedException;
@@ -22,27 +25,36 @@ import com.fleebug.corerouter.exception.task.TaskNotFoundException;
 import com.fleebug.corerouter.exception.task.TaskPayloadInvalidException;
 import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
 import com.fleebug.corerouter.repository.model.ModelRepository;
+import com.fleebug.corerouter.repository.task.TaskOutboxRepository;
 import com.fleebug.corerouter.repository.task.TaskRepository;
 import com.fleebug.corerouter.service.billing.TaskBillingService;
-import com.fleebug.corerouter.service.redis.RedisService;
+import com.fleebug.corerouter.service.billing.UsageRollupService;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
+import com.fleebug.corerouter.util.TaskIds;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -55,13 +67,22 @@ public class TaskService {
     private final TaskRepository taskRepository;
     private final ApiKeyRepository apiKeyRepository;
     private final ModelRepository modelRepository;
-    private final RedisService redisService;
+    private final TaskOutboxRepository taskOutboxRepository;
     private final TaskBillingService taskBillingService;
+    private final UsageRollupService usageRollupService;
+    private final HourlyMetricsService hourlyMetricsService;
+    private final TaskEventBroker taskEventBroker;
+    private final TaskStatusWriteBehind taskStatusWriteBehind;
+    private final TaskPayloadStore taskPayloadStore;
+    private final TaskAdmissionService taskAdmissionService;
+    private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper ;
 
     @Transactional
     public Task createTask(TaskCreateRequest request) {
-        String taskId = UUID.randomUUID().toString();
+        // One clock reading for both, so the id alone bounds created_at (see TaskIds)
+        Instant createdAt = Instant.now();
+        String taskId = TaskIds.newId(createdAt);
         
         String payloadJson;
         
@@ -78,30 +99,49 @@ public class TaskService {
             throw new ApiKeyRevokedException("API key is not active (status: " + apiKey.getStatus() + ")");
         }
 
+        // Refuse over-quota keys and empty wallets before any inference capacity is spent
+        taskAdmissionService.admit(apiKey, taskId);
+
         Model model = modelRepository.findById(request.getModelId())
                 .orElseThrow(() -> new ModelNotFoundException(request.getModelId()));
 
         Task task = Task.builder()
                 .taskId(taskId)
                 .apiKey(apiKey)
+                .userId(apiKey.getUser().getUserId())
                 .model(model)
                 .requestPayload(payloadJson)
                 .status(TaskStatus.QUEUED)
-                .createdAt(LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC))
+                .createdAt(LocalDateTime.ofInstant(createdAt, ZoneOffset.UTC))
                 .build();
 
         Task saved = taskRepository.save(task);
-        redisService.appendToStream(
-                TASK_STREAM_KEY,
-                Map.of(
-                        "taskId", saved.getTaskId(),
-                        "apiKeyId", saved.getApiKey().getApiKeyId().toString(),
-                        "modelId", saved.getModel().getModelId().toString(),
-                        "payload", saved.getRequestPayload(),
-                        "timestamp", LocalDateTime.now().toString()
-                )
+        taskPayloadStore.saveRequest(saved.getTaskId(), saved.getCreatedAt(), payloadJson);
+        hourlyMetricsService.taskCreated(saved.getCreatedAt());
+        Map<String, String> streamFields = Map.of(
+                "taskId", saved.getTaskId(),
+                "apiKeyId", saved.getApiKey().getApiKeyId().toString(),
+                "modelId", saved.getModel().getModelId().toString(),
+                "payload", payloadJson,
+                "timestamp", LocalDateTime.now().toString()
         );
-        telemetryClient.trackTrace("Task created and pushed to stream - taskId=" + saved.getTaskId(), SeverityLevel.Information, Map.of("taskId", saved.getTaskId()));
+
+        // Written in the same transaction as the task; TaskOutboxRelay moves it to the stream after commit
+        String outboxPayload;
+        try {
+            outboxPayload = objectMapper.writeValueAsString(streamFields);
+        } catch (JsonProcessingException e) {
+            throw new TaskPayloadInvalidException("Failed to serialize task stream record", e);
+        }
+
+        taskOutboxRepository.save(TaskOutbox.builder()
+                .taskId(saved.getTaskId())
+                .streamKey(TASK_STREAM_KEY)
+                .payload(outboxPayload)
+                .createdAt(LocalDateTime.now(Clock.systemUTC()))
+                .build());
+
+        telemetryClient.trackTrace("Task created and written to outbox - taskId=" + saved.getTaskId(), SeverityLevel.Information, Map.of("taskId", saved.getTaskId()));
         return saved;
     }
 
@@ -111,51 +151,307 @@ public class TaskService {
                 .orElseThrow(() -> new TaskNotFoundException(taskId));
     }
 
+    /**
+     * Like {@link #getTaskById}, with the stored result payload loaded.
+     */
+    @Transactional(readOnly = true)
+    public Task getTaskWithResult(String taskId) {
+        return taskPayloadStore.loadResult(getTaskById(taskId));
+    }
+
+    /**
+     * Read a task's status and result with a single JDBC query.
+     *
+     * Deliberately non-transactional and outside JPA: the connection is
+     * returned to the pool as soon as the row is read, so parked streaming and
+     * long-poll requests never pin one through the open-in-view EntityManager.
+     */
+    public TaskState getTaskState(String taskId) {
+        TaskIds.CreatedAtRange range = TaskIds.createdAtRange(taskId);
+        List<TaskState> rows = jdbcTemplate.query(
+                "SELECT t.task_id, t.api_key_id, t.status, p.result_payload, p.result_compressed FROM tasks t "
+                        + "LEFT JOIN task_payloads p ON p.task_id = t.task_id AND p.created_at = t.created_at "
+                        + "AND p.created_at BETWEEN ? AND ? "
+                        + "WHERE t.task_id = ? AND t.created_at BETWEEN ? AND ?",
+                (rs, rowNum) -> new TaskState(
+                        rs.getString("task_id"),
+                        rs.getInt("api_key_id"),
+                        TaskStatus.valueOf(rs.getString("status")),
+                        TaskPayloadStore.decode(rs.getBytes("result_payload"), rs.getBoolean("result_compressed"))),
+                range.from(), range.to(), taskId, range.from(), range.to());
+
+        if (rows.isEmpty()) {
+            throw new TaskNotFoundException(taskId);
+        }
+        return rows.get(0);
+    }
+
+    /**
+     * Apply a worker status update.
+     *
+     * Terminal statuses (COMPLETED, FAILED) are written synchronously together
+     * with the billing debit. Transient statuses are buffered in
+     * {@link TaskStatusWriteBehind} and reach Postgres on its next flush once
+     * the task is known to exist; subscribers are notified immediately either way.
+     */
     @Transactional
     public Task updateTaskStatus(TaskStatusUpdateRequest request) {
-        Task task = getTaskById(request.getTaskId());
-        task.setStatus(request.getStatus());
-        task.setUpdatedAt(LocalDateTime.now());
-        task.setUsageMetadata(request.getUsageMetadata());
-
+        String resultPayload = null;
         if (request.getResult() != null) {
             try {
-                task.setResultPayload(objectMapper.writeValueAsString(request.getResult()));
+                resultPayload = objectMapper.writeValueAsString(request.getResult());
             } catch (JsonProcessingException e) {
                 throw new TaskPayloadInvalidException("Failed to serialize task result", e);
             }
         }
 
-        if (request.getStatus() == TaskStatus.COMPLETED || request.getStatus() == TaskStatus.FAILED) {
-            task.setCompletedAt(LocalDateTime.now());
-            long processingTimeMs = java.time.Duration.between(task.getCreatedAt(), task.getCompletedAt()).toMillis();
-            task.setProcessingTimeMs(processingTimeMs);
+        if (!isTerminal(request.getStatus())) {
+            requireTaskExists(request.getTaskId());
+            Task update = Task.builder()
+                    .taskId(request.getTaskId())
+                    .status(request.getStatus())
+                    .resultPayload(resultPayload)
+                    .usageMetadata(request.getUsageMetadata())
+                    .updatedAt(LocalDateTime.now(Clock.systemUTC()))
+                    .build();
+            taskStatusWriteBehind.record(update);
+            taskEventBroker.publish(update);
+            return update;
         }
 
+        lockTasks(List.of(request.getTaskId()));
+        Task task = getTaskById(request.getTaskId());
+        TaskStatus previousStatus = task.getStatus();
+        boolean newlyCompleted = previousStatus != TaskStatus.COMPLETED && request.getStatus() == TaskStatus.COMPLETED;
+        applyTerminalStatus(task, request, resultPayload);
+
         Task saved = taskRepository.save(task);
+        taskPayloadStore.saveResults(List.of(saved));
+        if (saved.getResultPayload() == null) {
+            // The result is not part of the entity; without this the response and event would carry none
+            taskPayloadStore.loadResult(saved);
+        }
+        hourlyMetricsService.taskStatusChanged(saved.getCreatedAt(), previousStatus, saved.getStatus());
 
         if (request.getStatus() == TaskStatus.COMPLETED) {
             taskBillingService.applyDebitIfEligible(saved);
+            if (newlyCompleted) {
+                usageRollupService.recordCompletions(List.of(saved));
+            }
+        } else {
+            taskBillingService.releaseHold(saved);
         }
 
+        taskStatusWriteBehind.discard(saved.getTaskId());
+        taskEventBroker.publish(saved);
+
         telemetryClient.trackTrace("Task status updated - taskId=" + saved.getTaskId() + ", status=" + saved.getStatus(), SeverityLevel.Information, Map.of("taskId", saved.getTaskId(), "status", saved.getStatus().toString()));
         return saved;
     }
 
+    /**
+     * Apply several worker status updates in one transaction.
+     *
+     * Every task is looked up with a single IN query; terminal tasks are
+     * written back as one JDBC batch and transient ones are buffered. Wallet
+     * debits are settled against the wallet view.
+     * Every update gets its own result: a missing task, an unserializable
+     * result or a failed debit rejects that update only.
+     */
+    @Transactional
+    public List<TaskStatusBatchItemResponse> updateTaskStatusBatch(List<TaskStatusUpdateRequest> requests) {
+        TaskStatusBatchItemResponse[] results = new TaskStatusBatchItemResponse[requests.size()];
+        String[] resultPayloads = new String[requests.size()];
+        Set<String> taskIds = new HashSet<>();
+        Set<String> terminalTaskIds = new HashSet<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            TaskStatusUpdateRequest request = requests.get(i);
+            try {
+                resultPayloads[i] = request.getResult() == null ? null : objectMapper.writeValueAsString(request.getResult());
+            } catch (JsonProcessingException e) {
+                results[i] = TaskStatusBatchItemResponse.failed(request.getTaskId(), "Failed to serialize task result");
+                continue;
+            }
+            taskIds.add(request.getTaskId());
+            if (isTerminal(request.getStatus())) {
+                terminalTaskIds.add(request.getTaskId());
+            }
+        }
+
+        if (taskIds.isEmpty()) {
+            return List.of(results);
+        }
+
+        lockTasks(terminalTaskIds);
+
+        Map<String, Task> tasksById = new HashMap<>();
+        for (Task task : taskRepository.findAllWithUserByTaskIdIn(taskIds)) {
+            tasksById.put(task.getTaskId(), task);
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+            TaskStatusUpdateRequest request = requests.get(i);
+            if (results[i] != null) {
+                continue;
+            }
+            if (!tasksById.containsKey(request.getTaskId())) {
+                results[i] = TaskStatusBatchItemResponse.failed(request.getTaskId(), new TaskNotFoundException(request.getTaskId()).getMessage());
+            } else if (!isTerminal(request.getStatus())) {
+                Task update = Task.builder()
+                        .taskId(request.getTaskId())
+                        .status(request.getStatus())
+                        .resultPayload(resultPayloads[i])
+                        .usageMetadata(request.getUsageMetadata())
+                        .updatedAt(LocalDateTime.now(Clock.systemUTC()))
+                        .build();
+                taskStatusWriteBehind.record(update);
+                taskEventBroker.publish(update);
+                results[i] = TaskStatusBatchItemResponse.applied(request.getTaskId(), request.getStatus());
+            }
+        }
+
+        if (terminalTaskIds.isEmpty()) {
+            return List.of(results);
+        }
+
+        Map<String, PreviousState> previousStates = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TaskStatusUpdateRequest request = requests.get(i);
+            if (results[i] != null) {
+                continue;
+            }
+            Task task = tasksById.get(request.getTaskId());
+            previousStates.putIfAbsent(task.getTaskId(), PreviousState.of(task));
+            applyTerminalStatus(task, request, resultPayloads[i]);
+        }
+
+        List<Task> updated = previousStates.keySet().stream().map(tasksById::get).toList();
+        Map<String, String> billingFailures = taskBillingService.applyDebitsIfEligible(updated);
+
+        // Roll a task back to its loaded state when its debit failed, so it is not flushed as completed
+        billingFailures.forEach((taskId, reason) -> previousStates.get(taskId).restore(tasksById.get(taskId)));
+
+        List<Task> applied = updated.stream().filter(task -> !billingFailures.containsKey(task.getTaskId())).toList();
+        taskRepository.saveAll(applied);
+        taskPayloadStore.saveResults(applied);
+        // Results sent with earlier updates, so the responses and events carry them
+        taskPayloadStore.loadResults(applied.stream().filter(task -> task.getResultPayload() == null).toList());
+        applied.forEach(task -> hourlyMetricsService.taskStatusChanged(
+                task.getCreatedAt(), previousStates.get(task.getTaskId()).status(), task.getStatus()));
+        usageRollupService.recordCompletions(applied.stream()
+                .filter(task -> task.getStatus() == TaskStatus.COMPLETED && previousStates.get(task.getTaskId()).status() != TaskStatus.COMPLETED)
+                .toList());
+
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            String taskId = requests.get(i).getTaskId();
+            String failure = billingFailures.get(taskId);
+            results[i] = failure != null
+                    ? TaskStatusBatchItemResponse.failed(taskId, failure)
+                    : TaskStatusBatchItemResponse.applied(taskId, tasksById.get(taskId).getStatus());
+        }
+
+        for (Task task : applied) {
+            taskStatusWriteBehind.discard(task.getTaskId());
+            taskEventBroker.publish(task);
+        }
+
+        telemetryClient.trackTrace("Task status batch applied", SeverityLevel.Information, Map.of(
+                "size", String.valueOf(requests.size()),
+                "terminal", String.valueOf(applied.size()),
+                "billingFailures", String.valueOf(billingFailures.size())));
+        return List.of(results);
+    }
+
+    private void applyTerminalStatus(Task task, TaskStatusUpdateRequest request, String resultPayload) {
+        // Same UTC clock as createdAt, so processingTimeMs does not carry the server's zone offset
+        LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+        task.setStatus(request.getStatus());
+        task.setUpdatedAt(now);
+        task.setUsageMetadata(request.getUsageMetadata());
+
+        if (resultPayload != null) {
+            task.setResultPayload(resultPayload);
+        }
+
+        task.setCompletedAt(now);
+        long processingTimeMs = java.time.Duration.between(task.getCreatedAt(), task.getCompletedAt()).toMillis();
+        task.setProcessingTimeMs(processingTimeMs);
+    }
+
+    /**
+     * Lock the rows of tasks about to be moved to a terminal status until the
+     * transaction ends, so the status read next can't be changed underneath by
+     * a write-behind flush. Keeps hourly_metrics transitions exact.
+     */
+    private void lockTasks(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        String[] ids = taskIds.stream().sorted().toArray(String[]::new);
+        TaskIds.CreatedAtRange range = TaskIds.createdAtRange(taskIds);
+        jdbcTemplate.query("SELECT task_id FROM tasks WHERE task_id = ANY(?::varchar[]) "
+                        + "AND created_at BETWEEN ? AND ? ORDER BY task_id FOR UPDATE",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("varchar", ids));
+                    ps.setObject(2, range.from());
+                    ps.setObject(3, range.to());
+                },
+                (rs, rowNum) -> rs.getString(1));
+    }
+
+    // Cheap check for the buffered path, which never loads the Task entity
+    private void requireTaskExists(String taskId) {
+        TaskIds.CreatedAtRange range = TaskIds.createdAtRange(taskId);
+        if (jdbcTemplate.queryForList("SELECT status FROM tasks WHERE task_id = ? AND created_at BETWEEN ? AND ?",
+                String.class, taskId, range.from(), range.to()).isEmpty()) {
+            throw new TaskNotFoundException(taskId);
+        }
+    }
+
+    private boolean isTerminal(TaskStatus status) {
+        return status == TaskStatus.COMPLETED || status == TaskStatus.FAILED;
+    }
+
+    private record PreviousState(TaskStatus status, String resultPayload, String usageMetadata,
+                                 LocalDateTime updatedAt, LocalDateTime completedAt, Long processingTimeMs) {
+
+        private static PreviousState of(Task task) {
+            return new PreviousState(task.getStatus(), task.getResultPayload(), task.getUsageMetadata(),
+                    task.getUpdatedAt(), task.getCompletedAt(), task.getProcessingTimeMs());
+        }
+
+        private void restore(Task task) {
+            task.setStatus(status);
+            task.setResultPayload(resultPayload);
+            task.setUsageMetadata(usageMetadata);
+            task.setUpdatedAt(updatedAt);
+            task.setCompletedAt(completedAt);
+            task.setProcessingTimeMs(processingTimeMs);
+        }
+    }
+
     @Transactional(readOnly = true)
     public TaskInsightsResponse getTaskInsightsByUser(Integer userId) {
-        long totalTasks = taskRepository.countByApiKey_User_UserId(userId);
-        long completed = taskRepository.countByApiKey_User_UserIdAndStatus(userId, TaskStatus.COMPLETED);
-        long failed = taskRepository.countByApiKey_User_UserIdAndStatus(userId, TaskStatus.FAILED);
-        long processing = taskRepository.countByApiKey_User_UserIdAndStatus(userId, TaskStatus.PROCESSING);
-        long queued = taskRepository.countByApiKey_User_UserIdAndStatus(userId, TaskStatus.QUEUED);
+        Map<TaskStatus, Long> counts = new EnumMap<>(TaskStatus.class);
+        long totalTasks = 0;
+        for (Object[] row : taskRepository.countByUserIdGroupedByStatus(userId)) {
+            long count = ((Number) row[1]).longValue();
+            totalTasks += count;
+            if (row[0] != null) {
+                counts.put((TaskStatus) row[0], count);
+            }
+        }
 
         return TaskInsightsResponse.builder()
                 .totalTasks(totalTasks)
-                .completed(completed)
-                .failed(failed)
-                .processing(processing)
-                .queued(queued)
+                .completed(counts.getOrDefault(TaskStatus.COMPLETED, 0L))
+                .failed(counts.getOrDefault(TaskStatus.FAILED, 0L))
+                .processing(counts.getOrDefault(TaskStatus.PROCESSING, 0L))
+                .queued(counts.getOrDefault(TaskStatus.QUEUED, 0L))
                 .build();
     }
 
@@ -176,18 +472,21 @@ public class TaskService {
                 .build();
     }
 
+    /**
+     * Task counts per creation day and current status, read from hourly_metrics.
+     * Counts are kept per creation hour, so the hour containing {@code from} is
+     * counted whole.
+     */
     @Transactional(readOnly = true)
     public AdminTaskAnalyticsResponse getTaskAnalyticsForAdmin(LocalDateTime from, LocalDateTime to, TaskStatus statusFilter) {
-        List<Object[]> raw = taskRepository.countPerDayAndStatusBetween(from, to, statusFilter);
+        List<TaskStatus> statuses = statusFilter == null ? List.of(TaskStatus.values()) : List.of(statusFilter);
+        List<HourlyMetricType> metrics = statuses.stream().map(HourlyMetricType::tasksIn).toList();
 
         Map<LocalDate, DailyAccumulator> byDate = new HashMap<>();
-        for (Object[] row : raw) {
-            LocalDate date = toLocalDate(row[0]);
-            TaskStatus status = (TaskStatus) row[1];
-            long count = ((Number) row[2]).longValue();
-
-            DailyAccumulator accumulator = byDate.computeIfAbsent(date, ignored -> new DailyAccumulator());
-            accumulator.add(status, count);
+        for (HourlyMetricsService.Bucket bucket : hourlyMetricsService.read(metrics, from, to)) {
+            TaskStatus status = statuses.get(metrics.indexOf(bucket.metric()));
+            DailyAccumulator accumulator = byDate.computeIfAbsent(bucket.hour().toLocalDate(), ignored -> new DailyAccumulator());
+            accumulator.add(status, bucket.value().longValue());
         }
 
         List<DailyTaskAnalyticsResponse> dailyAnalytics = new ArrayList<>();
@@ -236,27 +535,12 @@ public class TaskService {
     public PaginatedTaskListResponse getTasksWithFiltersForAdmin(int page, int size, TaskStatus statusFilter) {
         Pageable pageable = PageRequest.of(page, size);
 
-        Page<Task> taskPage = (statusFilter == null)
-                ? taskRepository.findAll(pageable)
-                : taskRepository.findByStatus(statusFilter, pageable);
-
-        Page<TaskListItemResponse> responsePage = taskPage.map(this::mapToTaskListItem);
+        Page<TaskListItemResponse> responsePage = (statusFilter == null)
+                ? taskRepository.findTaskListItems(pageable)
+                : taskRepository.findTaskListItemsByStatus(statusFilter, pageable);
         return PaginatedTaskListResponse.fromPage(responsePage);
     }
 
-    private LocalDate toLocalDate(Object value) {
-        if (value instanceof LocalDate localDate) {
-            return localDate;
-        }
-        if (value instanceof java.sql.Date sqlDate) {
-            return sqlDate.toLocalDate();
-        }
-        if (value instanceof LocalDateTime localDateTime) {
-            return localDateTime.toLocalDate();
-        }
-        return LocalDate.parse(String.valueOf(value));
-    }
-
     private static final class DailyAccumulator {
         private long total;
         private long queued;
@@ -277,18 +561,5 @@ public class TaskService {
             }
         }
     }
-
-    private TaskListItemResponse mapToTaskListItem(Task task) {
-        return TaskListItemResponse.builder()
-                .taskId(task.getTaskId())
-                .status(task.getStatus())
-                .apiKeyId(task.getApiKey() != null ? task.getApiKey().getApiKeyId() : null)
-                .modelId(task.getModel() != null ? task.getModel().getModelId() : null)
-                .createdAt(task.getCreatedAt())
-                .updatedAt(task.getUpdatedAt())
-                .completedAt(task.getCompletedAt())
-                .processingTimeMs(task.getProcessingTimeMs())
-                .build();
-    }
 }
 
@@ -0,0 +1,14 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fleebug.corerouter.enums.task.TaskStatus;
+
+/**
+ * Status-only view of a task, read without loading the Task entity. Used by
+ * the event stream and long-poll endpoints.
+ */
+public record TaskState(String taskId, Integer apiKeyId, TaskStatus status, String resultPayload) {
+
+    public boolean isTerminal() {
+        return status == TaskStatus.COMPLETED || status == TaskStatus.FAILED;
+    }
+}
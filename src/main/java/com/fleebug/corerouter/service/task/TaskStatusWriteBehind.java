@@ -0,0 +1,214 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleebug.corerouter.entity.task.Task;
+import com.fleebug.corerouter.enums.task.TaskStatus;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
+import com.fleebug.corerouter.util.TaskIds;
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for non-terminal task status updates.
+ *
+ * Updates are coalesced per task in one Redis hash (the latest update wins)
+ * and flushed to Postgres in one statement per flush. Any node may flush: the hash is
+ * renamed to a private key first, so each pending update is written once.
+ * The UPDATE only touches non-terminal rows, so a buffered PROCESSING update
+ * can never overwrite a COMPLETED/FAILED status written synchronously. It
+ * returns each row's previous status so status changes reach hourly_metrics,
+ * and upserts partial results into task_payloads in the same statement.
+ */
+@Component
+@RequiredArgsConstructor
+public class TaskStatusWriteBehind {
+
+    static final String PENDING_KEY = "task:status:pending";
+    private static final String FLUSHING_KEY_PREFIX = "task:status:flushing:";
+
+    // Status and partial result are written by one statement, so both commit or neither does
+    private static final String UPDATE_SQL = """
+            WITH previous AS (
+                SELECT task_id, status FROM tasks
+                WHERE task_id = ANY(?::varchar[]) AND created_at BETWEEN ? AND ?
+                  AND status IN ('QUEUED', 'PROCESSING')
+                FOR UPDATE
+            ), updated AS (
+                UPDATE tasks t
+                SET status = u.status,
+                    usage_metadata = COALESCE(CAST(u.usage_metadata AS jsonb), t.usage_metadata),
+                    updated_at = u.updated_at
+                FROM UNNEST(?::varchar[], ?::varchar[], ?::text[], ?::timestamp[], ?::bytea[], ?::boolean[])
+                         AS u(task_id, status, usage_metadata, updated_at, result_payload, result_compressed)
+                JOIN previous p ON p.task_id = u.task_id
+                WHERE t.task_id = u.task_id AND t.created_at BETWEEN ? AND ?
+                RETURNING t.task_id, p.status AS previous_status, t.status, t.created_at,
+                          u.result_payload, u.result_compressed
+            ), saved AS (
+                INSERT INTO task_payloads (task_id, created_at, result_payload, result_compressed)
+                SELECT task_id, created_at, result_payload, result_compressed FROM updated
+                WHERE result_payload IS NOT NULL
+                ON CONFLICT (task_id, created_at) DO UPDATE
+                SET result_payload = EXCLUDED.result_payload, result_compressed = EXCLUDED.result_compressed
+            )
+            SELECT task_id, previous_status, status, created_at FROM updated
+            """;
+
+    private final TelemetryClient telemetryClient;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final HourlyMetricsService hourlyMetricsService;
+    private final TaskPayloadStore taskPayloadStore;
+
+    /**
+     * Buffer a non-terminal update. Replaces any update for the same task that
+     * has not been flushed yet.
+     */
+    public void record(Task update) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("status", update.getStatus().name());
+        fields.put("updatedAt", update.getUpdatedAt().toString());
+        if (update.getResultPayload() != null) {
+            fields.put("result", update.getResultPayload());
+        }
+        if (update.getUsageMetadata() != null) {
+            fields.put("usageMetadata", update.getUsageMetadata());
+        }
+
+        try {
+            stringRedisTemplate.opsForHash().put(PENDING_KEY, update.getTaskId(), objectMapper.writeValueAsString(fields));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to buffer task status update", e);
+        }
+    }
+
+    /**
+     * Drop a buffered update once the task has been written synchronously.
+     */
+    public void discard(String taskId) {
+        stringRedisTemplate.opsForHash().delete(PENDING_KEY, taskId);
+    }
+
+    @Scheduled(fixedDelayString = "${task.status.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        String flushingKey = FLUSHING_KEY_PREFIX + UUID.randomUUID();
+        try {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(PENDING_KEY))) {
+                return;
+            }
+            stringRedisTemplate.rename(PENDING_KEY, flushingKey);
+        } catch (RuntimeException e) {
+            // Another node took the buffer between the check and the rename
+            return;
+        }
+        // A node dying mid-flush only loses progress updates; the terminal write still lands
+        stringRedisTemplate.expire(flushingKey, 1, TimeUnit.HOURS);
+
+        Map<Object, Object> pending = stringRedisTemplate.opsForHash().entries(flushingKey);
+        List<Object[]> batchArgs = new ArrayList<>(pending.size());
+        for (Map.Entry<Object, Object> entry : pending.entrySet()) {
+            Object[] args = toBatchArgs((String) entry.getKey(), (String) entry.getValue());
+            if (args != null) {
+                batchArgs.add(args);
+            }
+        }
+
+        try {
+            if (!batchArgs.isEmpty()) {
+                write(batchArgs);
+            }
+            stringRedisTemplate.delete(flushingKey);
+            telemetryClient.trackTrace("Flushed buffered task status updates", SeverityLevel.Verbose, Map.of("count", String.valueOf(batchArgs.size())));
+        } catch (RuntimeException e) {
+            telemetryClient.trackException(e, Map.of("event", "TASK_STATUS_FLUSH_FAILED", "count", String.valueOf(batchArgs.size())), null);
+            requeue(pending);
+            stringRedisTemplate.delete(flushingKey);
+        }
+    }
+
+    // One statement for the whole buffer; the previous status is only known once the row is locked
+    private void write(List<Object[]> batchArgs) {
+        int size = batchArgs.size();
+        String[] taskIds = new String[size];
+        String[] statuses = new String[size];
+        String[] usageMetadata = new String[size];
+        Timestamp[] updatedAts = new Timestamp[size];
+        byte[][] results = new byte[size][];
+        Boolean[] resultsCompressed = new Boolean[size];
+        for (int i = 0; i < size; i++) {
+            Object[] args = batchArgs.get(i);
+            statuses[i] = (String) args[0];
+            usageMetadata[i] = (String) args[2];
+            updatedAts[i] = (Timestamp) args[3];
+            taskIds[i] = (String) args[4];
+            if (args[1] != null) {
+                TaskPayloadStore.Encoded result = taskPayloadStore.encode((String) args[1]);
+                results[i] = result.bytes();
+                resultsCompressed[i] = result.compressed();
+            }
+        }
+
+        TaskIds.CreatedAtRange range = TaskIds.createdAtRange(List.of(taskIds));
+
+        // Only rows still QUEUED/PROCESSING once locked get their result, so a result
+        // never lands on a task whose terminal write committed first
+        jdbcTemplate.query(UPDATE_SQL,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("varchar", taskIds));
+                    ps.setObject(2, range.from());
+                    ps.setObject(3, range.to());
+                    ps.setArray(4, ps.getConnection().createArrayOf("varchar", taskIds));
+                    ps.setArray(5, ps.getConnection().createArrayOf("varchar", statuses));
+                    ps.setArray(6, ps.getConnection().createArrayOf("text", usageMetadata));
+                    ps.setArray(7, ps.getConnection().createArrayOf("timestamp", updatedAts));
+                    ps.setArray(8, ps.getConnection().createArrayOf("bytea", results));
+                    ps.setArray(9, ps.getConnection().createArrayOf("boolean", resultsCompressed));
+                    ps.setObject(10, range.from());
+                    ps.setObject(11, range.to());
+                },
+                rs -> {
+                    hourlyMetricsService.taskStatusChanged(
+                            rs.getTimestamp("created_at").toLocalDateTime(),
+                            TaskStatus.valueOf(rs.getString("previous_status")),
+                            TaskStatus.valueOf(rs.getString("status")));
+                });
+    }
+
+    private Object[] toBatchArgs(String taskId, String json) {
+        try {
+            Map<String, String> fields = objectMapper.readValue(json, new TypeReference<Map<String, String>>() {});
+            return new Object[] {
+                    TaskStatus.valueOf(fields.get("status")).name(),
+                    fields.get("result"),
+                    fields.get("usageMetadata"),
+                    Timestamp.valueOf(LocalDateTime.parse(fields.get("updatedAt"))),
+                    taskId
+            };
+        } catch (JsonProcessingException | RuntimeException e) {
+            telemetryClient.trackException(e, Map.of("event", "TASK_STATUS_BUFFER_INVALID", "taskId", taskId), null);
+            return null;
+        }
+    }
+
+    private void requeue(Map<Object, Object> pending) {
+        // putIfAbsent keeps any newer update recorded while this flush was running
+        pending.forEach((taskId, json) -> stringRedisTemplate.opsForHash().putIfAbsent(PENDING_KEY, taskId, json));
+    }
+}
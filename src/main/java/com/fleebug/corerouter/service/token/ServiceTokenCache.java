@@ -0,0 +1,133 @@
+package com.fleebug.corerouter.service.token;
+
+import com.fleebug.corerouter.entity.token.ServiceToken;
+import com.fleebug.corerouter.service.redis.RedisService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microsoft.applicationinsights.TelemetryClient;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Node-local cache of service tokens that already passed BCrypt verification.
+ *
+ * Entries are keyed by an HMAC-SHA256 of the raw token under a random
+ * per-process key, so the raw secret is never held in memory and a cache hit
+ * proves the caller presented exactly the verified token. Revocations are
+ * broadcast on a Redis channel so every node drops the token immediately.
+ */
+@Component
+@RequiredArgsConstructor
+public class ServiceTokenCache implements MessageListener {
+
+    static final String REVOCATION_CHANNEL = "service-token:revoke";
+
+    private final TelemetryClient telemetryClient;
+    private final RedisService redisService;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Value("${service-token.cache.max-size:1000}")
+    private long maxSize;
+
+    @Value("${service-token.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<String, ServiceToken> cache;
+    private ThreadLocal<Mac> hmac;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec keySpec = new SecretKeySpec(key, "HmacSHA256");
+        this.hmac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 not available", e);
+            }
+        });
+
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(REVOCATION_CHANNEL));
+    }
+
+    /**
+     * Cache key for a raw token
+     */
+    public String keyFor(String rawToken) {
+        byte[] digest = hmac.get().doFinal(rawToken.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    public Optional<ServiceToken> get(String cacheKey) {
+        return Optional.ofNullable(cache.getIfPresent(cacheKey));
+    }
+
+    public void put(String cacheKey, ServiceToken token) {
+        cache.put(cacheKey, token);
+    }
+
+    /**
+     * Drop a token on this node and on every other node, after commit when
+     * called inside a transaction.
+     *
+     * @param tokenId Public token identifier
+     */
+    public void revoke(String tokenId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    revokeEverywhere(tokenId);
+                }
+            });
+        } else {
+            revokeEverywhere(tokenId);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        evict(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void revokeEverywhere(String tokenId) {
+        evict(tokenId);
+        try {
+            redisService.publishToChannel(REVOCATION_CHANNEL, tokenId);
+        } catch (RuntimeException e) {
+            // Other nodes fall back to TTL expiry
+            telemetryClient.trackException(e, Map.of("channel", REVOCATION_CHANNEL, "tokenId", tokenId), null);
+        }
+    }
+
+    private void evict(String tokenId) {
+        // Keys are token hashes, so match on the cached value; the cache holds one entry per worker token
+        cache.asMap().values().removeIf(token -> tokenId.equals(token.getTokenId()));
+    }
+}
@@ -3,13 +3,19 @@ package com.fleebug.corerouter.service.token;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
 import java.security.SecureRandom;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -37,6 +43,11 @@ public class ServiceTokenService {
 
     private final ServiceTokenRepository serviceTokenRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ServiceTokenCache serviceTokenCache;
+    private final JdbcTemplate jdbcTemplate;
+
+    // tokenId -> latest authentication time not yet written to the database
+    private final Map<String, LocalDateTime> pendingLastUsed = new ConcurrentHashMap<>();
 
     /**
      * Create a new service token. The raw token is returned ONCE — it cannot be
@@ -79,14 +90,22 @@ public class ServiceTokenService {
     /**
      * Authenticate an incoming request by raw token.
      * Token format: svc_<tokenId>.<secret>
-     * Looks up by tokenId (O(1) DB hit), then verifies the secret against the hash.
+     * Tokens verified within the cache TTL are served from {@link ServiceTokenCache};
+     * otherwise looks up by tokenId (O(1) DB hit), then verifies the secret against the hash.
+     * Not transactional: a cache hit must not take a DB connection.
      */
-    @Transactional
     public ServiceToken authenticate(String rawToken) {
         if (rawToken == null || !rawToken.startsWith(TOKEN_PREFIX)) {
             throw new InvalidServiceTokenException("Malformed service token");
         }
 
+        String cacheKey = serviceTokenCache.keyFor(rawToken);
+        Optional<ServiceToken> cached = serviceTokenCache.get(cacheKey);
+        if (cached.isPresent()) {
+            recordUse(cached.get());
+            return cached.get();
+        }
+
         // Strip prefix: "abc123.XYZsecret"
         String withoutPrefix = rawToken.substring(TOKEN_PREFIX.length());
         int dotIndex = withoutPrefix.indexOf(TOKEN_SEPARATOR);
@@ -108,8 +127,8 @@ public class ServiceTokenService {
             throw new InvalidServiceTokenException();
         }
 
-        token.setLastUsedAt(LocalDateTime.now());
-        serviceTokenRepository.save(token);
+        serviceTokenCache.put(cacheKey, token);
+        recordUse(token);
         
         Map<String, String> properties = new HashMap<>();
         properties.put("name", token.getName());
@@ -119,6 +138,38 @@ public class ServiceTokenService {
         return token;
     }
 
+    /**
+     * Write buffered lastUsedAt timestamps in one JDBC batch, so each token's
+     * row is updated at most once per flush interval.
+     */
+    @Scheduled(fixedDelayString = "${service-token.last-used.flush-interval-ms:60000}")
+    public void flushLastUsed() {
+        if (pendingLastUsed.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (String tokenId : List.copyOf(pendingLastUsed.keySet())) {
+            LocalDateTime lastUsedAt = pendingLastUsed.remove(tokenId);
+            if (lastUsedAt != null) {
+                batchArgs.add(new Object[] { Timestamp.valueOf(lastUsedAt), tokenId });
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate("UPDATE service_tokens SET last_used_at = ? WHERE token_id = ?", batchArgs);
+        } catch (RuntimeException e) {
+            // lastUsedAt is informational; the next authentication records a fresh value
+            telemetryClient.trackException(e, Collections.singletonMap("event", "SERVICE_TOKEN_LAST_USED_FLUSH_FAILED"), null);
+        }
+    }
+
+    private void recordUse(ServiceToken token) {
+        LocalDateTime now = LocalDateTime.now();
+        token.setLastUsedAt(now);
+        pendingLastUsed.put(token.getTokenId(), now);
+    }
+
     /**
      * Get a service token by tokenId.
      */
@@ -147,6 +198,7 @@ public class ServiceTokenService {
 
         token.setActive(false);
         serviceTokenRepository.save(token);
+        serviceTokenCache.revoke(token.getTokenId());
         telemetryClient.trackTrace("Service token revoked", SeverityLevel.Information, Collections.singletonMap("name", name));
     }
 
@@ -158,6 +210,7 @@ public class ServiceTokenService {
         ServiceToken token = getByTokenId(tokenId);
         token.setActive(false);
         serviceTokenRepository.save(token);
+        serviceTokenCache.revoke(tokenId);
         telemetryClient.trackTrace("Service token revoked", SeverityLevel.Information, Collections.singletonMap("tokenId", tokenId));
     }
 
@@ -211,6 +264,7 @@ public class ServiceTokenService {
 
         token.setActive(false);
         serviceTokenRepository.save(token);
+        serviceTokenCache.revoke(token.getTokenId());
         telemetryClient.trackTrace("Service token soft deleted", SeverityLevel.Information, Collections.singletonMap("name", name));
     }
 
@@ -222,6 +276,7 @@ public class ServiceTokenService {
         ServiceToken token = getByTokenId(tokenId);
         token.setActive(false);
         serviceTokenRepository.save(token);
+        serviceTokenCache.revoke(tokenId);
         telemetryClient.trackTrace("Service token soft deleted", SeverityLevel.Information, Collections.singletonMap("tokenId", tokenId));
     }
 
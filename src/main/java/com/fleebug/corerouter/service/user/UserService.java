@@ -33,6 +33,7 @@ import com.fleebug.corerouter.exception.user.UserAlreadyExistsException;
 import com.fleebug.corerouter.exception.user.UserNotFoundException;
 import com.fleebug.corerouter.repository.token.UserTokenRepository;
 import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.security.service.UserDenylistService;
 import com.fleebug.corerouter.service.activity.ActivityLogService;
 import com.fleebug.corerouter.service.otp.OtpService;
 import com.fleebug.corerouter.service.token.TokenService;
@@ -58,6 +59,7 @@ public class UserService {
     private final UserTokenRepository userTokenRepository;
     private final ActivityLogService activityLogService;
     private final HttpClientUtil httpClientUtil;
+    private final UserDenylistService userDenylistService;
 
     /**
      * Step 1: Request OTP for user registration
@@ -533,6 +535,7 @@ public class UserService {
         user.setStatus(UserStatus.DELETED);
         user.setEmailSubscribed(false);
         userRepository.save(user);
+        userDenylistService.deny(user.getUserId());
         otpService.publishUserDeletedNotification(user.getEmail(), user.getFullName(), user.getUserId(), "self-service delete");
 
         // Revoke all active tokens to force logout from all sessions.
@@ -689,6 +692,8 @@ public class UserService {
 
         user.setRole(newRole);
         User saved = userRepository.save(user);
+        // Outstanding tokens still carry the old role claim
+        userDenylistService.requireReload(saved.getUserId());
 
         return mapToProfileResponse(saved);
     }
@@ -714,6 +719,12 @@ public class UserService {
         }
 
         User saved = userRepository.save(user);
+        if (newStatus == UserStatus.ACTIVE) {
+            // Not cleared: a role change made while the user was disabled must still force a reload
+            userDenylistService.requireReload(saved.getUserId());
+        } else {
+            userDenylistService.deny(saved.getUserId());
+        }
         if (newStatus == UserStatus.DELETED) {
             otpService.publishUserDeletedNotification(saved.getEmail(), saved.getFullName(), saved.getUserId(), "admin");
         }
@@ -2,7 +2,14 @@ package com.fleebug.corerouter.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.core.type.TypeReference;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
 import okhttp3.FormBody;
 import okhttp3.HttpUrl;
 import okhttp3.MediaType;
@@ -10,20 +17,108 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Shared OkHttp access for outbound provider calls.
+ *
+ * One long-lived client is kept per upstream, each with its own connection
+ * pool, all sharing a single dispatcher. Per-call timeouts are applied with
+ * {@code newBuilder()} so they never create new pools or thread pools.
+ */
 @Component
 @RequiredArgsConstructor
 public class HttpClientUtil {
 
     private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
 
+    public enum Upstream {
+        OCR_SPACE,
+        REV_AI,
+        APP_INSIGHTS,
+        VLLM,
+        DEFAULT
+    }
+
     private final ObjectMapper objectMapper;
 
+    @Value("${http.client.pool.max-idle-connections:5}")
+    private int maxIdleConnections;
+
+    @Value("${http.client.pool.keep-alive-seconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${vllm.host:http://localhost:8000}")
+    private String vllmHost;
+
+    private final Map<Upstream, OkHttpClient> baseClients = new EnumMap<>(Upstream.class);
+    private final Map<Upstream, PoolMetrics> poolMetrics = new EnumMap<>(Upstream.class);
+    private final Map<String, OkHttpClient> timeoutClients = new ConcurrentHashMap<>();
+
+    private Dispatcher dispatcher;
+    private String vllmHostName;
+
+    @PostConstruct
+    public void init() {
+        // Calls are synchronous execute(), which the dispatcher's request limits don't apply to
+        dispatcher = new Dispatcher();
+
+        OkHttpClient root = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .build();
+
+        for (Upstream upstream : Upstream.values()) {
+            PoolMetrics metrics = new PoolMetrics();
+            poolMetrics.put(upstream, metrics);
+            baseClients.put(upstream, root.newBuilder()
+                    .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+                    .eventListener(metrics)
+                    .build());
+        }
+
+        HttpUrl parsedVllmHost = HttpUrl.parse(vllmHost);
+        vllmHostName = parsedVllmHost != null ? parsedVllmHost.host() : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.executorService().shutdown();
+        baseClients.values().forEach(client -> client.connectionPool().evictAll());
+    }
+
+    /**
+     * Snapshot of every upstream pool: open connections, idle connections and
+     * the share of calls that reused a pooled connection.
+     */
+    public Map<String, Object> poolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        baseClients.forEach((upstream, client) -> {
+            ConnectionPool pool = client.connectionPool();
+            PoolMetrics metrics = poolMetrics.get(upstream);
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("connectionCount", pool.connectionCount());
+            entry.put("idleConnectionCount", pool.idleConnectionCount());
+            entry.put("connectionsAcquired", metrics.acquired.sum());
+            entry.put("newConnections", metrics.connects.sum());
+            entry.put("hitRate", metrics.hitRate());
+            stats.put(upstream.name(), entry);
+        });
+        return stats;
+    }
+
     public String get(String url) {
         return get(url, Map.of(), 5000, 5000);
     }
@@ -32,7 +127,7 @@ public class HttpClientUtil {
         Request.Builder requestBuilder = new Request.Builder().url(url).get();
         applyHeaders(requestBuilder, headers);
 
-        try (Response response = client(connectTimeoutMs, readTimeoutMs)
+        try (Response response = client(url, connectTimeoutMs, readTimeoutMs)
                 .newCall(requestBuilder.build())
                 .execute()) {
             return handleResponse(response, url);
@@ -67,7 +162,7 @@ public class HttpClientUtil {
             Request.Builder requestBuilder = new Request.Builder().url(url).post(requestBody);
             applyHeaders(requestBuilder, headers);
 
-            try (Response response = client(connectTimeoutMs, readTimeoutMs)
+            try (Response response = client(url, connectTimeoutMs, readTimeoutMs)
                     .newCall(requestBuilder.build())
                     .execute()) {
                 return handleResponse(response, url);
@@ -103,7 +198,7 @@ public class HttpClientUtil {
                     .post(formBuilder.build());
             applyHeaders(requestBuilder, headers);
 
-            try (Response response = client(connectTimeoutMs, readTimeoutMs)
+            try (Response response = client(url, connectTimeoutMs, readTimeoutMs)
                     .newCall(requestBuilder.build())
                     .execute()) {
                 String responseBody = handleResponse(response, url);
@@ -114,11 +209,35 @@ public class HttpClientUtil {
         }
     }
 
-    private OkHttpClient client(int connectTimeoutMs, int readTimeoutMs) {
-        return new OkHttpClient.Builder()
-                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
-                .readTimeout(Duration.ofMillis(readTimeoutMs))
-                .build();
+    private OkHttpClient client(String url, int connectTimeoutMs, int readTimeoutMs) {
+        Upstream upstream = resolveUpstream(url);
+        return timeoutClients.computeIfAbsent(upstream + ":" + connectTimeoutMs + ":" + readTimeoutMs,
+                ignored -> baseClients.get(upstream).newBuilder()
+                        .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                        .readTimeout(Duration.ofMillis(readTimeoutMs))
+                        .build());
+    }
+
+    private Upstream resolveUpstream(String url) {
+        HttpUrl parsed = HttpUrl.parse(url);
+        if (parsed == null) {
+            return Upstream.DEFAULT;
+        }
+
+        String host = parsed.host();
+        if (host.endsWith("ocr.space")) {
+            return Upstream.OCR_SPACE;
+        }
+        if (host.endsWith("rev.ai")) {
+            return Upstream.REV_AI;
+        }
+        if (host.endsWith("applicationinsights.io")) {
+            return Upstream.APP_INSIGHTS;
+        }
+        if (host.equals(vllmHostName)) {
+            return Upstream.VLLM;
+        }
+        return Upstream.DEFAULT;
     }
 
     private void applyHeaders(Request.Builder builder, Map<String, String> headers) {
@@ -135,4 +254,30 @@ public class HttpClientUtil {
         }
         return body;
     }
+
+    /**
+     * Counts pooled acquisitions versus fresh TCP connects for one upstream.
+     */
+    private static final class PoolMetrics extends EventListener {
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder connects = new LongAdder();
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connects.increment();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            acquired.increment();
+        }
+
+        private double hitRate() {
+            long acquiredCount = acquired.sum();
+            if (acquiredCount == 0) {
+                return 0.0;
+            }
+            return Math.max(0.0, (double) (acquiredCount - connects.sum()) / acquiredCount);
+        }
+    }
 }
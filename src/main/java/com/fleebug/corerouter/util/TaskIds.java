@@ -0,0 +1,81 @@
+package com.fleebug.corerouter.util;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Task ids and the created_at range they imply.
+ *
+ * New task ids are UUIDv7: the first 48 bits hold the creation time in epoch
+ * milliseconds, taken from the same clock reading as tasks.created_at. Lookups
+ * by id add the derived created_at range to their predicate, so Postgres only
+ * probes the monthly partition the task lives in. Ids issued before this
+ * scheme are random UUIDv4 and map to an unbounded range, which still probes
+ * every partition.
+ */
+public final class TaskIds {
+
+    // Only guards against rounding; the id and created_at come from one Instant
+    private static final Duration SLACK = Duration.ofMinutes(1);
+
+    private static final CreatedAtRange UNBOUNDED = new CreatedAtRange(
+            LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.of(9999, 12, 31, 0, 0));
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private TaskIds() {
+    }
+
+    /**
+     * Inclusive bounds on a task's created_at (UTC).
+     */
+    public record CreatedAtRange(LocalDateTime from, LocalDateTime to) {
+
+        public CreatedAtRange union(CreatedAtRange other) {
+            return new CreatedAtRange(
+                    from.isBefore(other.from) ? from : other.from,
+                    to.isAfter(other.to) ? to : other.to);
+        }
+    }
+
+    /**
+     * A new UUIDv7 task id for a task created at the given instant.
+     */
+    public static String newId(Instant createdAt) {
+        long mostSigBits = (createdAt.toEpochMilli() << 16) | 0x7000L | (RANDOM.nextInt() & 0x0FFFL);
+        long leastSigBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+
+    public static CreatedAtRange createdAtRange(String taskId) {
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(taskId);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return UNBOUNDED;
+        }
+        if (uuid.version() != 7) {
+            return UNBOUNDED;
+        }
+        LocalDateTime createdAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16), ZoneOffset.UTC);
+        return new CreatedAtRange(createdAt.minus(SLACK), createdAt.plus(SLACK));
+    }
+
+    /**
+     * Smallest range covering every given task; unbounded when any id predates UUIDv7.
+     */
+    public static CreatedAtRange createdAtRange(Collection<String> taskIds) {
+        CreatedAtRange range = null;
+        for (String taskId : taskIds) {
+            CreatedAtRange next = createdAtRange(taskId);
+            range = range == null ? next : range.union(next);
+        }
+        return range == null ? UNBOUNDED : range;
+    }
+}
@@ -0,0 +1,55 @@
+-- Tables and columns added after the ddl-auto baseline: the task stream
+-- outbox, the billing ledger, the daily usage rollup, hourly metrics and
+-- tasks.chargeable_cost. Databases baselined at V1 still run this script, and
+-- every statement is idempotent so databases where ddl-auto=update already
+-- created some of them pass through unchanged.
+
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS chargeable_cost numeric(18, 10);
+
+CREATE TABLE IF NOT EXISTS task_outbox (
+    outbox_id  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    task_id    varchar(64)  NOT NULL,
+    stream_key varchar(100) NOT NULL,
+    payload    text         NOT NULL,
+    created_at timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS usage_daily_rollup (
+    rollup_id       bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id         integer         NOT NULL,
+    api_key_id      integer         NOT NULL,
+    model_id        integer         NOT NULL,
+    usage_unit_type varchar(30)     NOT NULL,
+    usage_date      date            NOT NULL,
+    quantity        numeric(24, 4)  NOT NULL,
+    cost            numeric(24, 10) NOT NULL,
+    charged_cost    numeric(18, 2)  NOT NULL,
+    completed_tasks bigint          NOT NULL,
+    CONSTRAINT uk_usage_rollup_key UNIQUE (user_id, api_key_id, model_id, usage_unit_type, usage_date)
+);
+CREATE INDEX IF NOT EXISTS idx_usage_rollup_user_date ON usage_daily_rollup (user_id, usage_date);
+
+CREATE TABLE IF NOT EXISTS billing_ledger (
+    ledger_id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id            integer        NOT NULL,
+    task_id            varchar(64),
+    transaction_ref    varchar(100),
+    entry_type         varchar(32)    NOT NULL,
+    amount             numeric(12, 2) NOT NULL,
+    task_charged_total numeric(12, 2),
+    balance_after      numeric(12, 2),
+    created_at         timestamp(6)   NOT NULL,
+    settled_at         timestamp(6),
+    CONSTRAINT uk_ledger_task_charged_total UNIQUE (task_id, task_charged_total),
+    CONSTRAINT uk_ledger_transaction_ref UNIQUE (transaction_ref)
+);
+CREATE INDEX IF NOT EXISTS idx_ledger_user_created ON billing_ledger (user_id, created_at);
+CREATE INDEX IF NOT EXISTS idx_ledger_unsettled ON billing_ledger (settled_at, ledger_id);
+
+CREATE TABLE IF NOT EXISTS hourly_metrics (
+    metric_id    bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    bucket_start timestamp(6)    NOT NULL,
+    metric       varchar(30)     NOT NULL,
+    metric_value numeric(24, 10) NOT NULL,
+    CONSTRAINT uk_hourly_metrics_key UNIQUE (bucket_start, metric)
+);
@@ -0,0 +1,200 @@
+-- Schema as hibernate.ddl-auto=update generated it before Flyway took over.
+-- Databases that already have it are baselined at this version and skip this
+-- script, so it must not gain anything newer: later objects go in versioned
+-- migrations that run everywhere (V1_1 onwards).
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id          integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    full_name        varchar(100)   NOT NULL,
+    email            varchar(100)   NOT NULL UNIQUE,
+    profile_image    varchar(255),
+    balance          numeric(10, 2) NOT NULL,
+    role             varchar(20)    NOT NULL,
+    status           varchar(20)    NOT NULL,
+    last_login       timestamp(6),
+    password         varchar(255),
+    email_subscribed boolean        NOT NULL,
+    created_at       timestamp(6)   NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS user_status_audit (
+    audit_id   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    integer      NOT NULL REFERENCES users (user_id),
+    old_status varchar(20)  NOT NULL,
+    new_status varchar(20)  NOT NULL,
+    reason     text,
+    changed_at timestamp(6) NOT NULL,
+    changed_by varchar(50)
+);
+
+CREATE TABLE IF NOT EXISTS user_tokens (
+    token_id    bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     integer      NOT NULL REFERENCES users (user_id),
+    token_type  varchar(20)  NOT NULL,
+    token_value varchar(500) NOT NULL,
+    provider    varchar(50)  NOT NULL,
+    scopes      varchar(500),
+    issued_at   timestamp(6) NOT NULL,
+    expires_at  timestamp(6) NOT NULL,
+    revoked     boolean      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS service_tokens (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    token_id     varchar(32)  NOT NULL UNIQUE,
+    name         varchar(255) NOT NULL UNIQUE,
+    token_hash   varchar(255) NOT NULL,
+    role         varchar(255) NOT NULL,
+    active       boolean      NOT NULL,
+    created_at   timestamp(6),
+    last_used_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS activity_log (
+    activity_id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     integer      NOT NULL REFERENCES users (user_id),
+    action      varchar(100) NOT NULL,
+    details     text,
+    ip_address  varchar(45)  NOT NULL,
+    created_at  timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS providers (
+    provider_id      integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    provider_name    varchar(255) NOT NULL UNIQUE,
+    provider_country varchar(255) NOT NULL,
+    company_name     varchar(255) NOT NULL,
+    logo             text,
+    status           varchar(255) NOT NULL,
+    created_at       timestamp(6) NOT NULL,
+    updated_at       timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS models (
+    model_id     integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    fullname     varchar(255) NOT NULL UNIQUE,
+    username     varchar(255) NOT NULL UNIQUE,
+    provider_id  integer      NOT NULL REFERENCES providers (provider_id),
+    type         varchar(255) NOT NULL,
+    status       varchar(255) NOT NULL,
+    endpoint_url varchar(255) NOT NULL,
+    description  varchar(255),
+    metadata     jsonb,
+    created_at   timestamp(6),
+    updated_at   timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS model_status_audit (
+    audit_id   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    model_id   integer      NOT NULL REFERENCES models (model_id),
+    old_status varchar(20)  NOT NULL,
+    new_status varchar(20)  NOT NULL,
+    reason     text,
+    changed_at timestamp(6) NOT NULL,
+    changed_by varchar(50)
+);
+
+CREATE TABLE IF NOT EXISTS api_documentation (
+    doc_id     integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title      varchar(255) NOT NULL,
+    content    text         NOT NULL,
+    model_id   integer      NOT NULL REFERENCES models (model_id),
+    active     boolean      NOT NULL,
+    created_at timestamp(6) NOT NULL,
+    updated_at timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS billing_configs (
+    billing_id        integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    model_id          integer      NOT NULL REFERENCES models (model_id),
+    pricing_type      varchar(30)  NOT NULL,
+    pricing_metadata  jsonb,
+    charge_multiplier numeric(8, 4) DEFAULT 1.0000 NOT NULL,
+    active            boolean DEFAULT true NOT NULL,
+    created_at        timestamp(6),
+    updated_at        timestamp(6),
+    CONSTRAINT uk_billing_config_model UNIQUE (model_id)
+);
+
+CREATE TABLE IF NOT EXISTS api_keys (
+    api_key_id    integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id       integer      NOT NULL REFERENCES users (user_id),
+    key           varchar(255) NOT NULL UNIQUE,
+    description   varchar(255),
+    daily_limit   integer      NOT NULL,
+    monthly_limit integer      NOT NULL,
+    status        varchar(20)  NOT NULL,
+    created_at    timestamp(6) NOT NULL,
+    last_used_at  timestamp(6)
+);
+CREATE INDEX IF NOT EXISTS idx_api_key_key ON api_keys (key);
+
+CREATE TABLE IF NOT EXISTS api_key_status_audit (
+    audit_id   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    api_key_id integer      NOT NULL REFERENCES api_keys (api_key_id),
+    old_status varchar(20)  NOT NULL,
+    new_status varchar(20)  NOT NULL,
+    reason     text,
+    changed_at timestamp(6) NOT NULL,
+    changed_by varchar(50)
+);
+
+CREATE TABLE IF NOT EXISTS tasks (
+    task_id            varchar(255) PRIMARY KEY,
+    api_key_id         integer NOT NULL REFERENCES api_keys (api_key_id),
+    model_id           integer NOT NULL REFERENCES models (model_id),
+    request_payload    text    NOT NULL,
+    result_payload     text,
+    status             varchar(255),
+    total_cost         numeric(12, 6),
+    charged_cost       numeric(12, 2),
+    remaining_balance  numeric(10, 2),
+    processing_time_ms bigint,
+    usage_metadata     jsonb,
+    created_at         timestamp(6),
+    updated_at         timestamp(6),
+    completed_at       timestamp(6)
+);
+
+CREATE TABLE IF NOT EXISTS transactions (
+    transaction_id       integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id              integer        NOT NULL REFERENCES users (user_id),
+    related_request_id   varchar(255) REFERENCES tasks (task_id),
+    amount               numeric(10, 2) NOT NULL,
+    esewa_transaction_id varchar(100)   NOT NULL,
+    type                 varchar(20)    NOT NULL,
+    product_code         varchar(50),
+    status               varchar(20)    NOT NULL,
+    completed_at         timestamp(6),
+    created_at           timestamp(6)   NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS usage_records (
+    usage_id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    task_id           varchar(255)    NOT NULL REFERENCES tasks (task_id),
+    api_key_id        integer         NOT NULL REFERENCES api_keys (api_key_id),
+    model_id          integer         NOT NULL REFERENCES models (model_id),
+    usage_unit_type   varchar(30)     NOT NULL,
+    quantity          numeric(18, 4)  NOT NULL,
+    rate_per_unit     numeric(18, 10) NOT NULL,
+    cost              numeric(18, 10) NOT NULL,
+    billing_config_id integer REFERENCES billing_configs (billing_id),
+    recorded_at       timestamp(6)    NOT NULL,
+    CONSTRAINT uk_usage_task_unit UNIQUE (task_id, usage_unit_type)
+);
+CREATE INDEX IF NOT EXISTS idx_usage_task_id ON usage_records (task_id);
+CREATE INDEX IF NOT EXISTS idx_usage_api_key_id ON usage_records (api_key_id);
+CREATE INDEX IF NOT EXISTS idx_usage_model_id ON usage_records (model_id);
+CREATE INDEX IF NOT EXISTS idx_usage_recorded_at ON usage_records (recorded_at);
+CREATE INDEX IF NOT EXISTS idx_usage_unit_type ON usage_records (usage_unit_type);
+CREATE INDEX IF NOT EXISTS idx_usage_billing_lookup ON usage_records (api_key_id, recorded_at, usage_unit_type);
+
+CREATE TABLE IF NOT EXISTS worker_instances (
+    instance_id    varchar(255) PRIMARY KEY,
+    service_name   varchar(255) NOT NULL,
+    status         varchar(255) NOT NULL,
+    reason         varchar(255),
+    started_at     timestamp(6) NOT NULL,
+    last_heartbeat timestamp(6) NOT NULL,
+    down_at        timestamp(6)
+);
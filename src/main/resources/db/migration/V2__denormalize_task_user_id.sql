@@ -0,0 +1,25 @@
+-- Copy the owning user of each api key onto tasks and usage_records so the
+-- per-user dashboard queries filter on an indexed column instead of joining
+-- through api_keys. Api keys never change owner, so the copy cannot go stale.
+
+ALTER TABLE tasks ADD COLUMN IF NOT EXISTS user_id integer;
+
+UPDATE tasks t
+SET user_id = k.user_id
+FROM api_keys k
+WHERE k.api_key_id = t.api_key_id
+  AND t.user_id IS NULL;
+
+ALTER TABLE tasks ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE tasks ADD CONSTRAINT fk_tasks_user FOREIGN KEY (user_id) REFERENCES users (user_id);
+
+ALTER TABLE usage_records ADD COLUMN IF NOT EXISTS user_id integer;
+
+UPDATE usage_records u
+SET user_id = k.user_id
+FROM api_keys k
+WHERE k.api_key_id = u.api_key_id
+  AND u.user_id IS NULL;
+
+ALTER TABLE usage_records ALTER COLUMN user_id SET NOT NULL;
+ALTER TABLE usage_records ADD CONSTRAINT fk_usage_records_user FOREIGN KEY (user_id) REFERENCES users (user_id);
@@ -0,0 +1,45 @@
+-- Indexes for the task and usage_records lookups that remain on the request
+-- path. Built CONCURRENTLY so writes to tasks keep flowing; Flyway runs this
+-- script outside a transaction.
+
+-- TaskRepository.countByUserIdAndCreatedAtBetween (monthly quota), countByUserId
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_user_created
+    ON tasks (user_id, created_at);
+
+-- TaskRepository.countByUserIdGroupedByStatus and the per-user completed-task
+-- range queries; status before completed_at keeps the range scan contiguous
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_user_status_completed
+    ON tasks (user_id, status, completed_at);
+
+-- Admin earnings and recent-completions: status = ? AND completed_at range / ORDER BY completed_at DESC
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_status_completed
+    ON tasks (status, completed_at);
+
+-- Active users today (created_at >= ?) answered from the index alone
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_created_at
+    ON tasks (created_at) INCLUDE (user_id);
+
+-- Tasks still in flight are a small slice of the table that stays small as it
+-- grows; admin countByStatus/findByStatus for QUEUED and PROCESSING read only it
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_in_flight
+    ON tasks (created_at) WHERE status IN ('QUEUED', 'PROCESSING');
+
+-- tasks.api_key_id and tasks.model_id are foreign keys without an index; deleting
+-- a key or model otherwise scans tasks
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_api_key
+    ON tasks (api_key_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tasks_model
+    ON tasks (model_id);
+
+-- UsageRecordRepository per-user aggregates: user_id = ? AND recorded_at range
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_usage_user_recorded
+    ON usage_records (user_id, recorded_at);
+
+-- Reconciler scans recent usage (recorded_at > ?) and groups by task_id
+-- (TaskCostReconciler); covering task_id avoids heap fetches
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_usage_recorded_task
+    ON usage_records (recorded_at) INCLUDE (task_id);
+
+-- Superseded: idx_usage_billing_lookup leads with api_key_id
+DROP INDEX CONCURRENTLY IF EXISTS idx_usage_api_key_id;
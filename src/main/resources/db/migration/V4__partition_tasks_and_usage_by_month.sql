@@ -0,0 +1,120 @@
+-- Range-partition tasks by created_at and usage_records by recorded_at, one
+-- partition per calendar month named <table>_pYYYYMM. TaskPartitionMaintenance
+-- creates partitions ahead of time and detaches expired ones.
+--
+-- Both tables are copied into their partitioned replacements in this
+-- transaction, which locks them for the duration; run it in a maintenance window.
+--
+-- Constraints that change:
+--   * Primary keys gain the partition key: tasks (task_id, created_at),
+--     usage_records (usage_id, recorded_at).
+--   * tasks.task_id is no longer unique on its own, so the foreign keys
+--     usage_records.task_id and transactions.related_request_id are dropped.
+--   * uk_usage_task_unit becomes a unique (task_id, usage_unit_type) index on
+--     each partition. Duplicate usage is still rejected within a month; a
+--     duplicate can only slip in if two concurrent submissions straddle a
+--     month boundary, and the pre-insert check in UsageService catches every
+--     non-concurrent retry.
+--
+-- Lookups by task_id alone cannot prune and probe one index per partition.
+-- Task ids are UUIDv7 from here on, and TaskIds derives a created_at range
+-- from them that the id lookups add to their predicates. Tasks created
+-- before this migration keep UUIDv4 ids, so lookups of those still probe
+-- every partition until they are detached.
+
+CREATE OR REPLACE FUNCTION create_month_partition(parent text, month date)
+RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    month_start date := date_trunc('month', month)::date;
+    partition_name text := format('%s_p%s', parent, to_char(month_start, 'YYYYMM'));
+BEGIN
+    -- Serialises nodes creating the same month at startup
+    PERFORM pg_advisory_xact_lock(hashtext('create_month_partition'));
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, parent, month_start, (month_start + interval '1 month')::date);
+    IF parent = 'usage_records' THEN
+        EXECUTE format('CREATE UNIQUE INDEX %I ON %I (task_id, usage_unit_type)',
+                       partition_name || '_task_unit_key', partition_name);
+    END IF;
+    RETURN true;
+END;
+$$;
+
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN SELECT conrelid::regclass AS tbl, conname FROM pg_constraint
+              WHERE contype = 'f' AND confrelid = 'tasks'::regclass LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.tbl, fk.conname);
+    END LOOP;
+END;
+$$;
+
+-- tasks
+
+UPDATE tasks SET created_at = COALESCE(updated_at, completed_at, now()) WHERE created_at IS NULL;
+
+ALTER TABLE tasks RENAME TO tasks_unpartitioned;
+
+CREATE TABLE tasks (LIKE tasks_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
+ALTER TABLE tasks ALTER COLUMN created_at SET NOT NULL;
+
+SELECT create_month_partition('tasks', month::date)
+FROM generate_series(
+        date_trunc('month', COALESCE((SELECT min(created_at) FROM tasks_unpartitioned), now())),
+        date_trunc('month', now()) + interval '3 months',
+        interval '1 month') AS month;
+
+INSERT INTO tasks SELECT * FROM tasks_unpartitioned;
+DROP TABLE tasks_unpartitioned;
+
+ALTER TABLE tasks ADD CONSTRAINT tasks_pkey PRIMARY KEY (task_id, created_at);
+ALTER TABLE tasks ADD CONSTRAINT fk_tasks_api_key FOREIGN KEY (api_key_id) REFERENCES api_keys (api_key_id);
+ALTER TABLE tasks ADD CONSTRAINT fk_tasks_model FOREIGN KEY (model_id) REFERENCES models (model_id);
+ALTER TABLE tasks ADD CONSTRAINT fk_tasks_user FOREIGN KEY (user_id) REFERENCES users (user_id);
+
+CREATE INDEX idx_tasks_user_created ON tasks (user_id, created_at);
+CREATE INDEX idx_tasks_user_status_completed ON tasks (user_id, status, completed_at);
+CREATE INDEX idx_tasks_status_completed ON tasks (status, completed_at);
+CREATE INDEX idx_tasks_created_at ON tasks (created_at) INCLUDE (user_id);
+CREATE INDEX idx_tasks_in_flight ON tasks (created_at) WHERE status IN ('QUEUED', 'PROCESSING');
+CREATE INDEX idx_tasks_api_key ON tasks (api_key_id);
+CREATE INDEX idx_tasks_model ON tasks (model_id);
+
+-- usage_records
+
+ALTER TABLE usage_records RENAME TO usage_records_unpartitioned;
+
+CREATE TABLE usage_records (LIKE usage_records_unpartitioned INCLUDING DEFAULTS INCLUDING IDENTITY)
+    PARTITION BY RANGE (recorded_at);
+
+SELECT create_month_partition('usage_records', month::date)
+FROM generate_series(
+        date_trunc('month', COALESCE((SELECT min(recorded_at) FROM usage_records_unpartitioned), now())),
+        date_trunc('month', now()) + interval '3 months',
+        interval '1 month') AS month;
+
+INSERT INTO usage_records SELECT * FROM usage_records_unpartitioned;
+DROP TABLE usage_records_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('usage_records', 'usage_id'), COALESCE(max(usage_id), 0) + 1, false)
+FROM usage_records;
+
+ALTER TABLE usage_records ADD CONSTRAINT usage_records_pkey PRIMARY KEY (usage_id, recorded_at);
+ALTER TABLE usage_records ADD CONSTRAINT fk_usage_records_api_key FOREIGN KEY (api_key_id) REFERENCES api_keys (api_key_id);
+ALTER TABLE usage_records ADD CONSTRAINT fk_usage_records_model FOREIGN KEY (model_id) REFERENCES models (model_id);
+ALTER TABLE usage_records ADD CONSTRAINT fk_usage_records_billing_config FOREIGN KEY (billing_config_id) REFERENCES billing_configs (billing_id);
+ALTER TABLE usage_records ADD CONSTRAINT fk_usage_records_user FOREIGN KEY (user_id) REFERENCES users (user_id);
+
+-- idx_usage_recorded_at is covered by idx_usage_recorded_task
+CREATE INDEX idx_usage_task_id ON usage_records (task_id);
+CREATE INDEX idx_usage_model_id ON usage_records (model_id);
+CREATE INDEX idx_usage_unit_type ON usage_records (usage_unit_type);
+CREATE INDEX idx_usage_billing_lookup ON usage_records (api_key_id, recorded_at, usage_unit_type);
+CREATE INDEX idx_usage_user_recorded ON usage_records (user_id, recorded_at);
+CREATE INDEX idx_usage_recorded_task ON usage_records (recorded_at) INCLUDE (task_id);
@@ -0,0 +1,31 @@
+-- Move request and result payloads out of tasks into task_payloads, so list,
+-- count and billing queries over tasks no longer read multi-KB transcripts.
+-- task_payloads is partitioned by the task's created_at like tasks, and
+-- TaskPartitionMaintenance creates and detaches its months together with tasks.
+--
+-- Payloads are stored as UTF-8 bytes; TaskPayloadStore gzips new payloads above
+-- task.payloads.compress-threshold-bytes and flags them in *_compressed. Rows
+-- copied here stay uncompressed.
+
+CREATE TABLE task_payloads (
+    task_id            varchar(255) NOT NULL,
+    created_at         timestamp(6) NOT NULL,
+    request_payload    bytea,
+    request_compressed boolean DEFAULT false NOT NULL,
+    result_payload     bytea,
+    result_compressed  boolean DEFAULT false NOT NULL,
+    CONSTRAINT task_payloads_pkey PRIMARY KEY (task_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+SELECT create_month_partition('task_payloads', month::date)
+FROM generate_series(
+        date_trunc('month', COALESCE((SELECT min(created_at) FROM tasks), now())),
+        date_trunc('month', now()) + interval '3 months',
+        interval '1 month') AS month;
+
+INSERT INTO task_payloads (task_id, created_at, request_payload, result_payload)
+SELECT task_id, created_at, convert_to(request_payload, 'UTF8'), convert_to(result_payload, 'UTF8')
+FROM tasks;
+
+ALTER TABLE tasks DROP COLUMN request_payload;
+ALTER TABLE tasks DROP COLUMN result_payload;
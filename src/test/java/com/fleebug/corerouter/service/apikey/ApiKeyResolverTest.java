@@ -0,0 +1,89 @@
+package com.fleebug.corerouter.service.apikey;
+
+import com.fleebug.corerouter.entity.apikey.ApiKey;
+import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
+import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApiKeyResolverTest {
+
+    @Mock private ApiKeyService apiKeyService;
+    @Mock private ApiKeyRepository apiKeyRepository;
+    @Mock private ApiKeyCache apiKeyCache;
+
+    @InjectMocks
+    private ApiKeyResolver apiKeyResolver;
+
+    @Test
+    // Tests that the bearer token is hashed once per request and reused from the request attribute
+    void resolveKeyHash_whenCalledTwice_hashesOnce() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer cr_live_1_abc");
+        when(apiKeyService.hashKey("cr_live_1_abc")).thenReturn("hash-1");
+
+        assertEquals("hash-1", apiKeyResolver.resolveKeyHash(request));
+        assertEquals("hash-1", apiKeyResolver.resolveKeyHash(request));
+
+        verify(apiKeyService, times(1)).hashKey(anyString());
+        assertEquals("hash-1", request.getAttribute(ApiKeyResolver.API_KEY_HASH_ATTR));
+    }
+
+    @Test
+    // Tests that a cached key is served without touching the database
+    void requireActiveApiKey_whenCached_skipsRepository() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(ApiKeyResolver.API_KEY_HASH_ATTR, "hash-1");
+        ApiKey apiKey = ApiKey.builder().apiKeyId(1).key("hash-1").status(ApiKeyStatus.ACTIVE).build();
+        when(apiKeyCache.get("hash-1")).thenReturn(Optional.of(apiKey));
+
+        assertSame(apiKey, apiKeyResolver.requireActiveApiKey(request));
+        verifyNoInteractions(apiKeyRepository);
+    }
+
+    @Test
+    // Tests that a cache miss loads from the database and populates the cache
+    void requireActiveApiKey_whenNotCached_loadsAndCaches() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(ApiKeyResolver.API_KEY_HASH_ATTR, "hash-1");
+        ApiKey apiKey = ApiKey.builder().apiKeyId(1).key("hash-1").status(ApiKeyStatus.ACTIVE).build();
+        when(apiKeyCache.get("hash-1")).thenReturn(Optional.empty());
+        when(apiKeyRepository.findByKey("hash-1")).thenReturn(Optional.of(apiKey));
+
+        assertSame(apiKey, apiKeyResolver.requireActiveApiKey(request));
+        verify(apiKeyCache).put("hash-1", apiKey);
+    }
+
+    @Test
+    // Tests that an inactive key is rejected even when served from cache
+    void requireActiveApiKey_whenInactive_throwsIllegalArgumentException() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(ApiKeyResolver.API_KEY_HASH_ATTR, "hash-1");
+        ApiKey apiKey = ApiKey.builder().apiKeyId(1).key("hash-1").status(ApiKeyStatus.INACTIVE).build();
+        when(apiKeyCache.get("hash-1")).thenReturn(Optional.of(apiKey));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> apiKeyResolver.requireActiveApiKey(request));
+        assertEquals("API Key is not active", ex.getMessage());
+    }
+
+    @Test
+    // Tests that a request without a bearer token is rejected
+    void requireActiveApiKey_whenHeaderMissing_throwsIllegalArgumentException() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+
+        assertThrows(IllegalArgumentException.class, () -> apiKeyResolver.requireActiveApiKey(request));
+        verifyNoInteractions(apiKeyService, apiKeyRepository);
+    }
+}
@@ -34,6 +34,7 @@ class ApiKeyServiceAdminTest {
     @Mock private TelemetryClient telemetryClient;
     @Mock private ApiKeyRepository apiKeyRepository;
     @Mock private ApiKeyStatusAuditRepository apiKeyStatusAuditRepository;
+    @Mock private ApiKeyCache apiKeyCache;
 
     @InjectMocks
     private ApiKeyService apiKeyService;
@@ -63,6 +64,7 @@ class ApiKeyServiceAdminTest {
         assertEquals(ApiKeyStatus.REVOKED, testApiKey.getStatus());
         verify(apiKeyRepository).save(testApiKey);
         verify(apiKeyStatusAuditRepository).save(any(ApiKeyStatusAudit.class));
+        verify(apiKeyCache).invalidate(testApiKey.getKey());
     }
 
     @Test
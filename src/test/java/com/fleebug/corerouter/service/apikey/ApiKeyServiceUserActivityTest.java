@@ -43,6 +43,9 @@ class ApiKeyServiceUserActivityTest {
     @Mock
     private ApiKeyStatusAuditRepository apiKeyStatusAuditRepository;
 
+    @Mock
+    private ApiKeyCache apiKeyCache;
+
     @InjectMocks
     private ApiKeyService apiKeyService;
 
@@ -268,6 +271,7 @@ class ApiKeyServiceUserActivityTest {
         assertEquals(ApiKeyStatus.ACTIVE, audit.getOldStatus());
         assertEquals(ApiKeyStatus.REVOKED, audit.getNewStatus());
         assertEquals("User revoked API key", audit.getReason());
+        verify(apiKeyCache).invalidate("hashed_key_1");
     }
 
     // --- Utility ---
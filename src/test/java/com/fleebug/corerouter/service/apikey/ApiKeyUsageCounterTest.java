@@ -0,0 +1,131 @@
+package com.fleebug.corerouter.service.apikey;
+
+import com.fleebug.corerouter.entity.apikey.ApiKey;
+import com.fleebug.corerouter.repository.billing.UsageRecordRepository;
+import com.microsoft.applicationinsights.TelemetryClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApiKeyUsageCounterTest {
+
+    @Mock private TelemetryClient telemetryClient;
+    @Mock private StringRedisTemplate stringRedisTemplate;
+    @Mock private UsageRecordRepository usageRecordRepository;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private ApiKeyUsageCounter apiKeyUsageCounter;
+
+    private ApiKey apiKey;
+
+    @BeforeEach
+    void setUp() {
+        apiKey = ApiKey.builder().apiKeyId(10).dailyLimit(10).monthlyLimit(100).build();
+    }
+
+    @Test
+    // Tests that the counters are served from Redis without touching usage_records
+    void tryAcquire_whenCountersPresent_usesRedisOnly() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), eq("10"), eq("100")))
+                .thenReturn(List.of(1L, 4L, 40L));
+
+        ApiKeyUsageCounter.Result result = apiKeyUsageCounter.tryAcquire(apiKey);
+
+        assertEquals(ApiKeyUsageCounter.Status.ACQUIRED, result.status());
+        assertEquals(4L, result.daily());
+        assertEquals(40L, result.monthly());
+        verifyNoInteractions(usageRecordRepository);
+    }
+
+    @Test
+    // Tests that missing counters are seeded from usage_records once and the check is retried
+    void tryAcquire_whenCountersMissing_seedsFromDatabase() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), eq("10"), eq("100")))
+                .thenReturn(List.of(0L, 0L, 0L))
+                .thenReturn(List.of(-1L, 10L, 12L));
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(eq(10), any(), any()))
+                .thenReturn(10L).thenReturn(12L);
+
+        ApiKeyUsageCounter.Result result = apiKeyUsageCounter.tryAcquire(apiKey);
+
+        assertEquals(ApiKeyUsageCounter.Status.DAILY_LIMIT_REACHED, result.status());
+        verify(valueOperations).setIfAbsent(startsWith(ApiKeyUsageCounter.DAY_KEY_PREFIX + "10:"), eq("10"), any(Duration.class));
+        verify(valueOperations).setIfAbsent(startsWith(ApiKeyUsageCounter.MONTH_KEY_PREFIX + "10:"), eq("12"), any(Duration.class));
+    }
+
+    @Test
+    // Tests that an unreachable Redis falls back to range counts over usage_records
+    void tryAcquire_whenRedisUnavailable_fallsBackToDatabase() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), eq("10"), eq("100")))
+                .thenThrow(new RedisConnectionFailureException("down"));
+        when(usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(eq(10), any(), any()))
+                .thenReturn(3L).thenReturn(100L);
+
+        ApiKeyUsageCounter.Result result = apiKeyUsageCounter.tryAcquire(apiKey);
+
+        assertEquals(ApiKeyUsageCounter.Status.MONTHLY_LIMIT_REACHED, result.status());
+    }
+
+    @Test
+    // Tests that the reconciler raises counters through the script for each active key returned by the count query
+    void reconcile_whenLockAcquired_raisesCountersOfActiveKeys() throws Exception {
+        ReflectionTestUtils.setField(apiKeyUsageCounter, "reconcileIntervalMs", 300000L);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(ApiKeyUsageCounter.RECONCILE_LOCK_KEY), anyString(), any(Duration.class)))
+                .thenReturn(true);
+        ResultSet row = mock(ResultSet.class);
+        when(row.getInt("api_key_id")).thenReturn(10);
+        when(row.getLong("daily")).thenReturn(3L);
+        when(row.getLong("monthly")).thenReturn(40L);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), any(), any());
+
+        apiKeyUsageCounter.reconcile();
+
+        verify(stringRedisTemplate).execute(any(RedisScript.class),
+                eq(List.of(ApiKeyUsageCounter.dayKey(10, LocalDate.now(Clock.systemUTC())), ApiKeyUsageCounter.monthKey(10, YearMonth.now(Clock.systemUTC())))),
+                eq("3"), eq("40"), anyString(), anyString());
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    // Tests that a node which does not get the reconcile lock leaves the counters and usage_records alone
+    void reconcile_whenLockHeldElsewhere_doesNothing() {
+        ReflectionTestUtils.setField(apiKeyUsageCounter, "reconcileIntervalMs", 300000L);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(ApiKeyUsageCounter.RECONCILE_LOCK_KEY), anyString(), any(Duration.class)))
+                .thenReturn(false);
+
+        apiKeyUsageCounter.reconcile();
+
+        verifyNoInteractions(jdbcTemplate);
+        verify(stringRedisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+}
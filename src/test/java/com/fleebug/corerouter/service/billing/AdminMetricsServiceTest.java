@@ -0,0 +1,56 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.fleebug.corerouter.dto.billing.response.AdminDashboardOverviewResponse;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
+import com.microsoft.applicationinsights.TelemetryClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AdminMetricsServiceTest {
+
+    @Mock
+    private TelemetryClient telemetryClient;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private HourlyMetricsService hourlyMetricsService;
+
+    @InjectMocks
+    private AdminMetricsService adminMetricsService;
+
+    @Test
+    // Tests that failing aggregate queries leave the overview at zero instead of failing the dashboard
+    void getOverview_QueriesFail_ReturnsZeroDefaults() {
+        doThrow(new DataAccessResourceFailureException("down"))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        when(hourlyMetricsService.read(anyList(), any(), any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        AdminDashboardOverviewResponse response = adminMetricsService.getOverview(LocalDateTime.of(2026, 3, 10, 14, 30));
+
+        assertEquals(new BigDecimal("0.00"), response.getTotalEarnings());
+        assertEquals(0L, response.getTasksProcessedToday());
+        assertEquals(0L, response.getActiveUsersToday());
+        assertTrue(response.getTaskVolume24h().isEmpty());
+        assertEquals(24, response.getRevenueTrend().getToday().size());
+        verify(telemetryClient, times(2)).trackException(any(Exception.class), anyMap(), isNull());
+    }
+}
@@ -0,0 +1,60 @@
+package com.fleebug.corerouter.service.billing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleebug.corerouter.entity.billing.BillingConfig;
+import com.fleebug.corerouter.enums.billing.UsageUnitType;
+import com.fleebug.corerouter.exception.billing.BillingCalculationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingTableTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    // Tests that unit-specific rates win over the generic rate, which covers every other unit type
+    void compile_prefersSpecificRateAndFallsBackToGenericRate() {
+        BillingConfig config = BillingConfig.builder()
+                .billingId(3)
+                .pricingMetadata("{\"inputRate\":0.00003,\"rate\":0.01}")
+                .chargeMultiplier(new BigDecimal("1.5000"))
+                .build();
+
+        PricingTable table = PricingTable.compile(config, 10, objectMapper);
+
+        assertEquals(new BigDecimal("0.00003"), table.rateFor(UsageUnitType.INPUT_TOKENS));
+        assertEquals(new BigDecimal("0.01"), table.rateFor(UsageUnitType.OUTPUT_TOKENS));
+        assertEquals(new BigDecimal("0.01"), table.rateFor(UsageUnitType.CUSTOM_UNITS));
+        assertEquals(new BigDecimal("1.5000"), table.getChargeMultiplier());
+        assertEquals(3, table.getBillingId());
+    }
+
+    @Test
+    // Tests that a unit type without any matching rate is rejected when looked up
+    void rateFor_whenNoRateForUnit_throwsBillingCalculationException() {
+        BillingConfig config = BillingConfig.builder()
+                .billingId(3)
+                .pricingMetadata("{\"pageRate\":0.002}")
+                .chargeMultiplier(BigDecimal.ZERO)
+                .build();
+
+        PricingTable table = PricingTable.compile(config, 10, objectMapper);
+
+        assertThrows(BillingCalculationException.class, () -> table.rateFor(UsageUnitType.INPUT_TOKENS));
+        assertEquals(BigDecimal.ONE, table.getChargeMultiplier());
+    }
+
+    @Test
+    // Tests that unparseable pricing metadata fails when the table is compiled
+    void compile_whenMetadataInvalid_throwsBillingCalculationException() {
+        BillingConfig config = BillingConfig.builder()
+                .billingId(3)
+                .pricingMetadata("{not json")
+                .build();
+
+        assertThrows(BillingCalculationException.class, () -> PricingTable.compile(config, 10, objectMapper));
+    }
+}
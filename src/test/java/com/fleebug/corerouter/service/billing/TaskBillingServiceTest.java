@@ -2,26 +2,28 @@ package com.fleebug.corerouter.service.billing;
 
 import com.fleebug.corerouter.entity.apikey.ApiKey;
 import com.fleebug.corerouter.entity.billing.BillingConfig;
+import com.fleebug.corerouter.entity.billing.BillingLedgerEntry;
 import com.fleebug.corerouter.entity.billing.UsageRecord;
 import com.fleebug.corerouter.entity.model.Model;
 import com.fleebug.corerouter.entity.task.Task;
 import com.fleebug.corerouter.entity.user.User;
 import com.fleebug.corerouter.enums.task.TaskStatus;
 import com.fleebug.corerouter.exception.billing.BillingCalculationException;
-import com.fleebug.corerouter.repository.billing.BillingConfigRepository;
 import com.fleebug.corerouter.repository.billing.UsageRecordRepository;
 import com.fleebug.corerouter.repository.task.TaskRepository;
-import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
 import com.microsoft.applicationinsights.TelemetryClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -31,9 +33,6 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class TaskBillingServiceTest {
 
-    @Mock
-    private UserRepository userRepository;
-
     @Mock
     private TaskRepository taskRepository;
 
@@ -41,11 +40,23 @@ class TaskBillingServiceTest {
     private UsageRecordRepository usageRecordRepository;
 
     @Mock
-    private BillingConfigRepository billingConfigRepository;
+    private BillingConfigService billingConfigService;
 
     @Mock
     private TelemetryClient telemetryClient;
 
+    @Mock
+    private WalletBalanceService walletBalanceService;
+
+    @Mock
+    private BillingLedgerService billingLedgerService;
+
+    @Mock
+    private UsageRollupService usageRollupService;
+
+    @Mock
+    private HourlyMetricsService hourlyMetricsService;
+
     @InjectMocks
     private TaskBillingService taskBillingService;
 
@@ -75,6 +86,7 @@ class TaskBillingServiceTest {
                 .apiKey(apiKey)
                 .model(model)
                 .status(TaskStatus.COMPLETED)
+                .totalCost(new BigDecimal("2.00"))
                 .chargedCost(BigDecimal.ZERO)
                 .build();
     }
@@ -95,8 +107,9 @@ class TaskBillingServiceTest {
                 .billingConfig(config)
                 .build();
 
-        when(userRepository.findByIdForUpdate(1)).thenReturn(Optional.of(user));
         when(usageRecordRepository.findByTask(task)).thenReturn(List.of(record));
+        when(walletBalanceService.settle(1, "test-task-id", new BigDecimal("3.00")))
+                .thenReturn(new WalletBalanceService.Settlement(true, new BigDecimal("7.00")));
 
         // Act
         taskBillingService.applyDebitIfEligible(task);
@@ -105,14 +118,18 @@ class TaskBillingServiceTest {
         // The raw cost is 2.00. Multiplier is 1.5. Target charged cost = 2.00 * 1.5 = 3.00.
         // Wallet before: 10.00 -> Wallet after: 10.00 - 3.00 = 7.00
         BigDecimal expectedBalance = new BigDecimal("7.00");
-        assertEquals(expectedBalance, user.getBalance(), 
-                "User balance should be exactly deducted by target cost");
         assertEquals(new BigDecimal("3.00"), task.getChargedCost(), 
                 "Task should record the final charged deduction");
         assertEquals(expectedBalance, task.getRemainingBalance(), 
                 "Task ledger should snapshot the closing balance");
         
-        verify(userRepository).save(user);
+        ArgumentCaptor<List<BillingLedgerEntry>> entries = ArgumentCaptor.captor();
+        verify(billingLedgerService).append(entries.capture());
+        BillingLedgerEntry entry = entries.getValue().get(0);
+        assertEquals(new BigDecimal("-3.00"), entry.getAmount(),
+                "Ledger should record the debit as a negative movement");
+        assertEquals(new BigDecimal("3.00"), entry.getTaskChargedTotal());
+        assertEquals(expectedBalance, entry.getBalanceAfter());
         verify(taskRepository).save(task);
     }
 
@@ -139,8 +156,8 @@ class TaskBillingServiceTest {
         // Assert
         // Delta between target cost (3.00) and already charged (3.00) is 0. 
         // Debit logic returns early ensuring 100% idempotency.
-        verify(userRepository, never()).findByIdForUpdate(any());
-        verify(userRepository, never()).save(any());
+        verify(walletBalanceService, never()).settle(any(), any(), any());
+        verify(billingLedgerService, never()).append(any());
         verify(taskRepository, never()).save(any());
     }
 
@@ -148,8 +165,6 @@ class TaskBillingServiceTest {
     // BILL-05: Insufficient balance -> Postman showing 402 response for insufficient balance.
     void applyDebitIfEligible_ThrowsBillingCalculationException_WhenInsufficientBalance() {
         // Arrange
-        user.setBalance(new BigDecimal("1.00")); // Only has 1.00 left
-
         BillingConfig config = BillingConfig.builder()
                 .chargeMultiplier(BigDecimal.ONE)
                 .build();
@@ -159,8 +174,9 @@ class TaskBillingServiceTest {
                 .billingConfig(config)
                 .build();
 
-        when(userRepository.findByIdForUpdate(1)).thenReturn(Optional.of(user));
         when(usageRecordRepository.findByTask(task)).thenReturn(List.of(record));
+        when(walletBalanceService.settle(1, "test-task-id", new BigDecimal("2.50")))
+                .thenReturn(new WalletBalanceService.Settlement(false, new BigDecimal("1.00"))); // Only has 1.00 left
 
         // Act & Assert
         BillingCalculationException ex = assertThrows(BillingCalculationException.class, () -> {
@@ -171,6 +187,90 @@ class TaskBillingServiceTest {
         assertTrue(ex.getMessage().contains("Required=2.50"));
         assertTrue(ex.getMessage().contains("available=1.00"));
         
-        verify(userRepository, never()).save(user);
+        verify(billingLedgerService, never()).append(any());
+        verify(taskRepository, never()).save(any());
+    }
+
+    @Test
+    // Batch debit -> each task settled against the wallet view; a task the balance cannot cover is reported, not thrown
+    void applyDebitsIfEligible_SettlesEachTask_AndReportsInsufficientBalancePerTask() {
+        Task second = Task.builder()
+                .taskId("test-task-id-2")
+                .apiKey(apiKey)
+                .model(model)
+                .status(TaskStatus.COMPLETED)
+                .totalCost(new BigDecimal("5.00"))
+                .chargedCost(BigDecimal.ZERO)
+                .build();
+
+        BillingConfig config = BillingConfig.builder()
+                .chargeMultiplier(BigDecimal.ONE)
+                .build();
+
+        when(usageRecordRepository.findByTask(task)).thenReturn(List.of(
+                UsageRecord.builder().cost(new BigDecimal("6.00")).billingConfig(config).build()));
+        when(usageRecordRepository.findByTask(second)).thenReturn(List.of(
+                UsageRecord.builder().cost(new BigDecimal("5.00")).billingConfig(config).build()));
+        when(walletBalanceService.settle(1, "test-task-id", new BigDecimal("6.00")))
+                .thenReturn(new WalletBalanceService.Settlement(true, new BigDecimal("4.00")));
+        when(walletBalanceService.settle(1, "test-task-id-2", new BigDecimal("5.00")))
+                .thenReturn(new WalletBalanceService.Settlement(false, new BigDecimal("4.00")));
+
+        Map<String, String> failures = taskBillingService.applyDebitsIfEligible(List.of(task, second));
+
+        assertEquals(new BigDecimal("6.00"), task.getChargedCost());
+        assertEquals(new BigDecimal("4.00"), task.getRemainingBalance());
+        assertEquals(1, failures.size());
+        assertTrue(failures.get("test-task-id-2").contains("Insufficient balance"));
+        assertEquals(BigDecimal.ZERO, second.getChargedCost());
+        ArgumentCaptor<List<BillingLedgerEntry>> entries = ArgumentCaptor.captor();
+        verify(billingLedgerService).append(entries.capture());
+        assertEquals(1, entries.getValue().size());
+        verify(taskRepository, never()).save(any());
+    }
+
+    @Test
+    // Failed task -> its wallet hold is released and nothing is charged
+    void applyDebitsIfEligible_ReleasesHoldOfFailedTask() {
+        task.setStatus(TaskStatus.FAILED);
+
+        Map<String, String> failures = taskBillingService.applyDebitsIfEligible(List.of(task));
+
+        assertTrue(failures.isEmpty());
+        verify(walletBalanceService).release(1, "test-task-id");
+        verify(walletBalanceService, never()).settle(any(), any(), any());
+    }
+
+    @Test
+    // Running chargeable total -> the debit comes from the task row without reading its usage records
+    void applyDebitIfEligible_UsesRunningChargeableCost() {
+        task.setChargeableCost(new BigDecimal("3.0049999999"));
+        when(walletBalanceService.settle(1, "test-task-id", new BigDecimal("3.00")))
+                .thenReturn(new WalletBalanceService.Settlement(true, new BigDecimal("7.00")));
+
+        taskBillingService.applyDebitIfEligible(task);
+
+        assertEquals(new BigDecimal("3.00"), task.getChargedCost());
+        verify(usageRecordRepository, never()).findByTask(any());
+        verify(billingLedgerService).append(any());
+    }
+
+    @Test
+    // Unusable pricing metadata -> the debit falls back to the active config's multiplier instead of failing
+    void applyDebitIfEligible_WhenPricingCannotCompile_UsesConfigMultiplier() {
+        BillingConfig config = BillingConfig.builder()
+                .billingId(5)
+                .chargeMultiplier(new BigDecimal("1.5"))
+                .build();
+        when(billingConfigService.findPricingTable(10))
+                .thenThrow(new BillingCalculationException("No pricing metadata found for billing config ID 5"));
+        when(billingConfigService.findActiveBillingConfig(10)).thenReturn(Optional.of(config));
+        when(usageRecordRepository.findByTask(task)).thenReturn(List.of());
+        when(walletBalanceService.settle(1, "test-task-id", new BigDecimal("3.00")))
+                .thenReturn(new WalletBalanceService.Settlement(true, new BigDecimal("7.00")));
+
+        taskBillingService.applyDebitIfEligible(task);
+
+        assertEquals(new BigDecimal("3.00"), task.getChargedCost());
     }
 }
@@ -14,6 +14,7 @@ import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
 import com.fleebug.corerouter.repository.billing.UsageRecordRepository;
 import com.fleebug.corerouter.repository.model.ModelRepository;
 import com.fleebug.corerouter.repository.task.TaskRepository;
+import com.fleebug.corerouter.service.apikey.ApiKeyUsageCounter;
 import com.fleebug.corerouter.service.otp.OtpService;
 import com.fleebug.corerouter.service.redis.RedisService;
 import com.microsoft.applicationinsights.TelemetryClient;
@@ -23,6 +24,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.math.BigDecimal;
 import java.util.Optional;
@@ -44,6 +46,9 @@ class UsageServiceLimitTest {
     @Mock private TaskBillingService taskBillingService;
     @Mock private OtpService otpService;
     @Mock private RedisService redisService;
+    @Mock private ApiKeyUsageCounter apiKeyUsageCounter;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private UsageRollupService usageRollupService;
     
     @org.mockito.Spy
     private ObjectMapper objectMapper = new ObjectMapper();
@@ -97,11 +102,11 @@ class UsageServiceLimitTest {
         request.setQuantity(new BigDecimal("1"));
 
         when(taskRepository.findByTaskId("task-1")).thenReturn(Optional.of(testTask));
-        when(billingConfigService.getBillingConfigEntityByModelId(1)).thenReturn(testConfig);
+        when(billingConfigService.getPricingTable(1)).thenReturn(PricingTable.compile(testConfig, 1, objectMapper));
         when(usageRecordRepository.save(any(UsageRecord.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        when(usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(eq(10), any(), any()))
-                .thenReturn(0L).thenReturn(99L).thenReturn(100L);
+        when(apiKeyUsageCounter.tryAcquire(testApiKey))
+                .thenReturn(new ApiKeyUsageCounter.Result(ApiKeyUsageCounter.Status.ACQUIRED, 1, 100));
 
         when(redisService.existsInCache(anyString())).thenReturn(false);
 
@@ -130,11 +135,11 @@ class UsageServiceLimitTest {
         request.setQuantity(new BigDecimal("10"));
 
         when(taskRepository.findByTaskId("task-1")).thenReturn(Optional.of(testTask));
-        when(billingConfigService.getBillingConfigEntityByModelId(1)).thenReturn(testConfig);
+        when(billingConfigService.getPricingTable(1)).thenReturn(PricingTable.compile(testConfig, 1, objectMapper));
         when(usageRecordRepository.save(any(UsageRecord.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        when(usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(eq(10), any(), any()))
-                .thenReturn(0L).thenReturn(85L).thenReturn(85L); // daily, monthly-block, monthly-email
+        when(apiKeyUsageCounter.tryAcquire(testApiKey))
+                .thenReturn(new ApiKeyUsageCounter.Result(ApiKeyUsageCounter.Status.ACQUIRED, 1, 85));
 
         when(redisService.existsInCache(anyString())).thenReturn(false);
 
@@ -164,8 +169,8 @@ class UsageServiceLimitTest {
         when(taskRepository.findByTaskId("task-1")).thenReturn(Optional.of(testTask));
 
         // Let's pretend consumed today is already 10
-        when(usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(eq(10), any(), any()))
-                .thenReturn(10L); // 100% of the 10 daily limit
+        when(apiKeyUsageCounter.tryAcquire(testApiKey))
+                .thenReturn(new ApiKeyUsageCounter.Result(ApiKeyUsageCounter.Status.DAILY_LIMIT_REACHED, 10, 10)); // 100% of the 10 daily limit
 
         ApiKeyLimitExceededException exception = assertThrows(ApiKeyLimitExceededException.class, () -> {
             usageService.recordUsage(request);
@@ -188,8 +193,8 @@ class UsageServiceLimitTest {
         when(taskRepository.findByTaskId("task-1")).thenReturn(Optional.of(testTask));
         
         // Mock daily count = 0, but monthly = 100 
-        when(usageRecordRepository.countByApiKeyApiKeyIdAndRecordedAtBetween(eq(10), any(), any()))
-                .thenReturn(0L).thenReturn(100L);
+        when(apiKeyUsageCounter.tryAcquire(testApiKey))
+                .thenReturn(new ApiKeyUsageCounter.Result(ApiKeyUsageCounter.Status.MONTHLY_LIMIT_REACHED, 0, 100));
 
         ApiKeyLimitExceededException exception = assertThrows(ApiKeyLimitExceededException.class, () -> {
             usageService.recordUsage(request);
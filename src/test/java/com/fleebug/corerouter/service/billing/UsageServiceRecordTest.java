@@ -1,6 +1,7 @@
 package com.fleebug.corerouter.service.billing;
 
 import com.fleebug.corerouter.dto.billing.request.RecordUsageRequest;
+import com.fleebug.corerouter.dto.billing.response.UsageBatchItemResponse;
 import com.fleebug.corerouter.dto.billing.response.UsageRecordResponse;
 import com.fleebug.corerouter.entity.apikey.ApiKey;
 import com.fleebug.corerouter.entity.billing.BillingConfig;
@@ -8,6 +9,7 @@ import com.fleebug.corerouter.entity.billing.UsageRecord;
 import com.fleebug.corerouter.entity.model.Model;
 import com.fleebug.corerouter.entity.task.Task;
 import com.fleebug.corerouter.enums.billing.UsageUnitType;
+import com.fleebug.corerouter.enums.task.TaskStatus;
 import com.fleebug.corerouter.repository.billing.UsageRecordRepository;
 import com.fleebug.corerouter.repository.task.TaskRepository;
 import com.microsoft.applicationinsights.TelemetryClient;
@@ -16,16 +18,23 @@ import org.mockito.Spy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,6 +55,12 @@ class UsageServiceRecordTest {
     @Mock
     private TelemetryClient telemetryClient;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UsageRollupService usageRollupService;
+
     @Spy
     private ObjectMapper objectMapper = new ObjectMapper();
 
@@ -88,7 +103,7 @@ class UsageServiceRecordTest {
         // Arrange
         when(taskRepository.findByTaskId("test-task-123")).thenReturn(Optional.of(task));
         // Mock the billing config resolving logic
-        when(billingConfigService.getBillingConfigEntityByModelId(10)).thenReturn(config);
+        when(billingConfigService.getPricingTable(10)).thenReturn(PricingTable.compile(config, 10, objectMapper));
         
         // Mock save logic to return the passed instance with an ID
         when(usageRecordRepository.save(any(UsageRecord.class))).thenAnswer(invocation -> {
@@ -111,4 +126,39 @@ class UsageServiceRecordTest {
         
         verify(usageRecordRepository).save(any(UsageRecord.class));
     }
+
+    @Test
+    // Batch recording inserts every unit in one JDBC batch, adds their cost to the task and debits it once.
+    void recordUsageBatch_InsertsUnitsTogetherAndDebitsTaskOnce() {
+        task.setStatus(TaskStatus.COMPLETED);
+        when(taskRepository.findAllWithUserByTaskIdIn(any())).thenReturn(List.of(task));
+        when(usageRecordRepository.findUnitTypesByTaskIdInRecordedSince(any(), any())).thenReturn(List.of());
+        when(billingConfigService.getPricingTable(10)).thenReturn(PricingTable.compile(config, 10, objectMapper));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 1});
+        when(taskBillingService.applyDebitsIfEligible(List.of(task))).thenReturn(Map.of());
+
+        List<UsageBatchItemResponse> results = usageService.recordUsageBatch(List.of(
+                request,
+                new RecordUsageRequest("test-task-123", UsageUnitType.OUTPUT_TOKENS, new BigDecimal("500")),
+                new RecordUsageRequest("test-task-123", UsageUnitType.INPUT_TOKENS, new BigDecimal("10"))));
+
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess(), "A unit repeated within the batch is rejected");
+        // 1000 * 0.005 + 500 * 0.01 = 10.00, added to the task's running totals in one update
+        ArgumentCaptor<Map<String, TaskBillingService.CostIncrement>> increments = ArgumentCaptor.captor();
+        verify(taskBillingService).addUsageCosts(eq(List.of(task)), increments.capture());
+        assertEquals(0, new BigDecimal("10").compareTo(increments.getValue().get("test-task-123").cost()));
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        verify(taskBillingService, times(1)).applyDebitsIfEligible(List.of(task));
+        verify(usageRecordRepository, never()).findByTask(any());
+        verify(taskRepository).saveAll(List.of(task));
+
+        // The rollup gets each unit's requested quantity
+        ArgumentCaptor<List<UsageRollupService.Usage>> rollup = ArgumentCaptor.captor();
+        verify(usageRollupService).recordUsage(rollup.capture());
+        assertEquals(List.of(new BigDecimal("1000"), new BigDecimal("500")),
+                rollup.getValue().stream().map(UsageRollupService.Usage::quantity).toList());
+    }
 }
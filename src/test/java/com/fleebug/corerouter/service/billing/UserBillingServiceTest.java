@@ -2,8 +2,8 @@ package com.fleebug.corerouter.service.billing;
 
 import com.fleebug.corerouter.dto.billing.response.UserDashboardInsightsResponse;
 import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
-import com.fleebug.corerouter.enums.task.TaskStatus;
 import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
+import com.fleebug.corerouter.repository.billing.UsageDailyRollupRepository;
 import com.fleebug.corerouter.repository.billing.UsageRecordRepository;
 import com.fleebug.corerouter.repository.task.TaskRepository;
 import org.junit.jupiter.api.Test;
@@ -13,7 +13,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -31,6 +34,9 @@ class UserBillingServiceTest {
     @Mock
     private UsageRecordRepository usageRecordRepository;
 
+    @Mock
+    private UsageDailyRollupRepository usageDailyRollupRepository;
+
     @InjectMocks
     private UsageService usageService;
 
@@ -41,9 +47,11 @@ class UserBillingServiceTest {
         LocalDateTime to = LocalDateTime.now();
         BigDecimal expectedCost = new BigDecimal("45.50");
 
-        when(taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(
-                eq(1), eq(TaskStatus.COMPLETED), eq(from), eq(to)))
-                .thenReturn(expectedCost);
+        when(usageDailyRollupRepository.sumTaskTotalsByUserGroupedByDate(
+                eq(1), eq(from.toLocalDate()), eq(to.toLocalDate())))
+                .thenReturn(List.<Object[]>of(
+                        new Object[]{from.toLocalDate(), new BigDecimal("40.00"), 3L},
+                        new Object[]{to.toLocalDate(), new BigDecimal("5.50"), 1L}));
 
         BigDecimal actualCost = usageService.getTotalCostByUser(1, from, to);
 
@@ -58,12 +66,12 @@ class UserBillingServiceTest {
         
         when(apiKeyRepository.countByUserUserIdAndStatus(eq(userId), eq(ApiKeyStatus.ACTIVE)))
                 .thenReturn(3L);
-        when(taskRepository.countByApiKey_User_UserIdAndCreatedAtBetween(eq(userId), 
+        when(taskRepository.countByUserIdAndCreatedAtBetween(eq(userId), 
                 any(LocalDateTime.class), any(LocalDateTime.class)))
                 .thenReturn(150L);
-        when(taskRepository.sumChargedCostByUserAndStatusAndCompletedAtBetween(eq(userId), 
-                eq(TaskStatus.COMPLETED), any(LocalDateTime.class), any(LocalDateTime.class)))
-                .thenReturn(new BigDecimal("12.50"));
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        when(usageDailyRollupRepository.sumTaskTotalsByUserGroupedByDate(eq(userId), eq(today), eq(today)))
+                .thenReturn(List.<Object[]>of(new Object[]{today, new BigDecimal("12.50"), 4L}));
 
         UserDashboardInsightsResponse response = usageService.getUserDashboardInsights(userId, currentBalance);
 
@@ -0,0 +1,76 @@
+package com.fleebug.corerouter.service.metrics;
+
+import com.fleebug.corerouter.enums.task.TaskStatus;
+import com.microsoft.applicationinsights.TelemetryClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HourlyMetricsServiceTest {
+
+    @Mock
+    private TelemetryClient telemetryClient;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private HourlyMetricsService hourlyMetricsService;
+
+    @Test
+    // Tests that increments for the same hour and metric are coalesced into one upsert row, in key order
+    @SuppressWarnings("unchecked")
+    void flush_coalescesIncrementsPerHourAndMetric() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 10, 14, 5);
+        hourlyMetricsService.taskCreated(createdAt);
+        hourlyMetricsService.taskCreated(createdAt.plusMinutes(40));
+        hourlyMetricsService.taskStatusChanged(createdAt, TaskStatus.QUEUED, TaskStatus.COMPLETED);
+
+        hourlyMetricsService.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        Object[] queued = rows.getValue().get(0);
+        assertEquals(Timestamp.valueOf(LocalDateTime.of(2026, 3, 10, 14, 0)), queued[0]);
+        assertEquals("TASKS_QUEUED", queued[1]);
+        assertEquals(0, BigDecimal.ONE.compareTo((BigDecimal) queued[2]));
+        assertEquals("TASKS_COMPLETED", rows.getValue().get(1)[1]);
+
+        hourlyMetricsService.flush();
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    // Tests that a failed flush keeps the increments for the next one
+    @SuppressWarnings("unchecked")
+    void flush_whenUpsertFails_keepsIncrements() {
+        hourlyMetricsService.topUpCompleted(LocalDateTime.of(2026, 3, 10, 9, 30), new BigDecimal("500.00"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(new int[]{1});
+
+        hourlyMetricsService.flush();
+        hourlyMetricsService.flush();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), rows.capture());
+        assertEquals(new BigDecimal("500.00"), rows.getAllValues().get(1).get(0)[2]);
+    }
+}
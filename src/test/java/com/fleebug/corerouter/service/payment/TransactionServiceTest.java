@@ -1,13 +1,16 @@
 package com.fleebug.corerouter.service.payment;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleebug.corerouter.dto.billing.response.UserBalanceHistoryResponse;
 import com.fleebug.corerouter.entity.payment.Transaction;
 import com.fleebug.corerouter.entity.user.User;
 import com.fleebug.corerouter.enums.payment.TransactionStatus;
 import com.fleebug.corerouter.enums.payment.TransactionType;
 import com.fleebug.corerouter.repository.payment.TransactionRepository;
-import com.fleebug.corerouter.repository.task.TaskRepository;
 import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.service.billing.BillingLedgerService;
+import com.fleebug.corerouter.service.billing.WalletBalanceService;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
 import com.fleebug.corerouter.service.redis.RedisService;
 import com.fleebug.corerouter.util.HttpClientUtil;
 import com.microsoft.applicationinsights.TelemetryClient;
@@ -24,6 +27,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -41,13 +45,17 @@ class TransactionServiceTest {
     @Mock
     private TransactionRepository transactionRepository;
     @Mock
-    private TaskRepository taskRepository;
-    @Mock
     private UserRepository userRepository;
     @Mock
     private RedisService redisService;
     @Mock
     private HttpClientUtil httpClientUtil;
+    @Mock
+    private WalletBalanceService walletBalanceService;
+    @Mock
+    private BillingLedgerService billingLedgerService;
+    @Mock
+    private HourlyMetricsService hourlyMetricsService;
     
     @org.mockito.Spy
     private ObjectMapper objectMapper = new ObjectMapper();
@@ -128,4 +136,25 @@ class TransactionServiceTest {
         assertEquals(TransactionStatus.COMPLETED, resultPage.getContent().get(0).getStatus());
         assertEquals(TransactionType.WALLET_TOPUP, resultPage.getContent().get(0).getType());
     }
+
+    @Test
+    // Tests that balance history is built from ledger movements, walking back from the balance at the end of the range
+    void getUserBalanceHistory_BuildsDailyBreakdownFromLedger() {
+        LocalDateTime from = LocalDateTime.of(2026, 4, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 4, 3, 23, 59, 59);
+
+        when(billingLedgerService.dailyMovements(1, from, to)).thenReturn(List.of(
+                new BillingLedgerService.DailyMovement(LocalDate.of(2026, 4, 1), new BigDecimal("50.00"), BigDecimal.ZERO, null),
+                new BillingLedgerService.DailyMovement(LocalDate.of(2026, 4, 3), BigDecimal.ZERO, new BigDecimal("5.00"), new BigDecimal("65.00"))));
+        when(billingLedgerService.balanceAt(1, to)).thenReturn(new BigDecimal("65.00"));
+
+        UserBalanceHistoryResponse response = transactionService.getUserBalanceHistory(1, from, to, "custom");
+
+        assertEquals(new BigDecimal("20.000"), response.getOpeningBalance());
+        assertEquals(new BigDecimal("65.000"), response.getClosingBalance());
+        assertEquals(new BigDecimal("50.000"), response.getTotalTopUp());
+        assertEquals(3, response.getDailyBreakdown().size());
+        assertEquals(new BigDecimal("70.000"), response.getDailyBreakdown().get(1).getRemainingBalance());
+        assertEquals(new BigDecimal("65.000"), response.getDailyBreakdown().get(2).getTaskRemainingBalance());
+    }
 }
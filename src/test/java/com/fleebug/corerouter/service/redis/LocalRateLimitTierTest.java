@@ -0,0 +1,138 @@
+package com.fleebug.corerouter.service.redis;
+
+import com.fleebug.corerouter.enums.ratelimit.RateLimitRoute;
+import com.microsoft.applicationinsights.TelemetryClient;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.distributed.AsyncBucketProxy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LocalRateLimitTierTest {
+
+    @Mock private RedisBucketService redisBucketService;
+    @Mock private TelemetryClient telemetryClient;
+    @Mock private AsyncBucketProxy bucket;
+
+    @InjectMocks
+    private LocalRateLimitTier localRateLimitTier;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(localRateLimitTier, "chatChunkSize", 5L);
+        ReflectionTestUtils.setField(localRateLimitTier, "ocrChunkSize", 1L);
+        ReflectionTestUtils.setField(localRateLimitTier, "speechChunkSize", 1L);
+        ReflectionTestUtils.setField(localRateLimitTier, "taskCreationChunkSize", 1L);
+        ReflectionTestUtils.setField(localRateLimitTier, "deadlineMs", 50L);
+        ReflectionTestUtils.setField(localRateLimitTier, "taskCreationDeadlineMs", 500L);
+        ReflectionTestUtils.setField(localRateLimitTier, "chatFailOpen", true);
+        ReflectionTestUtils.setField(localRateLimitTier, "taskCreationFailOpen", false);
+        ReflectionTestUtils.setField(localRateLimitTier, "leaseMs", 60_000L);
+        ReflectionTestUtils.setField(localRateLimitTier, "maxLeases", 100L);
+        localRateLimitTier.init();
+    }
+
+    @Test
+    // Tests that one borrowed chunk serves the following requests without touching Redis
+    void tryConsume_whenChunkBorrowed_servesRemainderLocally() {
+        when(redisBucketService.resolveRouteBucketAsync(RateLimitRoute.CHAT, "hash-1")).thenReturn(bucket);
+        when(bucket.tryConsumeAsMuchAsPossible(5)).thenReturn(CompletableFuture.completedFuture(5L));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(localRateLimitTier.check(RateLimitRoute.CHAT, "hash-1").isConsumed());
+        }
+
+        verify(bucket, times(1)).tryConsumeAsMuchAsPossible(5);
+        verify(bucket, never()).tryConsumeAndReturnRemaining(anyLong());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> chat = (Map<String, Object>) localRateLimitTier.stats().get("CHAT");
+        assertEquals(5L, chat.get("localHits"));
+        assertEquals(1L, chat.get("redisCalls"));
+    }
+
+    @Test
+    // Tests that an empty shared bucket rejects with the refill wait reported by Redis
+    void tryConsume_whenSharedBucketEmpty_returnsRejectedProbe() {
+        ConsumptionProbe rejected = ConsumptionProbe.rejected(0, 30_000_000_000L, 30_000_000_000L);
+        when(redisBucketService.resolveRouteBucketAsync(RateLimitRoute.CHAT, "hash-1")).thenReturn(bucket);
+        when(bucket.tryConsumeAsMuchAsPossible(5)).thenReturn(CompletableFuture.completedFuture(0L));
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(CompletableFuture.completedFuture(rejected));
+
+        ConsumptionProbe probe = localRateLimitTier.check(RateLimitRoute.CHAT, "hash-1");
+
+        assertFalse(probe.isConsumed());
+        assertEquals(30_000_000_000L, probe.getNanosToWaitForRefill());
+    }
+
+    @Test
+    // Tests that a chunk size of 1 goes straight to the shared bucket on every request
+    void tryConsume_whenLocalTierDisabled_consumesFromRedisEachTime() {
+        ConsumptionProbe consumed = ConsumptionProbe.consumed(3, 0);
+        when(redisBucketService.resolveRouteBucketAsync(RateLimitRoute.OCR, "hash-1")).thenReturn(bucket);
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(CompletableFuture.completedFuture(consumed));
+
+        localRateLimitTier.check(RateLimitRoute.OCR, "hash-1");
+        localRateLimitTier.check(RateLimitRoute.OCR, "hash-1");
+
+        verify(bucket, times(2)).tryConsumeAndReturnRemaining(1);
+        verify(bucket, never()).tryConsumeAsMuchAsPossible(anyLong());
+    }
+
+    @Test
+    // Tests that a Redis check past its deadline is admitted on a fail-open route
+    void check_whenRedisTooSlowOnFailOpenRoute_admitsRequest() {
+        when(redisBucketService.resolveRouteBucketAsync(RateLimitRoute.CHAT, "hash-1")).thenReturn(bucket);
+        when(bucket.tryConsumeAsMuchAsPossible(5)).thenReturn(new CompletableFuture<>());
+
+        assertTrue(localRateLimitTier.check(RateLimitRoute.CHAT, "hash-1").isConsumed());
+    }
+
+    @Test
+    // Tests that a failed Redis check is rejected with a short retry on a fail-closed route
+    void check_whenRedisFailsOnFailClosedRoute_rejectsRequest() {
+        when(redisBucketService.resolveRouteBucketAsync(RateLimitRoute.TASK_CREATION, "uid:1")).thenReturn(bucket);
+        when(bucket.tryConsumeAndReturnRemaining(1))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("redis down")));
+
+        ConsumptionProbe probe = localRateLimitTier.check(RateLimitRoute.TASK_CREATION, "uid:1");
+
+        assertFalse(probe.isConsumed());
+        assertTrue(probe.getNanosToWaitForRefill() > 0);
+    }
+
+    @Test
+    // Tests that a Redis reply slower than the default deadline still counts on the fail-closed route
+    void check_whenRedisSlowWithinTaskCreationDeadline_usesRedisResult() {
+        CompletableFuture<ConsumptionProbe> slow = new CompletableFuture<>();
+        when(redisBucketService.resolveRouteBucketAsync(RateLimitRoute.TASK_CREATION, "uid:1")).thenReturn(bucket);
+        when(bucket.tryConsumeAndReturnRemaining(1)).thenReturn(slow);
+        CompletableFuture.delayedExecutor(100, java.util.concurrent.TimeUnit.MILLISECONDS)
+                .execute(() -> slow.complete(ConsumptionProbe.consumed(4, 0)));
+
+        ConsumptionProbe probe = localRateLimitTier.check(RateLimitRoute.TASK_CREATION, "uid:1");
+
+        assertTrue(probe.isConsumed());
+        verifyNoInteractions(telemetryClient);
+    }
+
+    @Test
+    // Tests that a closed lease hands back its unused tokens once and never serves again
+    void lease_whenClosed_stopsServingTokens() {
+        LocalRateLimitTier.Lease lease = new LocalRateLimitTier.Lease(3);
+
+        assertEquals(2, lease.tryTake());
+        assertEquals(2, lease.close());
+        assertEquals(-1, lease.tryTake());
+    }
+}
@@ -0,0 +1,78 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fleebug.corerouter.entity.apikey.ApiKey;
+import com.fleebug.corerouter.entity.user.User;
+import com.fleebug.corerouter.exception.apikey.ApiKeyLimitExceededException;
+import com.fleebug.corerouter.exception.billing.InsufficientBalanceException;
+import com.fleebug.corerouter.service.apikey.ApiKeyUsageCounter;
+import com.fleebug.corerouter.service.billing.WalletBalanceService;
+import com.microsoft.applicationinsights.TelemetryClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskAdmissionServiceTest {
+
+    @Mock private TelemetryClient telemetryClient;
+    @Mock private ApiKeyUsageCounter apiKeyUsageCounter;
+    @Mock private WalletBalanceService walletBalanceService;
+
+    @InjectMocks
+    private TaskAdmissionService taskAdmissionService;
+
+    private ApiKey apiKey;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(taskAdmissionService, "holdAmount", new BigDecimal("0.10"));
+
+        apiKey = ApiKey.builder()
+                .apiKeyId(10)
+                .user(User.builder().userId(1).build())
+                .dailyLimit(10)
+                .monthlyLimit(100)
+                .build();
+    }
+
+    @Test
+    // Tests that a key at its daily limit is refused before any wallet hold is placed
+    void admit_whenDailyLimitReached_throwsLimitExceeded() {
+        when(apiKeyUsageCounter.peek(apiKey))
+                .thenReturn(new ApiKeyUsageCounter.Result(ApiKeyUsageCounter.Status.DAILY_LIMIT_REACHED, 10, 40));
+
+        assertThrows(ApiKeyLimitExceededException.class, () -> taskAdmissionService.admit(apiKey, "task-1"));
+        verifyNoInteractions(walletBalanceService);
+    }
+
+    @Test
+    // Tests that a wallet that can't cover the hold is refused with InsufficientBalanceException
+    void admit_whenBalanceEmpty_throwsInsufficientBalance() {
+        when(apiKeyUsageCounter.peek(apiKey))
+                .thenReturn(new ApiKeyUsageCounter.Result(ApiKeyUsageCounter.Status.ACQUIRED, 1, 1));
+        when(walletBalanceService.hold(1, "task-1", new BigDecimal("0.10"))).thenReturn(false);
+
+        assertThrows(InsufficientBalanceException.class, () -> taskAdmissionService.admit(apiKey, "task-1"));
+    }
+
+    @Test
+    // Tests that a funded key within quota is admitted with a hold placed for its task
+    void admit_whenWithinQuotaAndFunded_placesHold() {
+        when(apiKeyUsageCounter.peek(apiKey))
+                .thenReturn(new ApiKeyUsageCounter.Result(ApiKeyUsageCounter.Status.ACQUIRED, 1, 1));
+        when(walletBalanceService.hold(1, "task-1", new BigDecimal("0.10"))).thenReturn(true);
+
+        assertDoesNotThrow(() -> taskAdmissionService.admit(apiKey, "task-1"));
+
+        verify(walletBalanceService).hold(1, "task-1", new BigDecimal("0.10"));
+    }
+}
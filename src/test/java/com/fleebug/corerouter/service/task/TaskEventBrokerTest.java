@@ -0,0 +1,91 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleebug.corerouter.dto.task.response.TaskEventResponse;
+import com.fleebug.corerouter.entity.task.Task;
+import com.fleebug.corerouter.enums.task.TaskStatus;
+import com.fleebug.corerouter.service.redis.RedisService;
+import com.microsoft.applicationinsights.TelemetryClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskEventBrokerTest {
+
+    @Mock private TelemetryClient telemetryClient;
+    @Mock private RedisService redisService;
+    @Mock private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private TaskEventBroker taskEventBroker;
+
+    @Test
+    // Tests that a status update is published on the task's own channel
+    void publish_outsideTransaction_publishesOnTaskChannel() throws Exception {
+        Task task = Task.builder().taskId("t-1").status(TaskStatus.COMPLETED).resultPayload("{\"output\":\"hi\"}").build();
+
+        taskEventBroker.publish(task);
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisService).publishToChannel(eq("task:events:t-1"), message.capture());
+        Map<?, ?> event = objectMapper.readValue(message.getValue(), Map.class);
+        assertEquals("COMPLETED", event.get("status"));
+        assertEquals("{\"output\":\"hi\"}", event.get("result"));
+    }
+
+    @Test
+    // Tests that the channel is subscribed once per task and released with the last listener
+    void subscribe_sharesOneChannelPerTask_andReleasesItWithLastListener() {
+        Runnable first = taskEventBroker.subscribe("t-1", event -> { });
+        Runnable second = taskEventBroker.subscribe("t-1", event -> { });
+
+        verify(redisMessageListenerContainer, times(1)).addMessageListener(any(MessageListener.class), eq(new ChannelTopic("task:events:t-1")));
+
+        first.run();
+        verify(redisMessageListenerContainer, never()).removeMessageListener(any(MessageListener.class), any(ChannelTopic.class));
+
+        second.run();
+        verify(redisMessageListenerContainer).removeMessageListener(any(MessageListener.class), eq(new ChannelTopic("task:events:t-1")));
+    }
+
+    @Test
+    // Tests that a received message is parsed and delivered to local listeners
+    void onMessage_deliversParsedEventToListeners() {
+        List<TaskEventResponse> received = new ArrayList<>();
+        taskEventBroker.subscribe("t-1", received::add);
+
+        ArgumentCaptor<MessageListener> listener = ArgumentCaptor.forClass(MessageListener.class);
+        verify(redisMessageListenerContainer).addMessageListener(listener.capture(), any(ChannelTopic.class));
+
+        String body = "{\"taskId\":\"t-1\",\"status\":\"PROCESSING\",\"result\":\"{\\\"delta\\\":\\\"Hel\\\"}\"}";
+        listener.getValue().onMessage(new DefaultMessage(
+                "task:events:t-1".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertEquals(1, received.size());
+        assertEquals(TaskStatus.PROCESSING, received.get(0).getStatus());
+        assertEquals(Map.of("delta", "Hel"), received.get(0).getResult());
+        assertFalse(received.get(0).isTerminal());
+    }
+}
@@ -0,0 +1,128 @@
+package com.fleebug.corerouter.service.task;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskPartitionMaintenanceTest {
+
+    @Mock
+    private TelemetryClient telemetryClient;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private Connection connection;
+
+    @InjectMocks
+    private TaskPartitionMaintenance taskPartitionMaintenance;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(taskPartitionMaintenance, "monthsAhead", 2);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyString(), any(Date.class))).thenReturn(false);
+    }
+
+    @Test
+    // Tests that partitions are ensured from the current month through monthsAhead for every partitioned table
+    void maintain_createsPartitionsAhead() {
+        taskPartitionMaintenance.maintain(YearMonth.of(2026, 11));
+
+        for (String table : List.of("tasks", "usage_records", "task_payloads")) {
+            for (LocalDate month : List.of(LocalDate.of(2026, 11, 1), LocalDate.of(2026, 12, 1), LocalDate.of(2027, 1, 1))) {
+                verify(jdbcTemplate).queryForObject(anyString(), eq(Boolean.class), eq(table), eq(Date.valueOf(month)));
+            }
+        }
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    // Tests that only partitions whose whole month is past the retention are detached, and none are dropped by default
+    void maintain_withRetention_detachesExpiredPartitionsOnly() throws SQLException {
+        ReflectionTestUtils.setField(taskPartitionMaintenance, "retentionMonths", 3);
+        holdLock(true);
+        stubPartitions("tasks", new TaskPartitionMaintenance.Partition("tasks_p202607", false),
+                new TaskPartitionMaintenance.Partition("tasks_p202608", false),
+                new TaskPartitionMaintenance.Partition("tasks_p202611", false),
+                new TaskPartitionMaintenance.Partition("tasks_archive", false));
+        stubPartitions("usage_records", new TaskPartitionMaintenance.Partition("usage_records_p202607", false));
+        stubPartitions("task_payloads", new TaskPartitionMaintenance.Partition("task_payloads_p202607", false),
+                new TaskPartitionMaintenance.Partition("task_payloads_p202610", false));
+
+        taskPartitionMaintenance.maintain(YearMonth.of(2026, 11));
+
+        verify(jdbcTemplate).execute("ALTER TABLE tasks DETACH PARTITION tasks_p202607 CONCURRENTLY");
+        verify(jdbcTemplate).execute("ALTER TABLE usage_records DETACH PARTITION usage_records_p202607 CONCURRENTLY");
+        verify(jdbcTemplate).execute("ALTER TABLE task_payloads DETACH PARTITION task_payloads_p202607 CONCURRENTLY");
+        verify(jdbcTemplate, times(3)).execute(anyString());
+        verify(connection.createStatement()).executeQuery(contains("pg_advisory_unlock"));
+    }
+
+    @Test
+    // Tests that a pending detach is finalized and that one failed detach does not stop the others
+    void maintain_withRetention_finalizesPendingAndContinuesAfterFailure() throws SQLException {
+        ReflectionTestUtils.setField(taskPartitionMaintenance, "retentionMonths", 3);
+        holdLock(true);
+        stubPartitions("tasks", new TaskPartitionMaintenance.Partition("tasks_p202606", true),
+                new TaskPartitionMaintenance.Partition("tasks_p202607", false),
+                new TaskPartitionMaintenance.Partition("tasks_p202608", false));
+        stubPartitions("usage_records");
+        stubPartitions("task_payloads");
+        lenient().doThrow(new CannotAcquireLockException("lock timeout"))
+                .when(jdbcTemplate).execute("ALTER TABLE tasks DETACH PARTITION tasks_p202607 CONCURRENTLY");
+
+        taskPartitionMaintenance.maintain(YearMonth.of(2026, 11));
+
+        verify(jdbcTemplate).execute("ALTER TABLE tasks DETACH PARTITION tasks_p202606 FINALIZE");
+        verify(jdbcTemplate).execute("ALTER TABLE tasks DETACH PARTITION tasks_p202608 CONCURRENTLY");
+        verify(telemetryClient).trackException(any(CannotAcquireLockException.class),
+                argThat(props -> "tasks_p202607".equals(props.get("partition"))), isNull());
+    }
+
+    @Test
+    // Tests that nothing is detached while another node holds the maintenance lock
+    void maintain_withRetention_skipsDetachWhenLockHeldElsewhere() throws SQLException {
+        ReflectionTestUtils.setField(taskPartitionMaintenance, "retentionMonths", 3);
+        holdLock(false);
+
+        taskPartitionMaintenance.maintain(YearMonth.of(2026, 11));
+
+        verify(jdbcTemplate, never()).query(anyString(), any(RowMapper.class), any(Object[].class));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void holdLock(boolean acquired) throws SQLException {
+        when(connection.createStatement().executeQuery(anyString()).next()).thenReturn(true);
+        when(connection.createStatement().executeQuery(anyString()).getBoolean(1)).thenReturn(acquired);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubPartitions(String table, TaskPartitionMaintenance.Partition... partitions) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(table))).thenReturn(List.of(partitions));
+    }
+}
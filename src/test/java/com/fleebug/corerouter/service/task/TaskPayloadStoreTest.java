@@ -0,0 +1,67 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fleebug.corerouter.entity.task.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TaskPayloadStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private TaskPayloadStore taskPayloadStore;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(taskPayloadStore, "compressThresholdBytes", 64);
+    }
+
+    @Test
+    // Tests that results at or above the threshold are gzipped and decode back, while small ones are stored as is
+    @SuppressWarnings("unchecked")
+    void saveResults_compressesLargePayloadsOnly() {
+        LocalDateTime createdAt = LocalDateTime.of(2026, 3, 10, 14, 5);
+        String large = "{\"text\":\"" + "lorem ipsum ".repeat(50) + "\"}";
+        Task small = Task.builder().taskId("task-1").createdAt(createdAt).resultPayload("{\"ok\":true}").build();
+        Task big = Task.builder().taskId("task-2").createdAt(createdAt).resultPayload(large).build();
+        Task pending = Task.builder().taskId("task-3").createdAt(createdAt).build();
+
+        taskPayloadStore.saveResults(List.of(small, big, pending));
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        Object[] smallRow = rows.getValue().get(0);
+        assertEquals(false, smallRow[3]);
+        assertEquals("{\"ok\":true}", TaskPayloadStore.decode((byte[]) smallRow[2], false));
+        Object[] bigRow = rows.getValue().get(1);
+        assertEquals(true, bigRow[3]);
+        assertTrue(((byte[]) bigRow[2]).length < large.length());
+        assertEquals(large, TaskPayloadStore.decode((byte[]) bigRow[2], true));
+    }
+
+    @Test
+    // Tests that tasks without results do not issue a write
+    void saveResults_withoutResults_skipsWrite() {
+        taskPayloadStore.saveResults(List.of(Task.builder().taskId("task-1").build()));
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
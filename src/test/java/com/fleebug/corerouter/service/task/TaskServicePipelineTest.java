@@ -1,35 +1,51 @@
 package com.fleebug.corerouter.service.task;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fleebug.corerouter.dto.task.request.TaskCreateRequest;
 import com.fleebug.corerouter.dto.task.request.TaskStatusUpdateRequest;
+import com.fleebug.corerouter.dto.task.response.TaskStatusBatchItemResponse;
 import com.fleebug.corerouter.entity.apikey.ApiKey;
 import com.fleebug.corerouter.entity.model.Model;
 import com.fleebug.corerouter.entity.task.Task;
+import com.fleebug.corerouter.entity.task.TaskOutbox;
+import com.fleebug.corerouter.entity.user.User;
 import com.fleebug.corerouter.enums.apikey.ApiKeyStatus;
 import com.fleebug.corerouter.enums.task.TaskStatus;
+import com.fleebug.corerouter.exception.apikey.ApiKeyLimitExceededException;
+import com.fleebug.corerouter.exception.task.TaskNotFoundException;
 import com.fleebug.corerouter.repository.apikey.ApiKeyRepository;
 import com.fleebug.corerouter.repository.model.ModelRepository;
+import com.fleebug.corerouter.repository.task.TaskOutboxRepository;
 import com.fleebug.corerouter.repository.task.TaskRepository;
 import com.fleebug.corerouter.service.billing.TaskBillingService;
-import com.fleebug.corerouter.service.redis.RedisService;
+import com.fleebug.corerouter.service.billing.UsageRollupService;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
+import com.fleebug.corerouter.util.TaskIds;
 import com.microsoft.applicationinsights.TelemetryClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -46,14 +62,35 @@ class TaskServicePipelineTest {
     private ModelRepository modelRepository;
 
     @Mock
-    private RedisService redisService;
+    private TaskOutboxRepository taskOutboxRepository;
 
     @Mock
     private TaskBillingService taskBillingService;
 
+    @Mock
+    private UsageRollupService usageRollupService;
+
+    @Mock
+    private HourlyMetricsService hourlyMetricsService;
+
+    @Mock
+    private TaskEventBroker taskEventBroker;
+
+    @Mock
+    private TaskStatusWriteBehind taskStatusWriteBehind;
+
+    @Mock
+    private TaskAdmissionService taskAdmissionService;
+
+    @Mock
+    private TaskPayloadStore taskPayloadStore;
+
     @Mock
     private TelemetryClient telemetryClient;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @Spy
     private ObjectMapper objectMapper = new ObjectMapper();
 
@@ -64,21 +101,21 @@ class TaskServicePipelineTest {
     private ArgumentCaptor<Task> taskCaptor;
 
     @Captor
-    private ArgumentCaptor<Map<String, String>> redisPayloadCaptor;
+    private ArgumentCaptor<TaskOutbox> outboxCaptor;
 
     private ApiKey activeApiKey;
     private Model testModel;
 
     @BeforeEach
     void setUp() {
-        activeApiKey = ApiKey.builder().apiKeyId(1).status(ApiKeyStatus.ACTIVE).build();
+        activeApiKey = ApiKey.builder().apiKeyId(1).user(User.builder().userId(7).build()).status(ApiKeyStatus.ACTIVE).build();
         testModel = Model.builder().modelId(10).fullname("gpt-4-test").build();
     }
 
     @Test
     // UT-TASK-01: Task creation -> Check it saves with QUEUED status and generates a taskId.
-    // UT-TASK-02: Task pushed to Redis stream -> Check redisService.appendToStream was called with correct payload.
-    void createTask_SavesTaskAsQueued_AndPushesToRedisStream() throws JsonProcessingException {
+    // UT-TASK-02: Task stream record written to the outbox -> Check the outbox row carries the correct payload.
+    void createTask_SavesTaskAsQueued_AndWritesStreamRecordToOutbox() throws JsonProcessingException {
         TaskCreateRequest request = TaskCreateRequest.builder()
                 .apiKeyId(1)
                 .modelId(10)
@@ -97,24 +134,53 @@ class TaskServicePipelineTest {
 
         // Verification for TASK-01
         assertNotNull(result.getTaskId(), "Task must have an auto-generated UUID");
+        TaskIds.CreatedAtRange range = TaskIds.createdAtRange(result.getTaskId());
+        assertFalse(result.getCreatedAt().isBefore(range.from()) || result.getCreatedAt().isAfter(range.to()),
+                "Task id must bound createdAt so lookups by id can prune partitions");
         assertEquals(TaskStatus.QUEUED, result.getStatus(), "Initial state of a new task must be QUEUED");
         assertEquals("{\"prompt\":\"Hello world\"}", result.getRequestPayload(), "Payload must be strictly serialized");
 
         verify(taskRepository).save(taskCaptor.capture());
         Task capturedTask = taskCaptor.getValue();
         assertEquals(TaskStatus.QUEUED, capturedTask.getStatus());
+        assertEquals(7, capturedTask.getUserId(), "Task must carry the api key owner's userId");
+        verify(taskPayloadStore).saveRequest(result.getTaskId(), result.getCreatedAt(), "{\"prompt\":\"Hello world\"}");
 
         // Verification for TASK-02
-        verify(redisService).appendToStream(eq("stream:tasks"), redisPayloadCaptor.capture());
-        Map<String, String> redisData = redisPayloadCaptor.getValue();
-        
+        verify(taskOutboxRepository).save(outboxCaptor.capture());
+        TaskOutbox outbox = outboxCaptor.getValue();
+        assertEquals("stream:tasks", outbox.getStreamKey());
+        assertEquals(result.getTaskId(), outbox.getTaskId());
+
+        Map<String, String> redisData = objectMapper.readValue(outbox.getPayload(), new TypeReference<Map<String, String>>() {});
+
         assertEquals(result.getTaskId(), redisData.get("taskId"), "Redis stream must contain the identical task ID");
         assertEquals("1", redisData.get("apiKeyId"));
         assertEquals("10", redisData.get("modelId"));
     }
 
+    @Test
+    // Tests that a submission refused by admission control is never persisted or queued
+    void createTask_whenAdmissionRejects_doesNotSaveOrQueue() {
+        TaskCreateRequest request = TaskCreateRequest.builder()
+                .apiKeyId(1)
+                .modelId(10)
+                .payload(Map.of("prompt", "Hello world"))
+                .build();
+
+        when(apiKeyRepository.findById(1)).thenReturn(Optional.of(activeApiKey));
+        doThrow(new ApiKeyLimitExceededException("Daily usage limit of 10 exceeded for API key."))
+                .when(taskAdmissionService).admit(eq(activeApiKey), anyString());
+
+        assertThrows(ApiKeyLimitExceededException.class, () -> taskService.createTask(request));
+
+        verify(taskRepository, never()).save(any(Task.class));
+        verifyNoInteractions(taskOutboxRepository);
+    }
+
     @Test
     // UT-TASK-03,04,05: Status transitions -> Check updateTaskStatus handles state changes correctly
+    @SuppressWarnings("unchecked")
     void updateTaskStatus_TransitionsFromQueuedToProcessingToCompleted() {
         String taskId = "sample-task-123";
         Task existingTask = Task.builder()
@@ -127,11 +193,16 @@ class TaskServicePipelineTest {
         TaskStatusUpdateRequest processingRequest = new TaskStatusUpdateRequest(taskId, 
                 TaskStatus.PROCESSING, null, null);
         
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(taskId), any(), any())).thenReturn(List.of("QUEUED"));
         when(taskRepository.findByTaskId(taskId)).thenReturn(Optional.of(existingTask));
         when(taskRepository.save(any(Task.class))).thenAnswer(i -> i.getArgument(0));
 
         Task processingTask = taskService.updateTaskStatus(processingRequest);
         assertEquals(TaskStatus.PROCESSING, processingTask.getStatus());
+
+        // Transient status is buffered for the write-behind flush, not saved synchronously
+        verify(taskStatusWriteBehind).record(processingTask);
+        verify(taskRepository, never()).save(any(Task.class));
         
         // Task-04 & 05: PROCESSING -> COMPLETED
         existingTask.setStatus(TaskStatus.PROCESSING);
@@ -144,5 +215,100 @@ class TaskServicePipelineTest {
         
         // Ensure billing gets triggered on COMPLETED
         verify(taskBillingService).applyDebitIfEligible(completedTask);
+        verify(usageRollupService).recordCompletions(List.of(completedTask));
+        verify(hourlyMetricsService).taskStatusChanged(completedTask.getCreatedAt(), TaskStatus.PROCESSING, TaskStatus.COMPLETED);
+        verify(taskPayloadStore).saveResults(List.of(completedTask));
+
+        // The row is locked before the previous status is read
+        InOrder lockThenRead = inOrder(jdbcTemplate, taskRepository);
+        lockThenRead.verify(jdbcTemplate).query(contains("FOR UPDATE"), any(PreparedStatementSetter.class), any(RowMapper.class));
+        lockThenRead.verify(taskRepository).findByTaskId(taskId);
+
+        verify(taskStatusWriteBehind).discard(taskId);
+
+        // Every transition is pushed to event subscribers
+        verify(taskEventBroker).publish(processingTask);
+        verify(taskEventBroker).publish(existingTask);
+    }
+
+    @Test
+    // Tests that a terminal update without a result responds and publishes with the result stored earlier
+    void updateTaskStatus_whenTerminalUpdateHasNoResult_loadsStoredResult() {
+        Task existingTask = Task.builder()
+                .taskId("t-streamed")
+                .status(TaskStatus.PROCESSING)
+                .createdAt(java.time.LocalDateTime.now())
+                .build();
+        when(taskRepository.findByTaskId("t-streamed")).thenReturn(Optional.of(existingTask));
+        when(taskRepository.save(any(Task.class))).thenAnswer(i -> i.getArgument(0));
+        when(taskPayloadStore.loadResult(existingTask)).thenAnswer(i -> {
+            existingTask.setResultPayload("{\"text\":\"partial and final\"}");
+            return existingTask;
+        });
+
+        Task completed = taskService.updateTaskStatus(
+                new TaskStatusUpdateRequest("t-streamed", TaskStatus.COMPLETED, null, null));
+
+        assertEquals("{\"text\":\"partial and final\"}", completed.getResultPayload());
+        InOrder loadThenPublish = inOrder(taskPayloadStore, taskEventBroker);
+        loadThenPublish.verify(taskPayloadStore).loadResult(existingTask);
+        loadThenPublish.verify(taskEventBroker).publish(existingTask);
+    }
+
+    @Test
+    // Tests that a transient update for an unknown task is rejected instead of buffered and published
+    void updateTaskStatus_whenTransientUpdateForMissingTask_throwsTaskNotFoundException() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("missing-task"), any(), any())).thenReturn(List.of());
+
+        assertThrows(TaskNotFoundException.class, () -> taskService.updateTaskStatus(
+                new TaskStatusUpdateRequest("missing-task", TaskStatus.PROCESSING, null, null)));
+
+        verifyNoInteractions(taskStatusWriteBehind, taskEventBroker);
+    }
+
+    @Test
+    // Tests that the lightweight status read reports a missing task the same way as getTaskById
+    @SuppressWarnings("unchecked")
+    void getTaskState_whenTaskMissing_throwsTaskNotFoundException() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), eq("missing-task"), any(), any())).thenReturn(List.of());
+
+        assertThrows(TaskNotFoundException.class, () -> taskService.getTaskState("missing-task"));
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    // Batch status update -> one IN query for all tasks, per-item results, failed debit leaves its task untouched
+    void updateTaskStatusBatch_ReportsPerItemResults() {
+        Task completing = Task.builder().taskId("t-ok").status(TaskStatus.PROCESSING)
+                .createdAt(java.time.LocalDateTime.now()).build();
+        Task unpaid = Task.builder().taskId("t-unpaid").status(TaskStatus.PROCESSING)
+                .createdAt(java.time.LocalDateTime.now()).build();
+        Task progressing = Task.builder().taskId("t-progress").status(TaskStatus.QUEUED)
+                .createdAt(java.time.LocalDateTime.now()).build();
+
+        when(taskRepository.findAllWithUserByTaskIdIn(any())).thenReturn(List.of(completing, unpaid, progressing));
+        when(taskBillingService.applyDebitsIfEligible(any())).thenReturn(Map.of("t-unpaid", "Insufficient balance for task completion"));
+
+        List<TaskStatusBatchItemResponse> results = taskService.updateTaskStatusBatch(List.of(
+                new TaskStatusUpdateRequest("t-ok", TaskStatus.COMPLETED, Map.of("result", "ok"), null),
+                new TaskStatusUpdateRequest("t-progress", TaskStatus.PROCESSING, null, null),
+                new TaskStatusUpdateRequest("t-unpaid", TaskStatus.COMPLETED, null, null),
+                new TaskStatusUpdateRequest("t-missing", TaskStatus.FAILED, null, null),
+                new TaskStatusUpdateRequest("t-missing-progress", TaskStatus.PROCESSING, null, null)));
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(TaskStatus.COMPLETED, results.get(0).getStatus());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertFalse(results.get(3).isSuccess());
+        assertFalse(results.get(4).isSuccess(), "Transient update for a missing task must be rejected");
+
+        verify(taskRepository, times(1)).findAllWithUserByTaskIdIn(any());
+        verify(taskStatusWriteBehind, times(1)).record(any(Task.class));
+        verify(taskRepository).saveAll(List.of(completing));
+        assertEquals(TaskStatus.PROCESSING, unpaid.getStatus(), "Task whose debit failed must keep its previous status");
+        verify(taskStatusWriteBehind).discard("t-ok");
+        verify(taskPayloadStore).loadResults(List.of());
     }
 }
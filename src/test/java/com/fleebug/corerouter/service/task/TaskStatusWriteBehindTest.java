@@ -0,0 +1,123 @@
+package com.fleebug.corerouter.service.task;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fleebug.corerouter.entity.task.Task;
+import com.fleebug.corerouter.enums.task.TaskStatus;
+import com.fleebug.corerouter.service.metrics.HourlyMetricsService;
+import com.microsoft.applicationinsights.TelemetryClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TaskStatusWriteBehindTest {
+
+    @Mock private TelemetryClient telemetryClient;
+    @Mock private StringRedisTemplate stringRedisTemplate;
+    @Mock private HashOperations<String, Object, Object> hashOperations;
+    @Mock private JdbcTemplate jdbcTemplate;
+    @Mock private HourlyMetricsService hourlyMetricsService;
+    @Mock private TaskPayloadStore taskPayloadStore;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private TaskStatusWriteBehind taskStatusWriteBehind;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+    }
+
+    @Test
+    // Tests that a buffered update replaces earlier ones for the same task
+    void record_putsLatestUpdateUnderTaskId() throws Exception {
+        Task update = Task.builder().taskId("t-1").status(TaskStatus.PROCESSING).updatedAt(LocalDateTime.now()).build();
+
+        taskStatusWriteBehind.record(update);
+
+        ArgumentCaptor<Object> json = ArgumentCaptor.forClass(Object.class);
+        verify(hashOperations).put(eq(TaskStatusWriteBehind.PENDING_KEY), eq("t-1"), json.capture());
+        Map<?, ?> fields = objectMapper.readValue((String) json.getValue(), Map.class);
+        assertEquals("PROCESSING", fields.get("status"));
+        assertFalse(fields.containsKey("result"));
+    }
+
+    @Test
+    // Tests that pending updates are written in one statement and the buffer is dropped
+    void flush_writesPendingUpdatesInOneStatement() {
+        String json = "{\"status\":\"PROCESSING\",\"updatedAt\":\"2026-01-01T10:00:00\"}";
+        when(stringRedisTemplate.hasKey(TaskStatusWriteBehind.PENDING_KEY)).thenReturn(true);
+        when(hashOperations.entries(startsWith("task:status:flushing:"))).thenReturn(Map.of("t-1", json, "t-2", json));
+
+        taskStatusWriteBehind.flush();
+
+        verify(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+        verify(stringRedisTemplate).delete(startsWith("task:status:flushing:"));
+    }
+
+    @Test
+    // Tests that a partial result is upserted by the status statement itself rather than a separate write
+    void flush_withResult_writesResultInTheStatusStatement() {
+        String json = "{\"status\":\"PROCESSING\",\"result\":\"{\\\"text\\\":\\\"par\\\"}\",\"updatedAt\":\"2026-01-01T10:00:00\"}";
+        when(stringRedisTemplate.hasKey(TaskStatusWriteBehind.PENDING_KEY)).thenReturn(true);
+        when(hashOperations.entries(startsWith("task:status:flushing:"))).thenReturn(Map.of("t-1", json));
+        when(taskPayloadStore.encode("{\"text\":\"par\"}"))
+                .thenReturn(new TaskPayloadStore.Encoded("{\"text\":\"par\"}".getBytes(StandardCharsets.UTF_8), false));
+
+        taskStatusWriteBehind.flush();
+
+        verify(jdbcTemplate).query(contains("INSERT INTO task_payloads"), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+        verify(taskPayloadStore, never()).save(anyList());
+    }
+
+    @Test
+    // Tests that a failed batch is put back without overwriting newer updates
+    void flush_whenBatchFails_requeuesPendingUpdates() {
+        String json = "{\"status\":\"PROCESSING\",\"updatedAt\":\"2026-01-01T10:00:00\"}";
+        when(stringRedisTemplate.hasKey(TaskStatusWriteBehind.PENDING_KEY)).thenReturn(true);
+        when(hashOperations.entries(startsWith("task:status:flushing:"))).thenReturn(Map.of("t-1", json));
+        doThrow(new DataAccessResourceFailureException("down"))
+                .when(jdbcTemplate).query(anyString(), any(PreparedStatementSetter.class), any(RowCallbackHandler.class));
+
+        taskStatusWriteBehind.flush();
+
+        verify(hashOperations).putIfAbsent(TaskStatusWriteBehind.PENDING_KEY, "t-1", json);
+    }
+
+    @Test
+    // Tests that an empty buffer is a no-op
+    void flush_whenNothingPending_doesNothing() {
+        when(stringRedisTemplate.hasKey(TaskStatusWriteBehind.PENDING_KEY)).thenReturn(false);
+
+        taskStatusWriteBehind.flush();
+
+        verify(stringRedisTemplate, never()).rename(anyString(), anyString());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -10,9 +10,11 @@ import com.microsoft.applicationinsights.TelemetryClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.time.LocalDateTime;
@@ -35,6 +37,12 @@ class ServiceTokenServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private ServiceTokenCache serviceTokenCache;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @InjectMocks
     private ServiceTokenService serviceTokenService;
 
@@ -89,12 +97,47 @@ class ServiceTokenServiceTest {
             .thenReturn(Optional.of(testToken));
         when(passwordEncoder.matches("secret_value", "encoded_hash"))
             .thenReturn(true);
+        when(serviceTokenCache.keyFor(rawToken)).thenReturn("cache-key");
         ServiceToken authenticatedToken = serviceTokenService.authenticate(rawToken);
 
         assertNotNull(authenticatedToken);
         assertEquals(testToken.getId(), authenticatedToken.getId());
         assertNotNull(authenticatedToken.getLastUsedAt());
-        verify(serviceTokenRepository).save(testToken);
+        verify(serviceTokenCache).put("cache-key", testToken);
+        // lastUsedAt is written behind, not on the request path
+        verify(serviceTokenRepository, never()).save(any(ServiceToken.class));
+    }
+
+    @Test
+    // Tests that a token verified earlier is served from cache without a DB lookup or BCrypt match
+    void authenticate_ReturnsCachedToken_WithoutBcrypt() {
+        String rawToken = "svc_mock_token_id.secret_value";
+        when(serviceTokenCache.keyFor(rawToken)).thenReturn("cache-key");
+        when(serviceTokenCache.get("cache-key")).thenReturn(Optional.of(testToken));
+
+        ServiceToken authenticatedToken = serviceTokenService.authenticate(rawToken);
+
+        assertSame(testToken, authenticatedToken);
+        verifyNoInteractions(serviceTokenRepository, passwordEncoder);
+    }
+
+    @Test
+    // Tests that buffered lastUsedAt values are written in one batch and the buffer is drained
+    @SuppressWarnings("unchecked")
+    void flushLastUsed_WritesOneBatchAndDrainsBuffer() {
+        String rawToken = "svc_mock_token_id.secret_value";
+        when(serviceTokenCache.keyFor(rawToken)).thenReturn("cache-key");
+        when(serviceTokenCache.get("cache-key")).thenReturn(Optional.of(testToken));
+
+        serviceTokenService.authenticate(rawToken);
+        serviceTokenService.authenticate(rawToken);
+        serviceTokenService.flushLastUsed();
+        serviceTokenService.flushLastUsed();
+
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertEquals(1, batch.getValue().size());
+        assertEquals("mock_token_id", batch.getValue().get(0)[1]);
     }
 
     @Test
@@ -152,6 +195,7 @@ class ServiceTokenServiceTest {
 
         assertFalse(testToken.isActive());
         verify(serviceTokenRepository).save(testToken);
+        verify(serviceTokenCache).revoke("mock_token_id");
     }
 
     @Test
@@ -195,5 +239,6 @@ class ServiceTokenServiceTest {
 
         assertFalse(testToken.isActive());
         verify(serviceTokenRepository).save(testToken);
+        verify(serviceTokenCache).revoke("mock_token_id");
     }
 }
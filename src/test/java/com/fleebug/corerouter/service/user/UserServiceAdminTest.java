@@ -6,6 +6,7 @@ import com.fleebug.corerouter.entity.user.User;
 import com.fleebug.corerouter.enums.user.UserRole;
 import com.fleebug.corerouter.enums.user.UserStatus;
 import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.security.service.UserDenylistService;
 import com.fleebug.corerouter.service.otp.OtpService;
 import com.microsoft.applicationinsights.TelemetryClient;
 import org.junit.jupiter.api.BeforeEach;
@@ -32,6 +33,7 @@ class UserServiceAdminTest {
     @Mock private UserRepository userRepository;
     @Mock private TelemetryClient telemetryClient;
     @Mock private OtpService otpService;
+    @Mock private UserDenylistService userDenylistService;
 
     @InjectMocks
     private UserService userService;
@@ -61,6 +63,7 @@ class UserServiceAdminTest {
         assertEquals(1, response.getUserId());
         assertEquals(UserRole.ADMIN, targetUser.getRole());
         verify(userRepository).save(targetUser);
+        verify(userDenylistService).requireReload(1);
     }
 
     @Test
@@ -87,6 +90,20 @@ class UserServiceAdminTest {
         assertEquals(UserStatus.SUSPENDED, targetUser.getStatus());
         verify(userRepository).save(targetUser);
         verify(otpService, never()).publishUserDeletedNotification(anyString(), anyString(), anyInt(), anyString());
+        verify(userDenylistService).deny(1);
+    }
+
+    @Test
+    // Tests that reactivating a user keeps their outstanding tokens on the reload path
+    void updateUserStatusByAdmin_whenReactivated_requiresReloadInsteadOfClearing() {
+        targetUser.setStatus(UserStatus.SUSPENDED);
+        when(userRepository.findById(1)).thenReturn(Optional.of(targetUser));
+        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        userService.updateUserStatusByAdmin(1, UserStatus.ACTIVE);
+
+        assertEquals(UserStatus.ACTIVE, targetUser.getStatus());
+        verify(userDenylistService).requireReload(1);
     }
 
     @Test
@@ -9,6 +9,7 @@ import com.fleebug.corerouter.exception.user.InvalidCredentialsException;
 import com.fleebug.corerouter.exception.user.UserNotFoundException;
 import com.fleebug.corerouter.repository.token.UserTokenRepository;
 import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.security.service.UserDenylistService;
 import com.fleebug.corerouter.service.activity.ActivityLogService;
 import com.fleebug.corerouter.service.otp.OtpService;
 import com.fleebug.corerouter.service.token.TokenService;
@@ -61,7 +62,8 @@ class UserServiceChangePasswordTest {
                 otpService,
                 userTokenRepository,
                 activityLogService,
-                httpClientUtil
+                httpClientUtil,
+                mock(UserDenylistService.class)
         );
 
         activeUser = User.builder()
@@ -6,6 +6,7 @@ import com.fleebug.corerouter.enums.user.UserStatus;
 import com.fleebug.corerouter.repository.user.UserRepository;
 import com.fleebug.corerouter.service.otp.OtpService;
 import com.fleebug.corerouter.service.token.TokenService;
+import com.fleebug.corerouter.security.service.UserDenylistService;
 import com.fleebug.corerouter.service.activity.ActivityLogService;
 import com.fleebug.corerouter.repository.token.UserTokenRepository;
 import com.fleebug.corerouter.util.HttpClientUtil;
@@ -54,7 +55,8 @@ class UserServicePasswordHashingTest {
             otpService,
             userTokenRepository,
             activityLogService,
-            httpClientUtil
+            httpClientUtil,
+            mock(UserDenylistService.class)
         );
     }
 
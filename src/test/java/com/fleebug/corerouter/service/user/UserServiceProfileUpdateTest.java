@@ -8,6 +8,7 @@ import com.fleebug.corerouter.enums.user.UserStatus;
 import com.fleebug.corerouter.exception.user.UserNotFoundException;
 import com.fleebug.corerouter.repository.token.UserTokenRepository;
 import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.security.service.UserDenylistService;
 import com.fleebug.corerouter.service.activity.ActivityLogService;
 import com.fleebug.corerouter.service.otp.OtpService;
 import com.fleebug.corerouter.service.token.TokenService;
@@ -60,7 +61,8 @@ class UserServiceProfileUpdateTest {
                 otpService,
                 userTokenRepository,
                 activityLogService,
-                httpClientUtil
+                httpClientUtil,
+                mock(UserDenylistService.class)
         );
 
         activeUser = User.builder()
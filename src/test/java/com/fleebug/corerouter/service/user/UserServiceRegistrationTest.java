@@ -11,6 +11,7 @@ import com.fleebug.corerouter.exception.user.InvalidOtpException;
 import com.fleebug.corerouter.exception.user.UserAlreadyExistsException;
 import com.fleebug.corerouter.repository.token.UserTokenRepository;
 import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.security.service.UserDenylistService;
 import com.fleebug.corerouter.service.activity.ActivityLogService;
 import com.fleebug.corerouter.service.otp.OtpService;
 import com.fleebug.corerouter.service.token.TokenService;
@@ -58,7 +59,8 @@ class UserServiceRegistrationTest {
                 otpService,
                 userTokenRepository,
                 activityLogService,
-                httpClientUtil
+                httpClientUtil,
+                mock(UserDenylistService.class)
         );
     }
 
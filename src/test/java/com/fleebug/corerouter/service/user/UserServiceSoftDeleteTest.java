@@ -8,6 +8,7 @@ import com.fleebug.corerouter.exception.user.InvalidCredentialsException;
 import com.fleebug.corerouter.exception.user.UserNotFoundException;
 import com.fleebug.corerouter.repository.token.UserTokenRepository;
 import com.fleebug.corerouter.repository.user.UserRepository;
+import com.fleebug.corerouter.security.service.UserDenylistService;
 import com.fleebug.corerouter.service.activity.ActivityLogService;
 import com.fleebug.corerouter.service.otp.OtpService;
 import com.fleebug.corerouter.service.token.TokenService;
@@ -40,6 +41,7 @@ class UserServiceSoftDeleteTest {
     private UserTokenRepository userTokenRepository;
     private ActivityLogService activityLogService;
     private HttpClientUtil httpClientUtil;
+    private UserDenylistService userDenylistService;
 
     private User activeUser;
 
@@ -53,6 +55,7 @@ class UserServiceSoftDeleteTest {
         userTokenRepository = mock(UserTokenRepository.class);
         activityLogService = mock(ActivityLogService.class);
         httpClientUtil = mock(HttpClientUtil.class);
+        userDenylistService = mock(UserDenylistService.class);
 
         userService = new UserService(
                 telemetryClient,
@@ -62,7 +65,8 @@ class UserServiceSoftDeleteTest {
                 otpService,
                 userTokenRepository,
                 activityLogService,
-                httpClientUtil
+                httpClientUtil,
+                userDenylistService
         );
 
         activeUser = User.builder()
@@ -127,6 +131,7 @@ class UserServiceSoftDeleteTest {
         
         // Verify changes are sent to DB
         verify(userRepository).save(activeUser);
+        verify(userDenylistService).deny(1);
 
         // Verify all live tokens got revoked
         assertTrue(token1.isRevoked());
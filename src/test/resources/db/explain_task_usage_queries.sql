@@ -0,0 +1,96 @@
+-- Before/after plans for the queries covered by V2/V3. Run against a migrated
+-- staging copy with production-sized data, never against production: the
+-- "before" half drops the new indexes inside a transaction that is rolled back,
+-- which holds an exclusive lock on tasks and usage_records while it runs.
+--
+--   psql "$STAGING_URL" -v user_id=42 -f explain_task_usage_queries.sql > plans.txt
+--
+-- Compare each pair for the access path (Index Only Scan / Index Scan vs Seq Scan
+-- or Hash Join on api_keys), Buffers: shared hit/read and Execution Time.
+
+\set ON_ERROR_STOP on
+\timing on
+
+\echo '=== BEFORE: join through api_keys, original indexes only ==='
+BEGIN;
+DROP INDEX idx_tasks_user_created;
+DROP INDEX idx_tasks_user_status_completed;
+DROP INDEX idx_tasks_status_completed;
+DROP INDEX idx_tasks_created_at;
+DROP INDEX idx_tasks_in_flight;
+DROP INDEX idx_usage_user_recorded;
+DROP INDEX idx_usage_recorded_task;
+CREATE INDEX idx_usage_api_key_id ON usage_records (api_key_id);
+
+\echo '--- monthly task quota (countByUserIdAndCreatedAtBetween)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM tasks t JOIN api_keys k ON k.api_key_id = t.api_key_id
+WHERE k.user_id = :user_id AND t.created_at BETWEEN date_trunc('month', now()) AND now();
+
+\echo '--- task insights per status (countByUserIdGroupedByStatus)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT t.status, count(*) FROM tasks t JOIN api_keys k ON k.api_key_id = t.api_key_id
+WHERE k.user_id = :user_id GROUP BY t.status;
+
+\echo '--- user spend over 30 days (sumCostByUserAndPeriod)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COALESCE(SUM(u.cost * COALESCE(bc.charge_multiplier, 1)), 0)
+FROM usage_records u JOIN api_keys k ON k.api_key_id = u.api_key_id
+LEFT JOIN billing_configs bc ON bc.billing_id = u.billing_config_id
+WHERE k.user_id = :user_id AND u.recorded_at BETWEEN now() - interval '30 days' AND now();
+
+\echo '--- admin earnings this month (sumChargedCostByStatusAndCompletedAtBetween)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COALESCE(SUM(COALESCE(charged_cost, total_cost, 0)), 0) FROM tasks
+WHERE status = 'COMPLETED' AND completed_at BETWEEN date_trunc('month', now()) AND now();
+
+\echo '--- active users today (AdminMetricsService)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(DISTINCT k.user_id) FROM tasks t JOIN api_keys k ON k.api_key_id = t.api_key_id
+WHERE t.created_at >= date_trunc('day', now());
+
+\echo '--- in-flight tasks (countByStatus QUEUED)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM tasks WHERE status = 'QUEUED';
+
+\echo '--- cost reconciler window (TaskCostReconciler)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT DISTINCT task_id FROM usage_records WHERE recorded_at > now() - interval '60 minutes';
+ROLLBACK;
+
+\echo '=== AFTER: denormalized user_id, V3 indexes ==='
+ANALYZE tasks;
+ANALYZE usage_records;
+
+\echo '--- monthly task quota (countByUserIdAndCreatedAtBetween)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM tasks
+WHERE user_id = :user_id AND created_at BETWEEN date_trunc('month', now()) AND now();
+
+\echo '--- task insights per status (countByUserIdGroupedByStatus)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT status, count(*) FROM tasks WHERE user_id = :user_id GROUP BY status;
+
+\echo '--- user spend over 30 days (sumCostByUserAndPeriod)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COALESCE(SUM(u.cost * COALESCE(bc.charge_multiplier, 1)), 0)
+FROM usage_records u
+LEFT JOIN billing_configs bc ON bc.billing_id = u.billing_config_id
+WHERE u.user_id = :user_id AND u.recorded_at BETWEEN now() - interval '30 days' AND now();
+
+\echo '--- admin earnings this month (sumChargedCostByStatusAndCompletedAtBetween)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COALESCE(SUM(COALESCE(charged_cost, total_cost, 0)), 0) FROM tasks
+WHERE status = 'COMPLETED' AND completed_at BETWEEN date_trunc('month', now()) AND now();
+
+\echo '--- active users today (AdminMetricsService)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(DISTINCT user_id) FROM tasks WHERE created_at >= date_trunc('day', now());
+
+\echo '--- in-flight tasks (countByStatus QUEUED)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT count(*) FROM tasks WHERE status = 'QUEUED';
+
+\echo '--- cost reconciler window (TaskCostReconciler)'
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT DISTINCT task_id FROM usage_records WHERE recorded_at > now() - interval '60 minutes';